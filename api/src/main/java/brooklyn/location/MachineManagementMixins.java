@@ -18,8 +18,11 @@
  */
 package brooklyn.location;
 
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.annotations.Beta;
+
 public class MachineManagementMixins {
     
     public interface RichMachineProvisioningLocation<T extends MachineLocation> extends MachineProvisioningLocation<T>, ListsMachines, GivesMachineMetadata, KillsMachines {}
@@ -45,6 +48,35 @@ public class MachineManagementMixins {
         void killMachine(String cloudServiceId);
     }
     
+    /**
+     * A provisioning location which can obtain several equivalent machines more efficiently than
+     * by separate calls to {@link MachineProvisioningLocation#obtain(Map)}, e.g. with a single request to the cloud.
+     */
+    @Beta
+    public interface ObtainsMachinesInBatches<T extends MachineLocation> extends MachineProvisioningLocation<T> {
+        /** Obtains {@code count} machines, all with the given flags; returns those successfully obtained,
+         *  which may be fewer than requested, and throws if none could be obtained */
+        List<? extends T> obtain(Map<?,?> flags, int count) throws NoMachinesAvailableException;
+        
+        /** Indicates that {@code count} calls to {@link #obtain(Map)} are about to be made concurrently
+         *  (e.g. by new members of a cluster, being started in parallel), so that those with equivalent flags
+         *  can be satisfied in a single batch; implementations may ignore this */
+        void expectObtains(int count);
+    }
+    
+    /**
+     * A provisioning location which caches what it resolves from the cloud in order to provision,
+     * such as the template chosen for given constraints.
+     */
+    @Beta
+    public interface CachesTemplates {
+        /** returns counts describing the cache, e.g. hits, misses and the number of entries */
+        Map<String,Object> getTemplateCacheMetrics();
+        
+        /** discards everything cached, so that subsequent provisioning resolves afresh from the cloud */
+        void invalidateTemplateCache();
+    }
+    
     /** very lightweight machine record */
     public interface MachineMetadata {
         /** The cloud service ID -- distinct from any Brooklyn {@link Location#getId()} */
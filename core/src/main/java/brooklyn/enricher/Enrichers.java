@@ -29,6 +29,8 @@ import java.util.Set;
 import brooklyn.enricher.basic.AbstractEnricher;
 import brooklyn.enricher.basic.Aggregator;
 import brooklyn.enricher.basic.Combiner;
+import brooklyn.enricher.basic.IncrementalAggregation;
+import brooklyn.enricher.basic.IncrementalAggregations;
 import brooklyn.enricher.basic.Propagator;
 import brooklyn.enricher.basic.Transformer;
 import brooklyn.enricher.basic.UpdatingMap;
@@ -43,12 +45,14 @@ import brooklyn.util.collections.MutableMap;
 import brooklyn.util.collections.MutableSet;
 import brooklyn.util.flags.TypeCoercions;
 import brooklyn.util.text.Strings;
+import brooklyn.util.time.Duration;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -182,6 +186,8 @@ public class Enrichers {
         protected Predicate<Object> valueFilter;
         protected Object defaultValueForUnreportedSensors;
         protected Object valueToReportIfNoSensors;
+        protected IncrementalAggregationKind incremental;
+        protected Duration coalescePeriod;
         
         public AbstractAggregatorBuilder(AttributeSensor<S> aggregating) {
             super(Aggregator.class);
@@ -210,8 +216,13 @@ public class Enrichers {
         }
         public B computing(Function<? super Collection<S>, ? extends T> val) {
             this.computing = checkNotNull(val);
+            this.incremental = null;
             return self();
         }
+        /** 
+         * Computes the sum; this is maintained incrementally as values change, 
+         * rather than re-summing all values on each change. 
+         */
         @SuppressWarnings({ "unchecked", "rawtypes" })
         public B computingSum() {
             // relies of TypeCoercion of result from Number to T, and type erasure for us to get away with it!
@@ -220,8 +231,10 @@ public class Enrichers {
                     return sum((Collection)input, (Number)defaultValueForUnreportedSensors, (Number)valueToReportIfNoSensors, (TypeToken) publishing.getTypeToken());
                 }};
             this.computing((Function)function);
+            this.incremental = IncrementalAggregationKind.SUM;
             return self();
         }
+        /** As {@link #computingSum()}, but for the mean. */
         @SuppressWarnings({ "unchecked", "rawtypes" })
         public B computingAverage() {
             // relies of TypeCoercion of result from Number to T, and type erasure for us to get away with it!
@@ -230,6 +243,32 @@ public class Enrichers {
                     return average((Collection)input, (Number)defaultValueForUnreportedSensors, (Number)valueToReportIfNoSensors, (TypeToken) publishing.getTypeToken());
                 }};
             this.computing((Function)function);
+            this.incremental = IncrementalAggregationKind.AVERAGE;
+            return self();
+        }
+        /** As {@link #computingSum()}, but for the number of (non-null, unless there is a default value) values. */
+        public B computingCount() {
+            return computingIncremental(IncrementalAggregationKind.COUNT);
+        }
+        /** As {@link #computingSum()}, but for the minimum value. */
+        public B computingMin() {
+            return computingIncremental(IncrementalAggregationKind.MIN);
+        }
+        /** As {@link #computingSum()}, but for the maximum value. */
+        public B computingMax() {
+            return computingIncremental(IncrementalAggregationKind.MAX);
+        }
+        protected B computingIncremental(IncrementalAggregationKind val) {
+            this.computing = null;
+            this.incremental = checkNotNull(val);
+            return self();
+        }
+        /** 
+         * Publishes the aggregate at most once per the given period, rather than on every change;
+         * useful when aggregating over many frequently-changing producers.
+         */
+        public B coalescing(Duration val) {
+            this.coalescePeriod = val;
             return self();
         }
         public B defaultValueForUnreportedSensors(S val) {
@@ -273,6 +312,8 @@ public class Enrichers {
                             .putIfNotNull(Aggregator.FROM_CHILDREN, fromChildren)
                             .putIfNotNull(Aggregator.FROM_MEMBERS, fromMembers)
                             .putIfNotNull(Aggregator.TRANSFORMATION, computing)
+                            .putIfNotNull(Aggregator.INCREMENTAL_AGGREGATION, incrementalAggregation())
+                            .putIfNotNull(Aggregator.COALESCE_PERIOD, coalescePeriod)
                             .putIfNotNull(Aggregator.FROM_HARDCODED_PRODUCERS, fromHardcodedProducers)
                             .putIfNotNull(Aggregator.ENTITY_FILTER, entityFilter)
                             .putIfNotNull(Aggregator.VALUE_FILTER, valueFilter)
@@ -280,6 +321,22 @@ public class Enrichers {
                             .build());
         }
         
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        protected Supplier<? extends IncrementalAggregation<?,?>> incrementalAggregation() {
+            if (incremental == null || publishing == null) return null;
+            Number valueIfNull = (Number) defaultValueForUnreportedSensors;
+            Number valueIfNone = (Number) valueToReportIfNoSensors;
+            TypeToken type = publishing.getTypeToken();
+            switch (incremental) {
+            case SUM: return IncrementalAggregations.sum(valueIfNull, valueIfNone, type);
+            case AVERAGE: return IncrementalAggregations.average(valueIfNull, valueIfNone, type);
+            case COUNT: return IncrementalAggregations.count(valueIfNull, type);
+            case MIN: return IncrementalAggregations.min(valueIfNull, valueIfNone, type);
+            case MAX: return IncrementalAggregations.max(valueIfNull, valueIfNone, type);
+            default: throw new IllegalStateException("Unexpected aggregation "+incremental);
+            }
+        }
+        
         @Override
         public String toString() {
             return Objects.toStringHelper(this)
@@ -288,6 +345,8 @@ public class Enrichers {
                     .add("publishing", publishing)
                     .add("fromEntity", fromEntity)
                     .add("computing", computing)
+                    .add("incremental", incremental)
+                    .add("coalescePeriod", coalescePeriod)
                     .add("fromMembers", fromMembers)
                     .add("fromChildren", fromChildren)
                     .add("excludingBlank", excludingBlank)
@@ -626,6 +685,10 @@ public class Enrichers {
         }
     }
 
+    protected static enum IncrementalAggregationKind {
+        SUM, AVERAGE, COUNT, MIN, MAX;
+    }
+
     protected static <T extends Number> T average(Collection<T> vals, Number defaultValueForUnreportedSensors, Number valueToReportIfNoSensors, TypeToken<T> type) {
         Double doubleValueToReportIfNoSensors = (valueToReportIfNoSensors == null) ? null : valueToReportIfNoSensors.doubleValue();
         int count = count(vals, defaultValueForUnreportedSensors!=null);
@@ -21,6 +21,7 @@ package brooklyn.enricher.basic;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,13 +31,18 @@ import brooklyn.entity.Entity;
 import brooklyn.entity.Group;
 import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
 import brooklyn.entity.trait.Changeable;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.util.collections.MutableMap;
 import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.guava.Maybe;
+import brooklyn.util.task.BasicTask;
+import brooklyn.util.task.ScheduledTask;
+import brooklyn.util.time.Duration;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -66,6 +72,10 @@ public abstract class AbstractAggregator<T,U> extends AbstractEnricher implement
 
     public static final ConfigKey<Predicate<?>> VALUE_FILTER = ConfigKeys.newConfigKey(new TypeToken<Predicate<?>>() {}, "enricher.aggregating.valueFilter");
 
+    public static final ConfigKey<Duration> COALESCE_PERIOD = ConfigKeys.newConfigKey(Duration.class, "enricher.aggregating.coalescePeriod",
+            "If set, changes within this period are coalesced so the aggregate is computed and published at most once per period; "
+            + "by default it is published on every change");
+
     protected Entity producer;
     protected Sensor<U> targetSensor;
     protected T defaultMemberValue;
@@ -74,6 +84,9 @@ public abstract class AbstractAggregator<T,U> extends AbstractEnricher implement
     protected Boolean fromChildren;
     protected Predicate<? super Entity> entityFilter;
     protected Predicate<? super T> valueFilter;
+    protected Duration coalescePeriod;
+    
+    private final AtomicBoolean publishQueued = new AtomicBoolean(false);
     
     public AbstractAggregator() {}
 
@@ -118,6 +131,7 @@ public abstract class AbstractAggregator<T,U> extends AbstractEnricher implement
         this.fromChildren = Maybe.fromNullable(getConfig(FROM_CHILDREN)).or(fromChildren);
         this.entityFilter = (Predicate<? super Entity>) (getConfig(ENTITY_FILTER) == null ? Predicates.alwaysTrue() : getConfig(ENTITY_FILTER));
         this.valueFilter = (Predicate<? super T>) (getConfig(VALUE_FILTER) == null ? Predicates.alwaysTrue() : getConfig(VALUE_FILTER));
+        this.coalescePeriod = getConfig(COALESCE_PERIOD);
         
         setEntityLoadingTargetConfig();
     }
@@ -200,8 +214,38 @@ public abstract class AbstractAggregator<T,U> extends AbstractEnricher implement
 
     /**
      * Called whenever the values for the set of producers changes (e.g. on an event, or on a member added/removed).
+     * If there is a {@link #COALESCE_PERIOD}, publishing is deferred so that subsequent changes are published together.
      */
     protected void onUpdated() {
+        if (coalescePeriod != null && isRunning()) {
+            publishAfterCoalescePeriod();
+        } else {
+            publishNow();
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected void publishAfterCoalescePeriod() {
+        if (publishQueued.compareAndSet(false, true)) {
+            if (LOG.isTraceEnabled()) LOG.trace("{} scheduling publish in {}", this, coalescePeriod);
+            
+            Runnable job = new Runnable() {
+                @Override public void run() {
+                    publishQueued.set(false);
+                    if (!isRunning()) return;
+                    try {
+                        publishNow();
+                    } catch (Exception e) {
+                        LOG.warn("Error in enricher "+AbstractAggregator.this+": "+e, e);
+                    }
+                }
+            };
+            ScheduledTask task = new ScheduledTask(MutableMap.of("delay", coalescePeriod), new BasicTask(job));
+            ((EntityInternal)entity).getExecutionContext().submit(task);
+        }
+    }
+
+    protected void publishNow() {
         try {
             emit(targetSensor, compute());
         } catch (Throwable t) {
@@ -39,9 +39,9 @@ import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
 import brooklyn.util.collections.MutableList;
 import brooklyn.util.collections.MutableMap;
-import brooklyn.util.exceptions.Exceptions;
 
 import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
 import com.google.common.reflect.TypeToken;
 
@@ -55,8 +55,17 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     public static final ConfigKey<Sensor<?>> SOURCE_SENSOR = ConfigKeys.newConfigKey(new TypeToken<Sensor<?>>() {}, "enricher.sourceSensor");
     public static final ConfigKey<Function<? super Collection<?>, ?>> TRANSFORMATION = ConfigKeys.newConfigKey(new TypeToken<Function<? super Collection<?>, ?>>() {}, "enricher.transformation");
 
+    /**
+     * Optional supplier of an {@link IncrementalAggregation}; if set, this is used in preference to the 
+     * {@link #TRANSFORMATION}, updating the result as each value changes rather than recomputing from all values.
+     */
+    public static final ConfigKey<Supplier<? extends IncrementalAggregation<?,?>>> INCREMENTAL_AGGREGATION = ConfigKeys.newConfigKey(
+            new TypeToken<Supplier<? extends IncrementalAggregation<?,?>>>() {}, "enricher.aggregating.incremental");
+
     protected Sensor<T> sourceSensor;
     protected Function<? super Collection<T>, ? extends U> transformation;
+    /** guarded by {@link #values} */
+    protected IncrementalAggregation<? super T, ? extends U> aggregation;
     
     /**
      * Users of values should either on it synchronize when iterating over its entries or use
@@ -71,7 +80,12 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     protected void setEntityLoadingConfig() {
         super.setEntityLoadingConfig();
         this.sourceSensor = (Sensor<T>) getRequiredConfig(SOURCE_SENSOR);
-        this.transformation = (Function<? super Collection<T>, ? extends U>) getRequiredConfig(TRANSFORMATION);
+        Supplier<? extends IncrementalAggregation<?,?>> aggregationSupplier = getConfig(INCREMENTAL_AGGREGATION);
+        if (aggregationSupplier != null) {
+            this.aggregation = (IncrementalAggregation<? super T, ? extends U>) aggregationSupplier.get();
+        } else {
+            this.transformation = (Function<? super Collection<T>, ? extends U>) getRequiredConfig(TRANSFORMATION);
+        }
     }
         
     @Override
@@ -112,7 +126,7 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
                 } else {
                     initialVal = null;
                 }
-                values.put(producer, initialVal != null ? initialVal : defaultMemberValue);
+                putValue(producer, initialVal != null ? initialVal : defaultMemberValue);
                 //we might skip in onEvent in the short window while !values.containsKey(producer)
                 //but that's okay because the put which would have been done there is done here now
             } else {
@@ -125,7 +139,12 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
     
     @Override
     protected void onProducerRemoved(Entity producer) {
-        values.remove(producer);
+        synchronized (values) {
+            if (values.containsKey(producer)) {
+                T oldVal = values.remove(producer);
+                if (aggregation != null && valueFilter.apply(oldVal)) aggregation.remove(oldVal);
+            }
+        }
         onUpdated();
     }
 
@@ -134,7 +153,7 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
         Entity e = event.getSource();
         synchronized (values) {
             if (values.containsKey(e)) {
-                values.put(e, event.getValue());
+                putValue(e, event.getValue());
             } else {
                 if (LOG.isDebugEnabled()) LOG.debug("{} received event for unknown producer ({}); presumably that producer has recently been removed", this, e);
             }
@@ -142,18 +161,21 @@ public class Aggregator<T,U> extends AbstractAggregator<T,U> implements SensorEv
         onUpdated();
     }
 
-    protected void onUpdated() {
-        try {
-            emit(targetSensor, compute());
-        } catch (Throwable t) {
-            LOG.warn("Error calculating and setting aggregate for enricher "+this, t);
-            throw Exceptions.propagate(t);
+    /** Must be called while synchronized on {@link #values}; keeps the {@link #aggregation} (if any) up-to-date. */
+    protected void putValue(Entity producer, T val) {
+        boolean hadVal = values.containsKey(producer);
+        T oldVal = values.put(producer, val);
+        if (aggregation != null) {
+            if (hadVal && valueFilter.apply(oldVal)) aggregation.remove(oldVal);
+            if (valueFilter.apply(val)) aggregation.add(val);
         }
     }
-    
+
     @Override
     protected Object compute() {
         synchronized (values) {
+            if (aggregation != null) return aggregation.getResult();
+
             // TODO Could avoid copying when filter not needed
             List<T> vs = MutableList.copyOf(Iterables.filter(values.values(), valueFilter));
             return transformation.apply(vs);
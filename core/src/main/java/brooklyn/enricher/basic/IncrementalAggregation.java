@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.enricher.basic;
+
+/**
+ * An aggregate over a changing collection of values, kept up-to-date as values are added and removed
+ * rather than being recomputed from all the values each time one changes.
+ * <p>
+ * Used by {@link Aggregator} (see {@link Aggregator#INCREMENTAL_AGGREGATION}); values replaced by a new value
+ * from the same producer are passed to {@link #remove(Object)} then the new value to {@link #add(Object)}.
+ * Implementations need not be thread-safe: the aggregator synchronizes calls.
+ * 
+ * @see IncrementalAggregations
+ */
+public interface IncrementalAggregation<T,U> {
+
+    void add(T value);
+
+    /** Removes a value which was previously passed to {@link #add(Object)}. */
+    void remove(T value);
+
+    U getResult();
+}
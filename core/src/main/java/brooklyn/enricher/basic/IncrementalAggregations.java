@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.enricher.basic;
+
+import java.io.Serializable;
+
+import brooklyn.util.flags.TypeCoercions;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.SortedMultiset;
+import com.google.common.collect.TreeMultiset;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Suppliers of common {@link IncrementalAggregation}s over numbers, for use with {@link Aggregator#INCREMENTAL_AGGREGATION}.
+ * <p>
+ * For each, a null value is treated as {@code valueIfNull} or, if that is null, is ignored;
+ * when there are no (non-ignored) values, the result is {@code valueIfNone}.
+ * Results are cast to the given (numeric) type.
+ */
+public class IncrementalAggregations {
+
+    private IncrementalAggregations() {}
+
+    public static <N extends Number> Supplier<IncrementalAggregation<Number,N>> sum(Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+        return new AggregationSupplier<N>(Kind.SUM, valueIfNull, valueIfNone, type);
+    }
+
+    public static <N extends Number> Supplier<IncrementalAggregation<Number,N>> average(Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+        return new AggregationSupplier<N>(Kind.AVERAGE, valueIfNull, valueIfNone, type);
+    }
+
+    public static <N extends Number> Supplier<IncrementalAggregation<Number,N>> count(Number valueIfNull, TypeToken<N> type) {
+        return new AggregationSupplier<N>(Kind.COUNT, valueIfNull, 0, type);
+    }
+
+    public static <N extends Number> Supplier<IncrementalAggregation<Number,N>> min(Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+        return new AggregationSupplier<N>(Kind.MIN, valueIfNull, valueIfNone, type);
+    }
+
+    public static <N extends Number> Supplier<IncrementalAggregation<Number,N>> max(Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+        return new AggregationSupplier<N>(Kind.MAX, valueIfNull, valueIfNone, type);
+    }
+
+    private static enum Kind {
+        SUM, AVERAGE, COUNT, MIN, MAX;
+    }
+
+    /** Serializable (and persistable) description of the aggregation, so can be used as enricher config. */
+    private static class AggregationSupplier<N extends Number> implements Supplier<IncrementalAggregation<Number,N>>, Serializable {
+        private static final long serialVersionUID = -3512367489617362405L;
+        
+        private final Kind kind;
+        private final Number valueIfNull;
+        private final Number valueIfNone;
+        private final TypeToken<N> type;
+
+        AggregationSupplier(Kind kind, Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+            this.kind = kind;
+            this.valueIfNull = valueIfNull;
+            this.valueIfNone = valueIfNone;
+            this.type = type;
+        }
+
+        @Override
+        public IncrementalAggregation<Number,N> get() {
+            switch (kind) {
+            case MIN:
+            case MAX:
+                return new OrderedAggregation<N>(kind == Kind.MIN, valueIfNull, valueIfNone, type);
+            default:
+                return new RunningTotalAggregation<N>(kind, valueIfNull, valueIfNone, type);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return kind.name().toLowerCase()+"(incremental)";
+        }
+    }
+
+    private abstract static class AbstractNumberAggregation<N extends Number> implements IncrementalAggregation<Number,N> {
+        protected final Number valueIfNull;
+        protected final Number valueIfNone;
+        protected final TypeToken<N> type;
+
+        AbstractNumberAggregation(Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+            this.valueIfNull = valueIfNull;
+            this.valueIfNone = valueIfNone;
+            this.type = type;
+        }
+
+        /** the value to include, or null if it is to be ignored */
+        protected Number effectiveValue(Number value) {
+            return (value != null) ? value : valueIfNull;
+        }
+
+        @SuppressWarnings("unchecked")
+        protected N cast(Number n) {
+            if (n == null) return null;
+            return (N) TypeCoercions.castPrimitive(n, type.getRawType());
+        }
+    }
+
+    /** Sum, average and count, keeping a running total and count. */
+    private static class RunningTotalAggregation<N extends Number> extends AbstractNumberAggregation<N> {
+        private final Kind kind;
+        private double total;
+        private int count;
+
+        RunningTotalAggregation(Kind kind, Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+            super(valueIfNull, valueIfNone, type);
+            this.kind = kind;
+        }
+
+        @Override
+        public void add(Number value) {
+            Number v = effectiveValue(value);
+            if (v != null) {
+                total += v.doubleValue();
+                count++;
+            }
+        }
+
+        @Override
+        public void remove(Number value) {
+            Number v = effectiveValue(value);
+            if (v != null) {
+                total -= v.doubleValue();
+                count--;
+                // avoid accumulating rounding errors once all values are gone
+                if (count == 0) total = 0;
+            }
+        }
+
+        @Override
+        public N getResult() {
+            switch (kind) {
+            case COUNT:
+                return cast(count);
+            case AVERAGE:
+                if (count == 0) return (valueIfNone == null) ? null : cast(valueIfNone.doubleValue());
+                return cast(total / count);
+            default:
+                return cast(count == 0 ? valueIfNone : total);
+            }
+        }
+    }
+
+    /** Min and max, keeping the values in an ordered multiset. */
+    private static class OrderedAggregation<N extends Number> extends AbstractNumberAggregation<N> {
+        private final boolean min;
+        private final SortedMultiset<Double> values = TreeMultiset.create();
+
+        OrderedAggregation(boolean min, Number valueIfNull, Number valueIfNone, TypeToken<N> type) {
+            super(valueIfNull, valueIfNone, type);
+            this.min = min;
+        }
+
+        @Override
+        public void add(Number value) {
+            Number v = effectiveValue(value);
+            if (v != null) values.add(v.doubleValue());
+        }
+
+        @Override
+        public void remove(Number value) {
+            Number v = effectiveValue(value);
+            if (v != null) values.remove(v.doubleValue());
+        }
+
+        @Override
+        public N getResult() {
+            if (values.isEmpty()) return cast(valueIfNone);
+            return cast(min ? values.firstEntry().getElement() : values.lastEntry().getElement());
+        }
+    }
+}
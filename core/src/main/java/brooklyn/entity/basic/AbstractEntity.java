@@ -1044,6 +1044,12 @@ public abstract class AbstractEntity extends AbstractBrooklynObject implements E
         return configsInternal.getLocalConfigBag();
     }
 
+    @Beta
+    @Override
+    public long getAttributesVersion() {
+        return attributesInternal.getVersion();
+    }
+
     @Override
     public Map<AttributeSensor, Object> getAllAttributes() {
         Map<AttributeSensor, Object> result = Maps.newLinkedHashMap();
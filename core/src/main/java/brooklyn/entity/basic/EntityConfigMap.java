@@ -21,11 +21,15 @@ package brooklyn.entity.basic;
 import static brooklyn.util.GroovyJavaMethods.elvis;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +76,40 @@ public class EntityConfigMap implements ConfigMap {
     private final ConfigBag localConfigBag;
     private final ConfigBag inheritedConfigBag;
 
+    /**
+     * Resolved (and coerced) values, keyed by the key passed to {@link #getConfig(ConfigKey, Object)}.
+     * Only values which cannot change without a call to one of our mutators are cached: literals, and
+     * tasks (e.g. from {@link brooklyn.event.basic.DependentConfiguration}) which have completed successfully.
+     * Every mutator increments {@link #resolvedConfigGeneration}, so a value resolved concurrently with
+     * a change is never served.
+     */
+    private final ConcurrentMap<ConfigKey<?>, ResolvedValue> resolvedConfig = new ConcurrentHashMap<ConfigKey<?>, ResolvedValue>();
+    private final AtomicLong resolvedConfigGeneration = new AtomicLong();
+    private final AtomicLong resolvedConfigHits = new AtomicLong();
+    private final AtomicLong resolvedConfigMisses = new AtomicLong();
+
+    private static class ResolvedValue {
+        final ConfigKey<?> key;
+        final ConfigKey<?> ownKey;
+        final long generation;
+        final boolean isDefault;
+        final Object value;
+        
+        ResolvedValue(ConfigKey<?> key, ConfigKey<?> ownKey, long generation, boolean isDefault, Object value) {
+            this.key = key;
+            this.ownKey = ownKey;
+            this.generation = generation;
+            this.isDefault = isDefault;
+            this.value = value;
+        }
+        
+        boolean isValidFor(ConfigKey<?> key, ConfigKey<?> ownKey, long generation, Object defaultValue) {
+            // keys are equal by name, so check identity in case a differently-typed key of the same name is used
+            return this.key == key && this.ownKey == ownKey && this.generation == generation 
+                    && (!isDefault || defaultValue == null);
+        }
+    }
+
     public EntityConfigMap(AbstractEntity entity, Map<ConfigKey<?>, Object> storage) {
         this.entity = checkNotNull(entity, "entity must be specified");
         this.ownConfig = checkNotNull(storage, "storage map must be specified");
@@ -106,6 +144,14 @@ public class EntityConfigMap implements ConfigMap {
         //           but that example doesn't have a default...
         ConfigKey<T> ownKey = entity!=null ? (ConfigKey<T>)elvis(entity.getEntityType().getConfigKey(key.getName()), key) : key;
         
+        long generation = resolvedConfigGeneration.get();
+        ResolvedValue resolved = resolvedConfig.get(key);
+        if (resolved != null && resolved.isValidFor(key, ownKey, generation, defaultValue)) {
+            resolvedConfigHits.incrementAndGet();
+            return (T) resolved.value;
+        }
+        resolvedConfigMisses.incrementAndGet();
+        
         // TODO We're notifying of config-changed because currently persistence needs to know when the
         // attributeWhenReady is complete (so it can persist the result).
         // Long term, we'll just persist tasks properly so the call to onConfigChanged will go!
@@ -115,11 +161,14 @@ public class EntityConfigMap implements ConfigMap {
             Object rawval = ownConfig.get(key);
             T result = null;
             boolean complete = false;
+            boolean cacheable = false;
             if (((ConfigKeySelfExtracting<T>)ownKey).isSet(ownConfig)) {
+                cacheable = isResolvedValueCacheable(ownKey, rawval);
                 ExecutionContext exec = entity.getExecutionContext();
                 result = ((ConfigKeySelfExtracting<T>)ownKey).extractValue(ownConfig, exec);
                 complete = true;
             } else if (((ConfigKeySelfExtracting<T>)ownKey).isSet(inheritedConfig)) {
+                cacheable = isResolvedValueCacheable(ownKey, inheritedConfig.get(key));
                 ExecutionContext exec = entity.getExecutionContext();
                 result = ((ConfigKeySelfExtracting<T>)ownKey).extractValue(inheritedConfig, exec);
                 complete = true;
@@ -136,12 +185,48 @@ public class EntityConfigMap implements ConfigMap {
                 entity.getManagementSupport().getEntityChangeListener().onConfigChanged(key);
             }
             if (complete) {
+                if (cacheable) {
+                    resolvedConfig.put(key, new ResolvedValue(key, ownKey, generation, false, result));
+                }
                 return result;
             }
         } else {
             LOG.warn("Config key {} of {} is not a ConfigKeySelfExtracting; cannot retrieve value; returning default", ownKey, this);
         }
-        return TypeCoercions.coerce((defaultValue != null) ? defaultValue : ownKey.getDefaultValue(), key.getTypeToken());
+        T result = TypeCoercions.coerce((defaultValue != null) ? defaultValue : ownKey.getDefaultValue(), key.getTypeToken());
+        if (defaultValue == null && isResolvedValueCacheable(ownKey, ownKey.getDefaultValue())) {
+            resolvedConfig.put(key, new ResolvedValue(key, ownKey, generation, true, result));
+        }
+        return result;
+    }
+    
+    /**
+     * Whether resolving the given raw value will always give the same result, until config is next changed.
+     * Deferred suppliers (e.g. DSL) are re-evaluated every time; collections and maps are resolved deeply
+     * (into a new instance, which callers may modify) so also are not cached.
+     */
+    private boolean isResolvedValueCacheable(ConfigKey<?> ownKey, Object rawval) {
+        if (ownKey instanceof StructuredConfigKey) return false;
+        if (rawval instanceof Task) return ((Task<?>)rawval).isDone() && !((Task<?>)rawval).isError();
+        if (rawval instanceof Future || rawval instanceof DeferredSupplier) return false;
+        if (rawval instanceof Collection || rawval instanceof Map) return false;
+        return true;
+    }
+    
+    /** Discards all cached resolved values; must be called <em>after</em> any change to the config. */
+    private void invalidateResolvedConfig() {
+        resolvedConfigGeneration.incrementAndGet();
+        resolvedConfig.clear();
+    }
+    
+    /** Number of calls to {@link #getConfig(ConfigKey, Object)} answered from previously resolved values. */
+    public long getResolvedConfigHits() {
+        return resolvedConfigHits.get();
+    }
+    
+    /** Number of calls to {@link #getConfig(ConfigKey, Object)} which required the value to be resolved. */
+    public long getResolvedConfigMisses() {
+        return resolvedConfigMisses.get();
     }
     
     @Override
@@ -215,6 +300,7 @@ public class EntityConfigMap implements ConfigMap {
             oldVal = ownConfig.put(key, val);
             localConfigBag.put((ConfigKey<Object>)key, v);
         }
+        invalidateResolvedConfig();
         entity.refreshInheritedConfigOfChildren();
         return oldVal;
     }
@@ -224,6 +310,7 @@ public class EntityConfigMap implements ConfigMap {
         localConfigBag.clear();
         ownConfig.putAll(vals);
         localConfigBag.putAll(vals);
+        invalidateResolvedConfig();
     }
     
     public void setInheritedConfig(Map<ConfigKey<?>, ? extends Object> vals, ConfigBag configBagVals) {
@@ -266,17 +353,20 @@ public class EntityConfigMap implements ConfigMap {
                 inheritedConfigBag.putStringKey(name, value);
             }
         }
+        invalidateResolvedConfig();
     }
     
     public void addToLocalBag(Map<String,?> vals) {
         localConfigBag.putAll(vals);
         // quick fix for problem that ownConfig can get out of synch
         ownConfig.putAll(localConfigBag.getAllConfigAsConfigKeyMap());
+        invalidateResolvedConfig();
     }
 
     public void clearInheritedConfig() {
         inheritedConfig.clear();
         inheritedConfigBag.clear();
+        invalidateResolvedConfig();
     }
 
     @Override
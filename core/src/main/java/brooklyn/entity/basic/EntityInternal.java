@@ -84,6 +84,13 @@ public interface EntityInternal extends BrooklynObjectInternal, EntityLocal, Reb
 
     @Beta
     void removeAttribute(AttributeSensor<?> attribute);
+
+    /**
+     * @return a counter incremented whenever any attribute of this entity is set or removed;
+     *         only meaningful within this process (see {@link brooklyn.event.basic.AttributeMap#getVersion()})
+     */
+    @Beta
+    long getAttributesVersion();
     
     @Beta
     void refreshInheritedConfig();
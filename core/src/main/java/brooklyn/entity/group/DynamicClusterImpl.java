@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import brooklyn.config.render.RendererHints;
 import brooklyn.entity.Entity;
+import brooklyn.entity.Group;
 import brooklyn.entity.basic.AbstractGroupImpl;
 import brooklyn.entity.basic.DelegateEntity;
 import brooklyn.entity.basic.Entities;
@@ -50,6 +51,7 @@ import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.entity.trait.Startable;
 import brooklyn.entity.trait.StartableMethods;
 import brooklyn.location.Location;
+import brooklyn.location.MachineManagementMixins.ObtainsMachinesInBatches;
 import brooklyn.location.basic.Locations;
 import brooklyn.location.cloud.AvailabilityZoneExtension;
 import brooklyn.management.Task;
@@ -76,9 +78,11 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.LinkedHashMultiset;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 
 /**
@@ -644,6 +648,18 @@ public class DynamicClusterImpl extends AbstractGroupImpl implements DynamicClus
             tasks.put(entity, task);
         }
 
+        // let locations which can provision several machines at once know that members are about to obtain them together;
+        // not counting members which are groups (e.g. nested clusters), as these announce their own members
+        Multiset<Location> obtainingLocations = LinkedHashMultiset.create();
+        for (Map.Entry<Entity, Location> entry : addedEntityLocations.entrySet()) {
+            if (!(entry.getKey() instanceof Group)) obtainingLocations.add(entry.getValue());
+        }
+        for (Multiset.Entry<Location> entry : obtainingLocations.entrySet()) {
+            if (entry.getCount() > 1 && entry.getElement() instanceof ObtainsMachinesInBatches) {
+                ((ObtainsMachinesInBatches<?>) entry.getElement()).expectObtains(entry.getCount());
+            }
+        }
+
         Task<List<?>> parallel = Tasks.parallel("starting "+tasks.size()+" node"+Strings.s(tasks.size())+" (parallel)", tasks.values());
         TaskTags.markInessential(parallel);
         DynamicTasks.queueIfPossible(parallel).orSubmitAsync(this);
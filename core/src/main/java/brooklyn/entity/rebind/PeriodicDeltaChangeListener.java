@@ -19,9 +19,13 @@
 package brooklyn.entity.rebind;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -37,6 +41,7 @@ import brooklyn.entity.Entity;
 import brooklyn.entity.Feed;
 import brooklyn.entity.basic.BrooklynTaskTags;
 import brooklyn.entity.basic.EntityInternal;
+import brooklyn.entity.rebind.persister.BrooklynMementoPersisterToObjectStore;
 import brooklyn.entity.rebind.persister.BrooklynPersistenceUtils;
 import brooklyn.entity.rebind.persister.PersistenceActivityMetrics;
 import brooklyn.internal.BrooklynFeatureEnablement;
@@ -44,6 +49,7 @@ import brooklyn.location.Location;
 import brooklyn.management.ExecutionContext;
 import brooklyn.management.Task;
 import brooklyn.mementos.BrooklynMementoPersister;
+import brooklyn.mementos.Memento;
 import brooklyn.policy.Enricher;
 import brooklyn.policy.Policy;
 import brooklyn.util.collections.MutableMap;
@@ -60,11 +66,19 @@ import com.google.api.client.util.Lists;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * A "simple" implementation that periodically persists all entities/locations/policies that have changed
  * since the last periodic persistence.
+ * <p>
+ * Changes are collected without locking, so notifying a change never blocks. Mementos are generated in parallel
+ * (on the persister's executor, where it has one), and the persister can skip writing those that are unchanged
+ * (see {@link BrooklynMementoPersisterToObjectStore#PERSISTER_SKIP_UNCHANGED_WRITES}).
  * 
  * TODO A better implementation would look at a per-entity basis. When the entity was modified, then  
  * schedule a write for that entity in X milliseconds time (if not already scheduled). That would
@@ -80,19 +94,81 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     private static final Logger LOG = LoggerFactory.getLogger(PeriodicDeltaChangeListener.class);
 
     private static class DeltaCollector {
-        private Set<Location> locations = Sets.newLinkedHashSet();
-        private Set<Entity> entities = Sets.newLinkedHashSet();
-        private Set<Policy> policies = Sets.newLinkedHashSet();
-        private Set<Enricher> enrichers = Sets.newLinkedHashSet();
-        private Set<Feed> feeds = Sets.newLinkedHashSet();
-        private Set<CatalogItem<?, ?>> catalogItems = Sets.newLinkedHashSet();
+        private final Set<Location> locations;
+        private final Set<Entity> entities;
+        private final Set<Policy> policies;
+        private final Set<Enricher> enrichers;
+        private final Set<Feed> feeds;
+        private final Set<CatalogItem<?, ?>> catalogItems;
         
-        private Set<String> removedLocationIds = Sets.newLinkedHashSet();
-        private Set<String> removedEntityIds = Sets.newLinkedHashSet();
-        private Set<String> removedPolicyIds = Sets.newLinkedHashSet();
-        private Set<String> removedEnricherIds = Sets.newLinkedHashSet();
-        private Set<String> removedFeedIds = Sets.newLinkedHashSet();
-        private Set<String> removedCatalogItemIds = Sets.newLinkedHashSet();
+        private final Set<String> removedLocationIds;
+        private final Set<String> removedEntityIds;
+        private final Set<String> removedPolicyIds;
+        private final Set<String> removedEnricherIds;
+        private final Set<String> removedFeedIds;
+        private final Set<String> removedCatalogItemIds;
+
+        /** a collector for use by a single thread */
+        DeltaCollector() {
+            this(false);
+        }
+        
+        /** 
+         * @param concurrent whether the collector can be added to concurrently, 
+         * and {@link #drain() drained} concurrently with those additions 
+         */
+        DeltaCollector(boolean concurrent) {
+            locations = newSet(concurrent);
+            entities = newSet(concurrent);
+            policies = newSet(concurrent);
+            enrichers = newSet(concurrent);
+            feeds = newSet(concurrent);
+            catalogItems = newSet(concurrent);
+            removedLocationIds = newSet(concurrent);
+            removedEntityIds = newSet(concurrent);
+            removedPolicyIds = newSet(concurrent);
+            removedEnricherIds = newSet(concurrent);
+            removedFeedIds = newSet(concurrent);
+            removedCatalogItemIds = newSet(concurrent);
+        }
+        
+        private static <T> Set<T> newSet(boolean concurrent) {
+            return concurrent ? Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>()) : Sets.<T>newLinkedHashSet();
+        }
+        
+        /**
+         * Moves everything collected so far into a new (single-threaded) collector. Each item is removed
+         * before it is returned, so an item changed again concurrently is either in the result (and its 
+         * memento not yet generated) or remains in this collector for the next drain; no change is lost.
+         * <p>
+         * An item can be drained and then {@link #remove(BrooklynObject) removed} before its removed id is drained,
+         * so the result could record both a write and a delete of it; the persister may do these in either order,
+         * so the write is dropped and the delete kept.
+         */
+        public DeltaCollector drain() {
+            DeltaCollector result = new DeltaCollector();
+            for (BrooklynObjectType type : BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
+                drainInto(getUnsafeCollectionOfType(type), result.getUnsafeCollectionOfType(type));
+                drainInto(getRemovedIdsOfType(type), result.getRemovedIdsOfType(type));
+                result.discardRemovedOfType(type);
+            }
+            return result;
+        }
+        
+        private void discardRemovedOfType(BrooklynObjectType type) {
+            Set<String> removedIds = getRemovedIdsOfType(type);
+            if (removedIds.isEmpty()) return;
+            for (Iterator<BrooklynObject> iter = getUnsafeCollectionOfType(type).iterator(); iter.hasNext();) {
+                if (removedIds.contains(iter.next().getId())) iter.remove();
+            }
+        }
+        
+        private static <T> void drainInto(Set<T> source, Set<T> target) {
+            for (Iterator<T> iter = source.iterator(); iter.hasNext();) {
+                T item = iter.next();
+                if (source.remove(item)) target.add(item);
+            }
+        }
 
         public boolean isEmpty() {
             return locations.isEmpty() && entities.isEmpty() && policies.isEmpty() && 
@@ -167,7 +243,8 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     
     private final AtomicLong writeCount = new AtomicLong();
     
-    private DeltaCollector deltaCollector = new DeltaCollector();
+    /** collects changes concurrently, so that notifications of changes never block on (nor contend for) a lock */
+    private volatile DeltaCollector deltaCollector = new DeltaCollector(true);
 
     private volatile boolean running = false;
 
@@ -269,9 +346,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
 
 
         // Discard all state that was waiting to be persisted
-        synchronized (this) {
-            deltaCollector = new DeltaCollector();
-        }
+        deltaCollector = new DeltaCollector(true);
     }
     
     /**
@@ -356,13 +431,9 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
             persistingMutex.acquire();
             if (!isActive()) return;
             
-            // Atomically switch the delta, so subsequent modifications will be done in the
+            // Take everything changed so far, so subsequent modifications will be done in the
             // next scheduled persist
-            DeltaCollector prevDeltaCollector;
-            synchronized (this) {
-                prevDeltaCollector = deltaCollector;
-                deltaCollector = new DeltaCollector();
-            }
+            DeltaCollector prevDeltaCollector = deltaCollector.drain();
             
             if (LOG.isDebugEnabled()) LOG.debug("Checkpointing delta of memento: "
                     + "updating entities={}, locations={}, policies={}, enrichers={}, catalog items={}; "
@@ -386,13 +457,20 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
             } else {
                 PersisterDeltaImpl persisterDelta = new PersisterDeltaImpl();
                 
+                // Generate the mementos in parallel (where the persister has an executor); 
+                // the persister skips writing any whose contents are unchanged
+                ListeningExecutorService generationExecutor = getMementoGenerationExecutor();
+                Map<BrooklynObjectType, List<ListenableFuture<Memento>>> mementos = Maps.newLinkedHashMap();
                 for (BrooklynObjectType type: BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
+                    List<ListenableFuture<Memento>> mementosOfType = Lists.newArrayList();
                     for (BrooklynObject instance: prevDeltaCollector.getCollectionOfType(type)) {
-                        try {
-                            persisterDelta.add(type, ((BrooklynObjectInternal)instance).getRebindSupport().getMemento());
-                        } catch (Exception e) {
-                            exceptionHandler.onGenerateMementoFailed(type, instance, e);
-                        }
+                        mementosOfType.add(generationExecutor.submit(newMementoGenerator(type, instance)));
+                    }
+                    mementos.put(type, mementosOfType);
+                }
+                for (Map.Entry<BrooklynObjectType, List<ListenableFuture<Memento>>> entry : mementos.entrySet()) {
+                    for (ListenableFuture<Memento> memento : entry.getValue()) {
+                        if (memento.get() != null) persisterDelta.add(entry.getKey(), memento.get());
                     }
                 }
                 for (BrooklynObjectType type: BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
@@ -424,6 +502,27 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         }
     }
     
+    private ListeningExecutorService getMementoGenerationExecutor() {
+        if (persister instanceof BrooklynMementoPersisterToObjectStore) {
+            ListeningExecutorService result = ((BrooklynMementoPersisterToObjectStore)persister).getExecutor();
+            if (!result.isShutdown()) return result;
+        }
+        return MoreExecutors.sameThreadExecutor();
+    }
+    
+    /** returns a callable which generates the memento, or returns null (having notified the exception handler) on failure */
+    private Callable<Memento> newMementoGenerator(final BrooklynObjectType type, final BrooklynObject instance) {
+        return new Callable<Memento>() {
+            @Override public Memento call() {
+                try {
+                    return ((BrooklynObjectInternal)instance).getRebindSupport().getMemento();
+                } catch (Exception e) {
+                    exceptionHandler.onGenerateMementoFailed(type, instance, e);
+                    return null;
+                }
+            }};
+    }
+    
     private static String limitedCountString(Collection<?> items) {
         if (items==null) return null;
         int size = items.size();
@@ -438,13 +537,13 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     }
 
     @Override
-    public synchronized void onManaged(BrooklynObject instance) {
+    public void onManaged(BrooklynObject instance) {
         if (LOG.isTraceEnabled()) LOG.trace("onManaged: {}", instance);
         onChanged(instance);
     }
 
     @Override
-    public synchronized void onUnmanaged(BrooklynObject instance) {
+    public void onUnmanaged(BrooklynObject instance) {
         if (LOG.isTraceEnabled()) LOG.trace("onUnmanaged: {}", instance);
         if (!isStopped()) {
             removeFromCollector(instance);
@@ -462,7 +561,7 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
     }
 
     @Override
-    public synchronized void onChanged(BrooklynObject instance) {
+    public void onChanged(BrooklynObject instance) {
         if (LOG.isTraceEnabled()) LOG.trace("onChanged: {}", instance);
         if (!isStopped()) {
             deltaCollector.add(instance);
@@ -21,6 +21,7 @@ package brooklyn.entity.rebind;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import brooklyn.basic.BrooklynObject;
@@ -35,14 +36,18 @@ import brooklyn.util.collections.MutableMap;
 
 import com.google.common.collect.Maps;
 
+/**
+ * Registers are synchronized, as items may be instantiated and reconstructed in parallel (see {@link RebindManagerImpl});
+ * callers iterating over the collections returned must not do so concurrently with changes.
+ */
 public class RebindContextImpl implements RebindContext {
 
-    private final Map<String, Entity> entities = Maps.newLinkedHashMap();
-    private final Map<String, Location> locations = Maps.newLinkedHashMap();
-    private final Map<String, Policy> policies = Maps.newLinkedHashMap();
-    private final Map<String, Enricher> enrichers = Maps.newLinkedHashMap();
-    private final Map<String, Feed> feeds = Maps.newLinkedHashMap();
-    private final Map<String, CatalogItem<?, ?>> catalogItems = Maps.newLinkedHashMap();
+    private final Map<String, Entity> entities = Collections.synchronizedMap(Maps.<String, Entity>newLinkedHashMap());
+    private final Map<String, Location> locations = Collections.synchronizedMap(Maps.<String, Location>newLinkedHashMap());
+    private final Map<String, Policy> policies = Collections.synchronizedMap(Maps.<String, Policy>newLinkedHashMap());
+    private final Map<String, Enricher> enrichers = Collections.synchronizedMap(Maps.<String, Enricher>newLinkedHashMap());
+    private final Map<String, Feed> feeds = Collections.synchronizedMap(Maps.<String, Feed>newLinkedHashMap());
+    private final Map<String, CatalogItem<?, ?>> catalogItems = Collections.synchronizedMap(Maps.<String, CatalogItem<?, ?>>newLinkedHashMap());
     
     private final ClassLoader classLoader;
     private final RebindExceptionHandler exceptionHandler;
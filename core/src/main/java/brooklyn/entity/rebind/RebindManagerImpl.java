@@ -25,7 +25,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -114,6 +120,7 @@ import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -152,6 +159,12 @@ public class RebindManagerImpl implements RebindManager {
                 + "then linear regression to allow max 5% at 100 items and above", 
                 QuorumChecks.newLinearRange("[[0,-2],[10,8],[100,95],[200,190]]"));
 
+    public static final ConfigKey<Integer> REBIND_MAX_THREAD_POOL_SIZE = ConfigKeys.newIntegerConfigKey(
+            "rebind.threadpool.maxSize",
+            "Maximum number of threads for instantiating and reconstructing items in parallel on rebind "
+                + "(independent application subtrees are reconstructed in parallel); 1 to rebind in the calling thread", 
+            10);
+
     public static final Logger LOG = LoggerFactory.getLogger(RebindManagerImpl.class);
 
     private final ManagementContextInternal managementContext;
@@ -166,6 +179,9 @@ public class RebindManagerImpl implements RebindManager {
     private volatile ScheduledTask readOnlyTask = null;
     private transient Semaphore rebindActive = new Semaphore(1);
     private transient int readOnlyRebindCount = Integer.MIN_VALUE;
+    /** the state applied by the last successful read-only rebind, so that iterations can be skipped if unchanged */
+    private transient volatile BrooklynMementoRawData lastReadOnlyMementoRawData = null;
+    private transient int readOnlyRebindUnchangedCount = 0;
     
     private volatile BrooklynMementoPersister persistenceStoreAccess;
 
@@ -180,6 +196,10 @@ public class RebindManagerImpl implements RebindManager {
     private RebindFailureMode loadPolicyFailureMode;
     private QuorumCheck danglingRefsQuorumRequiredHealthy;
     
+    private final int rebindMaxThreadPoolSize;
+    /** created when first needed, and reused by subsequent rebinds (e.g. periodic read-only rebinds) until {@link #stop()} */
+    private transient ExecutorService rebindExecutor;
+    
     private PersistenceActivityMetrics rebindMetrics = new PersistenceActivityMetrics();
     private PersistenceActivityMetrics persistMetrics = new PersistenceActivityMetrics();
 
@@ -224,6 +244,7 @@ public class RebindManagerImpl implements RebindManager {
         loadPolicyFailureMode = managementContext.getConfig().getConfig(LOAD_POLICY_FAILURE_MODE);
         
         danglingRefsQuorumRequiredHealthy = managementContext.getConfig().getConfig(DANGLING_REFERENCES_MIN_REQUIRED_HEALTHY);
+        rebindMaxThreadPoolSize = managementContext.getConfig().getConfig(REBIND_MAX_THREAD_POOL_SIZE);
 
         LOG.debug("{} initialized, settings: policies={}, enrichers={}, feeds={}, catalog={}",
                 new Object[]{this, persistPoliciesEnabled, persistEnrichersEnabled, persistFeedsEnabled, persistCatalogItemsEnabled});
@@ -327,6 +348,8 @@ public class RebindManagerImpl implements RebindManager {
         
         readOnlyRunning = true;
         readOnlyRebindCount = 0;
+        readOnlyRebindUnchangedCount = 0;
+        lastReadOnlyMementoRawData = null;
 
         try {
             rebind(null, null, mode);
@@ -373,6 +396,7 @@ public class RebindManagerImpl implements RebindManager {
     @Override
     public void stopReadOnly() {
         readOnlyRunning = false;
+        lastReadOnlyMementoRawData = null;
         if (readOnlyTask!=null) {
             LOG.debug("Stopping read-only rebinding ("+this+"), mgmt "+managementContext.getManagementNodeId());
             readOnlyTask.cancel(true);
@@ -403,6 +427,12 @@ public class RebindManagerImpl implements RebindManager {
         stopReadOnly();
         stopPersistence();
         if (persistenceStoreAccess != null) persistenceStoreAccess.stop(true);
+        synchronized (this) {
+            if (rebindExecutor != null) {
+                rebindExecutor.shutdownNow();
+                rebindExecutor = null;
+            }
+        }
     }
     
     protected ManagementNodeState getRebindMode() {
@@ -543,9 +573,10 @@ public class RebindManagerImpl implements RebindManager {
             readOnlyRebindCount++;
 
         Stopwatch timer = Stopwatch.createStarted();
+        Stopwatch phaseTimer = Stopwatch.createStarted();
         try {
             Reflections reflections = new Reflections(classLoader);
-            RebindContextImpl rebindContext = new RebindContextImpl(exceptionHandler, classLoader);
+            final RebindContextImpl rebindContext = new RebindContextImpl(exceptionHandler, classLoader);
             
             exceptionHandler.onStart(rebindContext);
             
@@ -603,7 +634,15 @@ public class RebindManagerImpl implements RebindManager {
                 ") from "+getPersister().getBackingStoreDescription()+"...");
 
             BrooklynMementoRawData mementoRawData = persistenceStoreAccess.loadMementoRawData(exceptionHandler);
-            BrooklynMementoManifest mementoManifest = persistenceStoreAccess.loadMementoManifest(mementoRawData, exceptionHandler);
+            if (ManagementNodeState.isHotProxy(mode) && mementoRawData!=null && mementoRawData==lastReadOnlyMementoRawData) {
+                // the persister returns the same instance if the store is known not to have changed (see ChangeJournal),
+                // in which case the items from the last read-only rebind are current
+                readOnlyRebindUnchangedCount++;
+                logRebindingDebug("Rebind ({}, iteration {}) skipped; no changes since last iteration", mode, readOnlyRebindCount);
+                return ImmutableList.copyOf(managementContext.getApplications());
+            }
+            final BrooklynMementoManifest mementoManifest = persistenceStoreAccess.loadMementoManifest(mementoRawData, exceptionHandler);
+            notePhaseDone("load", phaseTimer, mementoManifest.getLocationIdToType().size() + mementoManifest.getEntityIdToManifest().size());
 
             boolean overwritingMaster = false;
             boolean isEmpty = mementoManifest.isEmpty();
@@ -630,7 +669,7 @@ public class RebindManagerImpl implements RebindManager {
             // PHASE TWO - build catalog so we can load other things
             //
             
-            BrooklynObjectInstantiator instantiator = new BrooklynObjectInstantiator(classLoader, rebindContext, reflections);
+            final BrooklynObjectInstantiator instantiator = new BrooklynObjectInstantiator(classLoader, rebindContext, reflections);
             
             // Instantiate catalog items
             if (persistCatalogItemsEnabled) {
@@ -700,45 +739,58 @@ public class RebindManagerImpl implements RebindManager {
             } else {
                 logRebindingDebug("RebindManager not resetting catalog because catalog persistence is disabled");
             }
+            notePhaseDone("catalog", phaseTimer, rebindContext.getCatalogItems().size());
             
             
             //
             // PHASE THREE
             //
             
-            // Instantiate locations
+            // Instantiate locations and entities in parallel, registering them in the original order
             logRebindingDebug("RebindManager instantiating locations: {}", mementoManifest.getLocationIdToType().keySet());
+            logRebindingDebug("RebindManager instantiating entities: {}", mementoManifest.getEntityIdToManifest().keySet());
+            final Map<String, Location> newLocations = Maps.newConcurrentMap();
+            final Map<String, Entity> newEntities = Maps.newConcurrentMap();
+            List<Runnable> instantiations = Lists.newArrayList();
             for (Map.Entry<String, String> entry : mementoManifest.getLocationIdToType().entrySet()) {
-                String locId = entry.getKey();
-                String locType = entry.getValue();
-                if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating location {}", locId);
-                
-                try {
-                    Location location = instantiator.newLocation(locId, locType);
-                    rebindContext.registerLocation(locId, location);
-                } catch (Exception e) {
-                    exceptionHandler.onCreateFailed(BrooklynObjectType.LOCATION, locId, locType, e);
-                }
+                final String locId = entry.getKey();
+                final String locType = entry.getValue();
+                instantiations.add(new Runnable() {
+                    public void run() {
+                        if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating location {}", locId);
+                        
+                        try {
+                            newLocations.put(locId, instantiator.newLocation(locId, locType));
+                        } catch (Exception e) {
+                            exceptionHandler.onCreateFailed(BrooklynObjectType.LOCATION, locId, locType, e);
+                        }
+                    }});
             }
-            
-            // Instantiate entities
-            logRebindingDebug("RebindManager instantiating entities: {}", mementoManifest.getEntityIdToManifest().keySet());
             for (Map.Entry<String, EntityMementoManifest> entry : mementoManifest.getEntityIdToManifest().entrySet()) {
-                String entityId = entry.getKey();
-                EntityMementoManifest entityManifest = entry.getValue();
-                String catalogItemId = findCatalogItemId(classLoader, mementoManifest.getEntityIdToManifest(), entityManifest);
-                
-                if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating entity {}", entityId);
-                
-                try {
-                    Entity entity = (Entity) instantiator.newEntity(entityId, entityManifest.getType(), catalogItemId);
-                    ((EntityInternal)entity).getManagementSupport().setReadOnly( rebindContext.isReadOnly(entity) );
-                    rebindContext.registerEntity(entityId, entity);
-
-                } catch (Exception e) {
-                    exceptionHandler.onCreateFailed(BrooklynObjectType.ENTITY, entityId, entityManifest.getType(), e);
-                }
+                final String entityId = entry.getKey();
+                final EntityMementoManifest entityManifest = entry.getValue();
+                final String catalogItemId = findCatalogItemId(classLoader, mementoManifest.getEntityIdToManifest(), entityManifest);
+                instantiations.add(new Runnable() {
+                    public void run() {
+                        if (LOG.isTraceEnabled()) LOG.trace("RebindManager instantiating entity {}", entityId);
+                        
+                        try {
+                            Entity entity = (Entity) instantiator.newEntity(entityId, entityManifest.getType(), catalogItemId);
+                            ((EntityInternal)entity).getManagementSupport().setReadOnly( rebindContext.isReadOnly(entity) );
+                            newEntities.put(entityId, entity);
+                        } catch (Exception e) {
+                            exceptionHandler.onCreateFailed(BrooklynObjectType.ENTITY, entityId, entityManifest.getType(), e);
+                        }
+                    }});
+            }
+            runInParallel(instantiations);
+            for (String locId : mementoManifest.getLocationIdToType().keySet()) {
+                if (newLocations.containsKey(locId)) rebindContext.registerLocation(locId, newLocations.get(locId));
             }
+            for (String entityId : mementoManifest.getEntityIdToManifest().keySet()) {
+                if (newEntities.containsKey(entityId)) rebindContext.registerEntity(entityId, newEntities.get(entityId));
+            }
+            notePhaseDone("instantiate", phaseTimer, instantiations.size());
             
             
             //
@@ -746,193 +798,252 @@ public class RebindManagerImpl implements RebindManager {
             //
             
             BrooklynMemento memento = persistenceStoreAccess.loadMemento(mementoRawData, realLookupContext, exceptionHandler);
+            notePhaseDone("deserialize", phaseTimer, memento.getLocationIds().size() + memento.getEntityIds().size() + memento.getPolicyIds().size()
+                + memento.getEnricherIds().size() + memento.getFeedIds().size() + memento.getCatalogItemIds().size());
             
             
             //
             // PHASE FIVE
             //
             
-            // Instantiate policies
+            // Instantiate policies, enrichers and feeds in parallel, registering them in the original order
+            final Map<String, Policy> newPolicies = Maps.newConcurrentMap();
+            final Map<String, Enricher> newEnrichers = Maps.newConcurrentMap();
+            final Map<String, Feed> newFeeds = Maps.newConcurrentMap();
+            instantiations = Lists.newArrayList();
+            
             if (persistPoliciesEnabled) {
                 logRebindingDebug("RebindManager instantiating policies: {}", memento.getPolicyIds());
-                for (PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
-                    logRebindingDebug("RebindManager instantiating policy {}", policyMemento);
-                    
-                    try {
-                        Policy policy = instantiator.newPolicy(policyMemento);
-                        rebindContext.registerPolicy(policyMemento.getId(), policy);
-                    } catch (Exception e) {
-                        exceptionHandler.onCreateFailed(BrooklynObjectType.POLICY, policyMemento.getId(), policyMemento.getType(), e);
-                    }
+                for (final PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
+                    instantiations.add(new Runnable() {
+                        public void run() {
+                            logRebindingDebug("RebindManager instantiating policy {}", policyMemento);
+                            
+                            try {
+                                newPolicies.put(policyMemento.getId(), instantiator.newPolicy(policyMemento));
+                            } catch (Exception e) {
+                                exceptionHandler.onCreateFailed(BrooklynObjectType.POLICY, policyMemento.getId(), policyMemento.getType(), e);
+                            }
+                        }});
                 }
             } else {
                 logRebindingDebug("Not rebinding policies; feature disabled: {}", memento.getPolicyIds());
             }
             
-            // Instantiate enrichers
             if (persistEnrichersEnabled) {
                 logRebindingDebug("RebindManager instantiating enrichers: {}", memento.getEnricherIds());
-                for (EnricherMemento enricherMemento : memento.getEnricherMementos().values()) {
-                    logRebindingDebug("RebindManager instantiating enricher {}", enricherMemento);
-
-                    try {
-                        Enricher enricher = instantiator.newEnricher(enricherMemento);
-                        rebindContext.registerEnricher(enricherMemento.getId(), enricher);
-                    } catch (Exception e) {
-                        exceptionHandler.onCreateFailed(BrooklynObjectType.ENRICHER, enricherMemento.getId(), enricherMemento.getType(), e);
-                    }
+                for (final EnricherMemento enricherMemento : memento.getEnricherMementos().values()) {
+                    instantiations.add(new Runnable() {
+                        public void run() {
+                            logRebindingDebug("RebindManager instantiating enricher {}", enricherMemento);
+
+                            try {
+                                newEnrichers.put(enricherMemento.getId(), instantiator.newEnricher(enricherMemento));
+                            } catch (Exception e) {
+                                exceptionHandler.onCreateFailed(BrooklynObjectType.ENRICHER, enricherMemento.getId(), enricherMemento.getType(), e);
+                            }
+                        }});
                 }
             } else {
                 logRebindingDebug("Not rebinding enrichers; feature disabled: {}", memento.getEnricherIds());
             } 
             
-            // Instantiate feeds
             if (persistFeedsEnabled) {
                 logRebindingDebug("RebindManager instantiating feeds: {}", memento.getFeedIds());
-                for (FeedMemento feedMemento : memento.getFeedMementos().values()) {
-                    if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating feed {}", feedMemento);
-
-                    try {
-                        Feed feed = instantiator.newFeed(feedMemento);
-                        rebindContext.registerFeed(feedMemento.getId(), feed);
-                    } catch (Exception e) {
-                        exceptionHandler.onCreateFailed(BrooklynObjectType.FEED, feedMemento.getId(), feedMemento.getType(), e);
-                    }
+                for (final FeedMemento feedMemento : memento.getFeedMementos().values()) {
+                    instantiations.add(new Runnable() {
+                        public void run() {
+                            if (LOG.isDebugEnabled()) LOG.debug("RebindManager instantiating feed {}", feedMemento);
+
+                            try {
+                                newFeeds.put(feedMemento.getId(), instantiator.newFeed(feedMemento));
+                            } catch (Exception e) {
+                                exceptionHandler.onCreateFailed(BrooklynObjectType.FEED, feedMemento.getId(), feedMemento.getType(), e);
+                            }
+                        }});
                 }
             } else {
                 logRebindingDebug("Not rebinding feeds; feature disabled: {}", memento.getFeedIds());
             } 
+            
+            runInParallel(instantiations);
+            for (String policyId : memento.getPolicyIds()) {
+                if (newPolicies.containsKey(policyId)) rebindContext.registerPolicy(policyId, newPolicies.get(policyId));
+            }
+            for (String enricherId : memento.getEnricherIds()) {
+                if (newEnrichers.containsKey(enricherId)) rebindContext.registerEnricher(enricherId, newEnrichers.get(enricherId));
+            }
+            for (String feedId : memento.getFeedIds()) {
+                if (newFeeds.containsKey(feedId)) rebindContext.registerFeed(feedId, newFeeds.get(feedId));
+            }
+            notePhaseDone("instantiateAdjuncts", phaseTimer, instantiations.size());
 
             //
             // PHASE SIX
             //
             
-            // Reconstruct locations
+            // Reconstruct locations; each location tree in parallel, parent-first within the tree
             logRebindingDebug("RebindManager reconstructing locations");
-            for (LocationMemento locMemento : sortParentFirst(memento.getLocationMementos()).values()) {
-                Location location = rebindContext.getLocation(locMemento.getId());
-                logRebindingDebug("RebindManager reconstructing location {}", locMemento);
-                if (location == null) {
-                    // usually because of creation-failure, when not using fail-fast
-                    exceptionHandler.onNotFound(BrooklynObjectType.LOCATION, locMemento.getId());
-                } else {
-                    try {
-                        ((LocationInternal)location).getRebindSupport().reconstruct(rebindContext, locMemento);
-                    } catch (Exception e) {
-                        exceptionHandler.onRebindFailed(BrooklynObjectType.LOCATION, location, e);
-                    }
-                }
+            List<Runnable> reconstructions = Lists.newArrayList();
+            for (final List<LocationMemento> locMementos : partitionParentFirst(memento.getLocationMementos(), false)) {
+                reconstructions.add(new Runnable() {
+                    public void run() {
+                        for (LocationMemento locMemento : locMementos) {
+                            Location location = rebindContext.getLocation(locMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing location {}", locMemento);
+                            if (location == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.LOCATION, locMemento.getId());
+                            } else {
+                                try {
+                                    ((LocationInternal)location).getRebindSupport().reconstruct(rebindContext, locMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.LOCATION, location, e);
+                                }
+                            }
+                        }
+                    }});
             }
+            runInParallel(reconstructions);
+            int reconstructionCount = memento.getLocationIds().size();
 
-            // Reconstruct policies
+            // Reconstruct policies, enrichers and feeds, each independently in parallel
+            reconstructions = Lists.newArrayList();
             if (persistPoliciesEnabled) {
                 logRebindingDebug("RebindManager reconstructing policies");
-                for (PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
-                    Policy policy = rebindContext.getPolicy(policyMemento.getId());
-                    logRebindingDebug("RebindManager reconstructing policy {}", policyMemento);
-    
-                    if (policy == null) {
-                        // usually because of creation-failure, when not using fail-fast
-                        exceptionHandler.onNotFound(BrooklynObjectType.POLICY, policyMemento.getId());
-                    } else {
-                        try {
-                            policy.getRebindSupport().reconstruct(rebindContext, policyMemento);
-                        } catch (Exception e) {
-                            exceptionHandler.onRebindFailed(BrooklynObjectType.POLICY, policy, e);
-                            rebindContext.unregisterPolicy(policy);
-                        }
-                    }
+                for (final PolicyMemento policyMemento : memento.getPolicyMementos().values()) {
+                    reconstructions.add(new Runnable() {
+                        public void run() {
+                            Policy policy = rebindContext.getPolicy(policyMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing policy {}", policyMemento);
+            
+                            if (policy == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.POLICY, policyMemento.getId());
+                            } else {
+                                try {
+                                    policy.getRebindSupport().reconstruct(rebindContext, policyMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.POLICY, policy, e);
+                                    rebindContext.unregisterPolicy(policy);
+                                }
+                            }
+                        }});
                 }
             }
 
-            // Reconstruct enrichers
             if (persistEnrichersEnabled) {
                 logRebindingDebug("RebindManager reconstructing enrichers");
-                for (EnricherMemento enricherMemento : memento.getEnricherMementos().values()) {
-                    Enricher enricher = rebindContext.getEnricher(enricherMemento.getId());
-                    logRebindingDebug("RebindManager reconstructing enricher {}", enricherMemento);
-        
-                    if (enricher == null) {
-                        // usually because of creation-failure, when not using fail-fast
-                        exceptionHandler.onNotFound(BrooklynObjectType.ENRICHER, enricherMemento.getId());
-                    } else {
-                        try {
-                            enricher.getRebindSupport().reconstruct(rebindContext, enricherMemento);
-                        } catch (Exception e) {
-                            exceptionHandler.onRebindFailed(BrooklynObjectType.ENRICHER, enricher, e);
-                            rebindContext.unregisterEnricher(enricher);
-                        }
-                    }
+                for (final EnricherMemento enricherMemento : memento.getEnricherMementos().values()) {
+                    reconstructions.add(new Runnable() {
+                        public void run() {
+                            Enricher enricher = rebindContext.getEnricher(enricherMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing enricher {}", enricherMemento);
+                
+                            if (enricher == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.ENRICHER, enricherMemento.getId());
+                            } else {
+                                try {
+                                    enricher.getRebindSupport().reconstruct(rebindContext, enricherMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.ENRICHER, enricher, e);
+                                    rebindContext.unregisterEnricher(enricher);
+                                }
+                            }
+                        }});
                 }
             }
     
-            // Reconstruct feeds
             if (persistFeedsEnabled) {
                 logRebindingDebug("RebindManager reconstructing feeds");
-                for (FeedMemento feedMemento : memento.getFeedMementos().values()) {
-                    Feed feed = rebindContext.getFeed(feedMemento.getId());
-                    logRebindingDebug("RebindManager reconstructing feed {}", feedMemento);
-        
-                    if (feed == null) {
-                        // usually because of creation-failure, when not using fail-fast
-                        exceptionHandler.onNotFound(BrooklynObjectType.FEED, feedMemento.getId());
-                    } else {
-                        try {
-                            feed.getRebindSupport().reconstruct(rebindContext, feedMemento);
-                        } catch (Exception e) {
-                            exceptionHandler.onRebindFailed(BrooklynObjectType.FEED, feed, e);
-                            rebindContext.unregisterFeed(feed);
-                        }
-                    }
-
+                for (final FeedMemento feedMemento : memento.getFeedMementos().values()) {
+                    reconstructions.add(new Runnable() {
+                        public void run() {
+                            Feed feed = rebindContext.getFeed(feedMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing feed {}", feedMemento);
+                
+                            if (feed == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.FEED, feedMemento.getId());
+                            } else {
+                                try {
+                                    feed.getRebindSupport().reconstruct(rebindContext, feedMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.FEED, feed, e);
+                                    rebindContext.unregisterFeed(feed);
+                                }
+                            }
+                        }});
                 }
             }
+            runInParallel(reconstructions);
+            reconstructionCount += reconstructions.size();
     
-            // Reconstruct entities
+            // Reconstruct entities; each set of related application subtrees in parallel, parent-first within the set
+            // (reconstructing an entity also updates its parent, children and group members)
             logRebindingDebug("RebindManager reconstructing entities");
-            for (EntityMemento entityMemento : sortParentFirst(memento.getEntityMementos()).values()) {
-                Entity entity = rebindContext.lookup().lookupEntity(entityMemento.getId());
-                logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
-    
-                if (entity == null) {
-                    // usually because of creation-failure, when not using fail-fast
-                    exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
-                } else {
-                    try {
-                        entityMemento.injectTypeClass(entity.getClass());
-                        ((EntityInternal)entity).getRebindSupport().reconstruct(rebindContext, entityMemento);
-                    } catch (Exception e) {
-                        exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
-                    }
-                }
+            List<List<EntityMemento>> entityPartitions = partitionParentFirst(memento.getEntityMementos(), true);
+            reconstructions = Lists.newArrayList();
+            for (final List<EntityMemento> entityMementos : entityPartitions) {
+                reconstructions.add(new Runnable() {
+                    public void run() {
+                        for (EntityMemento entityMemento : entityMementos) {
+                            Entity entity = rebindContext.lookup().lookupEntity(entityMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
+                
+                            if (entity == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
+                            } else {
+                                try {
+                                    entityMemento.injectTypeClass(entity.getClass());
+                                    ((EntityInternal)entity).getRebindSupport().reconstruct(rebindContext, entityMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
+                                }
+                            }
+                        }
+                    }});
             }
+            runInParallel(reconstructions);
+            reconstructionCount += memento.getEntityIds().size();
+            notePhaseDone("reconstruct", phaseTimer, reconstructionCount);
 
             //
             // PHASE SEVEN
             //
             
-            // Associate policies+enrichers+feeds with entities
+            // Associate policies+enrichers+feeds with entities; partitioned as for reconstructing entities
             logRebindingDebug("RebindManager reconstructing entities");
-            for (EntityMemento entityMemento : sortParentFirst(memento.getEntityMementos()).values()) {
-                Entity entity = rebindContext.getEntity(entityMemento.getId());
-                logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
-    
-                if (entity == null) {
-                    // usually because of creation-failure, when not using fail-fast
-                    exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
-                } else {
-                    try {
-                        entityMemento.injectTypeClass(entity.getClass());
-                        // TODO these call to the entity which in turn sets the entity on the underlying feeds and enrichers;
-                        // that is taken as the cue to start, but it should not be. start should be a separate call.
-                        ((EntityInternal)entity).getRebindSupport().addPolicies(rebindContext, entityMemento);
-                        ((EntityInternal)entity).getRebindSupport().addEnrichers(rebindContext, entityMemento);
-                        ((EntityInternal)entity).getRebindSupport().addFeeds(rebindContext, entityMemento);
-                    } catch (Exception e) {
-                        exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
-                    }
-                }
+            List<Runnable> associations = Lists.newArrayList();
+            for (final List<EntityMemento> entityMementos : entityPartitions) {
+                associations.add(new Runnable() {
+                    public void run() {
+                        for (EntityMemento entityMemento : entityMementos) {
+                            Entity entity = rebindContext.getEntity(entityMemento.getId());
+                            logRebindingDebug("RebindManager reconstructing entity {}", entityMemento);
+                
+                            if (entity == null) {
+                                // usually because of creation-failure, when not using fail-fast
+                                exceptionHandler.onNotFound(BrooklynObjectType.ENTITY, entityMemento.getId());
+                            } else {
+                                try {
+                                    entityMemento.injectTypeClass(entity.getClass());
+                                    // TODO these call to the entity which in turn sets the entity on the underlying feeds and enrichers;
+                                    // that is taken as the cue to start, but it should not be. start should be a separate call.
+                                    ((EntityInternal)entity).getRebindSupport().addPolicies(rebindContext, entityMemento);
+                                    ((EntityInternal)entity).getRebindSupport().addEnrichers(rebindContext, entityMemento);
+                                    ((EntityInternal)entity).getRebindSupport().addFeeds(rebindContext, entityMemento);
+                                } catch (Exception e) {
+                                    exceptionHandler.onRebindFailed(BrooklynObjectType.ENTITY, entity, e);
+                                }
+                            }
+                        }
+                    }});
             }
+            runInParallel(associations);
+            notePhaseDone("addAdjuncts", phaseTimer, memento.getEntityIds().size());
             
             
             //
@@ -997,8 +1108,11 @@ public class RebindManagerImpl implements RebindManager {
                entityManager.unmanage(entityManager.getEntity(oldEntityId), ManagementTransitionMode.REBINDING_DESTROYED); 
             }
 
+            notePhaseDone("manage", phaseTimer, rebindContext.getLocations().size() + rebindContext.getEntities().size());
+
             exceptionHandler.onDone();
             
+            lastReadOnlyMementoRawData = ManagementNodeState.isHotProxy(mode) ? mementoRawData : null;
             rebindMetrics.noteSuccess(Duration.of(timer));
             noteErrors(exceptionHandler, null);
             if (firstRebindAppCount==null) {
@@ -1038,6 +1152,126 @@ public class RebindManagerImpl implements RebindManager {
         }
     }
 
+    private void notePhaseDone(String phase, Stopwatch phaseTimer, long itemCount) {
+        Duration duration = Duration.of(phaseTimer);
+        rebindMetrics.notePhase(phase, duration, itemCount);
+        logRebindingDebug("RebindManager phase {} completed in {} ({} items)", phase, Time.makeTimeStringRounded(duration), itemCount);
+        phaseTimer.reset().start();
+    }
+
+    /**
+     * Runs the given tasks, waiting for all to complete, and then rethrowing the first failure if any
+     * (e.g. from a fail-fast exception handler). Tasks are run in parallel, up to {@link #REBIND_MAX_THREAD_POOL_SIZE},
+     * so must not mutate items which other tasks in the same call use.
+     */
+    private void runInParallel(List<Runnable> tasks) {
+        if (tasks.size() <= 1 || rebindMaxThreadPoolSize <= 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        
+        ExecutorService executor = getRebindExecutor();
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        List<Future<?>> futures = Lists.newArrayList();
+        for (final Runnable task : tasks) {
+            futures.add(executor.submit(new Runnable() {
+                @Override public void run() {
+                    Thread.currentThread().setContextClassLoader(contextClassLoader);
+                    RebindTracker.setRebinding();
+                    try {
+                        task.run();
+                    } finally {
+                        RebindTracker.reset();
+                    }
+                }}));
+        }
+        
+        Throwable firstFailure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (firstFailure == null) firstFailure = e.getCause();
+            } catch (InterruptedException e) {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+                throw Exceptions.propagate(e);
+            }
+        }
+        if (firstFailure != null) {
+            throw Exceptions.propagate(firstFailure);
+        }
+    }
+
+    private synchronized ExecutorService getRebindExecutor() {
+        if (rebindExecutor == null) {
+            // threads time out when idle, so the pool costs nothing between rebinds
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(rebindMaxThreadPoolSize, rebindMaxThreadPoolSize, 
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override public Thread newThread(Runnable r) {
+                            Thread result = new Thread(r, "brooklyn-rebind");
+                            result.setDaemon(true);
+                            return result;
+                        }});
+            executor.allowCoreThreadTimeOut(true);
+            rebindExecutor = executor;
+        }
+        return rebindExecutor;
+    }
+
+    /**
+     * Partitions the given nodes into trees (via their parents and children), each sorted parent-first; 
+     * if includeMembers, trees with a group in one and its members in another are merged.
+     * Items in different partitions can then be rebinded in parallel.
+     */
+    @VisibleForTesting
+    <T extends TreeNode> List<List<T>> partitionParentFirst(Map<String, T> nodes, boolean includeMembers) {
+        Map<String, String> partitionIds = Maps.newHashMap();
+        for (T node : nodes.values()) {
+            joinPartitions(partitionIds, node.getId(), node.getParent());
+            for (String childId : node.getChildren()) {
+                joinPartitions(partitionIds, node.getId(), childId);
+            }
+            if (includeMembers && node instanceof EntityMemento) {
+                for (String memberId : ((EntityMemento)node).getMembers()) {
+                    joinPartitions(partitionIds, node.getId(), memberId);
+                }
+            }
+        }
+        
+        Map<String, List<T>> result = Maps.newLinkedHashMap();
+        for (T node : sortParentFirst(nodes).values()) {
+            String partitionId = findPartition(partitionIds, node.getId());
+            List<T> partition = result.get(partitionId);
+            if (partition == null) {
+                partition = Lists.newArrayList();
+                result.put(partitionId, partition);
+            }
+            partition.add(node);
+        }
+        return ImmutableList.copyOf(result.values());
+    }
+    
+    private static void joinPartitions(Map<String, String> partitionIds, String id1, String id2) {
+        if (id2 == null) return;
+        String partition1 = findPartition(partitionIds, id1);
+        String partition2 = findPartition(partitionIds, id2);
+        if (!partition1.equals(partition2)) partitionIds.put(partition2, partition1);
+    }
+    
+    private static String findPartition(Map<String, String> partitionIds, String id) {
+        String result = id;
+        String next;
+        while ((next = partitionIds.get(result)) != null) {
+            result = next;
+        }
+        if (!result.equals(id)) partitionIds.put(id, result);
+        return result;
+    }
+
     private void noteErrors(final RebindExceptionHandler exceptionHandler, Exception primaryException) {
         List<Exception> exceptions = exceptionHandler.getExceptions();
         List<String> warnings = exceptionHandler.getWarnings();
@@ -1484,8 +1718,10 @@ public class RebindManagerImpl implements RebindManager {
         result.put("rebind", rebindMetrics.asMap());
         result.put("persist", persistMetrics.asMap());
         
-        if (readOnlyRebindCount>=0)
+        if (readOnlyRebindCount>=0) {
             result.put("rebindReadOnlyCount", readOnlyRebindCount);
+            result.put("rebindReadOnlyUnchangedCount", readOnlyRebindUnchangedCount);
+        }
         
         // include first rebind counts, so we know whether we rebinded or not
         result.put("firstRebindCounts", MutableMap.of(
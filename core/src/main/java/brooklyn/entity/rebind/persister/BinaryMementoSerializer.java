@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.rebind.persister;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import brooklyn.entity.rebind.BrooklynObjectType;
+import brooklyn.mementos.Memento;
+import brooklyn.mementos.TreeNode;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.xstream.XmlUtil;
+
+import com.google.common.io.BaseEncoding;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import com.thoughtworks.xstream.io.xml.XppReader;
+import com.thoughtworks.xstream.io.xml.xppdom.XppFactory;
+
+/**
+ * Writes mementos in a compact binary form: the same XStream object tree as {@link XmlMementoSerializer}
+ * (so the same aliases and converters apply), but written as XStream's binary token stream and deflated,
+ * rather than as XML. Either form is read by this and by {@link XmlMementoSerializer}.
+ * <p>
+ * As the persistence stores hold text, the binary form is base64 encoded after a {@link #MARKER} and version.
+ * The binary data starts with a header of the fields needed for the rebind manifest (the id, type, parent 
+ * and catalog item id) so that these can be read without deserializing the memento, then the deflated body.
+ */
+public class BinaryMementoSerializer<T> extends XmlMementoSerializer<T> {
+
+    public static final String MARKER = "brooklyn-binary-memento:";
+    public static final int VERSION = 1;
+
+    private static final String VERSIONED_MARKER = MARKER+VERSION+":";
+    private static final BaseEncoding BASE64 = BaseEncoding.base64();
+
+    public BinaryMementoSerializer(ClassLoader classLoader) {
+        super(classLoader);
+    }
+
+    @Override
+    public String toString(T memento) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        BinaryStreamWriter writer = newWriter(body);
+        xstream.marshal(memento, writer);
+        writer.close();
+        return encode(headerOf(memento), body.toByteArray());
+    }
+
+    /** whether the given contents are in the binary form (otherwise presumed to be XML) */
+    public static boolean isBinary(String contents) {
+        return contents != null && contents.startsWith(MARKER);
+    }
+
+    /** a reader for the body of the binary form; caller should check {@link #isBinary(String)} first */
+    static HierarchicalStreamReader newReader(String contents) {
+        DataInputStream in = decode(contents);
+        try {
+            readHeader(in);
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+        return new BinaryStreamReader(new BufferedInputStream(new InflaterInputStream(in)));
+    }
+
+    /**
+     * Returns the given field of the memento, for those fields needed by the rebind manifest (i.e. 
+     * id, type, parent and catalogItemId), without deserializing the memento; works for either form.
+     */
+    public static String getManifestField(String contents, BrooklynObjectType type, String field) {
+        if (isBinary(contents)) {
+            try {
+                return readHeader(decode(contents)).get(field);
+            } catch (IOException e) {
+                throw Exceptions.propagate(e);
+            }
+        } else {
+            return (String) XmlUtil.xpath(contents, "/"+type.toCamelCase()+"/"+field);
+        }
+    }
+
+    /** converts the given persisted memento to XML (returning it unchanged if it is already XML) */
+    public static String toXml(String contents) {
+        if (!isBinary(contents)) return contents;
+        StringWriter result = new StringWriter();
+        PrettyPrintWriter writer = new PrettyPrintWriter(result);
+        new HierarchicalStreamCopier().copy(newReader(contents), writer);
+        writer.close();
+        result.append("\n");
+        return result.toString();
+    }
+
+    /** converts the given persisted memento of the given type to the binary form (returning it unchanged if it is already binary) */
+    public static String toBinary(String contents, BrooklynObjectType type) {
+        if (isBinary(contents)) return contents;
+        Map<String, String> header = MutableMap.of();
+        for (String field : new String[] {"id", "type", "parent", "catalogItemId"}) {
+            String val = getManifestField(contents, type, field);
+            if (val != null && val.length() > 0) header.put(field, val);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        BinaryStreamWriter writer = newWriter(body);
+        try {
+            new HierarchicalStreamCopier().copy(new XppReader(new StringReader(contents), XppFactory.createDefaultParser()), writer);
+        } catch (XmlPullParserException e) {
+            throw Exceptions.propagate(e);
+        }
+        writer.close();
+        return encode(header, body.toByteArray());
+    }
+
+    private static BinaryStreamWriter newWriter(OutputStream body) {
+        // buffered, as the writer writes each token separately
+        return new BinaryStreamWriter(new BufferedOutputStream(new DeflaterOutputStream(body, new Deflater(Deflater.BEST_SPEED))));
+    }
+
+    private static Map<String, String> headerOf(Object memento) {
+        Map<String, String> result = MutableMap.of();
+        if (memento instanceof Memento) {
+            putIfNotNull(result, "id", ((Memento)memento).getId());
+            putIfNotNull(result, "type", ((Memento)memento).getType());
+            putIfNotNull(result, "catalogItemId", ((Memento)memento).getCatalogItemId());
+        }
+        if (memento instanceof TreeNode) {
+            putIfNotNull(result, "parent", ((TreeNode)memento).getParent());
+        }
+        return result;
+    }
+
+    private static void putIfNotNull(Map<String, String> map, String key, String val) {
+        if (val != null) map.put(key, val);
+    }
+
+    private static String encode(Map<String, String> header, byte[] body) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(header.size());
+            for (Map.Entry<String, String> entry : header.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            out.write(body);
+            out.close();
+            return VERSIONED_MARKER + BASE64.encode(bytes.toByteArray());
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    private static DataInputStream decode(String contents) {
+        int versionEnd = contents.indexOf(':', MARKER.length());
+        String version = versionEnd > 0 ? contents.substring(MARKER.length(), versionEnd) : null;
+        if (!String.valueOf(VERSION).equals(version)) {
+            throw new IllegalStateException("Unsupported binary memento version "+version+" (supports version "+VERSION+")");
+        }
+        byte[] bytes = BASE64.decode(contents.substring(versionEnd+1).trim());
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static Map<String, String> readHeader(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> result = MutableMap.of();
+        for (int i = 0; i < size; i++) {
+            result.put(in.readUTF(), in.readUTF());
+        }
+        return result;
+    }
+}
@@ -21,14 +21,20 @@ package brooklyn.entity.rebind.persister;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -65,14 +71,21 @@ import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.text.Strings;
 import brooklyn.util.time.Duration;
 import brooklyn.util.time.Time;
-import brooklyn.util.xstream.XmlUtil;
 
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -99,6 +112,24 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             "Maximum number of attempts to serialize a memento (e.g. if first attempts fail because of concurrent modifications of an entity)", 
             5);
 
+    public static final ConfigKey<Boolean> PERSISTER_SKIP_UNCHANGED_WRITES = ConfigKeys.newBooleanConfigKey(
+            "persister.skipUnchangedWrites",
+            "Whether to skip writing a memento if its serialized contents are the same as when last written by this node "
+            + "(a hash of the contents of each object is kept, and discarded whenever write access is enabled or disabled)", 
+            true);
+
+    public static final ConfigKey<MementoFormat> PERSISTER_FORMAT = ConfigKeys.newConfigKey(MementoFormat.class,
+            "persister.format",
+            "Format for writing mementos (XML or BINARY); mementos already in the store are read whichever their format", 
+            MementoFormat.XML);
+
+    public static final ConfigKey<Integer> PERSISTER_CHANGE_JOURNAL_SIZE = ConfigKeys.newIntegerConfigKey(
+            "persister.changeJournal.size",
+            "Maximum number of recently written objects to record in the store's change journal, "
+            + "so that hot standby nodes re-read just those objects (rather than the entire store) when in sync; "
+            + "0 to disable writing and using the journal", 
+            1000);
+
     private final PersistenceObjectStore objectStore;
     private final MementoSerializer<Object> serializerWithStandardClassLoader;
 
@@ -106,6 +137,52 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
 
     private final ListeningExecutorService executor;
 
+    private final boolean skipUnchangedWrites;
+    
+    /** hash of the contents last written to each path, when {@link #PERSISTER_SKIP_UNCHANGED_WRITES} */
+    private final ConcurrentMap<String, HashCode> lastWrittenHashes = Maps.newConcurrentMap();
+    
+    private final AtomicLong numWritesSkipped = new AtomicLong();
+
+    private final int changeJournalSize;
+    
+    /** the journal last written, when writing; guarded by the write lock */
+    private ChangeJournal changeJournal;
+    
+    /** paths written or deleted since the journal was last written */
+    private final Set<String> changedPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    /** 
+     * The mementos last read, keyed by path, so that subsequent reads need only re-read the objects 
+     * recorded as changed in the {@link ChangeJournal}; null if not (yet) known to be in sync with a journal. 
+     */
+    private Map<String, CachedMemento> readCache;
+    private BrooklynMementoRawData readCacheData;
+    private String readCacheEpoch;
+    private long readCacheGeneration;
+    private final Object readCacheMutex = new Object();
+    
+    private final AtomicLong numObjectsRead = new AtomicLong();
+    
+    private static class CachedMemento {
+        final BrooklynObjectType type;
+        final String id;
+        final String contents;
+        CachedMemento(BrooklynObjectType type, String id, String contents) {
+            this.type = type;
+            this.id = id;
+            this.contents = contents;
+        }
+    }
+    
+    /** manifest fields of mementos, keyed by (identity of) their contents, so that unchanged mementos are not re-parsed */
+    private final LoadingCache<String, ConcurrentMap<String, Optional<String>>> manifestFieldsCache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<String, ConcurrentMap<String, Optional<String>>>() {
+                @Override public ConcurrentMap<String, Optional<String>> load(String contents) {
+                    return Maps.newConcurrentMap();
+                }});
+
     private volatile boolean writesAllowed = false;
     private volatile boolean writesShuttingDown = false;
     private StringConfigMap brooklynProperties;
@@ -121,10 +198,12 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         this.brooklynProperties = brooklynProperties;
         
         int maxSerializationAttempts = brooklynProperties.getConfig(PERSISTER_MAX_SERIALIZATION_ATTEMPTS);
-        MementoSerializer<Object> rawSerializer = new XmlMementoSerializer<Object>(classLoader);
+        MementoSerializer<Object> rawSerializer = getFormat().newSerializer(classLoader);
         this.serializerWithStandardClassLoader = new RetryingMementoSerializer<Object>(rawSerializer, maxSerializationAttempts);
 
         int maxThreadPoolSize = brooklynProperties.getConfig(PERSISTER_MAX_THREAD_POOL_SIZE);
+        this.skipUnchangedWrites = brooklynProperties.getConfig(PERSISTER_SKIP_UNCHANGED_WRITES);
+        this.changeJournalSize = brooklynProperties.getConfig(PERSISTER_CHANGE_JOURNAL_SIZE);
 
         objectStore.createSubPath("entities");
         objectStore.createSubPath("locations");
@@ -143,6 +222,32 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             }}));
     }
 
+    /** 
+     * The executor used for reading, serializing and writing mementos; 
+     * also available for generating mementos in parallel prior to a {@link #delta(Delta, PersistenceExceptionHandler)}.
+     */
+    @Beta
+    public ListeningExecutorService getExecutor() {
+        return executor;
+    }
+    
+    /** number of writes skipped because the contents were unchanged, when {@link #PERSISTER_SKIP_UNCHANGED_WRITES} */
+    @Beta
+    public long getNumWritesSkipped() {
+        return numWritesSkipped.get();
+    }
+    
+    /** number of objects read from the store, by {@link #loadMementoRawData(RebindExceptionHandler)} */
+    @Beta
+    public long getNumObjectsRead() {
+        return numObjectsRead.get();
+    }
+    
+    /** the format in which mementos are written (either format is read) */
+    public MementoFormat getFormat() {
+        return brooklynProperties.getConfig(PERSISTER_FORMAT);
+    }
+    
     protected MementoSerializer<Object> getSerializerWithStandardClassLoader() {
         return serializerWithStandardClassLoader;
     }
@@ -155,7 +260,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
     
     protected MementoSerializer<Object> getSerializerWithCustomClassLoader(LookupContext lookupContext, ClassLoader classLoader) {
         int maxSerializationAttempts = brooklynProperties.getConfig(PERSISTER_MAX_SERIALIZATION_ATTEMPTS);
-        MementoSerializer<Object> rawSerializer = new XmlMementoSerializer<Object>(classLoader);
+        MementoSerializer<Object> rawSerializer = getFormat().newSerializer(classLoader);
         MementoSerializer<Object> result = new RetryingMementoSerializer<Object>(rawSerializer, maxSerializationAttempts);
         result.setLookupContext(lookupContext);
         return result;
@@ -175,6 +280,15 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
     }
     
     @Override public void enableWriteAccess() {
+        // another node may have written to the store in the meantime
+        lastWrittenHashes.clear();
+        changedPaths.clear();
+        // start a new epoch, so readers re-read everything rather than trusting another writer's journal
+        changeJournal = null;
+        synchronized (readCacheMutex) {
+            readCache = null;
+            readCacheData = null;
+        }
         writesAllowed = true;
     }
     
@@ -190,6 +304,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         } catch (Exception e) {
             throw Exceptions.propagate(e);
         } finally {
+            lastWrittenHashes.clear();
             writesShuttingDown = false;
         }
     }
@@ -266,7 +381,121 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         return subPathData;
     }
     
+    /**
+     * Reads all mementos from the store. 
+     * <p>
+     * Where the store has a {@link ChangeJournal} which this persister has previously read everything against,
+     * only the objects recorded in the journal as changed since then are re-read; 
+     * and if nothing has changed, the same instance as previously is returned.
+     */
     public BrooklynMementoRawData loadMementoRawData(final RebindExceptionHandler exceptionHandler) {
+        if (changeJournalSize <= 0) {
+            return loadMementoRawDataFully(exceptionHandler, null);
+        }
+        synchronized (readCacheMutex) {
+            // read journal first: anything changed after this is re-read next time
+            ChangeJournal journal = readChangeJournal();
+            if (journal != null && readCache != null && journal.canCatchUp(readCacheEpoch, readCacheGeneration)) {
+                if (journal.getGeneration() != readCacheGeneration) {
+                    if (loadMementoRawDataIncrementally(journal.getPathsChangedSince(readCacheGeneration), exceptionHandler)) {
+                        readCacheGeneration = journal.getGeneration();
+                    } else {
+                        // a changed object could not be read; don't claim to be up to date, but read everything next time
+                        readCache = null;
+                    }
+                }
+                return readCacheData;
+            }
+            
+            Map<String, CachedMemento> cache = Maps.newConcurrentMap();
+            BrooklynMementoRawData result = loadMementoRawDataFully(exceptionHandler, cache);
+            if (journal != null) {
+                readCache = cache;
+                readCacheData = result;
+                readCacheEpoch = journal.getEpoch();
+                readCacheGeneration = journal.getGeneration();
+            } else {
+                readCache = null;
+                readCacheData = null;
+            }
+            return result;
+        }
+    }
+
+    private ChangeJournal readChangeJournal() {
+        try {
+            return ChangeJournal.parse(read(ChangeJournal.PATH));
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            LOG.debug("Unable to read change journal in "+objectStore.getSummaryName()+" (will read everything): "+e);
+            return null;
+        }
+    }
+
+    /** 
+     * re-reads the given paths into the {@link #readCache}, and rebuilds the {@link #readCacheData};
+     * returns false if any could not be read (in which case its previous contents, if any, are kept)
+     */
+    private boolean loadMementoRawDataIncrementally(Set<String> paths, final RebindExceptionHandler exceptionHandler) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<ListenableFuture<?>> futures = Lists.newArrayList();
+        for (final String path : paths) {
+            final BrooklynObjectType type = getTypeOfPath(path);
+            if (type == null) {
+                LOG.debug("Ignoring unknown path "+path+" in change journal of "+objectStore.getSummaryName());
+                continue;
+            }
+            futures.add(executor.submit(new Runnable() {
+                public void run() {
+                    String contents;
+                    try {
+                        contents = read(path);
+                        numObjectsRead.incrementAndGet();
+                    } catch (Exception e) {
+                        Exceptions.propagateIfFatal(e);
+                        failed.set(true);
+                        exceptionHandler.onLoadMementoFailed(type, "memento "+path+" read error", e);
+                        return;
+                    }
+                    if (contents == null) {
+                        readCache.remove(path);
+                    } else {
+                        readCache.put(path, new CachedMemento(type, getManifestField(contents, type, "id"), contents));
+                    }
+                }}));
+        }
+        try {
+            Futures.allAsList(futures).get();
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        
+        BrooklynMementoRawData.Builder builder = BrooklynMementoRawData.builder();
+        for (CachedMemento memento : readCache.values()) {
+            builder.put(memento.type, memento.id, memento.contents);
+        }
+        readCacheData = builder.build();
+        
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Loaded rebind raw data incrementally; took {}; {} changed of {} objects, from {}", new Object[]{
+                    Time.makeTimeStringRounded(stopwatch), futures.size(), readCache.size(), objectStore.getSummaryName() });
+        }
+        return !failed.get();
+    }
+    
+    private static BrooklynObjectType getTypeOfPath(String path) {
+        int split = path.indexOf('/');
+        if (split < 0) return null;
+        String subPath = path.substring(0, split);
+        for (BrooklynObjectType type: BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
+            if (type.getSubPathName().equals(subPath)) return type;
+        }
+        return null;
+    }
+    
+    /** reads everything, also populating the given cache (if not null) keyed by path */
+    private BrooklynMementoRawData loadMementoRawDataFully(final RebindExceptionHandler exceptionHandler, @Nullable final Map<String, CachedMemento> cache) {
         BrooklynMementoRawData subPathData = listMementoSubPathsAsData(exceptionHandler);
         
         final BrooklynMementoRawData.Builder builder = BrooklynMementoRawData.builder();
@@ -277,17 +506,20 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
                 String contents = null;
                 try {
                     contents = read(contentsSubpath);
+                    numObjectsRead.incrementAndGet();
                 } catch (Exception e) {
                     Exceptions.propagateIfFatal(e);
                     exceptionHandler.onLoadMementoFailed(type, "memento "+id+" read error", e);
                 }
                 
-                String xmlId = (String) XmlUtil.xpath(contents, "/"+type.toCamelCase()+"/id");
+                String xmlId = getManifestField(contents, type, "id");
                 String safeXmlId = Strings.makeValidFilename(xmlId);
                 if (!Objects.equal(id, safeXmlId))
                     LOG.warn("ID mismatch on "+type.toCamelCase()+", "+id+" from path, "+safeXmlId+" from xml");
                 
                 builder.put(type, xmlId, contents);
+                // keyed by the path used when writing (and in the journal), which can differ from the listed path
+                if (cache != null && contents != null) cache.put(getPath(type.getSubPathName(), id), new CachedMemento(type, xmlId, contents));
             }
         };
 
@@ -322,12 +554,10 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
 
         Visitor visitor = new Visitor() {
             @Override
-            public void visit(BrooklynObjectType type, String objectId, final String contents) throws Exception {
-                final String prefix = "/"+type.toCamelCase()+"/";
-
+            public void visit(final BrooklynObjectType type, String objectId, final String contents) throws Exception {
                 class XPathHelper {
                     private String get(String innerPath) {
-                        return (String) XmlUtil.xpath(contents, prefix+innerPath);
+                        return getManifestField(contents, type, innerPath);
                     }
                 }
                 XPathHelper x = new XPathHelper();
@@ -491,6 +721,21 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         }
     }
 
+    /** 
+     * Reads the given field needed for the manifest, without deserializing (see {@link BinaryMementoSerializer#getManifestField(String, BrooklynObjectType, String)}),
+     * remembering the result for as long as the contents are referenced (e.g. in the {@link #readCache}).
+     */
+    private String getManifestField(String contents, BrooklynObjectType type, String field) {
+        if (contents == null) return null;
+        ConcurrentMap<String, Optional<String>> fields = manifestFieldsCache.getUnchecked(contents);
+        Optional<String> result = fields.get(field);
+        if (result == null) {
+            result = Optional.fromNullable(BinaryMementoSerializer.getManifestField(contents, type, field));
+            fields.put(field, result);
+        }
+        return result.orNull();
+    }
+    
     protected void checkWritesAllowed() {
         if (!writesAllowed && !writesShuttingDown) {
             throw new IllegalStateException("Writes not allowed in "+this);
@@ -528,6 +773,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             } catch (Exception e) {
                 throw Exceptions.propagate(e);
             }
+            writeChangeJournal(exceptionHandler);
             if (LOG.isDebugEnabled()) LOG.debug("Checkpointed entire memento in {}", Time.makeTimeStringRounded(stopwatch));
         } finally {
             lock.writeLock().unlock();
@@ -604,6 +850,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             } catch (Exception e) {
                 throw Exceptions.propagate(e);
             }
+            writeChangeJournal(exceptionHandler);
             
             return stopwatch;
         } finally {
@@ -611,6 +858,26 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
         }
     }
 
+    /** 
+     * Records the paths written or deleted since last called in the {@link ChangeJournal};
+     * called once the writes have completed (under the write lock), so readers never see the journal before the objects.
+     */
+    private void writeChangeJournal(PersistenceExceptionHandler exceptionHandler) {
+        if (changeJournalSize <= 0 || changedPaths.isEmpty()) return;
+        Set<String> paths = ImmutableSet.copyOf(changedPaths);
+        changedPaths.removeAll(paths);
+        
+        if (changeJournal == null) changeJournal = ChangeJournal.newEpoch();
+        changeJournal = changeJournal.append(paths, changeJournalSize);
+        try {
+            getWriter(ChangeJournal.PATH).put(changeJournal.toString());
+        } catch (Exception e) {
+            // readers will be out of date until the next successful write of the journal
+            Exceptions.propagateIfFatal(e);
+            LOG.warn("Problem writing change journal to "+objectStore.getSummaryName()+" (continuing): "+e);
+        }
+    }
+
     @Override
     @VisibleForTesting
     public void waitForWritesCompleted(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
@@ -644,7 +911,7 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
 
     private void persist(String subPath, Memento memento, PersistenceExceptionHandler exceptionHandler) {
         try {
-            getWriter(getPath(subPath, memento.getId())).put(getSerializerWithStandardClassLoader().toString(memento));
+            putIfChanged(getPath(subPath, memento.getId()), getSerializerWithStandardClassLoader().toString(memento));
         } catch (Exception e) {
             exceptionHandler.onPersistMementoFailed(memento, e);
         }
@@ -655,16 +922,37 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             if (content==null) {
                 LOG.warn("Null content for "+type+" "+id);
             }
-            getWriter(getPath(subPath, id)).put(content);
+            putIfChanged(getPath(subPath, id), content);
         } catch (Exception e) {
             exceptionHandler.onPersistRawMementoFailed(type, id, e);
         }
     }
     
+    private void putIfChanged(String path, String content) {
+        if (!skipUnchangedWrites || content == null) {
+            getWriter(path).put(content);
+            changedPaths.add(path);
+            return;
+        }
+        HashCode hash = Hashing.murmur3_128().hashString(content, Charsets.UTF_8);
+        if (hash.equals(lastWrittenHashes.get(path))) {
+            numWritesSkipped.incrementAndGet();
+            if (LOG.isTraceEnabled()) LOG.trace("Skipping write of {}: unchanged", path);
+            return;
+        }
+        // discard the hash first, so a failed write is not mistaken for one that succeeded
+        lastWrittenHashes.remove(path);
+        getWriter(path).put(content);
+        lastWrittenHashes.put(path, hash);
+        changedPaths.add(path);
+    }
+    
     private void delete(String subPath, String id, PersistenceExceptionHandler exceptionHandler) {
         try {
+            lastWrittenHashes.remove(getPath(subPath, id));
             StoreObjectAccessorWithLock w = getWriter(getPath(subPath, id));
             w.delete();
+            changedPaths.add(getPath(subPath, id));
             synchronized (writers) {
                 writers.remove(id);
             }
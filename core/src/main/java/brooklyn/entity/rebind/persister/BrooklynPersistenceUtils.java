@@ -162,7 +162,9 @@ public class BrooklynPersistenceUtils {
 
     private static BrooklynMementoRawData newStateMementoFromLocal(ManagementContext mgmt) {
         BrooklynMementoRawData.Builder result = BrooklynMementoRawData.builder();
-        MementoSerializer<Object> rawSerializer = new XmlMementoSerializer<Object>(mgmt.getClass().getClassLoader());
+        // write in the configured format, as the persister would
+        MementoFormat format = mgmt.getConfig().getConfig(BrooklynMementoPersisterToObjectStore.PERSISTER_FORMAT);
+        MementoSerializer<Object> rawSerializer = format.newSerializer(mgmt.getClass().getClassLoader());
         RetryingMementoSerializer<Object> serializer = new RetryingMementoSerializer<Object>(rawSerializer, 1);
         
         for (Location instance: mgmt.getLocationManager().getLocations())
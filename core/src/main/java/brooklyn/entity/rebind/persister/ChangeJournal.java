@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.rebind.persister;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import brooklyn.util.collections.MutableSet;
+import brooklyn.util.text.Identifiers;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * A record of the objects most recently written or deleted by a persister, kept in the persistence store
+ * (at {@link #PATH}) so that hot standby and hot backup nodes can re-read just those objects, 
+ * rather than the entire store.
+ * <p>
+ * Each batch of writes (e.g. a delta) increments the generation, recording the paths written or deleted.
+ * Only the most recent entries are kept. The epoch identifies the writer (it changes each time a persister 
+ * is given write access); a reader whose state is from another epoch, or from a generation whose entries 
+ * are no longer recorded, must read everything.
+ * <p>
+ * Instances are immutable.
+ */
+@Beta
+public class ChangeJournal {
+
+    public static final String PATH = "plane/changes";
+
+    private final String epoch;
+    private final long generation;
+    /** the latest generation for which some of the entries may have been discarded */
+    private final long truncatedGeneration;
+    /** oldest first */
+    private final List<Entry> entries;
+
+    private static class Entry {
+        final long generation;
+        final String path;
+        Entry(long generation, String path) {
+            this.generation = generation;
+            this.path = path;
+        }
+    }
+
+    /** a new journal, for a writer which has just been given write access */
+    public static ChangeJournal newEpoch() {
+        return new ChangeJournal(Identifiers.makeRandomId(8), 0, 0, ImmutableList.<Entry>of());
+    }
+
+    private ChangeJournal(String epoch, long generation, long truncatedGeneration, List<Entry> entries) {
+        this.epoch = epoch;
+        this.generation = generation;
+        this.truncatedGeneration = truncatedGeneration;
+        this.entries = entries;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** returns a journal with the next generation, recording the given paths, and keeping at most maxEntries entries */
+    public ChangeJournal append(Collection<String> paths, int maxEntries) {
+        long newGeneration = generation + 1;
+        long newTruncatedGeneration = truncatedGeneration;
+        List<Entry> newEntries = Lists.newLinkedList(entries);
+        for (String path : paths) {
+            newEntries.add(new Entry(newGeneration, path));
+        }
+        while (newEntries.size() > maxEntries) {
+            newTruncatedGeneration = Math.max(newTruncatedGeneration, newEntries.remove(0).generation);
+        }
+        return new ChangeJournal(epoch, newGeneration, newTruncatedGeneration, ImmutableList.copyOf(newEntries));
+    }
+
+    /** whether a reader which has read everything up to the given generation of the given epoch can catch up using this journal */
+    public boolean canCatchUp(String fromEpoch, long fromGeneration) {
+        return Objects.equal(epoch, fromEpoch) && fromGeneration >= truncatedGeneration && fromGeneration <= generation;
+    }
+
+    /** the paths written or deleted after the given generation; see {@link #canCatchUp(String, long)} */
+    public Set<String> getPathsChangedSince(long fromGeneration) {
+        Set<String> result = MutableSet.of();
+        for (Entry entry : entries) {
+            if (entry.generation > fromGeneration) result.add(entry.path);
+        }
+        return result;
+    }
+
+    /** the form written to the store, parsed by {@link #parse(String)} */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("epoch ").append(epoch).append("\n");
+        result.append("generation ").append(generation).append("\n");
+        result.append("truncated ").append(truncatedGeneration).append("\n");
+        for (Entry entry : entries) {
+            result.append(entry.generation).append(" ").append(entry.path).append("\n");
+        }
+        return result.toString();
+    }
+
+    /** parses the form written by {@link #toString()}, returning null if contents is null or not a journal */
+    public static ChangeJournal parse(String contents) {
+        if (contents == null) return null;
+        List<String> lines = Splitter.on('\n').omitEmptyStrings().trimResults().splitToList(contents);
+        if (lines.size() < 3 || !lines.get(0).startsWith("epoch ") || !lines.get(1).startsWith("generation ") 
+                || !lines.get(2).startsWith("truncated ")) {
+            return null;
+        }
+        try {
+            String epoch = lines.get(0).substring("epoch ".length());
+            long generation = Long.parseLong(lines.get(1).substring("generation ".length()));
+            long truncatedGeneration = Long.parseLong(lines.get(2).substring("truncated ".length()));
+            List<Entry> entries = Lists.newArrayList();
+            for (String line : lines.subList(3, lines.size())) {
+                int split = line.indexOf(' ');
+                entries.add(new Entry(Long.parseLong(line.substring(0, split)), line.substring(split+1)));
+            }
+            return new ChangeJournal(epoch, generation, truncatedGeneration, ImmutableList.copyOf(entries));
+        } catch (RuntimeException e) {
+            // e.g. truncated by a concurrent non-atomic write; treated as absent, so readers read everything
+            return null;
+        }
+    }
+}
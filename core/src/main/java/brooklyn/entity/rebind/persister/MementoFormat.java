@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.rebind.persister;
+
+import java.util.Map;
+
+import brooklyn.entity.rebind.BrooklynObjectType;
+import brooklyn.mementos.BrooklynMementoRawData;
+
+/**
+ * The form in which mementos are written to the persistence store. 
+ * Mementos in either form are read, whichever form is configured for writing.
+ */
+public enum MementoFormat {
+    
+    /** XML, as written by {@link XmlMementoSerializer} */
+    XML,
+    
+    /** compact binary, as written by {@link BinaryMementoSerializer} */
+    BINARY;
+    
+    public <T> XmlMementoSerializer<T> newSerializer(ClassLoader classLoader) {
+        switch (this) {
+        case XML: return new XmlMementoSerializer<T>(classLoader);
+        case BINARY: return new BinaryMementoSerializer<T>(classLoader);
+        }
+        throw new IllegalStateException("Unexpected format "+this);
+    }
+    
+    /** the format of the given persisted memento */
+    public static MementoFormat of(String contents) {
+        return BinaryMementoSerializer.isBinary(contents) ? BINARY : XML;
+    }
+    
+    /** converts the given persisted memento to this format, without deserializing it */
+    public String convert(String contents, BrooklynObjectType type) {
+        if (contents == null) return null;
+        switch (this) {
+        case XML: return BinaryMementoSerializer.toXml(contents);
+        case BINARY: return BinaryMementoSerializer.toBinary(contents, type);
+        }
+        throw new IllegalStateException("Unexpected format "+this);
+    }
+    
+    /** converts all the given persisted mementos to this format, e.g. for copying an existing store */
+    public BrooklynMementoRawData convert(BrooklynMementoRawData data) {
+        BrooklynMementoRawData.Builder result = BrooklynMementoRawData.builder();
+        for (BrooklynObjectType type : BrooklynPersistenceUtils.STANDARD_BROOKLYN_OBJECT_TYPE_PERSISTENCE_ORDER) {
+            for (Map.Entry<String, String> entry : data.getObjectsOfType(type).entrySet()) {
+                result.put(type, entry.getKey(), convert(entry.getValue(), type));
+            }
+        }
+        return result.build();
+    }
+}
@@ -32,18 +32,33 @@ public class PersistenceActivityMetrics {
     long count=0, failureCount=0;
     Long lastSuccessTime, lastDuration, lastFailureTime;
     List<Map<String,Object>> errorMessages = MutableList.of();
+    Map<String,Map<String,Object>> currentPhases = MutableMap.of();
+    Map<String,Map<String,Object>> lastPhases = MutableMap.of();
 
-    public void noteSuccess(Duration duration) {
+    public synchronized void noteSuccess(Duration duration) {
         count++;
         lastSuccessTime = System.currentTimeMillis();
         lastDuration = duration.toMilliseconds();
+        notePhasesDone();
     }
     
-    public void noteFailure(Duration duration) {
+    public synchronized void noteFailure(Duration duration) {
         count++;
         failureCount++;
         lastFailureTime = System.currentTimeMillis();
         lastDuration = duration.toMilliseconds();
+        notePhasesDone();
+    }
+
+    /** records the duration of a phase of the current activity, and the number of items it processed; 
+     * reported (as <code>lastPhases</code>) once the activity's success or failure is noted */
+    public synchronized void notePhase(String phase, Duration duration, long itemCount) {
+        currentPhases.put(phase, MutableMap.<String,Object>of("duration", duration.toMilliseconds(), "count", itemCount));
+    }
+    
+    private void notePhasesDone() {
+        lastPhases = currentPhases;
+        currentPhases = MutableMap.of();
     }
 
     public void noteError(String error) {
@@ -72,6 +87,7 @@ public class PersistenceActivityMetrics {
         result.put("lastFailureTimeUtc", lastFailureTime);
         result.put("lastFailureTimeMillisSince", since(lastFailureTime));
         result.put("errorMessages", MutableList.copyOf(errorMessages));
+        result.put("lastPhases", MutableMap.copyOf(lastPhases));
         return result;
     }
 
@@ -137,6 +137,16 @@ public class XmlMementoSerializer<T> extends XmlSerializer<T> implements Memento
         }
     }
 
+    /** deserializes the given XML, or the binary form written by {@link BinaryMementoSerializer} */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T fromString(String contents) {
+        if (BinaryMementoSerializer.isBinary(contents)) {
+            return (T) xstream.unmarshal(BinaryMementoSerializer.newReader(contents));
+        }
+        return super.fromString(contents);
+    }
+
     @Override
     public void setLookupContext(LookupContext lookupContext) {
         this.lookupContext = checkNotNull(lookupContext, "lookupContext");
@@ -23,6 +23,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +60,9 @@ public final class AttributeMap implements Serializable {
     // Assumed to be something like a ConcurrentMap passed in.
     private final Map<Collection<String>, Object> values;
 
+    /** incremented whenever a value is set or removed */
+    private final AtomicLong version = new AtomicLong();
+
     /**
      * Creates a new AttributeMap.
      *
@@ -70,6 +74,15 @@ public final class AttributeMap implements Serializable {
         this.values = checkNotNull(storage, "storage map must not be null");
     }
 
+    /**
+     * Returns a counter which is incremented every time an attribute is set or removed (even if to the same value),
+     * so callers can cheaply tell whether any attribute may have changed since they last looked.
+     * It is not persisted, so is only meaningful within this process.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public Map<Collection<String>, Object> asRawMap() {
         return ImmutableMap.copyOf(values);
     }
@@ -106,6 +119,7 @@ public final class AttributeMap implements Serializable {
 
         @SuppressWarnings("unchecked")
         T oldValue = (T) values.put(path, newValue);
+        version.incrementAndGet();
         return (isNull(oldValue)) ? null : oldValue;
     }
 
@@ -169,6 +183,7 @@ public final class AttributeMap implements Serializable {
         }
 
         values.remove(path);
+        version.incrementAndGet();
     }
 
     /**
@@ -189,7 +204,10 @@ public final class AttributeMap implements Serializable {
 
     @SuppressWarnings("unchecked")
     public <T> T getValue(AttributeSensor<T> sensor) {
-        return (T) TypeCoercions.coerce(getValue(sensor.getNameParts()), sensor.getType());
+        Object result = getValue(sensor.getNameParts());
+        // fast path: usually the value already has the sensor's type, so no need to look up a coercion
+        if (result == null || sensor.getType().isInstance(result)) return (T) result;
+        return (T) TypeCoercions.coerce(result, sensor.getType());
     }
 
     @SuppressWarnings("unchecked")
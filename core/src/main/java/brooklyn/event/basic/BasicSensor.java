@@ -28,8 +28,6 @@ import brooklyn.event.SensorEvent;
 import brooklyn.util.guava.TypeTokens;
 
 import com.google.common.base.Objects;
-import com.google.common.base.Splitter;
-import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.TypeToken;
 
 /**
@@ -38,13 +36,11 @@ import com.google.common.reflect.TypeToken;
 public class BasicSensor<T> implements Sensor<T> {
     private static final long serialVersionUID = -3762018534086101323L;
     
-    private static final Splitter dots = Splitter.on('.');
-
     private TypeToken<T> typeToken;
     private Class<? super T> type;
     private String name;
     private String description;
-    private transient List<String> nameParts;
+    private transient volatile List<String> nameParts;
     
     // FIXME In groovy, fields were `public final` with a default constructor; do we need the gson?
     public BasicSensor() { /* for gson */ }
@@ -80,9 +76,11 @@ public class BasicSensor<T> implements Sensor<T> {
     public String getName() { return name; }
  
     /** @see Sensor#getNameParts() */
-    public synchronized List<String> getNameParts() {
-        if (nameParts==null) nameParts = ImmutableList.copyOf(dots.split(name));
-        return nameParts; 
+    public List<String> getNameParts() {
+        // racy but benign: the result is interned, so concurrent callers get the same instance
+        List<String> result = nameParts;
+        if (result==null) nameParts = result = SensorNameParts.of(name);
+        return result; 
     }
  
     /** @see Sensor#getDescription() */
@@ -69,6 +69,7 @@ import brooklyn.util.task.DeferredSupplier;
 import brooklyn.util.task.DynamicTasks;
 import brooklyn.util.task.ParallelTask;
 import brooklyn.util.task.TaskInternal;
+import brooklyn.util.task.TaskTags;
 import brooklyn.util.task.Tasks;
 import brooklyn.util.text.Strings;
 import brooklyn.util.time.CountdownTimer;
@@ -679,6 +680,7 @@ public class DependentConfiguration {
                 .name("waiting on "+sensor.getName())
                 .description("Waiting on sensor "+sensor.getName()+" from "+source)
                 .tag("attributeWhenReady")
+                .tag(TaskTags.BLOCKING_TASK)
                 .body(new WaitInTaskForAttributeReady<T,V>(this))
                 .build();
         }
@@ -805,6 +807,7 @@ public class DependentConfiguration {
             } else {
                 return Tasks.<V2>builder().name(name).description(descriptionBase)
                     .tag("attributeWhenReady")
+                    .tag(TaskTags.BLOCKING_TASK)
                     .body(new Callable<V2>() {
                         @Override public V2 call() throws Exception {
                             List<V> prePostProgress = DynamicTasks.queue(parallelTask).get();
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.basic;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+
+/**
+ * The dot-separated parts of a sensor name, as used for keys in the {@link AttributeMap}.
+ * <p>
+ * Instances are interned by sensor name and cache their hash code, so lookups in the attribute map
+ * do not need to re-hash each part. They are otherwise equal to (and have the same hash code as)
+ * any other {@link List} with the same parts, so existing keys in a {@link brooklyn.internal.storage.BrooklynStorage}
+ * map are still found. When serialized (e.g. for a data grid), they are written as an {@link ImmutableList}.
+ */
+public final class SensorNameParts extends AbstractList<String> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = -1402446014612718357L;
+
+    private static final Splitter dots = Splitter.on('.');
+
+    private static final ConcurrentMap<String, SensorNameParts> interned = new MapMaker().weakValues().makeMap();
+
+    /** Returns the (interned) name parts for the given dot-separated sensor name. */
+    public static SensorNameParts of(String name) {
+        SensorNameParts result = interned.get(name);
+        if (result == null) {
+            result = new SensorNameParts(ImmutableList.copyOf(dots.split(name)));
+            SensorNameParts old = interned.putIfAbsent(name, result);
+            if (old != null) result = old;
+        }
+        return result;
+    }
+
+    private final ImmutableList<String> parts;
+    private final int hash;
+
+    private SensorNameParts(ImmutableList<String> parts) {
+        this.parts = parts;
+        this.hash = parts.hashCode();
+    }
+
+    @Override
+    public String get(int index) {
+        return parts.get(index);
+    }
+
+    @Override
+    public int size() {
+        return parts.size();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (other instanceof SensorNameParts) {
+            return hash == ((SensorNameParts)other).hash && parts.equals(((SensorNameParts)other).parts);
+        }
+        return parts.equals(other);
+    }
+
+    private Object writeReplace() {
+        return parts;
+    }
+}
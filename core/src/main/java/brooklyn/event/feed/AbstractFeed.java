@@ -21,6 +21,7 @@ package brooklyn.event.feed;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,12 +33,19 @@ import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
 import brooklyn.entity.rebind.BasicFeedRebindSupport;
 import brooklyn.entity.rebind.RebindSupport;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.basic.Sensors;
 import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.mementos.FeedMemento;
 import brooklyn.policy.basic.AbstractEntityAdjunct;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.guava.Maybe;
 import brooklyn.util.javalang.JavaClassNames;
 import brooklyn.util.text.Strings;
 
+import com.google.common.base.Function;
+import com.google.common.reflect.TypeToken;
+
 /** 
  * Captures common fields and processes for sensor feeds.
  * These generally poll or subscribe to get sensor values for an entity.
@@ -49,6 +57,17 @@ public abstract class AbstractFeed extends AbstractEntityAdjunct implements Feed
 
     public static final ConfigKey<Boolean> ONLY_IF_SERVICE_UP = ConfigKeys.newBooleanConfigKey("feed.onlyIfServiceUp", "", false);
     
+    public static final ConfigKey<Boolean> PUBLISH_POLL_STATS = ConfigKeys.newBooleanConfigKey("feed.publishPollStats", 
+            "Whether to publish stats about this feed's polls on the entity, in the feed.pollStats sensor", false);
+
+    /** 
+     * Stats for each feed on the entity which has {@link #PUBLISH_POLL_STATS} enabled, keyed by the feed's unique tag:
+     * the number of polls and failures, the duration of the last poll and the time of the last successful poll.
+     */
+    @SuppressWarnings("serial")
+    public static final AttributeSensor<Map<String, Map<String, Object>>> POLL_STATS = Sensors.newSensor(
+            new TypeToken<Map<String, Map<String, Object>>>() {}, "feed.pollStats", "Stats for the entity's feeds' polls");
+    
     private final Object pollerStateMutex = new Object();
     private transient volatile Poller<?> poller;
     private transient volatile boolean activated;
@@ -122,6 +141,12 @@ public abstract class AbstractFeed extends AbstractEntityAdjunct implements Feed
         }
         
         poller = new Poller<Object>(entity, getConfig(ONLY_IF_SERVICE_UP));
+        if (Boolean.TRUE.equals(getConfig(PUBLISH_POLL_STATS))) {
+            poller.setPollListener(new Poller.PollListener() {
+                @Override public void onPollCompleted(Poller<?> poller) {
+                    publishPollStats(poller);
+                }});
+        }
         activated = true;
         preStart();
         synchronized (pollerStateMutex) {
@@ -199,6 +224,22 @@ public abstract class AbstractFeed extends AbstractEntityAdjunct implements Feed
         return isRunning() && entity!=null && !((EntityInternal)entity).getManagementSupport().isNoLongerManaged();
     }
 
+    protected void publishPollStats(Poller<?> poller) {
+        final String key = (getUniqueTag() != null) ? getUniqueTag() : getId();
+        final Map<String, Object> stats = MutableMap.<String, Object>of(
+                "polls", poller.getNumPolls(),
+                "failures", poller.getNumFailures(),
+                "consecutiveFailures", poller.getNumConsecutiveFailures(),
+                "lastDurationMillis", poller.getLastPollDurationMillis(),
+                "lastSuccessUtc", poller.getLastSuccessTime());
+        entity.modifyAttribute(POLL_STATS, new Function<Map<String, Map<String, Object>>, Maybe<Map<String, Map<String, Object>>>>() {
+            @Override public Maybe<Map<String, Map<String, Object>>> apply(Map<String, Map<String, Object>> input) {
+                Map<String, Map<String, Object>> result = (input == null) ? MutableMap.<String, Map<String, Object>>of() : MutableMap.copyOf(input);
+                result.put(key, stats);
+                return Maybe.of(result);
+            }});
+    }
+
     @Override
     public boolean isSuspended() {
         return suspended;
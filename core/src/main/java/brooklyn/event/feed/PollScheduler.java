@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.feed;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.management.ManagementContext;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Runs periodic polls for {@link Poller}s, shared by all feeds in a management context.
+ * <p>
+ * Rather than a {@link brooklyn.util.task.ScheduledTask} per poll which creates a new task each time it fires,
+ * each poll is a lightweight {@link PollRecord} kept in a hashed timing wheel: a single thread advances the wheel
+ * every tick and hands polls that are due to a shared pool of worker threads. A poll is rescheduled when
+ * it completes (so polls for a given record never run concurrently), and the first poll is delayed by a random
+ * jitter so that many feeds started at the same time (e.g. on rebind) do not all poll in lock-step.
+ * <p>
+ * Polls do not run inside a {@link brooklyn.management.Task}, so must not rely on e.g. {@link brooklyn.util.task.DynamicTasks}
+ * queueing; see {@link brooklyn.internal.BrooklynFeatureEnablement#FEATURE_SHARED_POLL_SCHEDULER}.
+ * <p>
+ * One scheduler is kept per management context (see {@link #forManagementContext(ManagementContext)}),
+ * and is shut down when that management context terminates.
+ */
+public class PollScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PollScheduler.class);
+
+    public static final Duration DEFAULT_TICK = Duration.millis(10);
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+    
+    /** max delay before first poll, when spreading start times */
+    public static final Duration MAX_INITIAL_JITTER = Duration.millis(500);
+
+    /** weak keys, so that a scheduler is not retained by a management context that was never terminated */
+    private static final ConcurrentMap<ManagementContext, PollScheduler> INSTANCES = new MapMaker().weakKeys().makeMap();
+
+    /** Returns the scheduler for the given management context, creating it (with daemon threads) if necessary. */
+    public static PollScheduler forManagementContext(ManagementContext mgmt) {
+        synchronized (INSTANCES) {
+            PollScheduler result = INSTANCES.get(mgmt);
+            if (result == null) {
+                if (!mgmt.isRunning()) throw new IllegalStateException("Management context "+mgmt+" is no longer running");
+                result = new PollScheduler("brooklyn-poll-scheduler-"+mgmt.getManagementNodeId(), DEFAULT_TICK, DEFAULT_WHEEL_SIZE);
+                INSTANCES.put(mgmt, result);
+            }
+            return result;
+        }
+    }
+
+    /** Shuts down the scheduler for the given management context, if there is one; called when the management context terminates. */
+    public static void shutdownForManagementContext(ManagementContext mgmt) {
+        PollScheduler scheduler;
+        synchronized (INSTANCES) {
+            scheduler = INSTANCES.remove(mgmt);
+        }
+        if (scheduler != null) scheduler.shutdown();
+    }
+
+    /**
+     * A scheduled poll. All scheduling state is only accessed by the scheduler thread;
+     * the remaining fields can be read from any thread.
+     */
+    public static class PollRecord {
+        private final PollScheduler scheduler;
+        private final String description;
+        private final long periodNanos;
+        private final Runnable job;
+        private volatile boolean cancelled;
+        private final AtomicLong numPolls = new AtomicLong();
+        /** absolute tick at which the poll is due; accessed by scheduler thread only */
+        private long dueTick;
+
+        PollRecord(PollScheduler scheduler, String description, Duration period, Runnable job) {
+            this.scheduler = scheduler;
+            this.description = description;
+            this.periodNanos = period.toNanoseconds();
+            this.job = job;
+        }
+        
+        public void cancel() {
+            cancelled = true;
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        public long getNumPolls() {
+            return numPolls.get();
+        }
+        
+        void run() {
+            try {
+                if (!cancelled) {
+                    numPolls.incrementAndGet();
+                    job.run();
+                }
+            } catch (Throwable t) {
+                // jobs are expected to handle their own errors; keep polling regardless
+                LOG.warn("Problem in poll "+description+" (continuing)", t);
+            } finally {
+                if (cancelled) {
+                    scheduler.numScheduled.decrementAndGet();
+                } else {
+                    scheduler.scheduleIn(this, periodNanos);
+                }
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("description", description).add("period", Duration.nanos(periodNanos)).toString();
+        }
+    }
+
+    private final String name;
+    private final long tickNanos;
+    private final List<Set<PollRecord>> wheel;
+    private final ConcurrentLinkedQueue<PollRecord> pending = new ConcurrentLinkedQueue<PollRecord>();
+    private final ExecutorService workers;
+    private final Thread ticker;
+    private final long startNanos;
+    private final Random random = new Random();
+    private final AtomicInteger numScheduled = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public PollScheduler(String name, Duration tick, int wheelSize) {
+        this.name = name;
+        this.tickNanos = tick.toNanoseconds();
+        this.wheel = new ArrayList<Set<PollRecord>>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new LinkedHashSet<PollRecord>());
+        }
+        this.workers = Executors.newCachedThreadPool(newThreadFactory(name+"-worker-"));
+        this.startNanos = System.nanoTime();
+        this.ticker = newThreadFactory(name+"-ticker-").newThread(new Runnable() {
+            @Override public void run() {
+                runTicker();
+            }});
+        ticker.start();
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, prefix+count.incrementAndGet());
+                result.setDaemon(true);
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Schedules the given job to run periodically, with the first run after a random delay 
+     * of up to the period (capped at {@link #MAX_INITIAL_JITTER}).
+     */
+    public PollRecord schedule(String description, Duration period, Runnable job) {
+        if (shutdown) throw new IllegalStateException("Poll scheduler "+name+" has been shut down");
+        PollRecord result = new PollRecord(this, description, period, job);
+        long maxJitterNanos = Math.min(result.periodNanos, MAX_INITIAL_JITTER.toNanoseconds());
+        long jitterNanos;
+        synchronized (random) {
+            jitterNanos = (maxJitterNanos > 0) ? (long) (random.nextDouble() * maxJitterNanos) : 0;
+        }
+        numScheduled.incrementAndGet();
+        scheduleIn(result, jitterNanos);
+        return result;
+    }
+
+    /** number of polls scheduled which have not been cancelled (approximate, as cancelled polls are removed lazily) */
+    public int getNumScheduled() {
+        return numScheduled.get();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        ticker.interrupt();
+        workers.shutdownNow();
+    }
+
+    void scheduleIn(PollRecord record, long delayNanos) {
+        long dueNanos = System.nanoTime() - startNanos + delayNanos;
+        record.dueTick = (dueNanos + tickNanos - 1) / tickNanos;
+        pending.add(record);
+    }
+
+    private void runTicker() {
+        long tick = 0;
+        while (!shutdown) {
+            try {
+                long sleepNanos = startNanos + (tick+1)*tickNanos - System.nanoTime();
+                if (sleepNanos > 0) TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                tick++;
+                
+                PollRecord r;
+                while ((r = pending.poll()) != null) {
+                    // may be due already, if added while processing an earlier tick
+                    if (r.dueTick < tick) r.dueTick = tick;
+                    wheel.get((int) (r.dueTick % wheel.size())).add(r);
+                }
+                
+                Iterator<PollRecord> bucket = wheel.get((int) (tick % wheel.size())).iterator();
+                while (bucket.hasNext()) {
+                    r = bucket.next();
+                    if (r.cancelled) {
+                        bucket.remove();
+                        numScheduled.decrementAndGet();
+                    } else if (r.dueTick <= tick) {
+                        bucket.remove();
+                        dispatch(r);
+                    }
+                }
+            } catch (InterruptedException e) {
+                if (!shutdown) LOG.warn("Poll scheduler "+name+" interrupted; continuing");
+            } catch (Throwable t) {
+                LOG.error("Problem in poll scheduler "+name+" (continuing)", t);
+            }
+        }
+    }
+
+    private void dispatch(final PollRecord r) {
+        try {
+            workers.execute(new Runnable() {
+                @Override public void run() {
+                    r.run();
+                }});
+        } catch (RejectedExecutionException e) {
+            if (!shutdown) LOG.warn("Poll "+r+" rejected by "+name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("name", name).toString();
+    }
+}
@@ -21,6 +21,8 @@ package brooklyn.event.feed;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +32,8 @@ import brooklyn.entity.basic.BrooklynTaskTags;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
+import brooklyn.event.feed.PollScheduler.PollRecord;
+import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.management.Task;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.task.DynamicSequentialTask;
@@ -56,13 +60,24 @@ public class Poller<V> {
     private final Set<PollJob<V>> pollJobs = new LinkedHashSet<PollJob<V>>();
     private final Set<Task<?>> oneOffTasks = new LinkedHashSet<Task<?>>();
     private final Set<ScheduledTask> tasks = new LinkedHashSet<ScheduledTask>();
+    private final Set<PollRecord> pollRecords = new LinkedHashSet<PollRecord>();
     private volatile boolean started = false;
+    private volatile PollListener pollListener;
+    
+    private final AtomicLong numPolls = new AtomicLong();
+    private final AtomicLong numFailures = new AtomicLong();
+    private final AtomicInteger numConsecutiveFailures = new AtomicInteger();
+    private volatile long lastPollDurationMillis = -1;
+    private volatile long lastSuccessTime = -1;
     
     private static class PollJob<V> {
         final PollHandler<? super V> handler;
         final Duration pollPeriod;
         final Runnable wrappedJob;
         private boolean loggedPreviousException = false;
+        /** whether the most recent poll succeeded; and if not, the exception (if any) it threw */
+        volatile boolean lastSucceeded;
+        volatile Exception lastException;
         
         PollJob(final Callable<V> job, final PollHandler<? super V> handler, Duration period) {
             this.handler = handler;
@@ -73,12 +88,17 @@ public class Poller<V> {
                     try {
                         V val = job.call();
                         loggedPreviousException = false;
+                        lastException = null;
                         if (handler.checkSuccess(val)) {
+                            lastSucceeded = true;
                             handler.onSuccess(val);
                         } else {
+                            lastSucceeded = false;
                             handler.onFailure(val);
                         }
                     } catch (Exception e) {
+                        lastSucceeded = false;
+                        lastException = e;
                         // 2013-12-21 AH adding add'l logging because seeing strange scheduled task abortion from here
                         // even though all paths should be catching it
                         if (loggedPreviousException) {
@@ -94,6 +114,11 @@ public class Poller<V> {
         }
     }
     
+    /** Notified after each poll completes, e.g. for publishing the poller's stats. */
+    public interface PollListener {
+        void onPollCompleted(Poller<?> poller);
+    }
+    
     /** @deprecated since 0.7.0, pass in whether should run onlyIfServiceUp */
     @Deprecated
     public Poller(EntityLocal entity) {
@@ -112,6 +137,10 @@ public class Poller<V> {
         oneOffJobs.add(job);
     }
 
+    public void setPollListener(PollListener val) {
+        this.pollListener = val;
+    }
+
     public void scheduleAtFixedRate(Callable<V> job, PollHandler<? super V> handler, long period) {
         scheduleAtFixedRate(job, handler, Duration.millis(period));
     }
@@ -141,31 +170,123 @@ public class Poller<V> {
             oneOffTasks.add(((EntityInternal)entity).getExecutionContext().submit(task));
         }
         
+        boolean useSharedScheduler = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_SHARED_POLL_SCHEDULER);
         for (final PollJob<V> pollJob : pollJobs) {
             final String scheduleName = pollJob.handler.getDescription();
             if (pollJob.pollPeriod.compareTo(Duration.ZERO) > 0) {
-                Callable<Task<?>> pollingTaskFactory = new Callable<Task<?>>() {
-                    public Task<?> call() {
-                        DynamicSequentialTask<Void> task = new DynamicSequentialTask<Void>(MutableMap.of("displayName", scheduleName, "entity", entity), 
-                            new Callable<Void>() { public Void call() {
-                                if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
-                                        return null;
-                                }
-                                pollJob.wrappedJob.run();
-                                return null; 
-                            } } );
-                        BrooklynTaskTags.setTransient(task);
-                        return task;
-                    }
-                };
-                ScheduledTask task = new ScheduledTask(MutableMap.of("period", pollJob.pollPeriod, "displayName", "scheduled:"+scheduleName), pollingTaskFactory);
-                tasks.add((ScheduledTask)Entities.submit(entity, task));
+                if (useSharedScheduler) {
+                    SharedPoll sharedPoll = new SharedPoll(pollJob, scheduleName);
+                    sharedPoll.record = PollScheduler.forManagementContext(((EntityInternal)entity).getManagementContext())
+                            .schedule(scheduleName, pollJob.pollPeriod, sharedPoll);
+                    pollRecords.add(sharedPoll.record);
+                } else {
+                    Callable<Task<?>> pollingTaskFactory = new Callable<Task<?>>() {
+                        public Task<?> call() {
+                            return newPollTask(pollJob, scheduleName);
+                        }
+                    };
+                    ScheduledTask task = new ScheduledTask(MutableMap.of("period", pollJob.pollPeriod, "displayName", "scheduled:"+scheduleName), pollingTaskFactory);
+                    tasks.add((ScheduledTask)Entities.submit(entity, task));
+                }
             } else {
                 if (log.isDebugEnabled()) log.debug("Activating poll (but leaving off, as period {}) for {} (using {})", new Object[] {pollJob.pollPeriod, entity, this});
             }
         }
     }
     
+    private Task<?> newPollTask(final PollJob<V> pollJob, final String scheduleName) {
+        DynamicSequentialTask<Void> task = new DynamicSequentialTask<Void>(MutableMap.of("displayName", scheduleName, "entity", entity), 
+            new Callable<Void>() { public Void call() {
+                if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
+                        return null;
+                }
+                runPollJob(pollJob, scheduleName);
+                return null; 
+            } } );
+        BrooklynTaskTags.setTransient(task);
+        return task;
+    }
+    
+    /** whether the entity has been unmanaged, or its management context terminated (so its tasks would have been cancelled) */
+    private boolean isEntityGone() {
+        return Entities.isNoLongerManaged(entity) || !((EntityInternal)entity).getManagementContext().isRunning();
+    }
+    
+    /** 
+     * A poll run by the shared {@link PollScheduler}. Normally it runs outside of any task; 
+     * but after a failed or slow poll, the next poll is run as a task (as it would be without the shared scheduler)
+     * so that it is visible in the entity's activity while it runs, until polls are healthy again.
+     */
+    private class SharedPoll implements Runnable {
+        final PollJob<V> pollJob;
+        final String scheduleName;
+        volatile PollRecord record;
+        private boolean runAsTask = false;
+        
+        SharedPoll(PollJob<V> pollJob, String scheduleName) {
+            this.pollJob = pollJob;
+            this.scheduleName = scheduleName;
+        }
+        
+        @Override
+        public void run() {
+            if (isEntityGone()) {
+                if (log.isDebugEnabled()) log.debug("Cancelling poll {} for {}, as entity no longer managed", scheduleName, entity);
+                if (record != null) record.cancel();
+                return;
+            }
+            
+            long startTime = System.currentTimeMillis();
+            if (runAsTask) {
+                try {
+                    Entities.submit(entity, newPollTask(pollJob, scheduleName)).get();
+                } catch (Exception e) {
+                    // poll exceptions are handled within the task; this is e.g. cancelled or interrupted
+                    if (isEntityGone()) {
+                        if (record != null) record.cancel();
+                        return;
+                    }
+                    if (log.isDebugEnabled()) log.debug("Poll task "+scheduleName+" for "+entity+" did not complete (continuing): "+e);
+                }
+            } else {
+                if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
+                    return;
+                }
+                runPollJob(pollJob, scheduleName);
+            }
+            long duration = System.currentTimeMillis() - startTime;
+            
+            runAsTask = !pollJob.lastSucceeded || duration > pollJob.pollPeriod.toMilliseconds();
+        }
+    }
+    
+    /** runs the job and records its outcome, returning how long it took in milliseconds */
+    private long runPollJob(PollJob<V> pollJob, String scheduleName) {
+        long startTime = System.currentTimeMillis();
+        pollJob.wrappedJob.run();
+        long endTime = System.currentTimeMillis();
+        
+        numPolls.incrementAndGet();
+        lastPollDurationMillis = endTime - startTime;
+        if (pollJob.lastSucceeded) {
+            lastSuccessTime = endTime;
+            numConsecutiveFailures.set(0);
+        } else {
+            numFailures.incrementAndGet();
+            numConsecutiveFailures.incrementAndGet();
+        }
+        
+        PollListener listener = pollListener;
+        if (listener != null) {
+            try {
+                listener.onPollCompleted(this);
+            } catch (Exception e) {
+                log.warn("Problem notifying "+listener+" of poll "+scheduleName+" for "+entity+" (continuing)", e);
+            }
+        }
+        return endTime - startTime;
+    }
+    
     public void stop() {
         if (log.isDebugEnabled()) log.debug("Stopping poll for {} (using {})", new Object[] {entity, this});
         if (!started) { 
@@ -180,8 +301,12 @@ public class Poller<V> {
         for (ScheduledTask task : tasks) {
             if (task != null) task.cancel();
         }
+        for (PollRecord record : pollRecords) {
+            record.cancel();
+        }
         oneOffTasks.clear();
         tasks.clear();
+        pollRecords.clear();
     }
 
     public boolean isRunning() {
@@ -192,12 +317,42 @@ public class Poller<V> {
                 break;
             }
         }
+        for (PollRecord record : pollRecords) {
+            if (!record.isCancelled() && !isEntityGone()) {
+                hasActiveTasks = true;
+                break;
+            }
+        }
         if (!started && hasActiveTasks) {
             log.warn("Poller should not be running, but has active tasks, tasks: "+tasks);
         }
         return started && hasActiveTasks;
     }
     
+    /** number of polls completed (whether successful or not) */
+    public long getNumPolls() {
+        return numPolls.get();
+    }
+    
+    /** number of polls which threw an exception or whose result was not successful */
+    public long getNumFailures() {
+        return numFailures.get();
+    }
+    
+    public int getNumConsecutiveFailures() {
+        return numConsecutiveFailures.get();
+    }
+    
+    /** duration of the most recent poll in milliseconds, or -1 if there has not been a poll */
+    public long getLastPollDurationMillis() {
+        return lastPollDurationMillis;
+    }
+    
+    /** time (in utc millis) of the most recent successful poll, or -1 if none */
+    public long getLastSuccessTime() {
+        return lastSuccessTime;
+    }
+    
     protected boolean isEmpty() {
         return pollJobs.isEmpty();
     }
@@ -99,6 +99,7 @@ public class FunctionFeed extends AbstractFeed {
     public static class Builder {
         private EntityLocal entity;
         private boolean onlyIfServiceUp = false;
+        private boolean publishPollStats = false;
         private long period = 500;
         private TimeUnit periodUnits = TimeUnit.MILLISECONDS;
         private List<FunctionPollConfig<?,?>> polls = Lists.newArrayList();
@@ -114,6 +115,11 @@ public class FunctionFeed extends AbstractFeed {
             this.onlyIfServiceUp = onlyIfServiceUp; 
             return this; 
         }
+        /** publishes stats about this feed's polls on the entity; see {@link AbstractFeed#POLL_STATS} */
+        public Builder publishPollStats() { 
+            this.publishPollStats = true; 
+            return this; 
+        }
         public Builder period(Duration d) {
             return period(d.toMilliseconds(), TimeUnit.MILLISECONDS);
         }
@@ -172,6 +178,7 @@ public class FunctionFeed extends AbstractFeed {
     
     protected FunctionFeed(Builder builder) {
         setConfig(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
+        setConfig(PUBLISH_POLL_STATS, builder.publishPollStats);
         
         SetMultimap<FunctionPollIdentifier, FunctionPollConfig<?,?>> polls = HashMultimap.<FunctionPollIdentifier,FunctionPollConfig<?,?>>create();
         for (FunctionPollConfig<?,?> config : builder.polls) {
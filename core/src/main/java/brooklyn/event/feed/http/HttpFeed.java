@@ -31,17 +31,22 @@ import java.util.concurrent.TimeUnit;
 import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import brooklyn.config.ConfigKey;
 import brooklyn.entity.basic.ConfigKeys;
 import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.EntityLocal;
 import brooklyn.event.feed.AbstractFeed;
 import brooklyn.event.feed.AttributePollHandler;
 import brooklyn.event.feed.DelegatingPollHandler;
 import brooklyn.event.feed.Poller;
+import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.util.http.HttpTool;
 import brooklyn.util.http.HttpTool.HttpClientBuilder;
 import brooklyn.util.http.HttpToolResponse;
@@ -100,6 +105,11 @@ import com.google.common.reflect.TypeToken;
  * and it may report errors if that sensor is not available.
  * Some guidance for controlling enablement of a feed based on availability of a sensor
  * can be seen in HttpLatencyDetector (in brooklyn-policy). 
+ * <p>
+ * By default, connections come from a pool shared by all http feeds (see {@link SharedHttpConnectionPool}),
+ * so successive polls to a server reuse a kept-alive connection (with the https scheme always registered,
+ * trusting all certificates, regardless of whether the URL was available at start time).
+ * This can be disabled with {@link BrooklynFeatureEnablement#FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL}.
  * 
  * @author aled
  */
@@ -107,6 +117,9 @@ public class HttpFeed extends AbstractFeed {
 
     public static final Logger log = LoggerFactory.getLogger(HttpFeed.class);
 
+    /** max time to wait for a connection from the shared pool, if all connections for the route are in use */
+    private static final Duration CONNECTION_LEASE_TIMEOUT = Duration.THIRTY_SECONDS;
+
     @SuppressWarnings("serial")
     public static final ConfigKey<SetMultimap<HttpPollIdentifier, HttpPollConfig<?>>> POLLS = ConfigKeys.newConfigKey(
             new TypeToken<SetMultimap<HttpPollIdentifier, HttpPollConfig<?>>>() {},
@@ -119,6 +132,7 @@ public class HttpFeed extends AbstractFeed {
     public static class Builder {
         private EntityLocal entity;
         private boolean onlyIfServiceUp = false;
+        private boolean publishPollStats = false;
         private Supplier<URI> baseUriProvider;
         private Duration period = Duration.millis(500);
         private List<HttpPollConfig<?>> polls = Lists.newArrayList();
@@ -139,6 +153,11 @@ public class HttpFeed extends AbstractFeed {
             this.onlyIfServiceUp = onlyIfServiceUp; 
             return this; 
         }
+        /** publishes stats about this feed's polls on the entity; see {@link AbstractFeed#POLL_STATS} */
+        public Builder publishPollStats() { 
+            this.publishPollStats = true; 
+            return this; 
+        }
         public Builder baseUri(Supplier<URI> val) {
             if (baseUri!=null && val!=null)
                 throw new IllegalStateException("Builder cannot take both a URI and a URI Provider");
@@ -275,6 +294,7 @@ public class HttpFeed extends AbstractFeed {
     
     protected HttpFeed(Builder builder) {
         setConfig(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
+        setConfig(PUBLISH_POLL_STATS, builder.publishPollStats);
         Map<String,String> baseHeaders = ImmutableMap.copyOf(checkNotNull(builder.headers, "headers"));
         
         SetMultimap<HttpPollIdentifier, HttpPollConfig<?>> polls = HashMultimap.<HttpPollIdentifier,HttpPollConfig<?>>create();
@@ -319,6 +339,7 @@ public class HttpFeed extends AbstractFeed {
             //     threads of execution, it is highly recommended that each thread maintains its
             //     own dedicated instance of HttpContext.
             //  http://hc.apache.org/httpcomponents-client-ga/tutorial/html/connmgmt.html
+            // Connection pooling is instead shared through the SharedHttpConnectionPool's connection manager.
             final HttpClient httpClient = createHttpClient(pollInfo);
 
             Set<HttpPollConfig<?>> configs = polls.get(pollInfo);
@@ -364,6 +385,17 @@ public class HttpFeed extends AbstractFeed {
         HttpClientBuilder builder = HttpTool.httpClientBuilder()
                 .trustAll()
                 .laxRedirect(true);
+        if (BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL)) {
+            SharedHttpConnectionPool pool = SharedHttpConnectionPool.forManagementContext(
+                    ((EntityInternal)entity).getManagementContext());
+            // bound the time waiting for a connection when the pool is exhausted, rather than blocking the poller forever
+            HttpParams params = new BasicHttpParams();
+            HttpClientParams.setConnectionManagerTimeout(params, CONNECTION_LEASE_TIMEOUT.toMilliseconds());
+            builder.clientConnectionManager(pool.getConnectionManager())
+                    .httpParams(params)
+                    // the pool already has an https scheme (trusting all); must not register one for this uri's port
+                    .https(false);
+        }
         if (uri != null) builder.uri(uri);
         if (uri != null) builder.credential(pollIdentifier.credentials);
         if (pollIdentifier.connectionTimeout != null) {
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.feed.http;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.entity.basic.BrooklynTaskTags;
+import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.Task;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.http.HttpTool.TrustAllStrategy;
+import brooklyn.util.task.ScheduledTask;
+import brooklyn.util.task.Tasks;
+import brooklyn.util.time.Duration;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * A connection pool shared by all {@link HttpFeed}s in a management context, so that polls to the same server reuse (keep-alive) connections
+ * rather than each poll having its own client and connection, with the number of connections bounded 
+ * per route (i.e. per target host and port) and in total.
+ * <p>
+ * As with the per-poll clients, https connections trust all certificates. Idle connections are closed periodically,
+ * by a scheduled task in the management context.
+ * <p>
+ * The pool is created on first use, configured from the brooklyn properties of its management context,
+ * and is closed when that management context terminates.
+ */
+public class SharedHttpConnectionPool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedHttpConnectionPool.class);
+
+    public static final ConfigKey<Integer> MAX_CONNECTIONS_PER_ROUTE = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.httpFeed.sharedPool.maxConnectionsPerRoute", 
+            "Max number of connections in the pool shared by http feeds to any one host:port", 20);
+
+    public static final ConfigKey<Integer> MAX_CONNECTIONS = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.httpFeed.sharedPool.maxConnections", 
+            "Max number of connections in total in the pool shared by http feeds", 1000);
+
+    public static final ConfigKey<Duration> MAX_IDLE_TIME = ConfigKeys.newConfigKey(Duration.class,
+            "brooklyn.httpFeed.sharedPool.maxIdleTime", 
+            "Time after which connections in the pool shared by http feeds are closed if not used", Duration.ONE_MINUTE);
+
+    /** how often to check for idle connections */
+    private static final Duration EVICTION_PERIOD = Duration.TEN_SECONDS;
+
+    /** weak keys, so that a pool is not retained by a management context that was never terminated */
+    private static final ConcurrentMap<ManagementContext, SharedHttpConnectionPool> INSTANCES = new MapMaker().weakKeys().makeMap();
+
+    /** Returns the pool for the given management context, creating it if necessary. */
+    public static SharedHttpConnectionPool forManagementContext(ManagementContext mgmt) {
+        synchronized (INSTANCES) {
+            SharedHttpConnectionPool result = INSTANCES.get(mgmt);
+            if (result == null) {
+                if (!mgmt.isRunning()) throw new IllegalStateException("Management context "+mgmt+" is no longer running");
+                StringConfigMap config = mgmt.getConfig();
+                result = new SharedHttpConnectionPool(config.getConfig(MAX_CONNECTIONS_PER_ROUTE), config.getConfig(MAX_CONNECTIONS), 
+                        config.getConfig(MAX_IDLE_TIME));
+                result.addEvictionTask(mgmt);
+                INSTANCES.put(mgmt, result);
+            }
+            return result;
+        }
+    }
+
+    /** Closes the pool for the given management context, if there is one; called when the management context terminates. */
+    public static void closeForManagementContext(ManagementContext mgmt) {
+        SharedHttpConnectionPool pool;
+        synchronized (INSTANCES) {
+            pool = INSTANCES.remove(mgmt);
+        }
+        if (pool != null) pool.close();
+    }
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final Duration maxIdleTime;
+    private volatile Task<?> evictionTask;
+
+    protected SharedHttpConnectionPool(int maxPerRoute, int maxTotal, Duration maxIdleTime) {
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+        try {
+            schemeRegistry.register(new Scheme("https", 443, new SSLSocketFactory(new TrustAllStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)));
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        this.connectionManager = new PoolingClientConnectionManager(schemeRegistry);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setMaxTotal(maxTotal);
+        this.maxIdleTime = maxIdleTime;
+        if (LOG.isDebugEnabled()) LOG.debug("Created shared http connection pool: maxPerRoute={}; maxTotal={}", maxPerRoute, maxTotal);
+    }
+
+    /** the connection manager, to be passed to clients; must not be shut down by them */
+    public ClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /** number of connections leased (i.e. in use), and available (i.e. idle in the pool) */
+    public PoolStats getStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public void evictIdleConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(maxIdleTime.toMilliseconds(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops evicting idle connections, and closes all connections; clients using the pool can no longer be used. */
+    @Override
+    public void close() {
+        if (evictionTask != null) evictionTask.cancel(true);
+        if (LOG.isDebugEnabled()) LOG.debug("Closing shared http connection pool: {}", getStats());
+        connectionManager.shutdown();
+    }
+
+    private void addEvictionTask(ManagementContext mgmt) {
+        if (mgmt.getExecutionManager() == null) return;
+        Callable<Task<?>> evictionTaskFactory = new Callable<Task<?>>() {
+            @Override public Task<Void> call() {
+                return Tasks.<Void>builder().dynamic(false).tag(BrooklynTaskTags.TRANSIENT_TASK_TAG)
+                    .name("http connection evictor").body(new Callable<Void>() {
+                        @Override public Void call() {
+                            try {
+                                evictIdleConnections();
+                            } catch (Exception e) {
+                                // Don't rethrow, otherwise the scheduled task will not be executed again
+                                Exceptions.propagateIfFatal(e);
+                                LOG.warn("Problem evicting idle http connections", e);
+                            }
+                            return null;
+                        }}).build();
+            }
+        };
+        evictionTask = mgmt.getExecutionManager().submit(new ScheduledTask(
+                MutableMap.of("displayName", "scheduled[http connection evictor]"), evictionTaskFactory).period(EVICTION_PERIOD));
+    }
+}
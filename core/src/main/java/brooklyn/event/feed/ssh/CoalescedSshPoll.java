@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.feed.ssh;
+
+import java.util.List;
+import java.util.Map;
+
+import brooklyn.location.basic.SshMachineLocation;
+import brooklyn.util.text.Identifiers;
+import brooklyn.util.text.StringEscapes.BashStringEscapes;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Runs several poll commands as one script, with each command's stdout and stderr delimited by markers
+ * (unique to the invocation) and its exit status written after it, so that the output can be split back
+ * into a {@link SshPollValue} per command.
+ * <p>
+ * Each command runs in its own {@code bash -e}, with its own environment exported, so commands do not
+ * affect one another, each fails at its first failing line (as it would when run on its own), and a
+ * failing command does not stop the script. Each command's output is captured and then written out
+ * followed by its end marker, which records whether a newline had to be inserted to put the marker
+ * on its own line, so that the output is split back exactly as the command wrote it.
+ */
+class CoalescedSshPoll {
+
+    private final String marker = "BROOKLYN-SSH-POLL-"+Identifiers.makeRandomId(8);
+    private final List<String> commands;
+    private final List<Map<String, String>> envs;
+
+    CoalescedSshPoll(List<String> commands, List<Map<String, String>> envs) {
+        if (commands.size() != envs.size()) throw new IllegalArgumentException("Mismatched commands and envs: "+commands+"; "+envs);
+        this.commands = ImmutableList.copyOf(commands);
+        this.envs = envs;
+    }
+
+    /** one entry per command, each of which is self-contained so can be run as a script or joined as commands */
+    List<String> getScript() {
+        List<String> result = Lists.newArrayList();
+        for (int i = 0; i < commands.size(); i++) {
+            StringBuilder body = new StringBuilder();
+            Map<String, String> env = envs.get(i);
+            if (env != null) {
+                for (Map.Entry<String, String> entry : env.entrySet()) {
+                    if (entry.getKey() == null || entry.getValue() == null) continue;
+                    body.append("export "+entry.getKey()+"="+BashStringEscapes.wrapBash(entry.getValue())+"\n");
+                }
+            }
+            body.append(commands.get(i));
+            
+            StringBuilder cmd = new StringBuilder();
+            cmd.append("echo "+beginMarker(i)+" ; echo "+beginMarker(i)+" >&2 ; out=$(mktemp) ; err=$(mktemp)\n");
+            cmd.append("if bash -e -c "+BashStringEscapes.wrapBash(body.toString())+" </dev/null >\"$out\" 2>\"$err\" ; then rc=0 ; else rc=$? ; fi\n");
+            // $(tail -c1 ...) is empty if the output is empty or ends with a newline, as command substitution strips newlines
+            cmd.append("cat \"$out\" ; if [ -n \"$(tail -c1 \"$out\")\" ] ; then echo ; nl=1 ; else nl=0 ; fi ; echo \""+endMarker(i)+":$rc:$nl\"\n");
+            cmd.append("cat \"$err\" >&2 ; if [ -n \"$(tail -c1 \"$err\")\" ] ; then echo >&2 ; nl=1 ; else nl=0 ; fi ; echo \""+endMarker(i)+":$nl\" >&2\n");
+            cmd.append("rm -f \"$out\" \"$err\"");
+            result.add(cmd.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Splits the output of the script into a value per command. A command whose end marker is missing
+     * (e.g. if the script was killed) gets the script's exit status, or -1 if that was zero.
+     */
+    List<SshPollValue> parse(SshMachineLocation machine, int scriptExitStatus, String stdout, String stderr) {
+        List<SshPollValue> result = Lists.newArrayList();
+        for (int i = 0; i < commands.size(); i++) {
+            String out = extract(stdout, i);
+            String err = extract(stderr, i);
+            Integer exitStatus = extractExitStatus(stdout, i);
+            if (exitStatus == null) exitStatus = (scriptExitStatus != 0 ? scriptExitStatus : -1);
+            result.add(new SshPollValue(machine, exitStatus, out, err));
+        }
+        return result;
+    }
+
+    private String beginMarker(int i) {
+        return marker+"-"+i+"-BEGIN";
+    }
+
+    private String endMarker(int i) {
+        return marker+"-"+i+"-END";
+    }
+
+    /**
+     * The text between the begin marker line and the end marker line, without the newline inserted 
+     * before the end marker (if the end marker records that one was inserted).
+     */
+    private String extract(String output, int i) {
+        if (output == null) return null;
+        String begin = beginMarker(i)+"\n";
+        int start = output.indexOf(begin);
+        if (start < 0) return null;
+        start += begin.length();
+        int end = indexOfLine(output, endMarker(i)+":", start);
+        if (end < 0) return output.substring(start);
+        String result = output.substring(start, end);
+        List<String> fields = extractEndMarkerFields(output, i);
+        boolean newlineInserted = fields != null && "1".equals(fields.get(fields.size()-1));
+        return (newlineInserted && result.endsWith("\n")) ? result.substring(0, result.length()-1) : result;
+    }
+
+    private int indexOfLine(String output, String prefix, int from) {
+        int result = output.indexOf(prefix, from);
+        while (result > from && output.charAt(result-1) != '\n') {
+            result = output.indexOf(prefix, result+1);
+        }
+        return result;
+    }
+
+    /** the colon-separated fields after the end marker: exit status and newline flag on stdout, just the newline flag on stderr */
+    private List<String> extractEndMarkerFields(String output, int i) {
+        if (output == null) return null;
+        String end = endMarker(i)+":";
+        int start = indexOfLine(output, end, 0);
+        if (start < 0) return null;
+        start += end.length();
+        int lineEnd = output.indexOf('\n', start);
+        String line = (lineEnd < 0 ? output.substring(start) : output.substring(start, lineEnd)).trim();
+        return ImmutableList.copyOf(Splitter.on(':').split(line));
+    }
+
+    private Integer extractExitStatus(String stdout, int i) {
+        List<String> fields = extractEndMarkerFields(stdout, i);
+        if (fields == null) return null;
+        try {
+            return Integer.parseInt(fields.get(0));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -38,6 +38,7 @@ import brooklyn.entity.basic.EntityLocal;
 import brooklyn.event.feed.AbstractFeed;
 import brooklyn.event.feed.AttributePollHandler;
 import brooklyn.event.feed.DelegatingPollHandler;
+import brooklyn.event.feed.PollHandler;
 import brooklyn.event.feed.Poller;
 import brooklyn.location.basic.Locations;
 import brooklyn.location.basic.Machines;
@@ -51,7 +52,9 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
@@ -88,6 +91,9 @@ import com.google.common.reflect.TypeToken;
  * }
  * </pre>
  * 
+ * Polls with the same period are run together, as one script invocation whose output is split back into
+ * a {@link SshPollValue} for each poll; see {@link Builder#coalescePolls(boolean)}.
+ * 
  * @author aled
  */
 public class SshFeed extends AbstractFeed {
@@ -101,6 +107,9 @@ public class SshFeed extends AbstractFeed {
     
     public static final ConfigKey<Boolean> EXEC_AS_COMMAND = ConfigKeys.newBooleanConfigKey("execAsCommand");
     
+    public static final ConfigKey<Boolean> COALESCE_POLLS = ConfigKeys.newBooleanConfigKey("coalescePolls",
+            "Whether polls with the same period are run together, in one ssh invocation", true);
+    
     @SuppressWarnings("serial")
     public static final ConfigKey<SetMultimap<SshPollIdentifier, SshPollConfig<?>>> POLLS = ConfigKeys.newConfigKey(
             new TypeToken<SetMultimap<SshPollIdentifier, SshPollConfig<?>>>() {},
@@ -113,10 +122,12 @@ public class SshFeed extends AbstractFeed {
     public static class Builder {
         private EntityLocal entity;
         private boolean onlyIfServiceUp = false;
+        private boolean publishPollStats = false;
         private Supplier<SshMachineLocation> machine;
         private Duration period = Duration.of(500, TimeUnit.MILLISECONDS);
         private List<SshPollConfig<?>> polls = Lists.newArrayList();
         private boolean execAsCommand = false;
+        private boolean coalescePolls = true;
         private String uniqueTag;
         private volatile boolean built;
         
@@ -129,6 +140,11 @@ public class SshFeed extends AbstractFeed {
             this.onlyIfServiceUp = onlyIfServiceUp; 
             return this; 
         }
+        /** publishes stats about this feed's polls on the entity; see {@link AbstractFeed#POLL_STATS} */
+        public Builder publishPollStats() { 
+            this.publishPollStats = true; 
+            return this; 
+        }
         /** optional, to force a machine; otherwise it is inferred from the entity */
         public Builder machine(SshMachineLocation val) { return machine(Suppliers.ofInstance(val)); }
         /** optional, to force a machine; otherwise it is inferred from the entity */
@@ -158,6 +174,15 @@ public class SshFeed extends AbstractFeed {
             execAsCommand = false;
             return this;
         }
+        /**
+         * Whether polls with the same period are run together, as one script whose output is split
+         * back into a value for each poll (defaults to true). Set false to run each command separately, 
+         * e.g. if one command may be slow and should not delay the others.
+         */
+        public Builder coalescePolls(boolean val) {
+            coalescePolls = val;
+            return this;
+        }
         public Builder uniqueTag(String uniqueTag) {
             this.uniqueTag = uniqueTag;
             return this;
@@ -214,8 +239,10 @@ public class SshFeed extends AbstractFeed {
     
     protected SshFeed(final Builder builder) {
         setConfig(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
+        setConfig(PUBLISH_POLL_STATS, builder.publishPollStats);
         setConfig(MACHINE, builder.machine != null ? builder.machine : null);
         setConfig(EXEC_AS_COMMAND, builder.execAsCommand);
+        setConfig(COALESCE_POLLS, builder.coalescePolls);
         
         SetMultimap<SshPollIdentifier, SshPollConfig<?>> polls = HashMultimap.<SshPollIdentifier,SshPollConfig<?>>create();
         for (SshPollConfig<?> config : builder.polls) {
@@ -241,6 +268,9 @@ public class SshFeed extends AbstractFeed {
     protected void preStart() {
         SetMultimap<SshPollIdentifier, SshPollConfig<?>> polls = getConfig(POLLS);
         
+        // group by period, so that polls with the same period can be run together
+        Map<Long, List<SshPollIdentifier>> pollsByPeriod = Maps.newLinkedHashMap();
+        Map<SshPollIdentifier, DelegatingPollHandler<SshPollValue>> handlersByPoll = Maps.newLinkedHashMap();
         for (final SshPollIdentifier pollInfo : polls.keySet()) {
             Set<SshPollConfig<?>> configs = polls.get(pollInfo);
             long minPeriod = Integer.MAX_VALUE;
@@ -251,13 +281,42 @@ public class SshFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
             
-            getPoller().scheduleAtFixedRate(
-                    new Callable<SshPollValue>() {
-                        public SshPollValue call() throws Exception {
-                            return exec(pollInfo.command.get(), pollInfo.env.get());
-                        }}, 
-                    new DelegatingPollHandler<SshPollValue>(handlers),
-                    minPeriod);
+            handlersByPoll.put(pollInfo, new DelegatingPollHandler<SshPollValue>(handlers));
+            List<SshPollIdentifier> samePeriod = pollsByPeriod.get(minPeriod);
+            if (samePeriod == null) {
+                samePeriod = Lists.newArrayList();
+                pollsByPeriod.put(minPeriod, samePeriod);
+            }
+            samePeriod.add(pollInfo);
+        }
+        
+        boolean coalesce = !Boolean.FALSE.equals(getConfig(COALESCE_POLLS));
+        for (Map.Entry<Long, List<SshPollIdentifier>> entry : pollsByPeriod.entrySet()) {
+            long period = entry.getKey();
+            if (coalesce && entry.getValue().size() > 1) {
+                final List<SshPollIdentifier> pollInfos = entry.getValue();
+                List<DelegatingPollHandler<SshPollValue>> handlers = Lists.newArrayList();
+                for (SshPollIdentifier pollInfo : pollInfos) {
+                    handlers.add(handlersByPoll.get(pollInfo));
+                }
+                getCoalescedPoller().scheduleAtFixedRate(
+                        new Callable<List<SshPollValue>>() {
+                            public List<SshPollValue> call() throws Exception {
+                                return execCoalesced(pollInfos);
+                            }}, 
+                        new CoalescedPollHandler(handlers),
+                        period);
+            } else {
+                for (final SshPollIdentifier pollInfo : entry.getValue()) {
+                    getPoller().scheduleAtFixedRate(
+                            new Callable<SshPollValue>() {
+                                public SshPollValue call() throws Exception {
+                                    return exec(pollInfo.command.get(), pollInfo.env.get());
+                                }}, 
+                            handlersByPoll.get(pollInfo),
+                            period);
+                }
+            }
         }
     }
     
@@ -266,10 +325,104 @@ public class SshFeed extends AbstractFeed {
         return (Poller<SshPollValue>) super.getPoller();
     }
     
+    @SuppressWarnings("unchecked")
+    private Poller<List<SshPollValue>> getCoalescedPoller() {
+        return (Poller<List<SshPollValue>>) super.getPoller();
+    }
+    
+    /**
+     * Passes each of the coalesced poll's values to the handlers for that poll. 
+     * The poll as a whole counts as successful only if every command was.
+     */
+    private static class CoalescedPollHandler implements PollHandler<List<SshPollValue>> {
+        private final List<DelegatingPollHandler<SshPollValue>> delegates;
+
+        CoalescedPollHandler(List<DelegatingPollHandler<SshPollValue>> delegates) {
+            this.delegates = ImmutableList.copyOf(delegates);
+        }
+
+        @Override
+        public boolean checkSuccess(List<SshPollValue> val) {
+            for (int i = 0; i < delegates.size(); i++) {
+                try {
+                    if (!delegates.get(i).checkSuccess(val.get(i))) return false;
+                } catch (Exception e) {
+                    // reported to that poll's handlers when dispatched
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void onSuccess(List<SshPollValue> val) {
+            dispatch(val);
+        }
+
+        @Override
+        public void onFailure(List<SshPollValue> val) {
+            dispatch(val);
+        }
+
+        private void dispatch(List<SshPollValue> val) {
+            for (int i = 0; i < delegates.size(); i++) {
+                DelegatingPollHandler<SshPollValue> delegate = delegates.get(i);
+                SshPollValue value = val.get(i);
+                // as the poller would for a single poll: exceptions from one handler go to that handler
+                try {
+                    if (delegate.checkSuccess(value)) {
+                        delegate.onSuccess(value);
+                    } else {
+                        delegate.onFailure(value);
+                    }
+                } catch (Exception e) {
+                    delegate.onException(e);
+                }
+            }
+        }
+
+        @Override
+        public void onException(Exception exception) {
+            for (DelegatingPollHandler<SshPollValue> delegate : delegates) {
+                delegate.onException(exception);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            List<String> descriptions = Lists.newArrayList();
+            for (DelegatingPollHandler<SshPollValue> delegate : delegates) {
+                descriptions.add(delegate.getDescription());
+            }
+            return "coalesced"+descriptions;
+        }
+        
+        @Override
+        public String toString() {
+            return super.toString()+"["+getDescription()+"]";
+        }
+    }
+    
+    private List<SshPollValue> execCoalesced(List<SshPollIdentifier> pollInfos) throws IOException {
+        List<String> commands = Lists.newArrayList();
+        List<Map<String, String>> envs = Lists.newArrayList();
+        for (SshPollIdentifier pollInfo : pollInfos) {
+            commands.add(pollInfo.command.get());
+            envs.add(pollInfo.env.get());
+        }
+        CoalescedSshPoll poll = new CoalescedSshPoll(commands, envs);
+        SshPollValue result = exec(poll.getScript(), ImmutableMap.<String,String>of());
+        return poll.parse(result.getMachine(), result.getExitStatus(), result.getStdout(), result.getStderr());
+    }
+    
     private SshPollValue exec(String command, Map<String,String> env) throws IOException {
+        return exec(ImmutableList.of(command), env);
+    }
+    
+    private SshPollValue exec(List<String> commands, Map<String,String> env) throws IOException {
         SshMachineLocation machine = getMachine();
         Boolean execAsCommand = getConfig(EXEC_AS_COMMAND);
-        if (log.isTraceEnabled()) log.trace("Ssh polling for {}, executing {} with env {}", new Object[] {machine, command, env});
+        if (log.isTraceEnabled()) log.trace("Ssh polling for {}, executing {} with env {}", new Object[] {machine, commands, env});
         ByteArrayOutputStream stdout = new ByteArrayOutputStream();
         ByteArrayOutputStream stderr = new ByteArrayOutputStream();
 
@@ -280,10 +433,10 @@ public class SshFeed extends AbstractFeed {
             .configure(SshTool.PROP_ERR_STREAM, stderr);
         if (Boolean.TRUE.equals(execAsCommand)) {
             exitStatus = machine.execCommands(flags.getAllConfig(),
-                    "ssh-feed", ImmutableList.of(command), env);
+                    "ssh-feed", commands, env);
         } else {
             exitStatus = machine.execScript(flags.getAllConfig(),
-                    "ssh-feed", ImmutableList.of(command), env);
+                    "ssh-feed", commands, env);
         }
 
         return new SshPollValue(machine, exitStatus, new String(stdout.toByteArray()), new String(stderr.toByteArray()));
@@ -73,6 +73,34 @@ public class BrooklynFeatureEnablement {
      */
     public static final String FEATURE_RENAME_THREADS = "brooklyn.executionManager.renameThreads";
 
+    /**
+     * Whether subscription events are delivered through a per-subscriber mailbox, drained in batches by a single task,
+     * rather than submitting a new task to the execution manager for every event and every subscriber.
+     * <p>
+     * Ordering of events delivered to a given subscriber is preserved either way.
+     * Defaults to true if system property is not set.
+     */
+    public static final String FEATURE_BATCHED_SUBSCRIPTION_DELIVERY = "brooklyn.subscriptionManager.batchedDelivery";
+
+    /**
+     * Whether feeds' periodic polls are run by a shared {@link brooklyn.event.feed.PollScheduler} 
+     * rather than each poll being a {@link brooklyn.util.task.ScheduledTask} which creates a new task every time it fires.
+     * <p>
+     * With the shared scheduler, healthy polls do not run inside a task in the entity's execution context,
+     * so have no task tags or entitlement context, and cannot e.g. queue sub-tasks with DynamicTasks;
+     * a poll is only run as a task after a poll has failed or been slower than its period.
+     * Defaults to false if system property is not set.
+     */
+    public static final String FEATURE_SHARED_POLL_SCHEDULER = "brooklyn.feeds.sharedPollScheduler";
+
+    /**
+     * Whether {@link brooklyn.event.feed.http.HttpFeed}s use a connection pool shared across all feeds in the management context, keeping connections
+     * alive between polls (see {@link brooklyn.event.feed.http.SharedHttpConnectionPool}); if false each poll has its 
+     * own client and connection.
+     * Defaults to true if system property is not set.
+     */
+    public static final String FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL = "brooklyn.httpFeed.sharedConnectionPool";
+
     /**
      * When rebinding to store created from a previous version the catalogItemId properties will be missing which
      * results in errors when OSGi bundles are used. When enabled the code tries to infer the catalogItemId from
@@ -101,6 +129,9 @@ public class BrooklynFeatureEnablement {
         setDefault(FEATURE_DEFAULT_STANDBY_IS_HOT_PROPERTY, false);
         setDefault(FEATURE_USE_BROOKLYN_LIVE_OBJECTS_DATAGRID_STORAGE, false);
         setDefault(FEATURE_RENAME_THREADS, false);
+        setDefault(FEATURE_BATCHED_SUBSCRIPTION_DELIVERY, true);
+        setDefault(FEATURE_SHARED_POLL_SCHEDULER, false);
+        setDefault(FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL, true);
         setDefault(FEATURE_INFER_CATALOG_ITEM_ON_REBIND, true);
     }
     
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.basic;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.entity.basic.BrooklynTaskTags;
+import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.management.ExecutionManager;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.Task;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.exceptions.RuntimeInterruptedException;
+import brooklyn.util.internal.ssh.SshTool;
+import brooklyn.util.task.ScheduledTask;
+import brooklyn.util.task.Tasks;
+import brooklyn.util.time.Duration;
+import brooklyn.util.time.Time;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+
+/**
+ * Shares connected {@link SshTool}s between all {@link SshMachineLocation}s in a management context.
+ * <p>
+ * Connections are keyed on the tool's connection arguments (host, port, user, credentials and other
+ * ssh config), so locations for the same machine and credentials reuse authenticated connections.
+ * Each caller has exclusive use of a tool while it runs (as tools are not safe for concurrent use);
+ * when done, the tool is kept connected for the next caller with the same key, so concurrent callers
+ * use separate connections and sequential callers reuse one.
+ * <p>
+ * The number of connections in use per host is limited (cf {@code MaxStartups} in sshd);
+ * callers beyond that wait for one to be released. Connections which have not been used for
+ * {@link #IDLE_TIMEOUT} (or the idle timeout given by their last caller) are disconnected, as are those
+ * which are no longer connected when next leased, and those whose caller failed.
+ * <p>
+ * There is one manager per management context (see {@link #forManagementContext(ManagementContext)}),
+ * closed when the management context terminates.
+ */
+@Beta
+public class SshConnectionManager implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SshConnectionManager.class);
+
+    public static final ConfigKey<Boolean> ENABLED = ConfigKeys.newBooleanConfigKey("brooklyn.ssh.sharedConnections.enabled",
+            "Whether ssh connections are shared between all ssh machine locations in the management context", true);
+
+    public static final ConfigKey<Integer> MAX_CONNECTIONS_PER_HOST = ConfigKeys.newIntegerConfigKey("brooklyn.ssh.sharedConnections.maxConnectionsPerHost",
+            "Maximum number of ssh connections concurrently in use (i.e. commands in progress) to any one host", 10);
+
+    public static final ConfigKey<Duration> IDLE_TIMEOUT = ConfigKeys.newConfigKey(Duration.class, "brooklyn.ssh.sharedConnections.idleTimeout",
+            "Time after which an unused shared ssh connection is disconnected", Duration.FIVE_MINUTES);
+
+    public static final ConfigKey<Duration> CONNECTION_WAIT_TIMEOUT = ConfigKeys.newConfigKey(Duration.class, "brooklyn.ssh.sharedConnections.connectionWaitTimeout",
+            "Maximum time to wait for a connection to a host to become available, when the maximum per host are in use", Duration.FIVE_MINUTES);
+
+    /** weak keys, so that a manager is not retained by a management context that was never terminated */
+    private static final ConcurrentMap<ManagementContext, SshConnectionManager> INSTANCES = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Returns the connection manager for the given management context, creating it if necessary;
+     * or null if shared connections are disabled or the management context is no longer running.
+     */
+    public static SshConnectionManager forManagementContext(ManagementContext mgmt) {
+        if (!Boolean.TRUE.equals(mgmt.getConfig().getConfig(ENABLED))) return null;
+        synchronized (INSTANCES) {
+            SshConnectionManager result = INSTANCES.get(mgmt);
+            if (result != null) return result;
+            if (!mgmt.isRunning()) return null;
+            result = new SshConnectionManager(mgmt.getConfig().getConfig(MAX_CONNECTIONS_PER_HOST),
+                    mgmt.getConfig().getConfig(IDLE_TIMEOUT), mgmt.getConfig().getConfig(CONNECTION_WAIT_TIMEOUT));
+            result.addEvictionTask(mgmt);
+            INSTANCES.put(mgmt, result);
+            return result;
+        }
+    }
+
+    /** Closes the connection manager for the given management context, if there is one; called when the management context terminates. */
+    public static void closeForManagementContext(ManagementContext mgmt) {
+        SshConnectionManager manager;
+        synchronized (INSTANCES) {
+            manager = INSTANCES.remove(mgmt);
+        }
+        if (manager != null) manager.close();
+    }
+
+    /** Counters for a {@link SshConnectionManager}; all counts are since the manager was created. */
+    public static class Stats {
+        private final long connectCount;
+        private final long leaseCount;
+        private final long evictionCount;
+        private final long totalConnectionWaitNanos;
+        private final long maxConnectionWaitNanos;
+        private final int openConnectionCount;
+        private final int activeConnectionCount;
+
+        Stats(long connectCount, long leaseCount, long evictionCount, long totalConnectionWaitNanos, long maxConnectionWaitNanos,
+                int openConnectionCount, int activeConnectionCount) {
+            this.connectCount = connectCount;
+            this.leaseCount = leaseCount;
+            this.evictionCount = evictionCount;
+            this.totalConnectionWaitNanos = totalConnectionWaitNanos;
+            this.maxConnectionWaitNanos = maxConnectionWaitNanos;
+            this.openConnectionCount = openConnectionCount;
+            this.activeConnectionCount = activeConnectionCount;
+        }
+        /** number of new connections made */
+        public long getConnectCount() { return connectCount; }
+        /** number of times a connection was leased (new or reused) */
+        public long getLeaseCount() { return leaseCount; }
+        /** number of connections closed for being idle or no longer connected */
+        public long getEvictionCount() { return evictionCount; }
+        /** fraction of leases which reused an existing connection, or 0 if there have been none */
+        public double getReuseRatio() { return leaseCount == 0 ? 0 : ((double)(leaseCount - connectCount)) / leaseCount; }
+        public Duration getTotalConnectionWaitTime() { return Duration.nanos(totalConnectionWaitNanos); }
+        public Duration getMeanConnectionWaitTime() { return Duration.nanos(leaseCount == 0 ? 0 : totalConnectionWaitNanos / leaseCount); }
+        public Duration getMaxConnectionWaitTime() { return Duration.nanos(maxConnectionWaitNanos); }
+        /** number of connections open, whether in use or idle */
+        public int getOpenConnectionCount() { return openConnectionCount; }
+        /** number of connections currently leased */
+        public int getActiveConnectionCount() { return activeConnectionCount; }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this)
+                    .add("connects", connectCount)
+                    .add("leases", leaseCount)
+                    .add("reuseRatio", String.format("%.3f", getReuseRatio()))
+                    .add("evictions", evictionCount)
+                    .add("meanConnectionWait", Time.makeTimeStringRounded(getMeanConnectionWaitTime()))
+                    .add("maxConnectionWait", Time.makeTimeStringRounded(getMaxConnectionWaitTime()))
+                    .add("openConnections", openConnectionCount)
+                    .add("activeConnections", activeConnectionCount)
+                    .toString();
+        }
+    }
+
+    /** The connections for one key; all fields are guarded by the manager's connections map. */
+    private static class SharedConnections {
+        final Map<String, ?> key;
+        final String host;
+        /** connected tools not in use, most recently used first */
+        final Deque<IdleTool> idle = new ArrayDeque<IdleTool>();
+        /** number of tools in use */
+        int leased;
+        /** once retired, tools are disconnected rather than returned to {@link #idle} */
+        boolean retired;
+        /** as given by the last caller */
+        Duration idleTimeout;
+
+        SharedConnections(Map<String, ?> key, String host) {
+            this.key = key;
+            this.host = host;
+        }
+        @Override
+        public String toString() {
+            return "SharedConnections["+host+"]";
+        }
+    }
+
+    private static class IdleTool {
+        final SshTool tool;
+        final long idleSinceNanos = System.nanoTime();
+        IdleTool(SshTool tool) {
+            this.tool = tool;
+        }
+    }
+
+    private final int maxConnectionsPerHost;
+    private final Duration idleTimeout;
+    private final Duration connectionWaitTimeout;
+
+    private final Map<Map<String, ?>, SharedConnections> connections = Maps.newHashMap();
+    private final ConcurrentMap<String, Semaphore> connectionPermitsByHost = new ConcurrentHashMap<String, Semaphore>();
+
+    private final AtomicLong connectCount = new AtomicLong();
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong totalConnectionWaitNanos = new AtomicLong();
+    private final AtomicLong maxConnectionWaitNanos = new AtomicLong();
+
+    private final Object evictionMutex = new Object();
+    private ExecutionManager executionManager;
+    private Duration evictionPeriod;
+    private Task<?> evictionTask;
+    private boolean closed;
+
+    @VisibleForTesting
+    SshConnectionManager(int maxConnectionsPerHost, Duration idleTimeout, Duration connectionWaitTimeout) {
+        this.maxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        this.idleTimeout = idleTimeout;
+        this.connectionWaitTimeout = connectionWaitTimeout;
+    }
+
+    /**
+     * Runs the given task with a connected tool for the given connection key, for its exclusive use while the task runs,
+     * using an idle connection for that key if there is one (and it is still connected) or else connecting with the given connector.
+     * 
+     * @param key     the connection arguments; equal keys share connections
+     * @param host    identifies the host, for enforcing the per-host connection limit
+     */
+    public <T> T exec(Map<String, ?> key, String host, Supplier<? extends SshTool> connector, Function<? super SshTool, T> task) {
+        return exec(key, host, null, connector, task);
+    }
+
+    /**
+     * As {@link #exec(Map, String, Supplier, Function)}, disconnecting the connections for this key once idle
+     * for the given time rather than for the manager's idle timeout (which applies if null).
+     * Where callers with the same key give different timeouts, the last one applies.
+     */
+    public <T> T exec(Map<String, ?> key, String host, @Nullable Duration idleTimeout, Supplier<? extends SshTool> connector, Function<? super SshTool, T> task) {
+        if (idleTimeout != null) evictOftenEnoughFor(idleTimeout);
+        Semaphore permits = acquireConnectionPermit(host);
+        try {
+            SharedConnections connectionsForKey;
+            SshTool tool;
+            synchronized (connections) {
+                connectionsForKey = connections.get(key);
+                if (connectionsForKey == null) {
+                    // copy, so later changes to the caller's map do not corrupt ours
+                    Map<String, ?> keyCopy = MutableMap.copyOf(key).asUnmodifiable();
+                    connectionsForKey = new SharedConnections(keyCopy, host);
+                    connections.put(keyCopy, connectionsForKey);
+                }
+                connectionsForKey.idleTimeout = (idleTimeout != null) ? idleTimeout : this.idleTimeout;
+                connectionsForKey.leased++;
+                leaseCount.incrementAndGet();
+                IdleTool idle = connectionsForKey.idle.pollFirst();
+                tool = (idle != null) ? idle.tool : null;
+            }
+            
+            boolean succeeded = false;
+            try {
+                if (tool != null && !tool.isConnected()) {
+                    evictionCount.incrementAndGet();
+                    disconnectQuietly(tool, connectionsForKey);
+                    tool = null;
+                }
+                if (tool == null) {
+                    if (LOG.isDebugEnabled()) LOG.debug("Opening shared ssh connection to {}", host);
+                    tool = connector.get();
+                    connectCount.incrementAndGet();
+                }
+                T result = task.apply(tool);
+                succeeded = true;
+                return result;
+            } finally {
+                release(connectionsForKey, tool, succeeded);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stops the connections for the given key from being used again, disconnecting those which are idle now
+     * and the rest once those currently using them are done.
+     */
+    public void invalidate(Map<String, ?> key) {
+        List<SshTool> idle = Lists.newArrayList();
+        SharedConnections connectionsForKey;
+        synchronized (connections) {
+            connectionsForKey = connections.remove(key);
+            if (connectionsForKey == null) return;
+            connectionsForKey.retired = true;
+            for (IdleTool idleTool : connectionsForKey.idle) {
+                idle.add(idleTool.tool);
+            }
+            connectionsForKey.idle.clear();
+        }
+        for (SshTool tool : idle) {
+            disconnectQuietly(tool, connectionsForKey);
+        }
+    }
+
+    /** Disconnects connections which have been idle for longer than the idle timeout for their key. */
+    public void evictIdleConnections() {
+        long now = System.nanoTime();
+        Map<SshTool, SharedConnections> evicted = Maps.newLinkedHashMap();
+        synchronized (connections) {
+            for (Iterator<SharedConnections> iter = connections.values().iterator(); iter.hasNext();) {
+                SharedConnections connectionsForKey = iter.next();
+                for (Iterator<IdleTool> idleIter = connectionsForKey.idle.iterator(); idleIter.hasNext();) {
+                    IdleTool idleTool = idleIter.next();
+                    if (now - idleTool.idleSinceNanos >= connectionsForKey.idleTimeout.toNanoseconds()) {
+                        idleIter.remove();
+                        evicted.put(idleTool.tool, connectionsForKey);
+                    }
+                }
+                if (connectionsForKey.leased == 0 && connectionsForKey.idle.isEmpty()) {
+                    iter.remove();
+                }
+            }
+        }
+        for (Map.Entry<SshTool, SharedConnections> entry : evicted.entrySet()) {
+            if (LOG.isDebugEnabled()) LOG.debug("Closing idle connection of {}", entry.getValue());
+            evictionCount.incrementAndGet();
+            disconnectQuietly(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public Stats getStats() {
+        int open = 0;
+        int active = 0;
+        synchronized (connections) {
+            for (SharedConnections connectionsForKey : connections.values()) {
+                open += connectionsForKey.idle.size() + connectionsForKey.leased;
+                active += connectionsForKey.leased;
+            }
+        }
+        return new Stats(connectCount.get(), leaseCount.get(), evictionCount.get(), totalConnectionWaitNanos.get(),
+                maxConnectionWaitNanos.get(), open, active);
+    }
+
+    /** Disconnects all connections (those in use once no longer in use) and stops idle eviction. */
+    @Override
+    public void close() {
+        synchronized (evictionMutex) {
+            closed = true;
+            if (evictionTask != null) {
+                evictionTask.cancel(false);
+                evictionTask = null;
+            }
+        }
+        List<Map<String, ?>> keys;
+        synchronized (connections) {
+            keys = Lists.newArrayList(connections.keySet());
+        }
+        for (Map<String, ?> key : keys) {
+            invalidate(key);
+        }
+        if (LOG.isDebugEnabled()) LOG.debug("Closed {}; final stats: {}", this, getStats());
+    }
+
+    private Semaphore acquireConnectionPermit(String host) {
+        Semaphore permits = connectionPermitsByHost.get(host);
+        if (permits == null) {
+            permits = new Semaphore(maxConnectionsPerHost, true);
+            Semaphore old = connectionPermitsByHost.putIfAbsent(host, permits);
+            if (old != null) permits = old;
+        }
+        long startNanos = System.nanoTime();
+        if (!permits.tryAcquire()) {
+            String previousBlockingDetails = Tasks.setBlockingDetails("Waiting for ssh connection to "+host);
+            try {
+                if (!permits.tryAcquire(connectionWaitTimeout.toNanoseconds(), TimeUnit.NANOSECONDS)) {
+                    throw new IllegalStateException("Timeout after "+connectionWaitTimeout+" waiting for one of "+maxConnectionsPerHost+" ssh connections to "+host);
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeInterruptedException(e);
+            } finally {
+                Tasks.setBlockingDetails(previousBlockingDetails);
+            }
+        }
+        long waitNanos = System.nanoTime() - startNanos;
+        totalConnectionWaitNanos.addAndGet(waitNanos);
+        while (true) {
+            long max = maxConnectionWaitNanos.get();
+            if (waitNanos <= max || maxConnectionWaitNanos.compareAndSet(max, waitNanos)) break;
+        }
+        return permits;
+    }
+
+    /** returns the tool for reuse, unless the caller failed (so it may be in a bad state) or it is no longer wanted */
+    private void release(SharedConnections connectionsForKey, @Nullable SshTool tool, boolean succeeded) {
+        boolean reusable = succeeded && tool != null && tool.isConnected();
+        synchronized (connections) {
+            connectionsForKey.leased--;
+            if (reusable && !connectionsForKey.retired) {
+                connectionsForKey.idle.addFirst(new IdleTool(tool));
+                return;
+            }
+        }
+        if (tool != null) disconnectQuietly(tool, connectionsForKey);
+    }
+
+    private void disconnectQuietly(SshTool tool, SharedConnections connectionsForKey) {
+        try {
+            tool.disconnect();
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            if (LOG.isDebugEnabled()) LOG.debug("Error disconnecting connection of "+connectionsForKey+" (continuing)", e);
+        }
+    }
+
+    private void addEvictionTask(ManagementContext mgmt) {
+        if (mgmt.getExecutionManager() == null) return;
+        synchronized (evictionMutex) {
+            executionManager = mgmt.getExecutionManager();
+            scheduleEviction(evictionPeriodFor(idleTimeout));
+        }
+    }
+
+    /** reschedules idle eviction, if need be, so that connections with the given idle timeout are not kept much longer */
+    private void evictOftenEnoughFor(Duration keyIdleTimeout) {
+        Duration period = evictionPeriodFor(keyIdleTimeout);
+        synchronized (evictionMutex) {
+            if (executionManager == null || closed || !evictionPeriod.isLongerThan(period)) return;
+            if (evictionTask != null) evictionTask.cancel(false);
+            scheduleEviction(period);
+        }
+    }
+
+    private static Duration evictionPeriodFor(Duration idleTimeout) {
+        return Duration.millis(Math.max(1000, idleTimeout.toMilliseconds() / 2));
+    }
+
+    private void scheduleEviction(Duration period) {
+        Callable<Task<?>> evictionTaskFactory = new Callable<Task<?>>() {
+            @Override public Task<Void> call() {
+                return Tasks.<Void>builder().dynamic(false).tag(BrooklynTaskTags.TRANSIENT_TASK_TAG)
+                    .name("ssh connection evictor").body(new Callable<Void>() {
+                        @Override public Void call() {
+                            try {
+                                evictIdleConnections();
+                            } catch (Exception e) {
+                                // Don't rethrow, otherwise the scheduled task will not be executed again
+                                Exceptions.propagateIfFatal(e);
+                                LOG.warn("Problem evicting idle ssh connections", e);
+                            }
+                            return null;
+                        }}).build();
+            }
+        };
+        evictionPeriod = period;
+        evictionTask = executionManager.submit(new ScheduledTask(
+                MutableMap.of("displayName", "scheduled[ssh connection evictor]"), evictionTaskFactory).period(period));
+    }
+
+    @Override
+    public String toString() {
+        return "SshConnectionManager["+getStats()+"]";
+    }
+}
@@ -62,6 +62,7 @@ import brooklyn.location.MachineLocation;
 import brooklyn.location.OsDetails;
 import brooklyn.location.PortRange;
 import brooklyn.location.PortSupplier;
+import brooklyn.management.ManagementContext;
 import brooklyn.management.Task;
 import brooklyn.util.ResourceUtils;
 import brooklyn.util.collections.MutableMap;
@@ -211,6 +212,13 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                 }
             }));
 
+    private static final Set<String> REUSABLE_SSH_PROP_NAMES = ImmutableSet.copyOf(
+            Iterables.transform(REUSABLE_SSH_PROPS, new Function<ConfigKey<?>, String>() {
+                @Override public String apply(ConfigKey<?> input) {
+                    return input.getName();
+                }
+            }));
+
     private Task<?> cleanupTask;
     /** callers should use {@link #getSshPoolCache()} */
     @Nullable 
@@ -226,6 +234,10 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     }
 
     private final transient Object poolCacheMutex = new Object();
+
+    /** the shared connection manager this location has used, if any, and the keys it used; see {@link #close()} */
+    private transient volatile SshConnectionManager sharedConnectionsUsed;
+    private final transient Set<Map<String, ?>> sharedConnectionKeysUsed = Sets.newConcurrentHashSet();
     @Nonnull
     private LoadingCache<Map<String, ?>, Pool<SshTool>> getSshPoolCache() {
         synchronized (poolCacheMutex) {
@@ -283,25 +295,23 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
                     }
                 });
 
-        final Set<String> reusableSshProperties = ImmutableSet.copyOf(
-                Iterables.transform(REUSABLE_SSH_PROPS, new Function<ConfigKey<?>, String>() {
-                    @Override public String apply(ConfigKey<?> input) {
-                        return input.getName();
-                    }
-                }));
         // Groovy-eclipse compiler refused to compile `KeyTransformingSameTypeLoadingCache.from(...)`
         return new KeyTransformingSameTypeLoadingCache<Map<String, ?>, Pool<SshTool>>(
                 delegate,
                 new Function<Map<String, ?>, Map<String, ?>>() {
                     @Override
                     public Map<String, ?> apply(@Nullable Map<String, ?> input) {
-                        Map<String, Object> copy = new HashMap<String, Object>(input);
-                        copy.keySet().removeAll(reusableSshProperties);
-                        return copy;
+                        return withoutReusableSshProperties(input);
                     }
                 });
     }
 
+    private static Map<String, ?> withoutReusableSshProperties(Map<String, ?> props) {
+        Map<String, Object> copy = new HashMap<String, Object>(props);
+        copy.keySet().removeAll(REUSABLE_SSH_PROP_NAMES);
+        return copy;
+    }
+
     private BasicPool<SshTool> buildPool(final Map<String, ?> properties) {
         return BasicPool.<SshTool>builder()
                 .name(getDisplayName()+"@"+address+
@@ -402,6 +412,13 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     // we should probably expose a mechanism such as that in Entity (or re-use Entity for locations!)
     @Override
     public void close() throws IOException {
+        SshConnectionManager sharedConnections = sharedConnectionsUsed;
+        if (sharedConnections != null) {
+            for (Map<String, ?> key : sharedConnectionKeysUsed) {
+                sharedConnections.invalidate(key);
+            }
+            sharedConnectionKeysUsed.clear();
+        }
         if (sshPoolCacheOrNull != null) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("{} invalidating all entries in ssh pool cache. Final stats: {}", this, sshPoolCacheOrNull.stats());
@@ -472,6 +489,11 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     }
 
     protected <T> T execSsh(final Map<String, ?> props, final Function<ShellTool, T> task) {
+        SshConnectionManager sharedConnections = getSharedConnectionManager();
+        if (sharedConnections != null) {
+            return execSshShared(sharedConnections, props, task);
+        }
+        
         final LoadingCache<Map<String, ?>, Pool<SshTool>> sshPoolCache = getSshPoolCache();
         Pool<SshTool> pool = sshPoolCache.getUnchecked(props);
         if (LOG.isTraceEnabled()) {
@@ -497,6 +519,38 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
         }
     }
 
+    /**
+     * The management context's {@link SshConnectionManager}, if this location is managed and sharing of
+     * ssh connections is enabled; otherwise null, in which case this location's own pool of tools is used.
+     */
+    @Nullable
+    protected SshConnectionManager getSharedConnectionManager() {
+        ManagementContext managementContext = getManagementContext();
+        if (managementContext == null || !managementContext.isRunning() || !isManaged()) return null;
+        return SshConnectionManager.forManagementContext(managementContext);
+    }
+
+    private <T> T execSshShared(SshConnectionManager sharedConnections, Map<String, ?> props, Function<ShellTool, T> task) {
+        final Map<String, ?> connectionProps = withoutReusableSshProperties(props);
+        Map<String, Object> connectionKey = newSshToolArgs(connectionProps).getAllConfig();
+        Supplier<SshTool> connector = new Supplier<SshTool>() {
+            @Override public SshTool get() {
+                return connectSsh(connectionProps);
+            }
+        };
+        sharedConnectionsUsed = sharedConnections;
+        sharedConnectionKeysUsed.add(connectionKey);
+        // the manager's idle timeout applies unless this location sets its own
+        Duration idleTimeout = hasConfig(SSH_CACHE_EXPIRY_DURATION, true) ? getConfig(SSH_CACHE_EXPIRY_DURATION) : null;
+        try {
+            return sharedConnections.exec(connectionKey, getSshHostAndPort().toString(), idleTimeout, connector, task);
+        } finally {
+            if (truth(props.get(CLOSE_CONNECTION.getName()))) {
+                sharedConnections.invalidate(connectionKey);
+            }
+        }
+    }
+
     protected SshTool connectSsh() {
         return connectSsh(ImmutableMap.of());
     }
@@ -504,41 +558,8 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     protected boolean previouslyConnected = false;
     protected SshTool connectSsh(Map props) {
         try {
-            if (!truth(user)) {
-                String newUser = getUser();
-                if (LOG.isTraceEnabled()) LOG.trace("For "+this+", setting user in connectSsh: oldUser="+user+"; newUser="+newUser);
-                user = newUser;
-            }
-
-            ConfigBag args = new ConfigBag()
-                .configure(SshTool.PROP_USER, user)
-                // default value of host, overridden if SSH_HOST is supplied
-                .configure(SshTool.PROP_HOST, address.getHostName())
-                .putAll(props);
-
-            for (Map.Entry<String,Object> entry: getAllConfigBag().getAllConfig().entrySet()) {
-                String key = entry.getKey();
-                if (key.startsWith(SshTool.BROOKLYN_CONFIG_KEY_PREFIX)) {
-                    key = Strings.removeFromStart(key, SshTool.BROOKLYN_CONFIG_KEY_PREFIX);
-                } else if (ALL_SSH_CONFIG_KEY_NAMES.contains(entry.getKey())) {
-                    // key should be included, and does not need to be changed
-
-                    // TODO make this config-setting mechanism more universal
-                    // currently e.g. it will not admit a tool-specific property.
-                    // thinking either we know about the tool here,
-                    // or we don't allow unadorned keys to be set
-                    // (require use of BROOKLYN_CONFIG_KEY_PREFIX)
-                } else {
-                    // this key is not applicable here; ignore it
-                    continue;
-                }
-                args.putStringKey(key, entry.getValue());
-            }
+            ConfigBag args = newSshToolArgs(props);
             if (LOG.isTraceEnabled()) LOG.trace("creating ssh session for "+args);
-            if (!user.equals(args.get(SshTool.PROP_USER))) {
-                LOG.warn("User mismatch configuring ssh for "+this+": preferring user "+args.get(SshTool.PROP_USER)+" over "+user);
-                user = args.get(SshTool.PROP_USER);
-            }
 
             // look up tool class
             String sshToolClass = args.get(SshTool.PROP_TOOL_CLASS);
@@ -569,6 +590,45 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
         }
     }
 
+    /** the arguments for a new {@link SshTool}, combining the given properties with this location's ssh config */
+    private ConfigBag newSshToolArgs(Map props) {
+        if (!truth(user)) {
+            String newUser = getUser();
+            if (LOG.isTraceEnabled()) LOG.trace("For "+this+", setting user in connectSsh: oldUser="+user+"; newUser="+newUser);
+            user = newUser;
+        }
+
+        ConfigBag args = new ConfigBag()
+            .configure(SshTool.PROP_USER, user)
+            // default value of host, overridden if SSH_HOST is supplied
+            .configure(SshTool.PROP_HOST, address.getHostName())
+            .putAll(props);
+
+        for (Map.Entry<String,Object> entry: getAllConfigBag().getAllConfig().entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(SshTool.BROOKLYN_CONFIG_KEY_PREFIX)) {
+                key = Strings.removeFromStart(key, SshTool.BROOKLYN_CONFIG_KEY_PREFIX);
+            } else if (ALL_SSH_CONFIG_KEY_NAMES.contains(entry.getKey())) {
+                // key should be included, and does not need to be changed
+
+                // TODO make this config-setting mechanism more universal
+                // currently e.g. it will not admit a tool-specific property.
+                // thinking either we know about the tool here,
+                // or we don't allow unadorned keys to be set
+                // (require use of BROOKLYN_CONFIG_KEY_PREFIX)
+            } else {
+                // this key is not applicable here; ignore it
+                continue;
+            }
+            args.putStringKey(key, entry.getValue());
+        }
+        if (!user.equals(args.get(SshTool.PROP_USER))) {
+            LOG.warn("User mismatch configuring ssh for "+this+": preferring user "+args.get(SshTool.PROP_USER)+" over "+user);
+            user = args.get(SshTool.PROP_USER);
+        }
+        return args;
+    }
+
     // TODO submitCommands and submitScript which submit objects we can subsequently poll (cf JcloudsSshMachineLocation.submitRunScript)
 
     /**
@@ -229,7 +229,8 @@ public class BrooklynGarbageCollector {
             "storage: " + storage.getStorageMetrics() + "; " +
             "tasks: " +
             executionManager.getNumActiveTasks()+" active, "+
-            executionManager.getNumIncompleteTasks()+" unfinished; "+
+            executionManager.getNumIncompleteTasks()+" unfinished, "+
+            executionManager.getNumQueuedTasks()+" queued; "+
             executionManager.getNumInMemoryTasks()+" remembered, "+
             executionManager.getTotalTasksSubmitted()+" total submitted)";
     }
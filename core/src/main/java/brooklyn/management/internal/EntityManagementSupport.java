@@ -35,6 +35,7 @@ import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.EntityInternal;
 import brooklyn.event.AttributeSensor;
+import brooklyn.management.EntityManager;
 import brooklyn.management.ExecutionContext;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.SubscriptionContext;
@@ -401,6 +402,8 @@ public class EntityManagementSupport {
         @Override
         public void onChildrenChanged() {
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
+            EntityManager entityManager = getManagementContext().getEntityManager();
+            if (entityManager instanceof LocalEntityManager) ((LocalEntityManager)entityManager).onChildrenChanged(entity);
         }
         @Override
         public void onLocationsChanged() {
@@ -409,6 +412,8 @@ public class EntityManagementSupport {
         @Override
         public void onTagsChanged() {
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
+            EntityManager entityManager = getManagementContext().getEntityManager();
+            if (entityManager instanceof LocalEntityManager) ((LocalEntityManager)entityManager).onTagsChanged(entity);
         }
         @Override
         public void onMembersChanged() {
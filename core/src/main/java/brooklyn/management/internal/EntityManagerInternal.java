@@ -18,12 +18,16 @@
  */
 package brooklyn.management.internal;
 
+import java.util.Collection;
+
 import brooklyn.entity.Application;
 import brooklyn.entity.Entity;
 import brooklyn.location.Location;
 import brooklyn.management.EntityManager;
 import brooklyn.management.internal.ManagementTransitionInfo.ManagementTransitionMode;
 
+import com.google.common.annotations.Beta;
+
 public interface EntityManagerInternal extends EntityManager {
 
     /** gets all entities currently known to the application, including entities that are not yet managed */
@@ -31,6 +35,18 @@ public interface EntityManagerInternal extends EntityManager {
 
     public Iterable<String> getEntityIds();
     
+    /** the managed entities whose implementation is an instance of the given class or interface */
+    @Beta
+    Collection<Entity> getEntitiesOfType(Class<?> type);
+
+    /** the managed entities which have the given tag */
+    @Beta
+    Collection<Entity> getEntitiesWithTag(Object tag);
+
+    /** the managed entities which are children of the entity with the given id */
+    @Beta
+    Collection<Entity> getEntitiesWithParent(String parentId);
+    
     ManagementTransitionMode getLastManagementTransitionMode(String itemId);
     void setManagementTransitionMode(Entity item, ManagementTransitionMode mode);
 
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.management.internal;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.EntityInternal;
+import brooklyn.util.javalang.Reflections;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Secondary indexes of the entities managed by a {@link LocalEntityManager}, 
+ * by id, application id, type (classes and interfaces of the implementation), tag and parent id.
+ * <p>
+ * Changes are synchronized, and made by the entity manager as entities are managed and unmanaged, 
+ * and as their tags or parents change. Reads are not synchronized, returning a snapshot
+ * of the entities (their proxies, where available), in the order they were first indexed.
+ */
+class LocalEntityIndex {
+
+    private static class IndexedEntity {
+        final long sequence;
+        final Entity entity;
+        final Class<?> type;
+        final String applicationId;
+        final String parentId;
+        final Set<Object> tags;
+        
+        IndexedEntity(long sequence, Entity entity, Class<?> type, String applicationId, String parentId, Set<Object> tags) {
+            this.sequence = sequence;
+            this.entity = entity;
+            this.type = type;
+            this.applicationId = applicationId;
+            this.parentId = parentId;
+            this.tags = tags;
+        }
+    }
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ConcurrentMap<String, IndexedEntity> byId = Maps.newConcurrentMap();
+    private final ConcurrentSkipListMap<Long, Entity> all = new ConcurrentSkipListMap<Long, Entity>();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, Entity>> byApplicationId = Maps.newConcurrentMap();
+    private final ConcurrentMap<Class<?>, ConcurrentSkipListMap<Long, Entity>> byType = Maps.newConcurrentMap();
+    private final ConcurrentMap<Object, ConcurrentSkipListMap<Long, Entity>> byTag = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, ConcurrentSkipListMap<Long, Entity>> byParentId = Maps.newConcurrentMap();
+    
+    /** the classes and interfaces under which instances of a class are indexed */
+    private final ConcurrentMap<Class<?>, Set<Class<?>>> typeKeys = Maps.newConcurrentMap();
+
+    /**
+     * Adds the given entity, or updates the index if already present (keeping its position);
+     * the application, parent and tags are read from the real entity.
+     */
+    public synchronized void put(Entity proxy, Entity realEntity) {
+        IndexedEntity old = byId.get(realEntity.getId());
+        long sequence = (old != null) ? old.sequence : nextSequence.getAndIncrement();
+        Entity parent = realEntity.getParent();
+        IndexedEntity indexed = new IndexedEntity(sequence, proxy, realEntity.getClass(), realEntity.getApplicationId(), 
+                (parent == null) ? null : parent.getId(), ImmutableSet.copyOf(((EntityInternal)realEntity).tags().getTags()));
+        
+        if (old != null) {
+            if (old.type != indexed.type) removeKeys(byType, getTypeKeys(old.type), old.sequence);
+            if (!Objects.equal(old.applicationId, indexed.applicationId)) removeKey(byApplicationId, old.applicationId, old.sequence);
+            if (!Objects.equal(old.parentId, indexed.parentId)) removeKey(byParentId, old.parentId, old.sequence);
+            removeKeys(byTag, old.tags, old.sequence);
+        }
+        byId.put(realEntity.getId(), indexed);
+        all.put(sequence, proxy);
+        addKeys(byType, getTypeKeys(indexed.type), sequence, proxy);
+        addKey(byApplicationId, indexed.applicationId, sequence, proxy);
+        addKey(byParentId, indexed.parentId, sequence, proxy);
+        addKeys(byTag, indexed.tags, sequence, proxy);
+    }
+
+    /** updates the index for an entity already present, e.g. when its tags or parent change; no-op if not present */
+    public synchronized void update(Entity realEntity) {
+        IndexedEntity old = byId.get(realEntity.getId());
+        if (old != null) put(old.entity, realEntity);
+    }
+
+    public synchronized void remove(String id) {
+        IndexedEntity old = byId.remove(id);
+        if (old == null) return;
+        all.remove(old.sequence);
+        removeKeys(byType, getTypeKeys(old.type), old.sequence);
+        removeKey(byApplicationId, old.applicationId, old.sequence);
+        removeKey(byParentId, old.parentId, old.sequence);
+        removeKeys(byTag, old.tags, old.sequence);
+    }
+
+    public Entity get(String id) {
+        IndexedEntity result = byId.get(id);
+        return (result == null) ? null : result.entity;
+    }
+
+    public List<Entity> getAll() {
+        return ImmutableList.copyOf(all.values());
+    }
+    
+    public List<String> getAllIds() {
+        List<String> result = Lists.newArrayList();
+        for (Entity entity : all.values()) {
+            result.add(entity.getId());
+        }
+        return ImmutableList.copyOf(result);
+    }
+    
+    public List<Entity> getByApplicationId(String applicationId) {
+        return snapshot(byApplicationId, applicationId);
+    }
+    
+    /** entities whose implementation is an instance of the given class or interface */
+    public List<Entity> getByType(Class<?> type) {
+        return snapshot(byType, type);
+    }
+    
+    public List<Entity> getByTag(Object tag) {
+        return snapshot(byTag, tag);
+    }
+    
+    public List<Entity> getByParentId(String parentId) {
+        return snapshot(byParentId, parentId);
+    }
+
+    private Set<Class<?>> getTypeKeys(Class<?> clazz) {
+        Set<Class<?>> result = typeKeys.get(clazz);
+        if (result == null) {
+            ImmutableSet.Builder<Class<?>> builder = ImmutableSet.builder();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                builder.add(c);
+            }
+            builder.addAll(Reflections.getAllInterfaces(clazz));
+            result = builder.build();
+            typeKeys.put(clazz, result);
+        }
+        return result;
+    }
+    
+    private static <K> List<Entity> snapshot(Map<K, ConcurrentSkipListMap<Long, Entity>> index, K key) {
+        if (key == null) return ImmutableList.of();
+        ConcurrentSkipListMap<Long, Entity> entities = index.get(key);
+        return (entities == null) ? ImmutableList.<Entity>of() : ImmutableList.copyOf(entities.values());
+    }
+
+    private static <K> void addKeys(Map<K, ConcurrentSkipListMap<Long, Entity>> index, Collection<? extends K> keys, long sequence, Entity entity) {
+        for (K key : keys) {
+            addKey(index, key, sequence, entity);
+        }
+    }
+
+    private static <K> void addKey(Map<K, ConcurrentSkipListMap<Long, Entity>> index, K key, long sequence, Entity entity) {
+        if (key == null) return;
+        ConcurrentSkipListMap<Long, Entity> entities = index.get(key);
+        if (entities == null) {
+            entities = new ConcurrentSkipListMap<Long, Entity>();
+            index.put(key, entities);
+        }
+        entities.put(sequence, entity);
+    }
+
+    private static <K> void removeKeys(Map<K, ConcurrentSkipListMap<Long, Entity>> index, Collection<? extends K> keys, long sequence) {
+        if (keys == null) return;
+        for (K key : keys) {
+            removeKey(index, key, sequence);
+        }
+    }
+
+    private static <K> void removeKey(Map<K, ConcurrentSkipListMap<Long, Entity>> index, K key, long sequence) {
+        if (key == null) return;
+        ConcurrentSkipListMap<Long, Entity> entities = index.get(key);
+        if (entities != null) {
+            entities.remove(sequence);
+            if (entities.isEmpty()) index.remove(key);
+        }
+    }
+}
@@ -70,7 +70,6 @@ import com.google.api.client.repackaged.com.google.common.base.Preconditions;
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -99,6 +98,9 @@ public class LocalEntityManager implements EntityManagerInternal {
     /** Real managed entities */
     protected final Map<String,Entity> entitiesById = Maps.newLinkedHashMap();
     
+    /** Proxies of the managed entities, indexed for lookups without synchronizing on this */
+    private final LocalEntityIndex index = new LocalEntityIndex();
+    
     /** Management mode for each entity */
     protected final Map<String,ManagementTransitionMode> entityModesById = Collections.synchronizedMap(Maps.<String,ManagementTransitionMode>newLinkedHashMap());
 
@@ -178,37 +180,53 @@ public class LocalEntityManager implements EntityManagerInternal {
     }
 
     @Override
-    public synchronized Collection<Entity> getEntities() {
-        return ImmutableList.copyOf(entityProxiesById.values());
+    public Collection<Entity> getEntities() {
+        return index.getAll();
     }
     
     @Override
-    public synchronized Collection<String> getEntityIds() {
-        return ImmutableList.copyOf(entityProxiesById.keySet());
+    public Collection<String> getEntityIds() {
+        return index.getAllIds();
     }
     
     @Override
-    public synchronized Collection<Entity> getEntitiesInApplication(Application application) {
-        Predicate<Entity> predicate = EntityPredicates.applicationIdEqualTo(application.getId());
-        return ImmutableList.copyOf(Iterables.filter(entityProxiesById.values(), predicate));
+    public Collection<Entity> getEntitiesInApplication(Application application) {
+        return index.getByApplicationId(application.getId());
     }
 
     @Override
-    public synchronized Collection<Entity> findEntities(Predicate<? super Entity> filter) {
-        return ImmutableList.copyOf(Iterables.filter(entityProxiesById.values(), filter));
+    public Collection<Entity> findEntities(Predicate<? super Entity> filter) {
+        return ImmutableList.copyOf(Iterables.filter(index.getAll(), filter));
     }
     
     @Override
-    public synchronized Collection<Entity> findEntitiesInApplication(Application application, Predicate<? super Entity> filter) {
-        Predicate<Entity> predicate = Predicates.and(EntityPredicates.applicationIdEqualTo(application.getId()), filter);
-        return ImmutableList.copyOf(Iterables.filter(entityProxiesById.values(), predicate));
+    public Collection<Entity> findEntitiesInApplication(Application application, Predicate<? super Entity> filter) {
+        return ImmutableList.copyOf(Iterables.filter(index.getByApplicationId(application.getId()), filter));
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesOfType(Class<?> type) {
+        return index.getByType(type);
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithTag(Object tag) {
+        return index.getByTag(tag);
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithParent(String parentId) {
+        return index.getByParentId(parentId);
     }
 
     @Override
-    public synchronized Iterable<Entity> getAllEntitiesInApplication(Application application) {
+    public Iterable<Entity> getAllEntitiesInApplication(Application application) {
         Predicate<Entity> predicate = EntityPredicates.applicationIdEqualTo(application.getId());
-        Iterable<Entity> allentities = Iterables.concat(preRegisteredEntitiesById.values(), preManagedEntitiesById.values(), entityProxiesById.values());
-        Iterable<Entity> result = Iterables.filter(allentities, predicate);
+        List<Entity> unmanagedEntities;
+        synchronized (this) {
+            unmanagedEntities = ImmutableList.copyOf(Iterables.concat(preRegisteredEntitiesById.values(), preManagedEntitiesById.values()));
+        }
+        Iterable<Entity> result = Iterables.concat(Iterables.filter(unmanagedEntities, predicate), index.getByApplicationId(application.getId()));
         return ImmutableSet.copyOf(Iterables.transform(result, new Function<Entity, Entity>() {
             @Override public Entity apply(Entity input) {
                 return (input == null) ? null : input instanceof Proxy ? input : ((AbstractEntity)input).getProxyIfAvailable();
@@ -216,8 +234,8 @@ public class LocalEntityManager implements EntityManagerInternal {
     }
 
     @Override
-    public synchronized Entity getEntity(String id) {
-        return entityProxiesById.get(id);
+    public Entity getEntity(String id) {
+        return index.get(id);
     }
     
     synchronized Collection<Application> getApplications() {
@@ -413,6 +431,19 @@ public class LocalEntityManager implements EntityManagerInternal {
         entityProxiesById.remove(e.getId());
         entitiesById.remove(e.getId());
         entityModesById.remove(e.getId());
+        index.remove(e.getId());
+    }
+    
+    /** updates the index for the given managed entity's tags */
+    void onTagsChanged(Entity entity) {
+        index.update(Entities.deproxy(entity));
+    }
+
+    /** updates the index for the given managed entity's current and previous children */
+    void onChildrenChanged(Entity entity) {
+        for (Entity child : Iterables.concat(index.getByParentId(entity.getId()), entity.getChildren())) {
+            index.update(Entities.deproxy(child));
+        }
     }
     
     private void stopTasks(Entity entity) {
@@ -596,6 +627,7 @@ public class LocalEntityManager implements EntityManagerInternal {
         entityProxiesById.put(e.getId(), proxyE);
         entityTypes.put(e.getId(), realE.getClass().getName());
         entitiesById.put(e.getId(), realE);
+        index.put(proxyE, realE);
 
         preManagedEntitiesById.remove(e.getId());
         if ((e instanceof Application) && (e.getParent()==null)) {
@@ -662,6 +694,7 @@ public class LocalEntityManager implements EntityManagerInternal {
             entityProxiesById.remove(e.getId());
             entityModesById.remove(e.getId());
             Object old = entitiesById.remove(e.getId());
+            index.remove(e.getId());
 
             entityTypes.remove(e.getId());
             if (old==null) {
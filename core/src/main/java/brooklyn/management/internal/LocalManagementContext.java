@@ -41,11 +41,14 @@ import brooklyn.entity.Effector;
 import brooklyn.entity.Entity;
 import brooklyn.entity.drivers.downloads.BasicDownloadsManager;
 import brooklyn.entity.effector.Effectors;
+import brooklyn.event.feed.PollScheduler;
+import brooklyn.event.feed.http.SharedHttpConnectionPool;
 import brooklyn.entity.proxying.InternalEntityFactory;
 import brooklyn.entity.proxying.InternalLocationFactory;
 import brooklyn.entity.proxying.InternalPolicyFactory;
 import brooklyn.internal.storage.DataGridFactory;
 import brooklyn.location.Location;
+import brooklyn.location.basic.SshConnectionManager;
 import brooklyn.management.AccessController;
 import brooklyn.management.ExecutionContext;
 import brooklyn.management.ExecutionManager;
@@ -304,7 +307,7 @@ public class LocalManagementContext extends AbstractManagementContext {
         if (!isRunning()) throw new IllegalStateException("Management context no longer running");
 
         if (execution == null) {
-            execution = new BasicExecutionManager(getManagementNodeId());
+            execution = new BasicExecutionManager(getManagementNodeId(), configMap);
             gc = new BrooklynGarbageCollector(configMap, execution, getStorage());
         }
         return execution;
@@ -319,6 +322,9 @@ public class LocalManagementContext extends AbstractManagementContext {
             osgiManager = null;
         }
         if (usageManager != null) usageManager.terminate();
+        PollScheduler.shutdownForManagementContext(this);
+        SharedHttpConnectionPool.closeForManagementContext(this);
+        SshConnectionManager.closeForManagementContext(this);
         if (execution != null) execution.shutdownNow();
         if (gc != null) gc.shutdownNow();
     }
@@ -27,10 +27,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -41,6 +44,7 @@ import brooklyn.entity.basic.Entities;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.SubscriptionHandle;
 import brooklyn.management.SubscriptionManager;
@@ -51,10 +55,24 @@ import brooklyn.util.text.Identifiers;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimaps;
 
 /**
  * A {@link SubscriptionManager} that stores subscription details locally.
+ * <p>
+ * The per-token index is copy-on-write: {@link #subscribe(Map, Subscription)} and {@link #unsubscribe(SubscriptionHandle)}
+ * replace the (immutable) sets under the manager's lock, while {@link #publish(SensorEvent)} reads without locking.
+ * The subscriptions matching a given producer and sensor (including the wildcard buckets) are resolved once and
+ * cached until the index next changes, so publishing when nothing has changed does no locking and no allocation
+ * in the lookup.
+ * <p>
+ * Unless {@link BrooklynFeatureEnablement#FEATURE_BATCHED_SUBSCRIPTION_DELIVERY} is disabled, events are queued 
+ * in a {@link SubscriberMailbox} per subscriber (strictly, per execution manager tag) and delivered in order by 
+ * a single task which drains the mailbox, so the cost of creating and tracking a task is paid once per batch
+ * rather than once per event.
  */
 public class LocalSubscriptionManager extends AbstractSubscriptionManager {
     
@@ -71,11 +89,41 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
     protected final ConcurrentMap<String, Subscription> allSubscriptions = new ConcurrentHashMap<String, Subscription>();
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<Object, Set<Subscription>> subscriptionsBySubscriber = new ConcurrentHashMap<Object, Set<Subscription>>();
+    /** values are immutable sets, replaced (copy-on-write) while holding the lock on this manager */
     @SuppressWarnings("rawtypes")
     protected final ConcurrentMap<Object, Set<Subscription>> subscriptionsByToken = new ConcurrentHashMap<Object, Set<Subscription>>();
     
+    /** incremented (while holding the lock on this manager) every time {@link #subscriptionsByToken} changes */
+    private volatile long indexGeneration = 0;
+    
+    /** 
+     * all subscriptions matching a producer and sensor name, i.e. including wildcard buckets; 
+     * entries are only valid if their generation matches {@link #indexGeneration}.
+     * weak (identity) keys so we don't keep hold of entities which are no longer publishing.
+     */
+    private final ConcurrentMap<Entity, ConcurrentMap<String, ResolvedSubscriptions>> resolvedSubscriptions = new MapMaker().weakKeys().makeMap();
+    
+    @SuppressWarnings("rawtypes")
+    private static class ResolvedSubscriptions {
+        final long generation;
+        final List<Subscription> subscriptions;
+        ResolvedSubscriptions(long generation, List<Subscription> subscriptions) {
+            this.generation = generation;
+            this.subscriptions = subscriptions;
+        }
+    }
+    
+    /** maximum number of events delivered by one task, before it resubmits so as not to monopolise a thread */
+    private static final int MAX_EVENTS_PER_DELIVERY_BATCH = 1000;
+    
+    private final boolean batchedDelivery;
+    
+    /** mailboxes by subscriber execution manager tag; access only while holding the lock on this manager */
+    private final Map<Object, SubscriberMailbox> mailboxesByTag = new LinkedHashMap<Object, SubscriberMailbox>();
+    
     public LocalSubscriptionManager(ExecutionManager m) {
         this.em = m;
+        this.batchedDelivery = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_BATCHED_SUBSCRIPTION_DELIVERY);
     }
         
     public long getNumSubscriptions() {
@@ -109,8 +157,18 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         s.flags = flags;
         
         if (LOG.isDebugEnabled()) LOG.debug("Creating subscription {} for {} on {} {} in {}", new Object[] {s.id, s.subscriber, producer, sensor, this});
+        // set up the mailbox before the subscription is visible to publishers
+        if (batchedDelivery && s.subscriberExecutionManagerTag!=null) {
+            SubscriberMailbox mailbox = mailboxesByTag.get(s.subscriberExecutionManagerTag);
+            if (mailbox==null) {
+                mailbox = new SubscriberMailbox(s.subscriberExecutionManagerTag);
+                mailboxesByTag.put(s.subscriberExecutionManagerTag, mailbox);
+            }
+            mailbox.subscriptionCount++;
+            s.mailbox = mailbox;
+        }
         allSubscriptions.put(s.id, s);
-        addToMapOfSets(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
+        addToIndex(makeEntitySensorToken(s.producer, s.sensor), s);
         if (s.subscriber!=null) {
             addToMapOfSets(subscriptionsBySubscriber, s.subscriber, s);
         }
@@ -125,13 +183,42 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         return (Set<SubscriptionHandle>) ((Set<?>) elvis(subscriptionsBySubscriber.get(subscriber), Collections.emptySet()));
     }
 
-    public synchronized Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
-        Set<SubscriptionHandle> subscriptions = new LinkedHashSet<SubscriptionHandle>();
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, sensor)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, null)), Collections.emptySet()));
-        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, null)), Collections.emptySet()));
-        return subscriptions;
+    public Set<SubscriptionHandle> getSubscriptionsForEntitySensor(Entity source, Sensor<?> sensor) {
+        return new LinkedHashSet<SubscriptionHandle>(getMatchingSubscriptions(source, sensor));
+    }
+
+    /**
+     * Returns the subscriptions which match the given source and sensor, including wildcard subscriptions,
+     * without taking any locks; the result is cached until the subscriptions next change.
+     */
+    @SuppressWarnings("rawtypes")
+    protected List<Subscription> getMatchingSubscriptions(Entity source, Sensor<?> sensor) {
+        // read the generation before the index, so that if the index changes while we compute, the result is not reused
+        long generation = indexGeneration;
+        if (source==null || sensor==null) return resolveSubscriptions(source, sensor);
+        
+        ConcurrentMap<String, ResolvedSubscriptions> bySensor = resolvedSubscriptions.get(source);
+        if (bySensor==null) {
+            bySensor = new ConcurrentHashMap<String, ResolvedSubscriptions>();
+            ConcurrentMap<String, ResolvedSubscriptions> old = resolvedSubscriptions.putIfAbsent(source, bySensor);
+            if (old!=null) bySensor = old;
+        }
+        ResolvedSubscriptions resolved = bySensor.get(sensor.getName());
+        if (resolved==null || resolved.generation!=generation) {
+            resolved = new ResolvedSubscriptions(generation, resolveSubscriptions(source, sensor));
+            bySensor.put(sensor.getName(), resolved);
+        }
+        return resolved.subscriptions;
+    }
+    
+    @SuppressWarnings("rawtypes")
+    private List<Subscription> resolveSubscriptions(Entity source, Sensor<?> sensor) {
+        Set<Subscription> subscriptions = new LinkedHashSet<Subscription>();
+        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, sensor)), Collections.<Subscription>emptySet()));
+        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, sensor)), Collections.<Subscription>emptySet()));
+        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(source, null)), Collections.<Subscription>emptySet()));
+        subscriptions.addAll(elvis(subscriptionsByToken.get(makeEntitySensorToken(null, null)), Collections.<Subscription>emptySet()));
+        return ImmutableList.copyOf(subscriptions);
     }
 
     /**
@@ -144,12 +231,18 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         if (!(sh instanceof Subscription)) throw new IllegalArgumentException("Only subscription handles of type Subscription supported: sh="+sh+"; type="+(sh != null ? sh.getClass().getCanonicalName() : null));
         Subscription s = (Subscription) sh;
         boolean result = allSubscriptions.remove(s.id) != null;
-        boolean b2 = removeFromMapOfCollections(subscriptionsByToken, makeEntitySensorToken(s.producer, s.sensor), s);
+        boolean b2 = removeFromIndex(makeEntitySensorToken(s.producer, s.sensor), s);
         assert result==b2;
         if (s.subscriber!=null) {
             boolean b3 = removeFromMapOfCollections(subscriptionsBySubscriber, s.subscriber, s);
             assert b3 == b2;
         }
+        if (result && s.mailbox!=null) {
+            // events already queued are still delivered, as the mailbox is referenced by the delivery task
+            if (--s.mailbox.subscriptionCount <= 0) {
+                mailboxesByTag.remove(s.subscriberExecutionManagerTag);
+            }
+        }
 
         // FIXME ALEX - this seems wrong
         ((BasicExecutionManager) em).setTaskSchedulerForTag(s.subscriberExecutionManagerTag, SingleThreadedScheduler.class);
@@ -173,49 +266,170 @@ public class LocalSubscriptionManager extends AbstractSubscriptionManager {
         if (LOG.isTraceEnabled()) LOG.trace("{} got event {}", this, event);
         totalEventsPublishedCount.incrementAndGet();
         
-        Set<Subscription> subs = (Set<Subscription>) ((Set<?>) getSubscriptionsForEntitySensor(event.getSource(), event.getSensor()));
+        List<Subscription> subs = getMatchingSubscriptions(event.getSource(), event.getSensor());
         if (groovyTruth(subs)) {
             if (LOG.isTraceEnabled()) LOG.trace("sending {}, {} to {}", new Object[] {event.getSensor().getName(), event, join(subs, ",")});
             for (Subscription s : subs) {
                 if (s.eventFilter!=null && !s.eventFilter.apply(event))
                     continue;
-                final Subscription sAtClosureCreation = s;
-                
-//                Set<Object> tags = MutableSet.of();
-//                if (s.subscriberExecutionManagerTag!=null) tags.add(s.subscriberExecutionManagerTag);
-//                if (event.getSource()!=null) tags.add(BrooklynTaskTags.tagForContextEntity(event.getSource()));
-//                Map<String, Object> tagsMap = mapOf("tags", (Object)tags);
-                // use code above, instead of line below, if we want subscription deliveries associated with the entity;
-                // that will cause them to be cancelled when the entity is unmanaged
-                // (not sure that is useful, and likely NOT worth the expense, but it might be...) -Alex Oct 2014
-                Map<String, Object> tagsMap = mapOf("tag", s.subscriberExecutionManagerTag);
-                
-                em.submit(tagsMap, new Runnable() {
-                    @Override
-                    public String toString() {
-                        return "LSM.publish("+event+")";
-                    }
-                    public void run() {
-                        try {
-                            sAtClosureCreation.listener.onEvent(event);
-                        } catch (Throwable t) {
-                            if (event!=null && event.getSource()!=null && Entities.isNoLongerManaged(event.getSource())) {
-                                LOG.debug("Error in "+this+", after entity unmanaged: "+t, t);
-                            } else {
-                                LOG.warn("Error in "+this+": "+t, t);
-                            }
-                        }
-                    }});
+                if (s.mailbox!=null) {
+                    s.mailbox.enqueue(s, event);
+                } else {
+                    submitDelivery(s, event);
+                }
                 totalEventsDeliveredCount.incrementAndGet();
             }
         }
     }
     
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> void submitDelivery(final Subscription s, final SensorEvent<T> event) {
+//        Set<Object> tags = MutableSet.of();
+//        if (s.subscriberExecutionManagerTag!=null) tags.add(s.subscriberExecutionManagerTag);
+//        if (event.getSource()!=null) tags.add(BrooklynTaskTags.tagForContextEntity(event.getSource()));
+//        Map<String, Object> tagsMap = mapOf("tags", (Object)tags);
+        // use code above, instead of line below, if we want subscription deliveries associated with the entity;
+        // that will cause them to be cancelled when the entity is unmanaged
+        // (not sure that is useful, and likely NOT worth the expense, but it might be...) -Alex Oct 2014
+        Map<String, Object> tagsMap = mapOf("tag", s.subscriberExecutionManagerTag);
+        
+        em.submit(tagsMap, new Runnable() {
+            @Override
+            public String toString() {
+                return "LSM.publish("+event+")";
+            }
+            public void run() {
+                deliver(s, event);
+            }});
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void deliver(Subscription s, SensorEvent event) {
+        try {
+            s.listener.onEvent(event);
+        } catch (Throwable t) {
+            if (event!=null && event.getSource()!=null && Entities.isNoLongerManaged(event.getSource())) {
+                LOG.debug("Error in "+this+", after entity unmanaged: "+t, t);
+            } else {
+                LOG.warn("Error in "+this+": "+t, t);
+            }
+        }
+    }
+    
+    /**
+     * Queue of events awaiting delivery to the subscriptions sharing an execution manager tag (normally those of one subscriber).
+     * At most one task is draining the queue at any time, so events are delivered in the order they were published.
+     */
+    class SubscriberMailbox {
+        private final Object tag;
+        @SuppressWarnings("rawtypes")
+        private final ConcurrentLinkedQueue<PendingDelivery> pending = new ConcurrentLinkedQueue<PendingDelivery>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        /** number of subscriptions using this mailbox; access only while holding the lock on the manager */
+        int subscriptionCount = 0;
+        
+        SubscriberMailbox(Object tag) {
+            this.tag = tag;
+        }
+        
+        @SuppressWarnings("rawtypes")
+        void enqueue(Subscription s, SensorEvent<?> event) {
+            pending.add(new PendingDelivery(s, event));
+            if (draining.compareAndSet(false, true)) {
+                submitDrain();
+            }
+        }
+        
+        private void submitDrain() {
+            em.submit(mapOf("tag", tag), new Runnable() {
+                @Override
+                public String toString() {
+                    return "LSM.publish(batch)";
+                }
+                public void run() {
+                    drain();
+                }});
+        }
+        
+        @SuppressWarnings("rawtypes")
+        private void drain() {
+            int count = 0;
+            while (true) {
+                PendingDelivery next = pending.poll();
+                if (next==null) {
+                    draining.set(false);
+                    // an event may have been enqueued after the poll but before draining was cleared; if so, carry on
+                    if (pending.isEmpty() || !draining.compareAndSet(false, true)) return;
+                } else {
+                    deliver(next.subscription, next.event);
+                    if (++count >= MAX_EVENTS_PER_DELIVERY_BATCH && !pending.isEmpty()) {
+                        // still hold the draining flag, so ordering is preserved by the resubmitted task
+                        submitDrain();
+                        return;
+                    }
+                }
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return "SubscriberMailbox["+tag+"]";
+        }
+    }
+    
+    @SuppressWarnings("rawtypes")
+    private static class PendingDelivery {
+        final Subscription subscription;
+        final SensorEvent event;
+        PendingDelivery(Subscription subscription, SensorEvent event) {
+            this.subscription = subscription;
+            this.event = event;
+        }
+    }
+    
     @Override
     public String toString() {
         return tostring;
     }
     
+    /** 
+     * Adds the subscription to the token index, replacing the set for that token with a new immutable copy.
+     * Caller must hold the lock on this manager.
+     */
+    @SuppressWarnings("rawtypes")
+    private void addToIndex(Object token, Subscription s) {
+        Set<Subscription> old = subscriptionsByToken.get(token);
+        subscriptionsByToken.put(token, old==null ? ImmutableSet.of(s) : ImmutableSet.<Subscription>builder().addAll(old).add(s).build());
+        indexChanged();
+    }
+    
+    /** 
+     * Removes the subscription from the token index, replacing the set for that token with a new immutable copy
+     * (or removing the token if no subscriptions remain). Caller must hold the lock on this manager.
+     */
+    @SuppressWarnings("rawtypes")
+    private boolean removeFromIndex(Object token, Subscription s) {
+        Set<Subscription> old = subscriptionsByToken.get(token);
+        if (old==null || !old.contains(s)) return false;
+        if (old.size()==1) {
+            subscriptionsByToken.remove(token);
+        } else {
+            ImmutableSet.Builder<Subscription> replacement = ImmutableSet.builder();
+            for (Subscription other : old) {
+                if (!other.equals(s)) replacement.add(other);
+            }
+            subscriptionsByToken.put(token, replacement.build());
+        }
+        indexChanged();
+        return true;
+    }
+    
+    private void indexChanged() {
+        indexGeneration++;
+        // entries would be ignored anyway because of the generation, but clear to release subscriptions promptly
+        resolvedSubscriptions.clear();
+    }
+    
     /**
      * Copied from LanguageUtils.groovy, to remove dependency.
      * 
@@ -185,6 +185,33 @@ public class NonDeploymentEntityManager implements EntityManagerInternal {
         return (initialManagementContext != null && !(initialManagementContext instanceof NonDeploymentManagementContext));
     }
 
+    @Override
+    public Collection<Entity> getEntitiesOfType(Class<?> type) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesOfType(type);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithTag(Object tag) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesWithTag(tag);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesWithParent(String parentId) {
+        if (isInitialManagementContextReal()) {
+            return ((EntityManagerInternal)initialManagementContext.getEntityManager()).getEntitiesWithParent(parentId);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
     @Override
     public Iterable<Entity> getAllEntitiesInApplication(Application application) {
         if (isInitialManagementContextReal()) {
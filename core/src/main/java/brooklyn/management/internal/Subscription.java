@@ -41,6 +41,9 @@ class Subscription<T> implements SubscriptionHandle {
     public final SensorEventListener<? super T> listener;
     public Map<String,Object> flags;
     public Predicate<SensorEvent<T>> eventFilter;
+    /** where events are queued for batched delivery, shared by all subscriptions with the same execution manager tag; 
+     * null if events should be submitted individually */
+    public LocalSubscriptionManager.SubscriberMailbox mailbox;
 
     public Subscription(Entity producer, Sensor<T> sensor, SensorEventListener<? super T> listener) {
         this.producer = producer;
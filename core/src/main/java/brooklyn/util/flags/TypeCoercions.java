@@ -32,14 +32,16 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URL;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,13 +71,11 @@ import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import com.google.common.net.HostAndPort;
 import com.google.common.primitives.Primitives;
 import com.google.common.reflect.TypeToken;
@@ -87,14 +87,22 @@ public class TypeCoercions {
     
     private TypeCoercions() {}
 
-    /** Store the coercion {@link Function functions} in a {@link Table table}. */
-    @GuardedBy("TypeCoercions.class")
-    private static Table<Class, Class, Function> registry = HashBasedTable.create();
+    /**
+     * The coercion {@link Function functions}, as an immutable map of target type to (source type to function),
+     * replaced in its entirety when an adapter is registered so that it can be read without locking.
+     */
+    private static volatile Map<Class, Map<Class, Function>> registry = ImmutableMap.of();
+
+    /** Upper bound on the number of cached plans, in case of many (e.g. dynamically generated) classes. */
+    private static final int MAX_CACHED_PLANS = 10000;
+    
+    /** The strategy found for coercing between each pair of types, including where there is none. */
+    private static final ConcurrentMap<List<Class>, CoercionPlan> plans = new ConcurrentHashMap<List<Class>, CoercionPlan>();
 
     /**
      * Attempts to coerce {@code value} to {@code targetType}.
      * <p>
-     * Maintains a registry of adapter functions for type pairs in a {@link Table} which
+     * Maintains a registry of adapter functions for type pairs which
      * is searched after checking various strategies, including the following:
      * <ul>
      * <li>{@code value.asTargetType()}
@@ -178,18 +186,102 @@ public class TypeCoercions {
             return (T) value.toString();
         }
 
+        // the remaining strategies depend only on the types, so are looked up once for each pair of types
+        CoercionPlan plan = getPlan(value.getClass(), targetType);
+        
+        if (plan.asMethod!=null) {
+            try {
+                return (T) plan.asMethod.invoke(value);
+            } catch (Exception e) {
+                throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+plan.asMethod.getName()+" adapting failed, "+e);
+            }
+        }
+        
+        if (plan.fromMethod!=null) {
+            try {
+                return (T) plan.fromMethod.invoke(null, value);
+            } catch (Exception e) {
+                throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+plan.fromMethod.getName()+" adapting failed, "+e);
+            }
+        }
+        
+        if (plan.boxedTargetType!=null) {
+            try {
+                return (T) coerce(value, plan.boxedTargetType);
+            } catch (Exception e) {
+                throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): unboxing failed, "+e);
+            }
+        }
+
+        //for enums call valueOf with the string representation of the value
+        if (targetType.isEnum()) {
+            T result = (T) stringToEnum((Class<Enum>) targetType, null).apply(String.valueOf(value));
+            if (result != null) return result;
+        }
+
+        //now use the adapter from the registry
+        if (plan.adapter!=null) {
+            T result = (T) plan.adapter.apply(value);
+            
+            // Check if need to unwrap again (e.g. if want List<Integer> and are given a String "1,2,3"
+            // then we'll have so far converted to List.of("1", "2", "3"). Call recursively.
+            // First check that value has changed, to avoid stack overflow!
+            if (!Objects.equal(value, result) && targetTypeToken.getType() instanceof ParameterizedType) {
+                // Could duplicate check for `result instanceof Collection` etc; but recursive call
+                // will be fine as if that doesn't match we'll safely reach `targetType.isInstance(value)`
+                // and just return the result.
+                return coerce(result, targetTypeToken);
+            }
+            return result;
+        }
+
+        //not found
+        throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): no adapter known");
+    }
+
+    /**
+     * How to coerce from a source type to a target type, using (in order of preference) {@code value.asTargetType()},
+     * {@code TargetType.fromSourceType(value)}, coercion to the boxed target type, or an adapter from the registry.
+     * If none are set, only the value-dependent strategies (e.g. for enums) remain. 
+     */
+    private static class CoercionPlan {
+        /** the registry used to find the adapter, so the plan is not used after other adapters are registered */
+        final Map<Class, Map<Class, Function>> registry;
+        Method asMethod;
+        Method fromMethod;
+        Class boxedTargetType;
+        Function adapter;
+        
+        CoercionPlan(Map<Class, Map<Class, Function>> registry) {
+            this.registry = registry;
+        }
+    }
+    
+    private static CoercionPlan getPlan(Class sourceType, Class targetType) {
+        Map<Class, Map<Class, Function>> currentRegistry = registry;
+        List<Class> key = ImmutableList.of(sourceType, targetType);
+        CoercionPlan result = plans.get(key);
+        if (result==null || result.registry!=currentRegistry) {
+            // computed outside of any lock; concurrent callers will compute the same plan
+            result = newPlan(sourceType, targetType, currentRegistry);
+            if (plans.size() >= MAX_CACHED_PLANS) plans.clear();
+            plans.put(key, result);
+        }
+        return result;
+    }
+    
+    private static CoercionPlan newPlan(Class sourceType, Class targetType, Map<Class, Map<Class, Function>> currentRegistry) {
+        CoercionPlan result = new CoercionPlan(currentRegistry);
+        
         //look for value.asType where Type is castable to targetType
         String targetTypeSimpleName = getVerySimpleName(targetType);
         if (targetTypeSimpleName!=null && targetTypeSimpleName.length()>0) {
-            for (Method m: value.getClass().getMethods()) {
+            for (Method m: sourceType.getMethods()) {
                 if (m.getName().startsWith("as") && m.getParameterTypes().length==0 &&
                         targetType.isAssignableFrom(m.getReturnType()) ) {
                     if (m.getName().equals("as"+getVerySimpleName(m.getReturnType()))) {
-                        try {
-                            return (T) m.invoke(value);
-                        } catch (Exception e) {
-                            throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+m.getName()+" adapting failed, "+e);
-                        }
+                        result.asMethod = m;
+                        return result;
                     }
                 }
             }
@@ -199,13 +291,10 @@ public class TypeCoercions {
         for (Method m: targetType.getMethods()) {
             if (((m.getModifiers()&Modifier.STATIC)==Modifier.STATIC) && 
                     m.getName().startsWith("from") && m.getParameterTypes().length==1 &&
-                    m.getParameterTypes()[0].isInstance(value)) {
+                    m.getParameterTypes()[0].isAssignableFrom(sourceType)) {
                 if (m.getName().equals("from"+getVerySimpleName(m.getParameterTypes()[0]))) {
-                    try {
-                        return (T) m.invoke(null, value);
-                    } catch (Exception e) {
-                        throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): "+m.getName()+" adapting failed, "+e);
-                    }
+                    result.fromMethod = m;
+                    return result;
                 }
             }
         }
@@ -213,49 +302,24 @@ public class TypeCoercions {
        //ENHANCEMENT could look in type hierarchy of both types for a conversion method...
         
         //primitives get run through again boxed up
+        //(the source type is never primitive, as it is the type of an object)
         Class boxedT = UNBOXED_TO_BOXED_TYPES.get(targetType);
-        Class boxedVT = UNBOXED_TO_BOXED_TYPES.get(value.getClass());
-        if (boxedT!=null || boxedVT!=null) {
-            try {
-                if (boxedT==null) boxedT=targetType;
-                Object boxedV;
-                if (boxedVT==null) { boxedV = value; }
-                else { boxedV = boxedVT.getConstructor(value.getClass()).newInstance(value); }
-                return (T) coerce(boxedV, boxedT);
-            } catch (Exception e) {
-                throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): unboxing failed, "+e);
-            }
-        }
-
-        //for enums call valueOf with the string representation of the value
-        if (targetType.isEnum()) {
-            T result = (T) stringToEnum((Class<Enum>) targetType, null).apply(String.valueOf(value));
-            if (result != null) return result;
+        if (boxedT!=null) {
+            result.boxedTargetType = boxedT;
+            return result;
         }
-
-        //now look in registry
-        synchronized (TypeCoercions.class) {
-            Map<Class, Function> adapters = registry.row(targetType);
+        
+        //find the adapter in the registry (enums are tried first, when coercing, as that depends on the value)
+        Map<Class, Function> adapters = currentRegistry.get(targetType);
+        if (adapters!=null) {
             for (Map.Entry<Class, Function> entry : adapters.entrySet()) {
-                if (entry.getKey().isInstance(value)) {
-                    T result = (T) entry.getValue().apply(value);
-                    
-                    // Check if need to unwrap again (e.g. if want List<Integer> and are given a String "1,2,3"
-                    // then we'll have so far converted to List.of("1", "2", "3"). Call recursively.
-                    // First check that value has changed, to avoid stack overflow!
-                    if (!Objects.equal(value, result) && targetTypeToken.getType() instanceof ParameterizedType) {
-                        // Could duplicate check for `result instanceof Collection` etc; but recursive call
-                        // will be fine as if that doesn't match we'll safely reach `targetType.isInstance(value)`
-                        // and just return the result.
-                        return coerce(result, targetTypeToken);
-                    }
-                    return result;
+                if (entry.getKey().isAssignableFrom(sourceType)) {
+                    result.adapter = entry.getValue();
+                    break;
                 }
             }
         }
-
-        //not found
-        throw new ClassCoercionException("Cannot coerce type "+value.getClass()+" to "+targetType.getCanonicalName()+" ("+value+"): no adapter known");
+        return result;
     }
 
     /**
@@ -275,13 +339,15 @@ public class TypeCoercions {
             @Override
             public E apply(String input) {
                 Preconditions.checkNotNull(input, "input");
-                List<String> options = ImmutableList.of(
-                        input,
-                        CaseFormat.LOWER_HYPHEN.to(CaseFormat.UPPER_UNDERSCORE, input),
-                        CaseFormat.LOWER_UNDERSCORE.to(CaseFormat.UPPER_UNDERSCORE, input),
-                        CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, input),
-                        CaseFormat.UPPER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, input));
-                for (String value : options) {
+                // formats converted only as needed, as this is done on many coercions
+                List<CaseFormat> formats = ImmutableList.of(
+                        CaseFormat.UPPER_UNDERSCORE,
+                        CaseFormat.LOWER_HYPHEN,
+                        CaseFormat.LOWER_UNDERSCORE,
+                        CaseFormat.LOWER_CAMEL,
+                        CaseFormat.UPPER_CAMEL);
+                for (CaseFormat format : formats) {
+                    String value = (format == CaseFormat.UPPER_UNDERSCORE) ? input : format.to(CaseFormat.UPPER_UNDERSCORE, input);
                     try {
                         return Enum.valueOf(type, value);
                     } catch (IllegalArgumentException iae) {
@@ -474,7 +540,13 @@ public class TypeCoercions {
     }
 
     public synchronized static <A,B> void registerAdapter(Class<A> sourceType, Class<B> targetType, Function<? super A,B> fn) {
-        registry.put(targetType, sourceType, fn);
+        // copy-on-write, as adapters are rarely registered but the registry is read on many coercions
+        Map<Class, Map<Class, Function>> newRegistry = Maps.newLinkedHashMap(registry);
+        Map<Class, Function> adapters = Maps.newLinkedHashMap();
+        if (newRegistry.containsKey(targetType)) adapters.putAll(newRegistry.get(targetType));
+        adapters.put(sourceType, fn);
+        newRegistry.put(targetType, Collections.unmodifiableMap(adapters));
+        registry = Collections.unmodifiableMap(newRegistry);
     }
 
     static {
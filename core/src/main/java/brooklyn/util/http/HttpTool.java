@@ -178,7 +178,8 @@ public class HttpTool {
             if (reuseStrategy != null) {
                 httpClient.setReuseStrategy(reuseStrategy);
             }
-            if (https == Boolean.TRUE || (uri!=null && uri.toString().startsWith("https:"))) {
+            // https is set from the uri, unless explicitly set (e.g. false where the connection manager already has an https scheme)
+            if (https == Boolean.TRUE || (https == null && uri!=null && uri.toString().startsWith("https:"))) {
                 try {
                     if (port == null) {
                         port = (uri != null && uri.getPort() >= 0) ? uri.getPort() : 443;
@@ -36,6 +36,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
@@ -48,6 +51,9 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.entity.basic.ConfigKeys;
 import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.HasTaskChildren;
@@ -55,6 +61,7 @@ import brooklyn.management.Task;
 import brooklyn.management.TaskAdaptable;
 import brooklyn.util.collections.MutableList;
 import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.javalang.Threads;
 import brooklyn.util.text.Identifiers;
 
 import com.google.common.annotations.Beta;
@@ -70,10 +77,55 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 /**
  * Manages the execution of atomic tasks and scheduled (recurring) tasks,
  * including setting tags and invoking callbacks.
+ * <p>
+ * By default tasks run in a cached thread pool, which creates a new thread whenever all existing threads are busy.
+ * With {@link #EXECUTION_MODE} set to {@link ExecutionMode#BOUNDED} (e.g. in brooklyn.properties), 
+ * non-blocking tasks instead run in a fixed-size pool with a bounded queue, and tasks which may block
+ * (see {@link #isBlocking(Task)}) run in a separate, larger pool.
+ * With {@link ExecutionMode#VIRTUAL}, each task runs in its own virtual thread if the JVM supports them
+ * (falling back to {@link ExecutionMode#CACHED} if not).
+ * <p>
+ * Subclasses can supply their own threads or executors by overriding {@link #newThreadFactory(String)}, 
+ * {@link #newVirtualThreadFactory(String)} and {@link #newTaskExecutor(String, ExecutionMode, StringConfigMap)}.
  */
 public class BasicExecutionManager implements ExecutionManager {
     private static final Logger log = LoggerFactory.getLogger(BasicExecutionManager.class);
 
+    public enum ExecutionMode {
+        /** all tasks run in an unbounded cached thread pool (the default) */
+        CACHED,
+        /** non-blocking tasks run in a bounded pool, where submitters wait if the queue is full;
+         * blocking tasks run in a separate fixed-size pool, see {@link BasicExecutionManager#BOUNDED_MAX_BLOCKING_THREADS}.
+         * <p>
+         * The blocking pool does not grow beyond that size: if every one of its threads is waiting on a task 
+         * which is itself queued behind them, those tasks deadlock. Only use this mode where the number of 
+         * concurrently blocked tasks is known to stay below that limit. */
+        BOUNDED,
+        /** each task runs in a new virtual thread, if supported by the JVM (Java 21+), so tasks blocked on I/O 
+         * or sleeping do not hold a platform thread; falls back to CACHED if not supported */
+        VIRTUAL
+    }
+    
+    public static final ConfigKey<ExecutionMode> EXECUTION_MODE = ConfigKeys.newConfigKey(ExecutionMode.class,
+            "brooklyn.executionManager.mode", "How task threads are pooled: CACHED (unbounded), BOUNDED, or VIRTUAL (if supported by the JVM)", ExecutionMode.CACHED);
+    
+    public static final ConfigKey<Integer> BOUNDED_MAX_THREADS = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.executionManager.bounded.maxThreads", 
+            "In BOUNDED mode, the number of threads for running non-blocking tasks", 
+            Math.max(8, 4*Runtime.getRuntime().availableProcessors()));
+    
+    public static final ConfigKey<Integer> BOUNDED_QUEUE_CAPACITY = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.executionManager.bounded.queueCapacity", 
+            "In BOUNDED mode, the number of non-blocking tasks which can be queued before submitters must wait", 
+            10000);
+    
+    public static final ConfigKey<Integer> BOUNDED_MAX_BLOCKING_THREADS = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.executionManager.bounded.maxBlockingThreads", 
+            "In BOUNDED mode, the maximum number of threads for running blocking tasks (e.g. ssh, or those waiting on other tasks); "
+            + "further blocking tasks are queued, and if all these threads wait on queued tasks they deadlock, "
+            + "so this must be larger than the number of tasks which may be blocked at once", 
+            1000);
+
     private static final boolean RENAME_THREADS = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_RENAME_THREADS);
     
     private static class PerThreadCurrentTaskHolder {
@@ -88,10 +140,21 @@ public class BasicExecutionManager implements ExecutionManager {
     
     private final ThreadFactory daemonThreadFactory;
     
+    private final ExecutionMode mode;
+    
+    /** runs all tasks in CACHED mode, and non-blocking tasks in BOUNDED mode */
     private final ExecutorService runner;
+    
+    /** same as {@link #runner} in CACHED mode; runs blocking tasks in BOUNDED mode */
+    private final ExecutorService blockingRunner;
         
     private final ScheduledExecutorService delayedRunner;
     
+    /** set in threads created by this execution manager, so these are never made to wait for space in a bounded queue */
+    private final ThreadLocal<Boolean> isOwnThread = new ThreadLocal<Boolean>();
+    
+    private final AtomicLong backpressureCount = new AtomicLong();
+    
     // TODO Could have a set of all knownTasks; but instead we're having a separate set per tag,
     // so the same task could be listed multiple times if it has multiple tags...
 
@@ -126,19 +189,112 @@ public class BasicExecutionManager implements ExecutionManager {
     };
     
     public BasicExecutionManager(String contextid) {
+        this(contextid, null);
+    }
+    
+    /**
+     * @param config used to look up the {@link #EXECUTION_MODE} and related keys; if null, defaults are used
+     */
+    public BasicExecutionManager(String contextid, StringConfigMap config) {
         threadFactory = newThreadFactory(contextid);
         daemonThreadFactory = new ThreadFactoryBuilder()
-                .setThreadFactory(threadFactory)
+                .setThreadFactory(markingOwnThreads(threadFactory))
                 .setDaemon(true)
                 .build();
-                
-        // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
-        runner = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
-                daemonThreadFactory);
+        
+        ExecutionMode requestedMode = (config != null) ? config.getConfig(EXECUTION_MODE) : EXECUTION_MODE.getDefaultValue();
+        if (requestedMode == ExecutionMode.VIRTUAL && !Threads.isVirtualThreadsSupported()) {
+            log.warn("Execution manager "+contextid+" configured for virtual threads, but not supported by this JVM ("
+                    + System.getProperty("java.version")+"); using "+ExecutionMode.CACHED);
+            requestedMode = ExecutionMode.CACHED;
+        }
+        mode = requestedMode;
+        
+        runner = newTaskExecutor(contextid, mode, config);
+        if (mode == ExecutionMode.BOUNDED) {
+            int maxBlockingThreads = config.getConfig(BOUNDED_MAX_BLOCKING_THREADS);
+            ThreadPoolExecutor boundedBlockingRunner = new ThreadPoolExecutor(maxBlockingThreads, maxBlockingThreads, 10L, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), daemonThreadFactory);
+            boundedBlockingRunner.allowCoreThreadTimeOut(true);
+            blockingRunner = boundedBlockingRunner;
+        } else {
+            blockingRunner = runner;
+        }
             
         delayedRunner = new ScheduledThreadPoolExecutor(1, daemonThreadFactory);
     }
     
+    /**
+     * Creates the executor for running tasks (or, in {@link ExecutionMode#BOUNDED} mode, non-blocking tasks).
+     * <p>
+     * For use by overriders to use a custom executor; threads should come from a factory wrapped with
+     * {@link #markingOwnThreads(ThreadFactory)}. As with {@link #newThreadFactory(String)}, this is called 
+     * by the constructor, so before sub-class' constructor will have been invoked!
+     */
+    protected ExecutorService newTaskExecutor(String contextid, ExecutionMode mode, StringConfigMap config) {
+        if (mode == ExecutionMode.BOUNDED) {
+            int maxThreads = config.getConfig(BOUNDED_MAX_THREADS);
+            int queueCapacity = config.getConfig(BOUNDED_QUEUE_CAPACITY);
+            log.debug("Execution manager "+contextid+" using bounded pools: "+maxThreads+" threads, queue "+queueCapacity+"; "
+                    +config.getConfig(BOUNDED_MAX_BLOCKING_THREADS)+" threads for blocking tasks");
+            
+            ThreadPoolExecutor boundedRunner = new ThreadPoolExecutor(maxThreads, maxThreads, 10L, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(queueCapacity), daemonThreadFactory, new BackpressureRejectionHandler());
+            boundedRunner.allowCoreThreadTimeOut(true);
+            return boundedRunner;
+        } else if (mode == ExecutionMode.VIRTUAL) {
+            log.debug("Execution manager "+contextid+" using virtual threads");
+            // virtual threads are cheap to create, so don't keep idle ones for long
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+                    markingOwnThreads(newVirtualThreadFactory(contextid)));
+        } else {
+            // use Executors.newCachedThreadPool(daemonThreadFactory), but timeout of 1s rather than 60s for better shutdown!
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), 
+                    daemonThreadFactory);
+        }
+    }
+    
+    /** 
+     * Wraps the given factory so that threads it creates are known to be this execution manager's, 
+     * e.g. so they are never made to wait for space in a bounded queue.
+     */
+    protected ThreadFactory markingOwnThreads(final ThreadFactory delegate) {
+        return new ThreadFactory() {
+            @Override public Thread newThread(final Runnable r) {
+                return delegate.newThread(new Runnable() {
+                    @Override public void run() {
+                        isOwnThread.set(true);
+                        r.run();
+                    }});
+            }};
+    }
+    
+    /**
+     * When the bounded queue is full, threads outwith this execution manager wait for space (back-pressure);
+     * but our own threads (e.g. tasks submitting sub-tasks, or schedulers starting the next task) 
+     * hand the task to the blocking pool instead, as waiting there could deadlock.
+     */
+    private class BackpressureRejectionHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) throw new RejectedExecutionException("Execution manager "+BasicExecutionManager.this+" is shut down; cannot run "+r);
+            long count = backpressureCount.incrementAndGet();
+            if (count==1 || count%1000==0) {
+                log.warn("Execution manager "+BasicExecutionManager.this+" task queue full ("+executor.getQueue().size()+" queued); "
+                        + "delaying submissions (occurrence "+count+")");
+            }
+            if (Boolean.TRUE.equals(isOwnThread.get())) {
+                blockingRunner.execute(r);
+            } else {
+                try {
+                    executor.getQueue().put(r);
+                } catch (InterruptedException e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+        }
+    }
+    
     private final static class UncaughtExceptionHandlerImplementation implements Thread.UncaughtExceptionHandler {
         @Override
         public void uncaughtException(Thread t, Throwable e) {
@@ -158,8 +314,22 @@ public class BasicExecutionManager implements ExecutionManager {
                 .build();
     }
     
+    /** 
+     * For use by overriders to use a custom factory for virtual threads, in {@link ExecutionMode#VIRTUAL} mode.
+     * Only called if {@link Threads#isVirtualThreadsSupported()}. Called by the constructor.
+     */
+    protected ThreadFactory newVirtualThreadFactory(String contextid) {
+        ThreadFactory result = Threads.newVirtualThreadFactory("brooklyn-execmanager-"+contextid+"-virtual-");
+        if (result == null) throw new IllegalStateException("Virtual threads not supported");
+        return new ThreadFactoryBuilder()
+                .setThreadFactory(result)
+                .setUncaughtExceptionHandler(new UncaughtExceptionHandlerImplementation())
+                .build();
+    }
+    
     public void shutdownNow() {
         runner.shutdownNow();
+        if (blockingRunner != runner) blockingRunner.shutdownNow();
         delayedRunner.shutdownNow();
     }
     
@@ -246,6 +416,31 @@ public class BasicExecutionManager implements ExecutionManager {
         return tasksById.size();
     }
 
+    public ExecutionMode getExecutionMode() {
+        return mode;
+    }
+    
+    /** count of tasks waiting for a thread; always zero in {@link ExecutionMode#CACHED} mode */
+    public long getNumQueuedTasks() {
+        long result = 0;
+        if (runner instanceof ThreadPoolExecutor) result += ((ThreadPoolExecutor)runner).getQueue().size();
+        if (blockingRunner != runner && blockingRunner instanceof ThreadPoolExecutor) result += ((ThreadPoolExecutor)blockingRunner).getQueue().size();
+        return result;
+    }
+    
+    /** count of threads currently in the pools used for running tasks */
+    public long getNumPoolThreads() {
+        long result = 0;
+        if (runner instanceof ThreadPoolExecutor) result += ((ThreadPoolExecutor)runner).getPoolSize();
+        if (blockingRunner != runner && blockingRunner instanceof ThreadPoolExecutor) result += ((ThreadPoolExecutor)blockingRunner).getPoolSize();
+        return result;
+    }
+    
+    /** count of times the bounded queue was full when submitting a task (so the submitter was made to wait) */
+    public long getNumBackpressureEvents() {
+        return backpressureCount.get();
+    }
+
     private Set<Task<?>> tasksWithTagCreating(Object tag) {
         Preconditions.checkNotNull(tag);
         synchronized (tasksByTag) {
@@ -574,7 +769,7 @@ public class BasicExecutionManager implements ExecutionManager {
             if (schedulers.size()>1) log.warn("multiple schedulers detected, using only the first, for "+task+": "+schedulers);
             future = schedulers.iterator().next().submit(job);
         } else {
-            future = runner.submit(job);
+            future = (isBlocking(task) ? blockingRunner : runner).submit(job);
         }
         // on completion, listeners get triggered above; here, below we ensure they get triggered on cancel
         // (and we make sure the same ExecutionList is used in the future as in the task)
@@ -590,6 +785,15 @@ public class BasicExecutionManager implements ExecutionManager {
         return task;
     }
     
+    /**
+     * Whether the task should run in the pool for blocking tasks, when in {@link ExecutionMode#BOUNDED} mode:
+     * true if it is tagged {@link TaskTags#BLOCKING_TASK}, or if it has children (as it will typically wait for them).
+     */
+    protected boolean isBlocking(Task<?> task) {
+        if (blockingRunner == runner) return false;
+        return task instanceof HasTaskChildren || TaskTags.isBlocking(task);
+    }
+    
     protected void beforeSubmitScheduledTaskAllIterations(Map<?,?> flags, Task<?> task) {
         internalBeforeSubmit(flags, task);
     }
@@ -433,7 +433,8 @@ public class BasicTask<T> implements TaskInternal<T> {
         }
         Long remaining = end==null ? null : end -  System.currentTimeMillis();
         if (isDone()) {
-            return internalFuture.get(1, TimeUnit.MILLISECONDS);
+            // the task can be marked as done just before its future has the result, so allow for that if time remains
+            return remaining == null ? internalFuture.get() : internalFuture.get(Math.max(remaining, 1), TimeUnit.MILLISECONDS);
         } else if (remaining == null) {
             return internalFuture.get();
         } else if (remaining > 0) {
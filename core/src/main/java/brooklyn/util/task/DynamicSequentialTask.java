@@ -257,6 +257,7 @@ public class DynamicSequentialTask<T> extends BasicTask<T> implements HasTaskChi
                     // but ideally we wouldn't have this,
                     // or else it would be a child
                     .tag(BrooklynTaskTags.TRANSIENT_TASK_TAG)
+                    .tag(TaskTags.BLOCKING_TASK)
                     .body(new Callable<List<Object>>() {
 
                 @Override
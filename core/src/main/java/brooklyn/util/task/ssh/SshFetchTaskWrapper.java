@@ -32,6 +32,7 @@ import brooklyn.util.config.ConfigBag;
 import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.os.Os;
 import brooklyn.util.task.TaskBuilder;
+import brooklyn.util.task.TaskTags;
 import brooklyn.util.task.Tasks;
 import brooklyn.util.task.system.ProcessTaskWrapper;
 
@@ -58,7 +59,8 @@ public class SshFetchTaskWrapper implements TaskWrapper<String> {
     SshFetchTaskWrapper(SshFetchTaskFactory factory) {
         this.remoteFile = Preconditions.checkNotNull(factory.remoteFile, "remoteFile");
         this.machine = Preconditions.checkNotNull(factory.machine, "machine");
-        TaskBuilder<String> tb = TaskBuilder.<String>builder().dynamic(false).name("ssh fetch "+factory.remoteFile);
+        TaskBuilder<String> tb = TaskBuilder.<String>builder().dynamic(false).name("ssh fetch "+factory.remoteFile)
+                .tag(TaskTags.BLOCKING_TASK);
         task = tb.body(new SshFetchJob()).build();
         config = factory.getConfig();
     }
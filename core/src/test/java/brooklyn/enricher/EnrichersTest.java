@@ -44,6 +44,7 @@ import brooklyn.util.collections.MutableMap;
 import brooklyn.util.collections.MutableSet;
 import brooklyn.util.guava.Functionals;
 import brooklyn.util.text.StringFunctions;
+import brooklyn.util.time.Duration;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
@@ -303,6 +304,84 @@ public class EnrichersTest extends BrooklynAppUnitTestSupport {
         EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 5);
     }
 
+    @Test
+    public void testAggregatingSumUpdatedIncrementallyAsValuesChangeAndMembersRemoved() {
+        group.addMember(entity);
+        group.addMember(entity2);
+        group.addEnricher(Enrichers.builder()
+                .aggregating(NUM1)
+                .publishing(NUM2)
+                .fromMembers()
+                .computingSum()
+                .valueToReportIfNoSensors(0)
+                .build());
+        
+        entity.setAttribute(NUM1, 1);
+        entity2.setAttribute(NUM1, 2);
+        EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 3);
+        
+        entity.setAttribute(NUM1, 5);
+        EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 7);
+        
+        entity2.setAttribute(NUM1, null);
+        EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 5);
+        
+        group.removeMember(entity);
+        EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 0);
+    }
+    
+    @Test
+    public void testAggregatingAverageMinMaxAndCount() {
+        group.addMember(entity);
+        group.addMember(entity2);
+        AttributeSensor<Double> avg = Sensors.newDoubleSensor("test.avg");
+        AttributeSensor<Integer> min = Sensors.newIntegerSensor("test.min");
+        AttributeSensor<Integer> max = Sensors.newIntegerSensor("test.max");
+        AttributeSensor<Integer> count = Sensors.newIntegerSensor("test.count");
+        group.addEnricher(Enrichers.builder().aggregating(NUM1).publishing(avg).fromMembers().computingAverage().build());
+        group.addEnricher(Enrichers.builder().aggregating(NUM1).publishing(min).fromMembers().computingMin().build());
+        group.addEnricher(Enrichers.builder().aggregating(NUM1).publishing(max).fromMembers().computingMax().build());
+        group.addEnricher(Enrichers.builder().aggregating(NUM1).publishing(count).fromMembers().computingCount().build());
+        
+        entity.setAttribute(NUM1, 1);
+        entity2.setAttribute(NUM1, 4);
+        EntityTestUtils.assertAttributeEqualsEventually(group, avg, 2.5d);
+        EntityTestUtils.assertAttributeEqualsEventually(group, min, 1);
+        EntityTestUtils.assertAttributeEqualsEventually(group, max, 4);
+        EntityTestUtils.assertAttributeEqualsEventually(group, count, 2);
+        
+        entity.setAttribute(NUM1, 6);
+        EntityTestUtils.assertAttributeEqualsEventually(group, avg, 5d);
+        EntityTestUtils.assertAttributeEqualsEventually(group, min, 4);
+        EntityTestUtils.assertAttributeEqualsEventually(group, max, 6);
+        
+        group.removeMember(entity);
+        EntityTestUtils.assertAttributeEqualsEventually(group, avg, 4d);
+        EntityTestUtils.assertAttributeEqualsEventually(group, min, 4);
+        EntityTestUtils.assertAttributeEqualsEventually(group, max, 4);
+        EntityTestUtils.assertAttributeEqualsEventually(group, count, 1);
+    }
+    
+    @Test
+    public void testAggregatingCoalescesChanges() {
+        group.addMember(entity);
+        group.addEnricher(Enrichers.builder()
+                .aggregating(NUM1)
+                .publishing(NUM2)
+                .fromMembers()
+                .computingSum()
+                .coalescing(Duration.millis(100))
+                .build());
+        RecordingSensorEventListener listener = new RecordingSensorEventListener();
+        app.subscribe(group, NUM2, listener);
+        
+        for (int i = 1; i <= 100; i++) {
+            entity.setAttribute(NUM1, i);
+        }
+        EntityTestUtils.assertAttributeEqualsEventually(group, NUM2, 100);
+        Assert.assertTrue(listener.events.size() < 100, "events="+listener.events.size());
+    }
+    
     @Test
     public void testAggregatingExcludingBlankString() {
         group.addMember(entity);
@@ -44,6 +44,7 @@ import brooklyn.test.entity.TestApplication;
 import brooklyn.test.entity.TestEntityImpl;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.guava.Maybe;
+import brooklyn.util.javalang.Serializers;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
@@ -120,6 +121,24 @@ public class AttributeMapTest {
         assertEquals(map.getValue(ImmutableList.of("b","c")), "2val");
     }
         
+    @Test
+    public void testVersionIncrementedOnUpdateAndRemove() throws Exception {
+        AttributeSensor<String> sensor = Sensors.newStringSensor("a", "");
+        long initial = map.getVersion();
+        
+        map.update(sensor, "1");
+        assertEquals(map.getVersion(), initial+1);
+        
+        map.update(sensor, "1");
+        assertEquals(map.getVersion(), initial+2);
+        
+        map.getValue(sensor);
+        assertEquals(map.getVersion(), initial+2);
+        
+        map.remove(sensor);
+        assertEquals(map.getVersion(), initial+3);
+    }
+
     @Test
     public void testStoredByPathCanBeRetrieved() throws Exception {
         AttributeSensor<String> sensor1 = Sensors.newStringSensor("a", "");
@@ -135,6 +154,30 @@ public class AttributeMapTest {
         assertEquals(map.getValue(ImmutableList.of("b","c")), "2val");
     }
         
+    @Test
+    public void testStoredByPathIsCoercedIfNotSensorType() throws Exception {
+        AttributeSensor<Integer> sensor = Sensors.newIntegerSensor("a", "");
+        
+        map.update(ImmutableList.of("a"), "123");
+        
+        assertEquals(map.getValue(sensor), Integer.valueOf(123));
+    }
+        
+    @Test
+    public void testSensorNamePartsEqualToPlainListAndSerializedAsPlainList() throws Exception {
+        AttributeSensor<String> sensor = Sensors.newStringSensor("b.c", "");
+        List<String> nameParts = sensor.getNameParts();
+        
+        assertEquals(nameParts, ImmutableList.of("b", "c"));
+        assertEquals(ImmutableList.of("b", "c"), nameParts);
+        assertEquals(nameParts.hashCode(), ImmutableList.of("b", "c").hashCode());
+        assertTrue(nameParts == Sensors.newStringSensor("b.c", "other").getNameParts());
+        
+        Object deserialized = Serializers.reconstitute(nameParts);
+        assertTrue(deserialized instanceof ImmutableList, "type="+deserialized.getClass());
+        assertEquals(deserialized, nameParts);
+    }
+        
     @Test
     public void testCanStoreSensorThenChildSensor() throws Exception {
         AttributeSensor<String> sensor = Sensors.newStringSensor("a", "");
@@ -25,6 +25,7 @@ import static org.testng.Assert.fail;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -37,6 +38,7 @@ import brooklyn.event.basic.DependentConfiguration;
 import brooklyn.location.basic.SimulatedLocation;
 import brooklyn.test.entity.TestEntity;
 import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.task.DeferredSupplier;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicates;
@@ -314,4 +316,75 @@ public class EntityConfigMapUsageTest extends BrooklynAppUnitTestSupport {
             t.interrupt();
         }
     }
+    
+    @Test
+    public void testResolvedConfigCachedUntilChanged() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                .configure(intKey, 2));
+        EntityConfigMap configMap = ((EntityInternal)entity).getConfigMap();
+        
+        assertEquals(entity.getConfig(intKey), (Integer)2);
+        long hits = configMap.getResolvedConfigHits();
+        assertEquals(entity.getConfig(intKey), (Integer)2);
+        assertEquals(entity.getConfig(intKey), (Integer)2);
+        assertEquals(configMap.getResolvedConfigHits(), hits+2);
+        
+        ((EntityLocal)entity).setConfig(intKey, 3);
+        long misses = configMap.getResolvedConfigMisses();
+        assertEquals(entity.getConfig(intKey), (Integer)3);
+        assertEquals(configMap.getResolvedConfigMisses(), misses+1);
+    }
+    
+    @Test
+    public void testResolvedConfigInvalidatedWhenParentConfigChanges() throws Exception {
+        TestEntity parent = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                .configure(strKey, "aval"));
+        TestEntity entity = parent.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity entity2 = entity.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        assertEquals(entity2.getConfig(strKey), "aval");
+        assertEquals(entity2.getConfig(strKeyWithDefault), "str key default");
+        
+        ((EntityLocal)parent).setConfig(strKey, "diffval");
+        ((EntityLocal)parent).setConfig(strKeyWithDefault, "diffdefault");
+        assertEquals(entity2.getConfig(strKey), "diffval");
+        assertEquals(entity2.getConfig(strKeyWithDefault), "diffdefault");
+    }
+    
+    @Test
+    public void testExplicitDefaultNotTakenFromResolvedConfig() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        assertEquals(entity.getConfig(strKeyWithDefault), "str key default");
+        assertEquals(((EntityInternal)entity).getConfigMap().getConfig(strKeyWithDefault, "explicit"), "explicit");
+    }
+    
+    @Test
+    public void testCompletedAttributeWhenReadyConfigIsCached() throws Exception {
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity entity2 = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                .configure(TestEntity.CONF_NAME, DependentConfiguration.attributeWhenReady(entity, TestEntity.NAME)));
+        app.start(locs);
+        EntityConfigMap configMap = ((EntityInternal)entity2).getConfigMap();
+        
+        ((EntityLocal)entity).setAttribute(TestEntity.NAME, "aval");
+        assertEquals(entity2.getConfig(TestEntity.CONF_NAME), "aval");
+        assertEquals(entity2.getConfig(TestEntity.CONF_NAME), "aval");
+        long hits = configMap.getResolvedConfigHits();
+        assertEquals(entity2.getConfig(TestEntity.CONF_NAME), "aval");
+        assertEquals(configMap.getResolvedConfigHits(), hits+1);
+    }
+    
+    @Test
+    public void testDeferredSupplierConfigIsResolvedEachTime() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                .configure(TestEntity.CONF_NAME, new DeferredSupplier<String>() {
+                    @Override public String get() {
+                        return "val"+count.incrementAndGet();
+                    }}));
+        
+        assertEquals(entity.getConfig(TestEntity.CONF_NAME), "val1");
+        assertEquals(entity.getConfig(TestEntity.CONF_NAME), "val2");
+    }
 }
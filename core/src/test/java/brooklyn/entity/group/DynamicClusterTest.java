@@ -25,6 +25,7 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -57,6 +58,8 @@ import brooklyn.entity.trait.Changeable;
 import brooklyn.entity.trait.FailingEntity;
 import brooklyn.event.SensorEvent;
 import brooklyn.location.Location;
+import brooklyn.location.MachineLocation;
+import brooklyn.location.MachineManagementMixins.ObtainsMachinesInBatches;
 import brooklyn.location.basic.SimulatedLocation;
 import brooklyn.management.Task;
 import brooklyn.test.Asserts;
@@ -93,6 +96,20 @@ public class DynamicClusterTest extends BrooklynAppUnitTestSupport {
         loc2 = new SimulatedLocation();
     }
 
+    @SuppressWarnings("serial")
+    public static class BatchingSimulatedLocation extends SimulatedLocation implements ObtainsMachinesInBatches<MachineLocation> {
+        final List<Integer> expectedObtains = new CopyOnWriteArrayList<Integer>();
+        
+        @Override
+        public List<MachineLocation> obtain(Map<?, ?> flags, int count) {
+            return Collections.<MachineLocation>nCopies(count, this);
+        }
+        @Override
+        public void expectObtains(int count) {
+            expectedObtains.add(count);
+        }
+    }
+
     @Test
     public void creationOkayWithoutNewEntityFactoryArgument() throws Exception {
         app.createAndManageChild(EntitySpec.create(DynamicCluster.class));
@@ -109,6 +126,35 @@ public class DynamicClusterTest extends BrooklynAppUnitTestSupport {
         }
     }
 
+    @Test
+    public void testGrowingAnnouncesExpectedObtainsToBatchingLocation() throws Exception {
+        BatchingSimulatedLocation batchingLoc = new BatchingSimulatedLocation();
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(TestEntity.class))
+                .configure(DynamicCluster.INITIAL_SIZE, 3));
+        
+        cluster.start(ImmutableList.of(batchingLoc));
+        cluster.resize(4);
+        cluster.resize(6);
+        
+        assertEquals(batchingLoc.expectedObtains, ImmutableList.of(3, 2));
+    }
+
+    @Test
+    public void testNestedClustersAnnounceExpectedObtainsOnce() throws Exception {
+        BatchingSimulatedLocation batchingLoc = new BatchingSimulatedLocation();
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(DynamicCluster.class)
+                        .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(TestEntity.class))
+                        .configure(DynamicCluster.INITIAL_SIZE, 2))
+                .configure(DynamicCluster.INITIAL_SIZE, 2));
+        
+        cluster.start(ImmutableList.of(batchingLoc));
+        
+        // only the inner clusters, whose members obtain machines, announce them
+        assertEquals(batchingLoc.expectedObtains, ImmutableList.of(2, 2));
+    }
+
     @Test
     public void startRequiresThatNewEntityArgumentIsGiven() throws Exception {
         DynamicCluster c = app.createAndManageChild(EntitySpec.create(DynamicCluster.class));
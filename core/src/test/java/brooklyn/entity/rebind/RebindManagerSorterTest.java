@@ -18,6 +18,7 @@
  */
 package brooklyn.entity.rebind;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -31,6 +32,7 @@ import org.testng.annotations.Test;
 
 import brooklyn.entity.Entity;
 import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.BasicGroup;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.entity.rebind.dto.MementosGenerators;
@@ -43,6 +45,7 @@ import brooklyn.test.entity.TestEntity;
 import brooklyn.util.collections.MutableSet;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 public class RebindManagerSorterTest {
@@ -118,6 +121,47 @@ public class RebindManagerSorterTest {
         assertOrder(sortedNodes, ImmutableList.of(e1a, e1b));
     }
     
+    @Test
+    public void testPartitionParentFirstSeparatesApps() throws Exception {
+        TestApplication app2 = ApplicationBuilder.newManagedApp(TestApplication.class, managementContext);
+        TestEntity e1a = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e1b = e1a.createAndManageChild(EntitySpec.create(TestEntity.class));
+        TestEntity e2a = app2.createAndManageChild(EntitySpec.create(TestEntity.class));
+        
+        Map<String, EntityMemento> nodes = toMementos(ImmutableList.of(e2a, e1b, app2, e1a, app));
+        List<List<EntityMemento>> partitions = rebindManager.partitionParentFirst(nodes, true);
+        assertEquals(partitions.size(), 2);
+        assertPartitionsEqual(partitions, ImmutableList.of(ImmutableList.<Entity>of(app2, e2a), ImmutableList.<Entity>of(app, e1a, e1b)));
+    }
+
+    @Test
+    public void testPartitionParentFirstJoinsAppsWithSharedGroupMembers() throws Exception {
+        TestApplication app2 = ApplicationBuilder.newManagedApp(TestApplication.class, managementContext);
+        BasicGroup group = app.createAndManageChild(EntitySpec.create(BasicGroup.class));
+        TestEntity e2a = app2.createAndManageChild(EntitySpec.create(TestEntity.class));
+        group.addMember(e2a);
+        
+        Map<String, EntityMemento> nodes = toMementos(ImmutableList.of(e2a, app2, group, app));
+        assertPartitionsEqual(rebindManager.partitionParentFirst(nodes, true), ImmutableList.of(ImmutableList.<Entity>of(app2, e2a, app, group)));
+        assertPartitionsEqual(rebindManager.partitionParentFirst(nodes, false), ImmutableList.of(ImmutableList.<Entity>of(app2, e2a), ImmutableList.<Entity>of(app, group)));
+    }
+
+    private void assertPartitionsEqual(List<List<EntityMemento>> actual, List<? extends List<? extends Identifiable>> expected) {
+        List<List<String>> actualIds = Lists.newArrayList();
+        for (List<EntityMemento> partition : actual) {
+            List<String> ids = Lists.newArrayList();
+            for (EntityMemento node : partition) ids.add(node.getId());
+            actualIds.add(ids);
+        }
+        List<List<String>> expectedIds = Lists.newArrayList();
+        for (List<? extends Identifiable> partition : expected) {
+            List<String> ids = Lists.newArrayList();
+            for (Identifiable node : partition) ids.add(node.getId());
+            expectedIds.add(ids);
+        }
+        assertEquals(actualIds, expectedIds);
+    }
+
     @SuppressWarnings("unchecked")
     private void assertOrder(Map<String, ? extends TreeNode> nodes, Iterable<? extends Identifiable> order) {
         assertOrders(nodes, order);
@@ -20,20 +20,27 @@ package brooklyn.entity.rebind;
 
 import static org.testng.Assert.assertEquals;
 
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.testng.annotations.Test;
 
 import brooklyn.entity.Entity;
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.BasicGroup;
 import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.management.Task;
+import brooklyn.test.entity.TestApplication;
 import brooklyn.test.entity.TestEntity;
 import brooklyn.test.entity.TestEntityImpl;
 import brooklyn.util.task.BasicTask;
 import brooklyn.util.task.DynamicTasks;
 
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 public class RebindManagerTest extends RebindTestFixtureWithApp {
 
@@ -45,6 +52,37 @@ public class RebindManagerTest extends RebindTestFixtureWithApp {
         Entity newEntity = Iterables.find(newApp.getChildren(), Predicates.instanceOf(TestEntity.class));
         assertEquals(newEntity.getAttribute(TestEntity.NAME), "abc");
     }
+
+    @Test
+    public void testRebindsAppsInParallelAndRecordsPhases() throws Exception {
+        TestApplication origApp2 = ApplicationBuilder.newManagedApp(TestApplication.class, origManagementContext);
+        BasicGroup origGroup = origApp.createAndManageChild(EntitySpec.create(BasicGroup.class));
+        List<TestEntity> origEntities = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            TestEntity origEntity = origApp2.createAndManageChild(EntitySpec.create(TestEntity.class));
+            origEntity.createAndManageChild(EntitySpec.create(TestEntity.class));
+            origEntities.add(origEntity);
+            if (i % 2 == 0) origGroup.addMember(origEntity);
+        }
+        
+        newApp = rebind();
+        TestApplication newApp2 = (TestApplication) newManagementContext.getEntityManager().getEntity(origApp2.getId());
+        BasicGroup newGroup = (BasicGroup) newManagementContext.getEntityManager().getEntity(origGroup.getId());
+        assertEquals(newApp2.getChildren().size(), 10);
+        for (int i = 0; i < 10; i++) {
+            Entity newEntity = newManagementContext.getEntityManager().getEntity(origEntities.get(i).getId());
+            assertEquals(Iterables.get(newApp2.getChildren(), i), newEntity);
+            assertEquals(newEntity.getChildren().size(), 1);
+            assertEquals(newGroup.hasMember(newEntity), i % 2 == 0);
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> phases = (Map<String, Map<String, Object>>) ((Map<String, Object>) newManagementContext.getRebindManager().getMetrics().get("rebind")).get("lastPhases");
+        assertEquals(phases.keySet(), ImmutableSet.of("load", "catalog", "instantiate", "deserialize", "instantiateAdjuncts", "reconstruct", "addAdjuncts", "manage"));
+        // 2 apps, 1 group, 20 entities
+        assertEquals(phases.get("instantiate").get("count"), 23L);
+    }
+
     public static class TestEntityWithTaskInRebind extends TestEntityImpl {
         @Override
         public void rebind() {
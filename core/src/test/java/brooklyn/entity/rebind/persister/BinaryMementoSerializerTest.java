@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.rebind.persister;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.catalog.CatalogItem;
+import brooklyn.entity.Feed;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityInternal;
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.entity.rebind.BrooklynObjectType;
+import brooklyn.event.basic.Sensors;
+import brooklyn.location.Location;
+import brooklyn.mementos.EntityMemento;
+import brooklyn.policy.Enricher;
+import brooklyn.policy.Policy;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.test.entity.TestEntityImpl;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.text.Strings;
+
+import com.google.common.collect.ImmutableList;
+
+/** Runs the {@link XmlMementoSerializerTest} tests with the binary form, plus tests of reading and converting either form. */
+public class BinaryMementoSerializerTest extends XmlMementoSerializerTest {
+
+    @Override
+    protected XmlMementoSerializer<Object> newSerializer() {
+        return new BinaryMementoSerializer<Object>(BinaryMementoSerializerTest.class.getClassLoader());
+    }
+
+    private TestApplication app;
+    private TestEntity entity;
+    
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        app = TestApplication.Factory.newManagedInstanceForTests();
+        entity = app.createAndManageChild(EntitySpec.create(TestEntity.class).catalogItemId("mycatalogitem:1.0"));
+        serializer.setLookupContext(new LookupContextImpl(app.getManagementContext(),
+                ImmutableList.of(app, entity), ImmutableList.<Location>of(), ImmutableList.<Policy>of(),
+                ImmutableList.<Enricher>of(), ImmutableList.<Feed>of(), ImmutableList.<CatalogItem<?, ?>>of(), true));
+    }
+    
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (app != null) Entities.destroyAll(app.getManagementContext());
+    }
+    
+    private EntityMemento newEntityMemento() {
+        return ((EntityInternal)entity).getRebindSupport().getMemento();
+    }
+    
+    @Test
+    public void testWritesBinaryAndReadsEitherForm() throws Exception {
+        EntityMemento memento = newEntityMemento();
+        XmlMementoSerializer<Object> xmlSerializer = new XmlMementoSerializer<Object>(getClass().getClassLoader());
+        xmlSerializer.setLookupContext(new LookupContextImpl(app.getManagementContext(),
+                ImmutableList.of(app, entity), ImmutableList.<Location>of(), ImmutableList.<Policy>of(),
+                ImmutableList.<Enricher>of(), ImmutableList.<Feed>of(), ImmutableList.<CatalogItem<?, ?>>of(), true));
+        
+        String binary = serializer.toString(memento);
+        String xml = xmlSerializer.toString(memento);
+        assertTrue(BinaryMementoSerializer.isBinary(binary), binary);
+        assertFalse(BinaryMementoSerializer.isBinary(xml), xml);
+        assertEquals(MementoFormat.of(binary), MementoFormat.BINARY);
+        assertEquals(MementoFormat.of(xml), MementoFormat.XML);
+        
+        assertEquals(((EntityMemento)serializer.fromString(xml)).getId(), entity.getId());
+        assertEquals(((EntityMemento)xmlSerializer.fromString(binary)).getId(), entity.getId());
+    }
+
+    @Test
+    public void testManifestFieldsReadFromEitherForm() throws Exception {
+        EntityMemento memento = newEntityMemento();
+        String binary = serializer.toString(memento);
+        String xml = new XmlMementoSerializer<Object>(getClass().getClassLoader()).toString(memento);
+        
+        for (String contents : new String[] {binary, xml}) {
+            assertEquals(BinaryMementoSerializer.getManifestField(contents, BrooklynObjectType.ENTITY, "id"), entity.getId());
+            assertEquals(BinaryMementoSerializer.getManifestField(contents, BrooklynObjectType.ENTITY, "type"), TestEntityImpl.class.getName());
+            assertEquals(BinaryMementoSerializer.getManifestField(contents, BrooklynObjectType.ENTITY, "parent"), app.getId());
+            assertEquals(BinaryMementoSerializer.getManifestField(contents, BrooklynObjectType.ENTITY, "catalogItemId"), "mycatalogitem:1.0");
+        }
+    }
+
+    @Test
+    public void testConvertsBetweenForms() throws Exception {
+        EntityMemento memento = newEntityMemento();
+        String xml = new XmlMementoSerializer<Object>(getClass().getClassLoader()).toString(memento);
+        
+        String binary = MementoFormat.BINARY.convert(xml, BrooklynObjectType.ENTITY);
+        assertTrue(BinaryMementoSerializer.isBinary(binary));
+        assertEquals(BinaryMementoSerializer.getManifestField(binary, BrooklynObjectType.ENTITY, "parent"), app.getId());
+        assertEquals(((EntityMemento)serializer.fromString(binary)).getCatalogItemId(), "mycatalogitem:1.0");
+        
+        assertEquals(MementoFormat.XML.convert(binary, BrooklynObjectType.ENTITY), xml);
+        assertEquals(MementoFormat.BINARY.convert(binary, BrooklynObjectType.ENTITY), binary);
+        assertEquals(MementoFormat.XML.convert(xml, BrooklynObjectType.ENTITY), xml);
+    }
+
+    @Test
+    public void testBinaryFormSmallerForTypicalEntity() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            entity.setAttribute(Sensors.newStringSensor("mysensor"+i), "myval"+i);
+        }
+        EntityMemento memento = newEntityMemento();
+        String binary = serializer.toString(memento);
+        String xml = new XmlMementoSerializer<Object>(getClass().getClassLoader()).toString(memento);
+        assertTrue(binary.length() < xml.length(), "binary="+binary.length()+"; xml="+xml.length());
+    }
+
+    @Test
+    public void testVeryLongValue() throws Exception {
+        String longVal = Strings.repeat("a", 70*1000);
+        MutableMap<String, String> obj = MutableMap.of("mykey", longVal);
+        String serializedForm = serializer.toString(obj);
+        assertTrue(BinaryMementoSerializer.isBinary(serializedForm));
+        assertEquals(serializer.fromString(serializedForm), obj);
+    }
+}
@@ -23,6 +23,8 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.List;
+
 import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -32,6 +34,7 @@ import brooklyn.enricher.Enrichers;
 import brooklyn.entity.Entity;
 import brooklyn.entity.basic.ApplicationBuilder;
 import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityLocal;
 import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.entity.rebind.PersistenceExceptionHandler;
 import brooklyn.entity.rebind.PersistenceExceptionHandlerImpl;
@@ -54,6 +57,7 @@ import brooklyn.test.entity.TestEntity;
 import brooklyn.test.policy.TestPolicy;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 /**
  * @author Andrea Turli
@@ -163,4 +167,46 @@ public abstract class BrooklynMementoPersisterTestFixture {
             throw new SkipException("Persister "+persister+" not a "+BrooklynMementoPersisterToObjectStore.class.getSimpleName());
         }
     }
+
+    @Test
+    public void testUnchangedMementosNotRewritten() throws Exception {
+        if (!(persister instanceof BrooklynMementoPersisterToObjectStore)) {
+            throw new SkipException("Persister "+persister+" not a "+BrooklynMementoPersisterToObjectStore.class.getSimpleName());
+        }
+        BrooklynMementoPersisterToObjectStore objectStorePersister = (BrooklynMementoPersisterToObjectStore) persister;
+        RebindTestUtils.waitForPersisted(localManagementContext);
+        long origSkipped = objectStorePersister.getNumWritesSkipped();
+        
+        // the entity's location is persisted along with the entity, but is unchanged so not rewritten
+        ((EntityLocal)entity).setAttribute(TestEntity.SEQUENCE, 123);
+        
+        BrooklynMementoRawData rawMemento = loadRawMemento(objectStorePersister);
+        assertTrue(rawMemento.getEntities().get(entity.getId()).contains("123"));
+        assertTrue(objectStorePersister.getNumWritesSkipped() > origSkipped);
+    }
+    
+    @Test
+    public void testConcurrentChangesAllPersisted() throws Exception {
+        final int numThreads = 10;
+        final List<TestEntity> children = Lists.newArrayList();
+        for (int i = 0; i < numThreads; i++) {
+            children.add(app.createAndManageChild(EntitySpec.create(TestEntity.class)));
+        }
+        List<Thread> threads = Lists.newArrayList();
+        for (final TestEntity child : children) {
+            threads.add(new Thread() {
+                public void run() {
+                    for (int i = 0; i <= 1000; i++) {
+                        child.setAttribute(TestEntity.SEQUENCE, i);
+                    }
+                }});
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        
+        BrooklynMemento reloadedMemento = loadMemento();
+        for (TestEntity child : children) {
+            assertEquals(reloadedMemento.getEntityMemento(child.getId()).getAttributes().get(TestEntity.SEQUENCE), 1000);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.rebind.persister;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class ChangeJournalTest {
+
+    @Test
+    public void testAppendAndGetPathsChanged() throws Exception {
+        ChangeJournal journal = ChangeJournal.newEpoch()
+                .append(ImmutableList.of("entities/a", "entities/b"), 100)
+                .append(ImmutableList.of("entities/b", "locations/c"), 100);
+        
+        assertEquals(journal.getGeneration(), 2);
+        assertEquals(journal.getPathsChangedSince(0), ImmutableSet.of("entities/a", "entities/b", "locations/c"));
+        assertEquals(journal.getPathsChangedSince(1), ImmutableSet.of("entities/b", "locations/c"));
+        assertEquals(journal.getPathsChangedSince(2), ImmutableSet.of());
+    }
+
+    @Test
+    public void testCanCatchUpOnlyFromSameEpochAndRecordedGeneration() throws Exception {
+        ChangeJournal journal = ChangeJournal.newEpoch()
+                .append(ImmutableList.of("entities/a", "entities/b"), 3)
+                .append(ImmutableList.of("entities/c", "entities/d"), 3);
+        
+        // first entry of generation 1 discarded
+        assertFalse(journal.canCatchUp(journal.getEpoch(), 0));
+        assertTrue(journal.canCatchUp(journal.getEpoch(), 1));
+        assertTrue(journal.canCatchUp(journal.getEpoch(), 2));
+        assertFalse(journal.canCatchUp(journal.getEpoch(), 3));
+        assertFalse(journal.canCatchUp(ChangeJournal.newEpoch().getEpoch(), 1));
+        assertFalse(journal.canCatchUp(null, 1));
+    }
+
+    @Test
+    public void testParseRoundTrip() throws Exception {
+        ChangeJournal journal = ChangeJournal.newEpoch()
+                .append(ImmutableList.of("entities/a", "entities/b"), 3)
+                .append(ImmutableList.of("entities/c", "entities/d"), 3);
+        ChangeJournal journal2 = ChangeJournal.parse(journal.toString());
+        
+        assertEquals(journal2.getEpoch(), journal.getEpoch());
+        assertEquals(journal2.getGeneration(), 2);
+        assertEquals(journal2.getPathsChangedSince(1), ImmutableSet.of("entities/c", "entities/d"));
+        assertFalse(journal2.canCatchUp(journal.getEpoch(), 0));
+        assertEquals(journal2.toString(), journal.toString());
+    }
+
+    @Test
+    public void testParseInvalid() throws Exception {
+        assertNull(ChangeJournal.parse(null));
+        assertNull(ChangeJournal.parse(""));
+        assertNull(ChangeJournal.parse("<entity/>"));
+        assertNull(ChangeJournal.parse("epoch x\ngeneration 1\ntruncated 0\n1"));
+        assertNull(ChangeJournal.parse("epoch x\ngeneration 1\ntrunc"));
+    }
+}
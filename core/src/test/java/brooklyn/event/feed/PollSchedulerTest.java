@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.feed;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.Entities;
+import brooklyn.event.feed.PollScheduler.PollRecord;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.Asserts;
+import brooklyn.test.entity.LocalManagementContextForTests;
+import brooklyn.util.time.Duration;
+import brooklyn.util.time.Time;
+
+public class PollSchedulerTest {
+
+    private PollScheduler scheduler;
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        scheduler = new PollScheduler("test-poll-scheduler", Duration.millis(5), 16);
+    }
+    
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (scheduler != null) scheduler.shutdown();
+    }
+    
+    @Test
+    public void testPollsRepeatedly() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final PollRecord record = scheduler.schedule("mypoll", Duration.millis(10), new Runnable() {
+            @Override public void run() {
+                counter.incrementAndGet();
+            }});
+        
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(counter.get() > 5, "counter="+counter);
+            }});
+        assertTrue(record.getNumPolls() > 5, "numPolls="+record.getNumPolls());
+        assertEquals(scheduler.getNumScheduled(), 1);
+    }
+    
+    @Test
+    public void testPollLongerThanWheelRevolution() throws Exception {
+        // wheel of 16 ticks of 5ms is 80ms
+        final AtomicInteger counter = new AtomicInteger();
+        scheduler.schedule("mypoll", Duration.millis(200), new Runnable() {
+            @Override public void run() {
+                counter.incrementAndGet();
+            }});
+        
+        Time.sleep(Duration.millis(300));
+        assertTrue(counter.get() >= 1 && counter.get() <= 2, "counter="+counter);
+    }
+    
+    @Test
+    public void testCancelStopsPolling() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        PollRecord record = scheduler.schedule("mypoll", Duration.millis(10), new Runnable() {
+            @Override public void run() {
+                counter.incrementAndGet();
+            }});
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(counter.get() > 0, "counter="+counter);
+            }});
+        
+        record.cancel();
+        assertTrue(record.isCancelled());
+        Time.sleep(Duration.millis(50));
+        final int countAfterCancel = counter.get();
+        Asserts.succeedsContinually(new Runnable() {
+            @Override public void run() {
+                assertEquals(counter.get(), countAfterCancel);
+            }});
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(scheduler.getNumScheduled(), 0);
+            }});
+    }
+    
+    @Test
+    public void testSlowPollIsNotRunConcurrentlyAndOthersContinue() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final AtomicInteger slowCounter = new AtomicInteger();
+        final AtomicInteger fastCounter = new AtomicInteger();
+        scheduler.schedule("slowpoll", Duration.millis(5), new Runnable() {
+            @Override public void run() {
+                if (!running.compareAndSet(false, true)) overlapped.set(true);
+                Time.sleep(Duration.millis(50));
+                slowCounter.incrementAndGet();
+                running.set(false);
+            }});
+        scheduler.schedule("fastpoll", Duration.millis(5), new Runnable() {
+            @Override public void run() {
+                fastCounter.incrementAndGet();
+            }});
+        
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(slowCounter.get() > 2, "slowCounter="+slowCounter);
+                assertTrue(fastCounter.get() > 20, "fastCounter="+fastCounter);
+            }});
+        assertFalse(overlapped.get());
+    }
+    
+    @Test
+    public void testExceptionInPollDoesNotStopPolling() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        scheduler.schedule("mypoll", Duration.millis(10), new Runnable() {
+            @Override public void run() {
+                counter.incrementAndGet();
+                throw new IllegalStateException("Simulating failure in poll");
+            }});
+        
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(counter.get() > 2, "counter="+counter);
+            }});
+    }
+    
+    @Test
+    public void testSchedulerPerManagementContextShutDownOnTerminate() throws Exception {
+        LocalManagementContext mgmt = LocalManagementContextForTests.newInstance();
+        PollScheduler mgmtScheduler = PollScheduler.forManagementContext(mgmt);
+        assertSame(PollScheduler.forManagementContext(mgmt), mgmtScheduler);
+        
+        Entities.destroyAll(mgmt);
+        try {
+            mgmtScheduler.schedule("mypoll", Duration.millis(10), new Runnable() {
+                @Override public void run() {
+                }});
+            fail("Scheduler should have been shut down when its management context terminated");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
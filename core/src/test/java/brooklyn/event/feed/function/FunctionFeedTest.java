@@ -22,6 +22,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -45,11 +46,14 @@ import brooklyn.event.AttributeSensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
 import brooklyn.event.basic.Sensors;
+import brooklyn.event.feed.AbstractFeed;
+import brooklyn.internal.BrooklynFeatureEnablement;
 import brooklyn.location.Location;
 import brooklyn.location.basic.LocalhostMachineProvisioningLocation;
 import brooklyn.test.Asserts;
 import brooklyn.test.EntityTestUtils;
 import brooklyn.test.entity.TestEntity;
+import brooklyn.util.task.Tasks;
 
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
@@ -248,6 +252,60 @@ public class FunctionFeedTest extends BrooklynAppUnitTestSupport {
                 .onFailureOrException(Functions.<Integer>constant(null));
     }
     
+    @Test
+    public void testPublishesPollStats() throws Exception {
+        feed = FunctionFeed.builder()
+                .entity(entity)
+                .uniqueTag("myfeed")
+                .publishPollStats()
+                .poll(new FunctionPollConfig<Integer,Integer>(SENSOR_INT)
+                        .period(1)
+                        .callable(new IncrementingCallable()))
+                .build();
+        
+        Asserts.succeedsEventually(new Runnable() {
+            public void run() {
+                Map<String, Map<String, Object>> stats = entity.getAttribute(AbstractFeed.POLL_STATS);
+                assertTrue(stats != null && stats.containsKey("myfeed"), "stats="+stats);
+                Map<String, Object> feedStats = stats.get("myfeed");
+                assertTrue(((Number)feedStats.get("polls")).longValue() > 2, "stats="+feedStats);
+                assertEquals(((Number)feedStats.get("failures")).longValue(), 0L, "stats="+feedStats);
+                assertTrue(((Number)feedStats.get("lastSuccessUtc")).longValue() > 0, "stats="+feedStats);
+            }
+        });
+    }
+    
+    @Test
+    public void testSharedSchedulerPollAfterFailureRunsInTask() throws Exception {
+        boolean wasEnabled = BrooklynFeatureEnablement.enable(BrooklynFeatureEnablement.FEATURE_SHARED_POLL_SCHEDULER);
+        try {
+            final List<Boolean> inTask = new CopyOnWriteArrayList<Boolean>();
+            feed = FunctionFeed.builder()
+                    .entity(entity)
+                    .poll(new FunctionPollConfig<Integer,Integer>(SENSOR_INT)
+                            .period(1)
+                            .callable(new Callable<Integer>() {
+                                @Override public Integer call() {
+                                    inTask.add(Tasks.current() != null);
+                                    if (inTask.size() == 3) throw new IllegalStateException("Simulating poll failure");
+                                    return inTask.size();
+                                }})
+                            .onException(Functions.constant(-1)))
+                    .build();
+            
+            Asserts.succeedsEventually(new Runnable() {
+                public void run() {
+                    assertTrue(inTask.size() > 5, "inTask="+inTask);
+                }
+            });
+            assertEquals(inTask.get(1), Boolean.FALSE, "inTask="+inTask);
+            assertEquals(inTask.get(3), Boolean.TRUE, "inTask="+inTask);
+            assertEquals(inTask.get(5), Boolean.FALSE, "inTask="+inTask);
+        } finally {
+            BrooklynFeatureEnablement.setEnablement(BrooklynFeatureEnablement.FEATURE_SHARED_POLL_SCHEDULER, wasEnabled);
+        }
+    }
+    
     private static class IncrementingCallable implements Callable<Integer> {
         private final AtomicInteger next = new AtomicInteger(0);
         
@@ -19,12 +19,17 @@
 package brooklyn.event.feed.http;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.net.URL;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -44,7 +49,9 @@ import brooklyn.event.basic.Sensors;
 import brooklyn.event.feed.FeedConfig;
 import brooklyn.event.feed.PollConfig;
 import brooklyn.location.Location;
+import brooklyn.management.internal.LocalManagementContext;
 import brooklyn.test.Asserts;
+import brooklyn.test.entity.LocalManagementContextForTests;
 import brooklyn.test.entity.TestEntity;
 import brooklyn.util.collections.MutableList;
 import brooklyn.util.collections.MutableMap;
@@ -404,6 +411,26 @@ public class HttpFeedTest extends BrooklynAppUnitTestSupport {
                 .build();
     }
     
+    @Test
+    public void testSharedConnectionPoolIsPerManagementContextAndClosedOnTerminate() throws Exception {
+        SharedHttpConnectionPool pool = SharedHttpConnectionPool.forManagementContext(mgmt);
+        assertSame(SharedHttpConnectionPool.forManagementContext(mgmt), pool);
+        
+        LocalManagementContext otherMgmt = LocalManagementContextForTests.newInstance();
+        SharedHttpConnectionPool otherPool = SharedHttpConnectionPool.forManagementContext(otherMgmt);
+        assertNotSame(otherPool, pool);
+        
+        Entities.destroyAll(otherMgmt);
+        try {
+            otherPool.getConnectionManager().requestConnection(new HttpRoute(new HttpHost("localhost", 80)), null);
+            fail("Pool should have been shut down when its management context terminated");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // the pool of the remaining management context is unaffected
+        assertSame(SharedHttpConnectionPool.forManagementContext(mgmt), pool);
+    }
+
 
     private <T> void assertSensorEventually(final AttributeSensor<T> sensor, final T expectedVal, long timeout) {
         Asserts.succeedsEventually(ImmutableMap.of("timeout", timeout), new Callable<Void>() {
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.event.feed.ssh;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.BrooklynAppUnitTestSupport;
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.basic.Sensors;
+import brooklyn.location.LocationSpec;
+import brooklyn.location.basic.SshMachineLocation;
+import brooklyn.test.EntityTestUtils;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.internal.ssh.RecordingSshTool;
+import brooklyn.util.internal.ssh.SshTool;
+import brooklyn.util.internal.ssh.process.ProcessTool;
+import brooklyn.util.net.Networking;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests {@link SshFeed} without needing ssh to localhost, by running the commands in a local process.
+ */
+public class SshFeedTest extends BrooklynAppUnitTestSupport {
+
+    final static AttributeSensor<String> SENSOR_STRING = Sensors.newStringSensor("aString", "");
+    final static AttributeSensor<String> SENSOR_STRING2 = Sensors.newStringSensor("aString2", "");
+    final static AttributeSensor<String> SENSOR_STDERR = Sensors.newStringSensor("aStderr", "");
+    final static AttributeSensor<Integer> SENSOR_INT = Sensors.newIntegerSensor("anInt", "");
+
+    /** runs commands locally, counting the number of invocations */
+    public static class LocalProcessSshTool extends RecordingSshTool {
+        static final AtomicInteger execCount = new AtomicInteger();
+        private final ProcessTool delegate = new ProcessTool();
+        
+        public LocalProcessSshTool(Map<?,?> props) {
+            super(props);
+        }
+        @Override public int execScript(Map<String, ?> props, List<String> commands, Map<String, ?> env) {
+            execCount.incrementAndGet();
+            return delegate.execScript(props, commands, env);
+        }
+        @Override public int execCommands(Map<String, ?> props, List<String> commands, Map<String, ?> env) {
+            execCount.incrementAndGet();
+            return delegate.execCommands(props, commands, env);
+        }
+    }
+    
+    private SshMachineLocation machine;
+    private TestEntity entity;
+    private SshFeed feed;
+    
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        LocalProcessSshTool.execCount.set(0);
+        machine = mgmt.getLocationManager().createLocation(LocationSpec.create(SshMachineLocation.class)
+                .configure("address", Networking.getLocalHost())
+                .configure(SshTool.PROP_TOOL_CLASS, LocalProcessSshTool.class.getName()));
+        entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() throws Exception {
+        if (feed != null) feed.stop();
+        super.tearDown();
+    }
+    
+    @Test
+    public void testCoalescesPollsWithSamePeriod() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .period(Duration.ONE_HOUR)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command("echo hello")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<String>(SENSOR_STRING2)
+                        .command("echo $GREETING; printf 'no newline'")
+                        .env("GREETING", "hi \"there\"")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<String>(SENSOR_STDERR)
+                        .command("echo oops >&2; exit 3")
+                        .onFailure(SshValueFunctions.stderr()))
+                .poll(new SshPollConfig<Integer>(SENSOR_INT)
+                        .command("exit 123")
+                        .checkSuccess(Predicates.alwaysTrue())
+                        .onSuccess(SshValueFunctions.exitStatus()))
+                .build();
+        
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING, "hello\n");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING2, "hi \"there\"\nno newline");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STDERR, "oops\n");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_INT, 123);
+        assertEquals(LocalProcessSshTool.execCount.get(), 1);
+    }
+    
+    @Test
+    public void testCoalescedPollStopsAtFirstFailingLine() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .period(Duration.ONE_HOUR)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command("echo before; false; echo after")
+                        .onFailure(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<Integer>(SENSOR_INT)
+                        .command("false; exit 123")
+                        .checkSuccess(Predicates.alwaysTrue())
+                        .onSuccess(SshValueFunctions.exitStatus()))
+                .build();
+        
+        // as with bash -e, which is used when polls are not coalesced
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING, "before\n");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_INT, 1);
+        assertEquals(LocalProcessSshTool.execCount.get(), 1);
+    }
+    
+    @Test
+    public void testDoesNotCoalescePollsWithDifferentPeriods() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .period(Duration.ONE_HOUR)
+                        .command("echo hello")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<String>(SENSOR_STRING2)
+                        .period(Duration.ONE_DAY)
+                        .command("echo bye")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .build();
+        
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING, "hello\n");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING2, "bye\n");
+        assertEquals(LocalProcessSshTool.execCount.get(), 2);
+    }
+    
+    @Test
+    public void testCoalescingCanBeDisabled() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .period(Duration.ONE_HOUR)
+                .coalescePolls(false)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command("echo hello")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .poll(new SshPollConfig<String>(SENSOR_STRING2)
+                        .command("echo bye")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .build();
+        
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING, "hello\n");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING2, "bye\n");
+        assertEquals(LocalProcessSshTool.execCount.get(), 2);
+    }
+    
+    @Test
+    public void testExceptionInOneHandlerDoesNotAffectOthers() throws Exception {
+        feed = SshFeed.builder()
+                .entity(entity)
+                .machine(machine)
+                .period(Duration.ONE_HOUR)
+                .poll(new SshPollConfig<String>(SENSOR_STRING)
+                        .command("echo hello")
+                        .checkSuccess(new Predicate<SshPollValue>() {
+                            @Override public boolean apply(SshPollValue input) {
+                                throw new IllegalStateException("simulated failure");
+                            }})
+                        .onException(Functions.constant("failed")))
+                .poll(new SshPollConfig<String>(SENSOR_STRING2)
+                        .command("echo bye")
+                        .onSuccess(SshValueFunctions.stdout()))
+                .build();
+        
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING, "failed");
+        EntityTestUtils.assertAttributeEqualsEventually(entity, SENSOR_STRING2, "bye\n");
+    }
+    
+    @Test
+    public void testCoalescedPollWhenScriptKilled() throws Exception {
+        CoalescedSshPoll poll = new CoalescedSshPoll(ImmutableList.of("echo a", "echo b"), 
+                Arrays.<Map<String,String>>asList(null, null));
+        List<String> script = poll.getScript();
+        assertEquals(script.size(), 2);
+
+        // output from running just the first command, as if killed before the second completed
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        new ProcessTool().execScript(
+                MutableMap.of(SshTool.PROP_OUT_STREAM.getName(), out, SshTool.PROP_ERR_STREAM.getName(), err, SshTool.PROP_NO_EXTRA_OUTPUT.getName(), true),
+                ImmutableList.of(script.get(0), "exit 9"));
+        List<SshPollValue> values = poll.parse(machine, 9, new String(out.toByteArray()), new String(err.toByteArray()));
+        
+        assertEquals(values.get(0).getExitStatus(), 0);
+        assertEquals(values.get(0).getStdout(), "a\n");
+        assertEquals(values.get(0).getStderr(), "");
+        assertEquals(values.get(1).getExitStatus(), 9);
+        assertEquals(values.get(1).getStdout(), null);
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.basic;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.Entities;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.entity.LocalManagementContextForTests;
+import brooklyn.util.internal.ssh.RecordingSshTool;
+import brooklyn.util.internal.ssh.SshTool;
+import brooklyn.util.time.Duration;
+import brooklyn.util.time.Time;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class SshConnectionManagerTest {
+
+    private static final long TIMEOUT_MS = 10*1000;
+
+    private static final Map<String, ?> KEY1 = ImmutableMap.of("host", "host1", "user", "bob");
+    private static final Map<String, ?> KEY2 = ImmutableMap.of("host", "host1", "user", "alice");
+
+    private SshConnectionManager manager;
+    private ExecutorService executor;
+    private List<SshTool> created;
+    private Supplier<SshTool> connector;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        manager = new SshConnectionManager(2, Duration.ONE_MINUTE, Duration.TEN_SECONDS);
+        executor = Executors.newCachedThreadPool();
+        created = Lists.newCopyOnWriteArrayList();
+        connector = new Supplier<SshTool>() {
+            @Override public SshTool get() {
+                SshTool result = new RecordingSshTool(ImmutableMap.of());
+                result.connect();
+                created.add(result);
+                return result;
+            }
+        };
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (manager != null) manager.close();
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    public void testReusesConnectionForSameKey() throws Exception {
+        SshTool tool1 = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        SshTool tool2 = manager.exec(ImmutableMap.copyOf(KEY1), "host1:22", connector, new CapturingTask());
+
+        assertSame(tool1, tool2);
+        assertEquals(created.size(), 1);
+        SshConnectionManager.Stats stats = manager.getStats();
+        assertEquals(stats.getConnectCount(), 1);
+        assertEquals(stats.getLeaseCount(), 2);
+        assertEquals(stats.getReuseRatio(), 0.5, 0.0001);
+        assertEquals(stats.getOpenConnectionCount(), 1);
+        assertEquals(stats.getActiveConnectionCount(), 0);
+    }
+
+    @Test
+    public void testDifferentKeysUseDifferentConnections() throws Exception {
+        SshTool tool1 = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        SshTool tool2 = manager.exec(KEY2, "host1:22", connector, new CapturingTask());
+
+        assertNotSame(tool1, tool2);
+        assertEquals(manager.getStats().getConnectCount(), 2);
+    }
+
+    @Test
+    public void testConcurrentCallersUseSeparateConnections() throws Exception {
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final Set<SshTool> toolsSeen = Sets.newConcurrentHashSet();
+        Callable<Void> job = new Callable<Void>() {
+            @Override public Void call() {
+                manager.exec(KEY1, "host1:22", connector, new Function<SshTool, Void>() {
+                    @Override public Void apply(SshTool input) {
+                        toolsSeen.add(input);
+                        bothRunning.countDown();
+                        awaitQuietly(bothRunning);
+                        return null;
+                    }});
+                return null;
+            }
+        };
+        Future<?> f1 = executor.submit(job);
+        Future<?> f2 = executor.submit(job);
+        f1.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        f2.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(toolsSeen.size(), 2);
+        assertEquals(created.size(), 2);
+        assertEquals(manager.getStats().getOpenConnectionCount(), 2);
+        
+        // both are kept for reuse
+        SshTool tool = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        assertTrue(toolsSeen.contains(tool));
+        assertEquals(created.size(), 2);
+    }
+
+    @Test
+    public void testDisconnectsIfTaskFails() throws Exception {
+        final List<SshTool> toolsSeen = Lists.newArrayList();
+        try {
+            manager.exec(KEY1, "host1:22", connector, new Function<SshTool, Void>() {
+                @Override public Void apply(SshTool input) {
+                    toolsSeen.add(input);
+                    throw new IllegalStateException("Simulating failure");
+                }});
+            fail();
+        } catch (IllegalStateException e) {
+            if (!e.toString().contains("Simulating failure")) throw e;
+        }
+        
+        assertFalse(toolsSeen.get(0).isConnected());
+        assertEquals(manager.getStats().getOpenConnectionCount(), 0);
+        SshTool tool = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        assertNotSame(tool, toolsSeen.get(0));
+    }
+
+    @Test
+    public void testWaitsForConnectionWhenHostAtLimit() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(2);
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        Callable<Void> job = new Callable<Void>() {
+            @Override public Void call() {
+                manager.exec(KEY1, "host1:22", connector, new Function<SshTool, Void>() {
+                    @Override public Void apply(SshTool input) {
+                        int now = concurrent.incrementAndGet();
+                        maxConcurrent.set(Math.max(maxConcurrent.get(), now));
+                        started.countDown();
+                        awaitQuietly(release);
+                        concurrent.decrementAndGet();
+                        return null;
+                    }});
+                return null;
+            }
+        };
+        List<Future<?>> futures = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            futures.add(executor.submit(job));
+        }
+        assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        Time.sleep(Duration.millis(100));
+        assertEquals(concurrent.get(), 2);
+        assertEquals(manager.getStats().getActiveConnectionCount(), 2);
+
+        // a different host is not limited by the first
+        manager.exec(KEY1, "host2:22", connector, new CapturingTask());
+
+        release.countDown();
+        for (Future<?> f : futures) {
+            f.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(maxConcurrent.get(), 2);
+        assertTrue(manager.getStats().getMaxConnectionWaitTime().isLongerThan(Duration.millis(50)), "stats="+manager.getStats());
+    }
+
+    @Test
+    public void testFailsIfNoConnectionWithinTimeout() throws Exception {
+        manager = new SshConnectionManager(1, Duration.ONE_MINUTE, Duration.millis(10));
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<?> f = executor.submit(new Callable<Void>() {
+            @Override public Void call() {
+                manager.exec(KEY1, "host1:22", connector, new Function<SshTool, Void>() {
+                    @Override public Void apply(SshTool input) {
+                        started.countDown();
+                        awaitQuietly(release);
+                        return null;
+                    }});
+                return null;
+            }});
+        try {
+            assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+            fail();
+        } catch (IllegalStateException e) {
+            if (!e.toString().contains("waiting for one of 1 ssh connections to host1:22")) throw e;
+        } finally {
+            release.countDown();
+        }
+        f.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testReconnectsIfNoLongerConnected() throws Exception {
+        SshTool tool1 = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        tool1.disconnect();
+        SshTool tool2 = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+
+        assertNotSame(tool1, tool2);
+        assertTrue(tool2.isConnected());
+        assertEquals(manager.getStats().getConnectCount(), 2);
+        assertEquals(manager.getStats().getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testEvictsIdleConnections() throws Exception {
+        manager = new SshConnectionManager(2, Duration.millis(1), Duration.TEN_SECONDS);
+        SshTool tool = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        Time.sleep(Duration.millis(10));
+        manager.evictIdleConnections();
+
+        assertFalse(tool.isConnected());
+        assertEquals(manager.getStats().getOpenConnectionCount(), 0);
+        assertEquals(manager.getStats().getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testEvictsUsingIdleTimeoutGivenByCaller() throws Exception {
+        SshTool tool1 = manager.exec(KEY1, "host1:22", Duration.millis(1), connector, new CapturingTask());
+        SshTool tool2 = manager.exec(KEY2, "host1:22", connector, new CapturingTask());
+        Time.sleep(Duration.millis(10));
+        manager.evictIdleConnections();
+
+        assertFalse(tool1.isConnected());
+        assertTrue(tool2.isConnected());
+        assertEquals(manager.getStats().getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testDoesNotEvictConnectionInUse() throws Exception {
+        manager = new SshConnectionManager(2, Duration.millis(1), Duration.TEN_SECONDS);
+        SshTool tool = manager.exec(KEY1, "host1:22", connector, new Function<SshTool, SshTool>() {
+            @Override public SshTool apply(SshTool input) {
+                Time.sleep(Duration.millis(10));
+                manager.evictIdleConnections();
+                assertTrue(input.isConnected());
+                return input;
+            }});
+        assertTrue(tool.isConnected());
+        assertEquals(manager.getStats().getEvictionCount(), 0);
+    }
+
+    @Test
+    public void testInvalidateClosesAfterInUseConnectionReleased() throws Exception {
+        SshTool tool = manager.exec(KEY1, "host1:22", connector, new Function<SshTool, SshTool>() {
+            @Override public SshTool apply(SshTool input) {
+                manager.invalidate(KEY1);
+                assertTrue(input.isConnected());
+                return input;
+            }});
+        assertFalse(tool.isConnected());
+
+        SshTool tool2 = manager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        assertNotSame(tool, tool2);
+    }
+
+    @Test
+    public void testClosedWhenManagementContextTerminates() throws Exception {
+        LocalManagementContext mgmt = LocalManagementContextForTests.newInstance();
+        SshConnectionManager mgmtManager = SshConnectionManager.forManagementContext(mgmt);
+        assertSame(SshConnectionManager.forManagementContext(mgmt), mgmtManager);
+        SshTool tool = mgmtManager.exec(KEY1, "host1:22", connector, new CapturingTask());
+        assertTrue(tool.isConnected());
+        
+        Entities.destroyAll(mgmt);
+        assertFalse(tool.isConnected());
+        assertEquals(mgmtManager.getStats().getOpenConnectionCount(), 0);
+    }
+
+    private static class CapturingTask implements Function<SshTool, SshTool> {
+        @Override public SshTool apply(SshTool input) {
+            return input;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -113,6 +113,52 @@ public class SshMachineLocationTest {
         }
     }
     
+    @Test
+    public void testManagedLocationsShareSshConnections() throws Exception {
+        LocationSpec<SshMachineLocation> spec = LocationSpec.create(SshMachineLocation.class)
+                .configure("address", Networking.getLocalHost())
+                .configure(SshTool.PROP_TOOL_CLASS, RecordingSshTool.class.getName());
+        SshMachineLocation host1 = mgmt.getLocationManager().createLocation(spec);
+        SshMachineLocation host2 = mgmt.getLocationManager().createLocation(spec);
+        
+        host1.execCommands("one", ImmutableList.of("true"));
+        host2.execCommands("two", ImmutableList.of("true"));
+        host1.execScript("three", ImmutableList.of("true"));
+        
+        SshConnectionManager.Stats stats = SshConnectionManager.forManagementContext(mgmt).getStats();
+        assertEquals(stats.getConnectCount(), 1, "stats="+stats);
+        assertEquals(stats.getLeaseCount(), 3, "stats="+stats);
+    }
+    
+    @Test
+    public void testClosingLocationDisconnectsItsSharedSshConnections() throws Exception {
+        SshMachineLocation host1 = mgmt.getLocationManager().createLocation(LocationSpec.create(SshMachineLocation.class)
+                .configure("address", Networking.getLocalHost())
+                .configure(SshTool.PROP_TOOL_CLASS, RecordingSshTool.class.getName()));
+        host1.execCommands("one", ImmutableList.of("true"));
+        SshConnectionManager sharedConnections = SshConnectionManager.forManagementContext(mgmt);
+        assertEquals(sharedConnections.getStats().getOpenConnectionCount(), 1);
+        
+        host1.close();
+        assertEquals(sharedConnections.getStats().getOpenConnectionCount(), 0);
+    }
+    
+    @Test
+    public void testSharedSshConnectionsHonourLocationExpiry() throws Exception {
+        SshMachineLocation host1 = mgmt.getLocationManager().createLocation(LocationSpec.create(SshMachineLocation.class)
+                .configure("address", Networking.getLocalHost())
+                .configure(SshMachineLocation.SSH_CACHE_EXPIRY_DURATION, Duration.ONE_SECOND)
+                .configure(SshTool.PROP_TOOL_CLASS, RecordingSshTool.class.getName()));
+        host1.execCommands("one", ImmutableList.of("true"));
+        final SshConnectionManager sharedConnections = SshConnectionManager.forManagementContext(mgmt);
+        
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(sharedConnections.getStats().getOpenConnectionCount(), 0);
+                assertEquals(sharedConnections.getStats().getEvictionCount(), 1);
+            }});
+    }
+    
     @Test
     public void testSupplyingMachineDetails() throws Exception {
         MachineDetails machineDetails = new BasicMachineDetails(new BasicHardwareDetails(1, 1024), new BasicOsDetails("myname", "myarch", "myversion"));
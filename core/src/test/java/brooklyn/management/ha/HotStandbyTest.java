@@ -20,6 +20,7 @@ package brooklyn.management.ha;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.ArrayDeque;
@@ -69,6 +70,7 @@ import brooklyn.util.time.Duration;
 import brooklyn.util.time.Time;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 public class HotStandbyTest {
 
@@ -329,6 +331,51 @@ public class HotStandbyTest {
         Assert.assertNull(n2.mgmt.lookup(child.getId(), Application.class));
     }
 
+    @Test
+    public void testHotStandbyReadsOnlyChangedObjects() throws Exception {
+        HaMgmtNode n1 = createMaster(Duration.PRACTICALLY_FOREVER);
+        TestApplication app = createFirstAppAndPersist(n1);
+        List<TestEntity> children = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            children.add(app.createAndManageChild(EntitySpec.create(TestEntity.class)));
+        }
+        forcePersistNow(n1);
+        HaMgmtNode n2 = createHotStandby(Duration.PRACTICALLY_FOREVER);
+        BrooklynMementoPersisterToObjectStore n2Persister = (BrooklynMementoPersisterToObjectStore) n2.mgmt.getRebindManager().getPersister();
+        
+        // nothing changed: nothing re-read, and the rebind is skipped
+        long numReads = n2Persister.getNumObjectsRead();
+        int numUnchanged = (Integer) n2.rebinder().getMetrics().get("rebindReadOnlyUnchangedCount");
+        forceRebindNow(n2);
+        assertEquals(n2Persister.getNumObjectsRead(), numReads);
+        numUnchanged = assertUnchangedCountIncreased(n2, numUnchanged);
+        
+        // just the changed entity re-read, and the change applied
+        children.get(0).setAttribute(TestEntity.SEQUENCE, 123);
+        forcePersistNow(n1);
+        forceRebindNow(n2);
+        assertEquals(n2Persister.getNumObjectsRead(), numReads+1);
+        assertEquals(n2.mgmt.lookup(children.get(0).getId(), Entity.class).getAttribute(TestEntity.SEQUENCE), (Integer)123);
+        
+        // removals applied
+        Entities.unmanage(children.get(1));
+        forcePersistNow(n1);
+        forceRebindNow(n2);
+        assertNull(n2.mgmt.lookup(children.get(1).getId(), Entity.class));
+        assertEquals(appRO(n2, app).getChildren().size(), 9);
+    }
+
+    private int assertUnchangedCountIncreased(HaMgmtNode hotStandby, int previous) {
+        // other read-only rebinds may also have run in the background
+        int count = (Integer) hotStandby.rebinder().getMetrics().get("rebindReadOnlyUnchangedCount");
+        assertTrue(count > previous, "count="+count+"; previous="+previous);
+        return count;
+    }
+
+    private Application appRO(HaMgmtNode hotStandby, Application app) {
+        return hotStandby.mgmt.lookup(app.getId(), Application.class);
+    }
+
     @Test(groups="Integration", invocationCount=50)
     public void testHotStandbySeesStructuralChangesIncludingRemovalManyTimes() throws Exception {
         doTestHotStandbySeesStructuralChangesIncludingRemoval(true);
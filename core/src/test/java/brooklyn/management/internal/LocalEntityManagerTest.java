@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.BrooklynAppUnitTestSupport;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.BasicEntity;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.test.entity.TestEntityImpl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+/**
+ * Tests the indexed lookups of {@link LocalEntityManager}.
+ */
+public class LocalEntityManagerTest extends BrooklynAppUnitTestSupport {
+
+    private EntityManagerInternal entityManager;
+    private TestEntity entity;
+    private TestEntity grandchild;
+    private BasicEntity basic;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        entityManager = (EntityManagerInternal) mgmt.getEntityManager();
+        entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        grandchild = entity.addChild(EntitySpec.create(TestEntity.class));
+        Entities.manage(grandchild);
+        basic = app.createAndManageChild(EntitySpec.create(BasicEntity.class));
+    }
+
+    @Test
+    public void testGetEntitiesInManagementOrder() throws Exception {
+        assertEquals(ImmutableList.copyOf(entityManager.getEntities()), ImmutableList.of(app, entity, grandchild, basic));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntityIds()), ImmutableList.of(app.getId(), entity.getId(), grandchild.getId(), basic.getId()));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesInApplication(app)), ImmutableList.of(app, entity, grandchild, basic));
+    }
+
+    @Test
+    public void testGetEntitiesInApplicationExcludesOtherApps() throws Exception {
+        TestApplication app2 = TestApplication.Factory.newManagedInstanceForTests(mgmt);
+        TestEntity other = app2.createAndManageChild(EntitySpec.create(TestEntity.class));
+
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesInApplication(app)), ImmutableSet.of(app, entity, grandchild, basic));
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesInApplication(app2)), ImmutableSet.of(app2, other));
+    }
+
+    @Test
+    public void testGetEntitiesOfType() throws Exception {
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesOfType(TestEntity.class)), ImmutableSet.of(entity, grandchild));
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesOfType(TestEntityImpl.class)), ImmutableSet.of(entity, grandchild));
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesOfType(BasicEntity.class)), ImmutableSet.of(basic));
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesOfType(Entity.class)), ImmutableSet.of(app, entity, grandchild, basic));
+        assertTrue(Iterables.isEmpty(entityManager.getEntitiesOfType(String.class)));
+    }
+
+    @Test
+    public void testGetEntitiesWithParent() throws Exception {
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesWithParent(app.getId())), ImmutableList.of(entity, basic));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesWithParent(entity.getId())), ImmutableList.of(grandchild));
+        assertTrue(Iterables.isEmpty(entityManager.getEntitiesWithParent(grandchild.getId())));
+    }
+
+    @Test
+    public void testGetEntitiesWithParentUpdatedOnRemoveChild() throws Exception {
+        entity.removeChild(grandchild);
+
+        assertTrue(Iterables.isEmpty(entityManager.getEntitiesWithParent(entity.getId())));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntities()), ImmutableList.of(app, entity, grandchild, basic));
+    }
+
+    @Test
+    public void testGetEntitiesWithTagUpdatedOnTagChange() throws Exception {
+        assertTrue(Iterables.isEmpty(entityManager.getEntitiesWithTag("mytag")));
+
+        entity.tags().addTag("mytag");
+        grandchild.tags().addTag("mytag");
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesWithTag("mytag")), ImmutableSet.of(entity, grandchild));
+
+        entity.tags().removeTag("mytag");
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesWithTag("mytag")), ImmutableSet.of(grandchild));
+    }
+
+    @Test
+    public void testUnmanagedEntitiesRemovedFromIndexes() throws Exception {
+        entity.tags().addTag("mytag");
+        Entities.unmanage(entity);
+
+        assertNull(entityManager.getEntity(entity.getId()));
+        assertNull(entityManager.getEntity(grandchild.getId()));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntities()), ImmutableList.of(app, basic));
+        assertEquals(ImmutableSet.copyOf(entityManager.getEntitiesOfType(TestEntity.class)), ImmutableSet.of());
+        assertTrue(Iterables.isEmpty(entityManager.getEntitiesWithTag("mytag")));
+        assertEquals(ImmutableList.copyOf(entityManager.getEntitiesWithParent(app.getId())), ImmutableList.of(basic));
+    }
+}
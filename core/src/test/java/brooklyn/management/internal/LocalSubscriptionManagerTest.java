@@ -19,6 +19,7 @@
 package brooklyn.management.internal;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.List;
@@ -40,6 +41,9 @@ import brooklyn.event.SensorEventListener;
 import brooklyn.management.SubscriptionHandle;
 import brooklyn.management.SubscriptionManager;
 import brooklyn.test.entity.TestEntity;
+import brooklyn.util.task.BasicExecutionManager;
+
+import com.google.common.collect.ImmutableList;
 
 /**
  * testing the {@link SubscriptionManager} and associated classes.
@@ -140,6 +144,71 @@ public class LocalSubscriptionManagerTest extends BrooklynAppUnitTestSupport {
         assertEquals(events.get(0).getSource().getId(), member.getId());
     }
     
+    @Test
+    public void testSubscriptionChangesSeenAfterPublishing() throws Exception {
+        final List<Integer> events = new CopyOnWriteArrayList<Integer>();
+        SensorEventListener<Integer> listener = new SensorEventListener<Integer>() {
+            @Override public void onEvent(SensorEvent<Integer> event) {
+                events.add(event.getValue());
+            }};
+        SubscriptionManager subscriptionManager = mgmt.getSubscriptionManager();
+        
+        // publish first, so matching subscriptions for this entity+sensor have already been resolved
+        entity.setAttribute(TestEntity.SEQUENCE, 1);
+        assertEquals(subscriptionManager.getSubscriptionsForEntitySensor(entity, TestEntity.SEQUENCE).size(), 0);
+        
+        SubscriptionHandle handle = app.subscribe(entity, TestEntity.SEQUENCE, listener);
+        SubscriptionHandle wildcardHandle = app.subscribe(null, TestEntity.SEQUENCE, listener);
+        assertEquals(subscriptionManager.getSubscriptionsForEntitySensor(entity, TestEntity.SEQUENCE).size(), 2);
+        entity.setAttribute(TestEntity.SEQUENCE, 2);
+        
+        app.unsubscribe(entity, handle);
+        app.unsubscribe(null, wildcardHandle);
+        assertEquals(subscriptionManager.getSubscriptionsForEntitySensor(entity, TestEntity.SEQUENCE).size(), 0);
+        entity.setAttribute(TestEntity.SEQUENCE, 3);
+        
+        // a final subscription, to know when all earlier deliveries have completed
+        final CountDownLatch latch = new CountDownLatch(1);
+        app.subscribe(entity, TestEntity.SEQUENCE, new SensorEventListener<Integer>() {
+            @Override public void onEvent(SensorEvent<Integer> event) {
+                latch.countDown();
+            }});
+        entity.setAttribute(TestEntity.SEQUENCE, 4);
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for Event on TestEntity listener");
+        }
+        assertEquals(events, ImmutableList.of(2, 2), "events="+events);
+    }
+    
+    @Test
+    public void testEventsDeliveredInOrderInBatches() throws Exception {
+        final int numEvents = 1000;
+        final List<Integer> events = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        app.subscribe(entity, TestEntity.SEQUENCE, new SensorEventListener<Integer>() {
+            @Override public void onEvent(SensorEvent<Integer> event) {
+                events.add(event.getValue());
+                if (event.getValue() == numEvents-1) latch.countDown();
+            }});
+        
+        BasicExecutionManager em = (BasicExecutionManager) mgmt.getExecutionManager();
+        long tasksBefore = em.getTotalTasksSubmitted();
+        for (int i = 0; i < numEvents; i++) {
+            entity.setAttribute(TestEntity.SEQUENCE, i);
+        }
+        if (!latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            fail("Timeout waiting for Event on TestEntity listener");
+        }
+        long tasksSubmitted = em.getTotalTasksSubmitted() - tasksBefore;
+        
+        assertEquals(events.size(), numEvents);
+        for (int i = 0; i < numEvents; i++) {
+            assertEquals(events.get(i), (Integer)i);
+        }
+        // expect far fewer tasks than events, as subscription deliveries are batched
+        assertTrue(tasksSubmitted < numEvents/2, "tasksSubmitted="+tasksSubmitted);
+    }
+    
     // Regression test for ConcurrentModificationException in issue #327
     @Test(groups="Integration")
     public void testConcurrentSubscribingAndPublishing() throws Exception {
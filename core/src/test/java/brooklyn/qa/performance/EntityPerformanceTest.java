@@ -20,24 +20,30 @@ package brooklyn.qa.performance;
 
 import static org.testng.Assert.assertTrue;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.basic.Entities;
 import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.event.AttributeSensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.AttributeMap;
 import brooklyn.management.Task;
 import brooklyn.test.Asserts;
 import brooklyn.test.entity.TestEntity;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.flags.TypeCoercions;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class EntityPerformanceTest extends AbstractPerformanceTest {
 
@@ -99,6 +105,68 @@ public class EntityPerformanceTest extends AbstractPerformanceTest {
             }});
     }
 
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetAttribute() {
+        int numIterations = numIterations() * 100;
+        double minRatePerSec = 100000 * PERFORMANCE_EXPECTATION;
+        entity.setAttribute(TestEntity.SEQUENCE, 123);
+        
+        measureAndAssert("getAttribute", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                entity.getAttribute(TestEntity.SEQUENCE);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testGetConfig() {
+        int numIterations = numIterations() * 100;
+        double minRatePerSec = 100000 * PERFORMANCE_EXPECTATION;
+        entity.setConfig(TestEntity.CONF_NAME, "myval");
+        final TestEntity child = entity.addChild(EntitySpec.create(TestEntity.class));
+        
+        measureAndAssert("getConfig", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                entity.getConfig(TestEntity.CONF_NAME);
+            }});
+        measureAndAssert("getConfigInherited", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                child.getConfig(TestEntity.CONF_NAME);
+            }});
+    }
+
+    /**
+     * Compares reads and writes through {@link AttributeMap} (with interned keys and no coercion when 
+     * the value already has the right type) against the equivalent using a plain list key and always coercing,
+     * which is how the attribute map used to behave.
+     */
+    @Test(groups={"Integration", "Acceptance"})
+    public void testAttributeMapGetAndSetComparedWithUninternedKeys() {
+        int numIterations = numIterations() * 100;
+        double minRatePerSec = 100000 * PERFORMANCE_EXPECTATION;
+        final AttributeMap map = new AttributeMap((AbstractEntity) Entities.deproxy(entity), Maps.<Collection<String>, Object>newConcurrentMap());
+        final AttributeSensor<Integer> sensor = TestEntity.SEQUENCE;
+        final List<String> plainKey = ImmutableList.copyOf(sensor.getNameParts());
+        final AtomicInteger i = new AtomicInteger();
+        map.updateWithoutPublishing(sensor, 0);
+        
+        measureAndAssert("attributeMapSet", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                map.updateWithoutPublishing(sensor, i.getAndIncrement());
+            }});
+        measureAndAssert("attributeMapSetUninternedKey", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                map.update(plainKey, i.getAndIncrement());
+            }});
+        measureAndAssert("attributeMapGet", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                map.getValue(sensor);
+            }});
+        measureAndAssert("attributeMapGetUninternedKeyAndCoerce", numIterations, minRatePerSec, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce(map.getValue(plainKey), sensor.getType());
+            }});
+    }
+
     @Test(groups={"Integration", "Acceptance"})
     public void testInvokeEffector() {
         int numIterations = numIterations();
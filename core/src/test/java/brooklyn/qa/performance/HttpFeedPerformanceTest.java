@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.qa.performance;
+
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.event.feed.http.HttpFeed;
+import brooklyn.event.feed.http.HttpPollConfig;
+import brooklyn.event.feed.http.HttpValueFunctions;
+import brooklyn.event.feed.http.SharedHttpConnectionPool;
+import brooklyn.internal.BrooklynFeatureEnablement;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.http.BetterMockWebServer;
+import brooklyn.util.time.Duration;
+import brooklyn.util.time.Time;
+
+import com.google.common.collect.Lists;
+import com.google.mockwebserver.Dispatcher;
+import com.google.mockwebserver.MockResponse;
+import com.google.mockwebserver.RecordedRequest;
+
+/**
+ * Polls stub http servers (each standing in for a node of a cluster) from many {@link HttpFeed}s, 
+ * comparing the shared connection pool with a client (and connection manager) per poll.
+ */
+public class HttpFeedPerformanceTest extends AbstractPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpFeedPerformanceTest.class);
+
+    private static final int NUM_SERVERS = 10;
+    private static final int NUM_FEEDS_PER_SERVER = 10;
+    private static final Duration POLL_PERIOD = Duration.millis(10);
+    private static final Duration RUN_TIME = Duration.TEN_SECONDS;
+
+    private List<BetterMockWebServer> servers;
+    private AtomicInteger numRequests;
+    private AtomicInteger numConnections;
+    private List<HttpFeed> feeds;
+    private boolean origSharedPoolEnablement;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        origSharedPoolEnablement = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL);
+        numRequests = new AtomicInteger();
+        numConnections = new AtomicInteger();
+        feeds = Lists.newArrayList();
+        servers = Lists.newArrayList();
+        Dispatcher dispatcher = new Dispatcher() {
+            @Override public MockResponse dispatch(RecordedRequest request) {
+                numRequests.incrementAndGet();
+                if (request.getSequenceNumber() == 0) numConnections.incrementAndGet();
+                return new MockResponse().setResponseCode(200).setBody("{\"foo\":\"myfoo\"}");
+            }};
+        for (int i = 0; i < NUM_SERVERS; i++) {
+            BetterMockWebServer server = BetterMockWebServer.newInstanceLocalhost();
+            server.setDispatcher(dispatcher);
+            server.play();
+            servers.add(server);
+        }
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() throws Exception {
+        for (HttpFeed feed : feeds) {
+            feed.stop();
+        }
+        BrooklynFeatureEnablement.setEnablement(BrooklynFeatureEnablement.FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL, origSharedPoolEnablement);
+        for (BetterMockWebServer server : servers) {
+            server.shutdown();
+        }
+        super.tearDown();
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testPollsWithSharedConnectionPool() throws Exception {
+        BrooklynFeatureEnablement.enable(BrooklynFeatureEnablement.FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL);
+        double pollsPerSec = runFeeds("httpFeedSharedConnectionPool");
+
+        // connections are kept alive between polls, so should be far fewer connections than requests
+        assertTrue(numConnections.get() < numRequests.get() / 10, "connections="+numConnections+"; requests="+numRequests);
+        assertTrue(numConnections.get() <= NUM_SERVERS * SharedHttpConnectionPool.MAX_CONNECTIONS_PER_ROUTE.getDefaultValue(), 
+                "connections="+numConnections);
+        assertTrue(pollsPerSec > 100 * PERFORMANCE_EXPECTATION, "pollsPerSec="+pollsPerSec);
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testPollsWithClientPerPoll() throws Exception {
+        BrooklynFeatureEnablement.disable(BrooklynFeatureEnablement.FEATURE_HTTP_FEED_SHARED_CONNECTION_POOL);
+        double pollsPerSec = runFeeds("httpFeedClientPerPoll");
+
+        assertTrue(pollsPerSec > 100 * PERFORMANCE_EXPECTATION, "pollsPerSec="+pollsPerSec);
+    }
+
+    protected double runFeeds(String prefix) throws Exception {
+        for (BetterMockWebServer server : servers) {
+            for (int i = 0; i < NUM_FEEDS_PER_SERVER; i++) {
+                TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+                feeds.add(HttpFeed.builder()
+                        .entity(entity)
+                        .baseUrl(server.getUrl("/"+i))
+                        .poll(new HttpPollConfig<Integer>(TestEntity.SEQUENCE)
+                                .period(POLL_PERIOD)
+                                .onSuccess(HttpValueFunctions.responseCode()))
+                        .build());
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        Time.sleep(RUN_TIME);
+        int requests = numRequests.get();
+        long duration = System.currentTimeMillis() - startTime;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        double pollsPerSec = requests * 1000d / duration;
+        String msg = prefix+": "+feeds.size()+" feeds, "+requests+" polls in "+Time.makeTimeStringRounded(duration)
+                +" ("+pollsPerSec+" per sec); "+numConnections+" connections; "+threads+" live threads";
+        LOG.info(msg);
+        System.out.println(msg);
+        return pollsPerSec;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.qa.performance;
+
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.entity.basic.ApplicationBuilder;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.entity.rebind.RebindExceptionHandlerImpl;
+import brooklyn.entity.rebind.RebindTestUtils;
+import brooklyn.entity.rebind.persister.BrooklynMementoPersisterToObjectStore;
+import brooklyn.entity.rebind.persister.FileBasedObjectStore;
+import brooklyn.entity.rebind.persister.MementoFormat;
+import brooklyn.event.basic.Sensors;
+import brooklyn.management.ha.ManagementNodeState;
+import brooklyn.mementos.BrooklynMementoPersister;
+import brooklyn.mementos.BrooklynMementoRawData;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.os.Os;
+import brooklyn.util.time.Time;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.Files;
+
+/**
+ * Compares the size of the persisted state, and the time to rebind, for each {@link MementoFormat}.
+ */
+public class MementoFormatPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MementoFormatPerformanceTest.class);
+
+    private static final int NUM_ENTITIES = 200;
+    private static final int NUM_ATTRIBUTES_PER_ENTITY = 20;
+    private static final int NUM_REBINDS = 3;
+
+    private final ClassLoader classLoader = getClass().getClassLoader();
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testBinaryFormatSmallerAndRebindsFaster() throws Exception {
+        Map<MementoFormat, long[]> results = MutableMap.of();
+        for (MementoFormat format : MementoFormat.values()) {
+            results.put(format, run(format));
+        }
+        for (Map.Entry<MementoFormat, long[]> entry : results.entrySet()) {
+            LOG.info("Persisted "+NUM_ENTITIES+" entities as "+entry.getKey()+": "+entry.getValue()[0]+" bytes; "
+                    + "loading manifest took "+Time.makeTimeStringRounded(entry.getValue()[1])+", "
+                    + "rebind took "+Time.makeTimeStringRounded(entry.getValue()[2])+" (best of "+NUM_REBINDS+")");
+        }
+        assertTrue(results.get(MementoFormat.BINARY)[0] < results.get(MementoFormat.XML)[0], "sizes: binary="+results.get(MementoFormat.BINARY)[0]+"; xml="+results.get(MementoFormat.XML)[0]);
+    }
+
+    /** returns the size of the persisted state, and the fastest times in millis to load the manifest and to rebind */
+    protected long[] run(MementoFormat format) throws Exception {
+        File mementoDir = Os.newTempDir(getClass());
+        LocalManagementContext origManagementContext = RebindTestUtils.managementContextBuilder(mementoDir, classLoader)
+                .properties(newProperties(format))
+                .buildStarted();
+        try {
+            TestApplication app = ApplicationBuilder.newManagedApp(EntitySpec.create(TestApplication.class), origManagementContext);
+            for (int i = 0; i < NUM_ENTITIES; i++) {
+                TestEntity entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+                for (int j = 0; j < NUM_ATTRIBUTES_PER_ENTITY; j++) {
+                    entity.setAttribute(Sensors.newStringSensor("test.sensor"+j), "val"+i+"-"+j);
+                }
+            }
+            RebindTestUtils.waitForPersisted(app);
+            origManagementContext.getRebindManager().stopPersistence();
+            
+            long size = 0;
+            for (File f : Files.fileTreeTraverser().preOrderTraversal(mementoDir)) {
+                if (f.isFile()) size += f.length();
+            }
+            
+            long bestManifestTime = Long.MAX_VALUE;
+            long bestRebindTime = Long.MAX_VALUE;
+            for (int i = 0; i < NUM_REBINDS; i++) {
+                LocalManagementContext newManagementContext = RebindTestUtils.managementContextBuilder(mementoDir, classLoader)
+                        .properties(newProperties(format))
+                        .buildUnstarted();
+                try {
+                    BrooklynMementoPersister persister = newManagementContext.getRebindManager().getPersister();
+                    BrooklynMementoRawData rawData = persister.loadMementoRawData(RebindExceptionHandlerImpl.builder().build());
+                    Stopwatch stopwatch = Stopwatch.createStarted();
+                    persister.loadMementoManifest(rawData, RebindExceptionHandlerImpl.builder().build());
+                    bestManifestTime = Math.min(bestManifestTime, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                    
+                    stopwatch = Stopwatch.createStarted();
+                    newManagementContext.getRebindManager().rebind(classLoader, null, ManagementNodeState.MASTER);
+                    bestRebindTime = Math.min(bestRebindTime, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                } finally {
+                    newManagementContext.terminate();
+                }
+            }
+            return new long[] {size, bestManifestTime, bestRebindTime};
+        } finally {
+            Entities.destroyAll(origManagementContext);
+            FileBasedObjectStore.deleteCompletely(mementoDir);
+        }
+    }
+
+    protected BrooklynProperties newProperties(MementoFormat format) {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(BrooklynMementoPersisterToObjectStore.PERSISTER_FORMAT, format);
+        return result;
+    }
+}
@@ -22,6 +22,9 @@ import static org.testng.Assert.assertTrue;
 
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -165,4 +168,67 @@ public class SubscriptionPerformanceTest extends AbstractPerformanceTest {
             throw exception.get();
         }
     }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testManyThreadsPublishingConcurrently() throws Exception {
+        final int numThreads = 10;
+        final int numPublishesPerThread = 100;
+        int numIterations = NUM_ITERATIONS / numPublishesPerThread;
+        double minRatePerSec = 1 * PERFORMANCE_EXPECTATION; // i.e. 1*1000 events published per sec
+        final AtomicInteger iter = new AtomicInteger();
+        final int expectedCount = (numIterations + numIterations/10) * numThreads * numPublishesPerThread;
+        
+        final AtomicInteger listenerCount = new AtomicInteger();
+        final CountDownLatch completionLatch = new CountDownLatch(1);
+        
+        // one subscriber per entity, plus unrelated and wildcard-sensor subscriptions to exercise the index
+        for (int i = 0; i < numThreads; i++) {
+            subscriptionManager.subscribe(MutableMap.<String, Object>of("subscriber", i), entities.get(i), TestEntity.SEQUENCE, new SensorEventListener<Integer>() {
+                public void onEvent(SensorEvent<Integer> event) {
+                    int count = listenerCount.incrementAndGet();
+                    if (count >= expectedCount) completionLatch.countDown();
+                }});
+            subscriptionManager.subscribe(MutableMap.<String, Object>of("subscriber", "unrelated"+i), entities.get(i), TestEntity.MY_NOTIF, new SensorEventListener<Integer>() {
+                public void onEvent(SensorEvent<Integer> event) {
+                }});
+        }
+        
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            measureAndAssert("publishFromManyThreads", numIterations, minRatePerSec,
+                    new Runnable() {
+                        public void run() {
+                            List<Future<?>> futures = Lists.newArrayList();
+                            for (int i = 0; i < numThreads; i++) {
+                                final TestEntity publisher = entities.get(i);
+                                futures.add(executor.submit(new Runnable() {
+                                    public void run() {
+                                        for (int j = 0; j < numPublishesPerThread; j++) {
+                                            publisher.setAttribute(TestEntity.SEQUENCE, iter.getAndIncrement());
+                                        }
+                                    }}));
+                            }
+                            try {
+                                for (Future<?> future : futures) {
+                                    future.get();
+                                }
+                            } catch (Exception e) {
+                                throw Exceptions.propagate(e);
+                            }
+                        }
+                    },
+                    new Runnable() {
+                        public void run() {
+                            try {
+                                completionLatch.await(LONG_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                            } catch (InterruptedException e) {
+                                throw Exceptions.propagate(e);
+                            }
+                            assertTrue(completionLatch.getCount() <= 0);
+                        }
+                    });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
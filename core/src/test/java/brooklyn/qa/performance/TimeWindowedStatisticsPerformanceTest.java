@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.qa.performance;
+
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import brooklyn.util.collections.TimeWindowedList;
+import brooklyn.util.collections.TimeWindowedStatistics;
+import brooklyn.util.collections.TimestampedValue;
+import brooklyn.util.time.Duration;
+
+/**
+ * Compares the per-event cost of maintaining the mean and max over a sliding time window, 
+ * for small and large windows, using {@link TimeWindowedStatistics} and (for reference) 
+ * recomputing from a {@link TimeWindowedList}.
+ * <p>
+ * The cost with {@link TimeWindowedStatistics} should be (almost) independent of the number of values in the window.
+ */
+public class TimeWindowedStatisticsPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimeWindowedStatisticsPerformanceTest.class);
+
+    private static final int SMALL_WINDOW = 100;
+    private static final int LARGE_WINDOW = 100*1000;
+    private static final int NUM_EVENTS = 1000*1000;
+    private static final int NUM_LIST_EVENTS = 2000;
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testPerEventCostIndependentOfWindowSize() {
+        // warm up
+        runStatistics(SMALL_WINDOW, NUM_EVENTS);
+        runStatistics(LARGE_WINDOW, NUM_EVENTS);
+        
+        double smallNanos = runStatistics(SMALL_WINDOW, NUM_EVENTS);
+        double largeNanos = runStatistics(LARGE_WINDOW, NUM_EVENTS);
+        double listSmallNanos = runList(SMALL_WINDOW, NUM_LIST_EVENTS);
+        double listLargeNanos = runList(LARGE_WINDOW, NUM_LIST_EVENTS);
+        
+        LOG.info("TimeWindowedStatistics per-event cost: window of "+SMALL_WINDOW+" values "+smallNanos+"ns; "
+                + "window of "+LARGE_WINDOW+" values "+largeNanos+"ns");
+        LOG.info("TimeWindowedList per-event cost: window of "+SMALL_WINDOW+" values "+listSmallNanos+"ns; "
+                + "window of "+LARGE_WINDOW+" values "+listLargeNanos+"ns");
+        
+        // generous bound, as the large window is less cache-friendly, and the queries are O(log n)
+        assertTrue(largeNanos < smallNanos * 10, "small="+smallNanos+"ns; large="+largeNanos+"ns");
+        assertTrue(largeNanos < listLargeNanos, "statistics="+largeNanos+"ns; list="+listLargeNanos+"ns");
+    }
+
+    /** returns the mean nanos per event, once the window is full */
+    protected double runStatistics(int windowSize, int numEvents) {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.millis(windowSize));
+        for (int i = 0; i < windowSize; i++) {
+            stats.add(i % 97, i);
+        }
+        double total = 0;
+        long startTime = System.nanoTime();
+        for (int i = windowSize; i < windowSize + numEvents; i++) {
+            stats.add(i % 97, i);
+            total += stats.getMean() + stats.getMax();
+        }
+        long duration = System.nanoTime() - startTime;
+        if (total < 0) LOG.info("Impossible total: "+total);
+        return ((double) duration) / numEvents;
+    }
+
+    /** returns the mean nanos per event, once the window is full */
+    protected double runList(int windowSize, int numEvents) {
+        TimeWindowedList<Number> list = new TimeWindowedList<Number>(Duration.millis(windowSize));
+        for (int i = 0; i < windowSize; i++) {
+            list.add(i % 97, i);
+        }
+        double total = 0;
+        long startTime = System.nanoTime();
+        for (int i = windowSize; i < windowSize + numEvents; i++) {
+            list.add(i % 97, i);
+            List<TimestampedValue<Number>> vals = list.getValues(i);
+            double sum = 0, max = Double.NEGATIVE_INFINITY;
+            for (TimestampedValue<Number> val : vals) {
+                sum += val.getValue().doubleValue();
+                max = Math.max(max, val.getValue().doubleValue());
+            }
+            total += sum / vals.size() + max;
+        }
+        long duration = System.nanoTime() - startTime;
+        if (total < 0) LOG.info("Impossible total: "+total);
+        return ((double) duration) / numEvents;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.qa.performance;
+
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.Lifecycle;
+import brooklyn.util.flags.TypeCoercions;
+import brooklyn.util.net.UserAndHostAndPort;
+import brooklyn.util.time.Duration;
+
+import com.google.common.net.HostAndPort;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * Measures {@link TypeCoercions#coerce(Object, TypeToken)} for common pairs of types, 
+ * which are coerced on every config read and much attribute and DSL resolution.
+ */
+public class TypeCoercionsPerformanceTest extends AbstractPerformanceTest {
+
+    private static final int NUM_ITERATIONS = 100*1000;
+    
+    @Test(groups={"Integration", "Acceptance"})
+    public void testStringToDuration() {
+        measureAndAssert("String->Duration", NUM_ITERATIONS, 50000*PERFORMANCE_EXPECTATION, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce("5m", Duration.class);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testIntegerToLong() {
+        measureAndAssert("Integer->Long", NUM_ITERATIONS, 500000*PERFORMANCE_EXPECTATION, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce(123, Long.class);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testStringToEnum() {
+        measureAndAssert("String->Enum", NUM_ITERATIONS, 50000*PERFORMANCE_EXPECTATION, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce("running", Lifecycle.class);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testStringToHostAndPort() {
+        measureAndAssert("String->HostAndPort", NUM_ITERATIONS, 50000*PERFORMANCE_EXPECTATION, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce("localhost:8080", HostAndPort.class);
+            }});
+    }
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testStringToUserAndHostAndPort() {
+        measureAndAssert("String->UserAndHostAndPort", NUM_ITERATIONS, 50000*PERFORMANCE_EXPECTATION, new Runnable() {
+            public void run() {
+                TypeCoercions.coerce("me@localhost:22", UserAndHostAndPort.class);
+            }});
+    }
+}
@@ -37,7 +37,9 @@ import brooklyn.entity.basic.Lifecycle;
 import brooklyn.util.flags.ClassCoercionException;
 import brooklyn.util.flags.TypeCoercions;
 import brooklyn.util.text.StringPredicates;
+import brooklyn.util.time.Duration;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -312,6 +314,40 @@ public class TypeCoercionsTest {
         TypeCoercions.coerce(new Object(), TypeToken.of(Integer.class));
     }
 
+    @Test
+    public void testRepeatedCoercionUsesSameStrategy() {
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(TypeCoercions.coerce(new WithAs(""+i), Integer.class), (Integer)i);
+            Assert.assertEquals(TypeCoercions.coerce(""+i, WithFrom.class).value, i);
+            Assert.assertEquals(TypeCoercions.coerce(i+"ms", Duration.class), Duration.millis(i));
+        }
+    }
+
+    @Test
+    public void testRegisteredAdapterUsedAfterFailedCoercion() {
+        try {
+            TypeCoercions.coerce(new WithoutAdapter("a"), WithAdapterLater.class);
+            Assert.fail();
+        } catch (ClassCoercionException e) {
+            // expected; no adapter yet
+        }
+        TypeCoercions.registerAdapter(WithoutAdapter.class, WithAdapterLater.class, new Function<WithoutAdapter, WithAdapterLater>() {
+            @Override public WithAdapterLater apply(WithoutAdapter input) {
+                return new WithAdapterLater(input.value);
+            }});
+        Assert.assertEquals(TypeCoercions.coerce(new WithoutAdapter("b"), WithAdapterLater.class).value, "b");
+    }
+
+    public static class WithoutAdapter {
+        final String value;
+        public WithoutAdapter(String value) { this.value = value; }
+    }
+
+    public static class WithAdapterLater {
+        final String value;
+        public WithAdapterLater(String value) { this.value = value; }
+    }
+
     public static class WithAs {
         String value;
         public WithAs(Object x) { value = ""+x; }
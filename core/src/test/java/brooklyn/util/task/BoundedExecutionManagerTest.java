@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.util.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.management.Task;
+import brooklyn.test.Asserts;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.task.BasicExecutionManager.ExecutionMode;
+
+import com.google.common.collect.Lists;
+
+public class BoundedExecutionManagerTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(BasicExecutionManager.EXECUTION_MODE, ExecutionMode.BOUNDED);
+        props.put(BasicExecutionManager.BOUNDED_MAX_THREADS, 2);
+        props.put(BasicExecutionManager.BOUNDED_QUEUE_CAPACITY, 2);
+        props.put(BasicExecutionManager.BOUNDED_MAX_BLOCKING_THREADS, 10);
+        em = new BasicExecutionManager("mycontextid", props);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testDefaultModeIsCached() {
+        BasicExecutionManager defaultEm = new BasicExecutionManager("mycontextid");
+        try {
+            assertEquals(defaultEm.getExecutionMode(), ExecutionMode.CACHED);
+            assertEquals(defaultEm.getNumQueuedTasks(), 0);
+        } finally {
+            defaultEm.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlockingTasksDoNotStarveNonBlockingTasks() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        List<Task<?>> blockingTasks = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            blockingTasks.add(em.submit(TaskTags.markBlocking(Tasks.<Void>builder().name("blocking-"+i).dynamic(false).body(new Callable<Void>() {
+                @Override public Void call() throws Exception {
+                    latch.await();
+                    return null;
+                }}).build())));
+        }
+
+        // more blocking tasks than bounded threads, but a non-blocking task can still run
+        Task<String> nonBlocking = em.submit(Tasks.<String>builder().name("non-blocking").dynamic(false).body(new Callable<String>() {
+            @Override public String call() {
+                return "done";
+            }}).build());
+        assertEquals(nonBlocking.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), "done");
+
+        latch.countDown();
+        for (Task<?> t : blockingTasks) {
+            t.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void testSubmittersWaitWhenQueueFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Integer> result = new CopyOnWriteArrayList<Integer>();
+        final int numTasks = 10;
+
+        // occupy both threads, so subsequent tasks are queued
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < 2; i++) {
+            tasks.add(em.submit(new Runnable() {
+                @Override public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }}));
+        }
+
+        // submitting in another thread, which must wait for space in the queue
+        Thread submitter = new Thread() {
+            public void run() {
+                for (int i = 0; i < numTasks; i++) {
+                    final int counter = i;
+                    em.submit(new Runnable() {
+                        @Override public void run() {
+                            result.add(counter);
+                        }});
+                }
+            }
+        };
+        submitter.start();
+
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(em.getNumBackpressureEvents() > 0);
+                assertEquals(em.getNumQueuedTasks(), 2);
+            }});
+        assertTrue(submitter.isAlive());
+
+        latch.countDown();
+        submitter.join(TIMEOUT_MS);
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(result.size(), numTasks);
+            }});
+    }
+
+    @Test
+    public void testSingleThreadedSchedulerExecutesInOrder() throws Exception {
+        em.setTaskSchedulerForTag("category1", SingleThreadedScheduler.class);
+        final int numTimes = 1000;
+        final List<Integer> result = new CopyOnWriteArrayList<Integer>();
+        for (int i = 0; i < numTimes; i++) {
+            final int counter = i;
+            em.submit(MutableMap.of("tag", "category1"), new Runnable() {
+                public void run() {
+                    result.add(counter);
+                }});
+        }
+
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(result.size(), numTimes);
+            }});
+        for (int i = 0; i < numTimes; i++) {
+            assertEquals(result.get(i), (Integer)i);
+        }
+    }
+}
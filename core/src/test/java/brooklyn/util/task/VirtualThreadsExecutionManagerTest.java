@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.util.task;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.management.Task;
+import brooklyn.util.javalang.Threads;
+import brooklyn.util.task.BasicExecutionManager.ExecutionMode;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests {@link ExecutionMode#VIRTUAL}; on JVMs without virtual threads, this checks the fallback behaviour.
+ */
+public class VirtualThreadsExecutionManagerTest {
+
+    private static final int TIMEOUT_MS = 10*1000;
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(BasicExecutionManager.EXECUTION_MODE, ExecutionMode.VIRTUAL);
+        em = new BasicExecutionManager("mycontextid", props);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testModeFallsBackIfNotSupported() {
+        assertEquals(em.getExecutionMode(), Threads.isVirtualThreadsSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.CACHED);
+    }
+
+    @Test
+    public void testCurrentTaskAvailableInTask() throws Exception {
+        final List<Task<?>> tasksSeen = Lists.newCopyOnWriteArrayList();
+        Task<String> t = em.submit(Tasks.<String>builder().name("check-current").dynamic(false).body(new Callable<String>() {
+            @Override public String call() {
+                tasksSeen.add(Tasks.current());
+                return Thread.currentThread().getName();
+            }}).build());
+        String threadName = t.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(tasksSeen, Lists.newArrayList(t));
+        if (em.getExecutionMode() == ExecutionMode.VIRTUAL) {
+            assertEquals(threadName.startsWith("brooklyn-execmanager-mycontextid-virtual-"), true, "threadName="+threadName);
+        }
+    }
+
+    @Test
+    public void testManyConcurrentBlockingTasks() throws Exception {
+        final int numTasks = 500;
+        final CountDownLatch latch = new CountDownLatch(1);
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (int i = 0; i < numTasks; i++) {
+            tasks.add(em.submit(Tasks.<Void>builder().name("blocking-"+i).dynamic(false).body(new Callable<Void>() {
+                @Override public Void call() throws Exception {
+                    latch.await();
+                    return null;
+                }}).build()));
+        }
+        latch.countDown();
+        for (Task<?> t : tasks) {
+            t.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
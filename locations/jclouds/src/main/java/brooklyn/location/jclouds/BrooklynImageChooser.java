@@ -233,7 +233,19 @@ public class BrooklynImageChooser {
     }
 
     public Function<Iterable<? extends Image>,Image> chooser() {
-        return imageChooserFromOrdering(ordering());
+        final Function<Iterable<? extends Image>,Image> chooser = imageChooserFromOrdering(ordering());
+        // described by class, so that templates chosen by equivalent choosers can be reused (see JcloudsTemplateCache)
+        final String description = getClass().getName()+".chooser()";
+        return new Function<Iterable<? extends Image>,Image>() {
+            @Override
+            public Image apply(Iterable<? extends Image> input) {
+                return chooser.apply(input);
+            }
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
     }
     
 }
@@ -40,6 +40,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -93,6 +95,8 @@ import brooklyn.entity.rebind.persister.jclouds.JcloudsBlobStoreBasedObjectStore
 import brooklyn.location.LocationSpec;
 import brooklyn.location.MachineLocation;
 import brooklyn.location.MachineManagementMixins.MachineMetadata;
+import brooklyn.location.MachineManagementMixins.CachesTemplates;
+import brooklyn.location.MachineManagementMixins.ObtainsMachinesInBatches;
 import brooklyn.location.MachineManagementMixins.RichMachineProvisioningLocation;
 import brooklyn.location.NoMachinesAvailableException;
 import brooklyn.location.access.PortForwardManager;
@@ -108,6 +112,7 @@ import brooklyn.location.jclouds.networking.JcloudsPortForwarderExtension;
 import brooklyn.location.jclouds.templates.PortableTemplateBuilder;
 import brooklyn.location.jclouds.zone.AwsAvailabilityZoneExtension;
 import brooklyn.management.AccessController;
+import brooklyn.management.Task;
 import brooklyn.util.ResourceUtils;
 import brooklyn.util.collections.MutableMap;
 import brooklyn.util.config.ConfigBag;
@@ -169,7 +174,7 @@ import com.google.common.primitives.Ints;
  * Configuration flags are defined in {@link JcloudsLocationConfig}.
  */
 @SuppressWarnings("serial")
-public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation implements JcloudsLocationConfig, RichMachineProvisioningLocation<SshMachineLocation>, LocationWithObjectStore {
+public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation implements JcloudsLocationConfig, RichMachineProvisioningLocation<SshMachineLocation>, ObtainsMachinesInBatches<SshMachineLocation>, CachesTemplates, LocationWithObjectStore {
 
     // TODO After converting from Groovy to Java, this is now very bad code! It relies entirely on putting 
     // things into and taking them out of maps; it's not type-safe, and it's thus very error-prone.
@@ -198,6 +203,8 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
 
     @SetFromFlag // so it's persisted
     private final Map<JcloudsSshMachineLocation,String> vmInstanceIds = Maps.newLinkedHashMap();
+
+    private final transient ObtainBatcher obtainBatcher = new ObtainBatcher(this);
     
     static { Networking.init(); }
     
@@ -512,6 +519,11 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
      * (for initial login, and a user potentially to create for subsequent ie normal access) */
     public JcloudsSshMachineLocation obtain(Map<?,?> flags) throws NoMachinesAvailableException {
         ConfigBag setup = ConfigBag.newInstanceExtending(getAllConfigBag(), flags);
+        Future<JcloudsSshMachineLocation> batched = obtainBatcher.join(flags, setup);
+        if (batched != null) {
+            return obtainBatcher.get(batched);
+        }
+        
         Integer attempts = setup.get(MACHINE_CREATE_ATTEMPTS);
         List<Exception> exceptions = Lists.newArrayList();
         if (attempts == null || attempts < 1) attempts = 1;
@@ -539,13 +551,112 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         }
     }
 
+    /**
+     * Obtains {@code count} machines with the given flags, resolving the template once and making a single
+     * request to jclouds to create the nodes, which are then made usable (waiting for ssh, creating the user,
+     * customizing) in parallel. Returns the machines successfully obtained, which may be fewer than requested
+     * (nodes which failed are released if {@link #DESTROY_ON_FAILURE}); throws if none could be obtained.
+     */
+    @Override
+    public List<JcloudsSshMachineLocation> obtain(Map<?,?> flags, int count) throws NoMachinesAvailableException {
+        checkArgument(count > 0, "count must be positive, but was %s", count);
+        List<ConfigBag> setups = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            setups.add(ConfigBag.newInstanceExtending(getAllConfigBag(), flags));
+        }
+        List<JcloudsSshMachineLocation> result = Lists.newArrayList();
+        Set<Throwable> errors = Sets.newLinkedHashSet();
+        for (ReferenceWithError<JcloudsSshMachineLocation> machine : obtainInBatch(setups)) {
+            if (machine.hasError()) {
+                errors.add(machine.getError());
+            } else {
+                result.add(machine.get());
+            }
+        }
+        if (result.isEmpty()) {
+            String msg = String.format("Failed to get any of %d VMs", count);
+            RuntimeException cause = Exceptions.create(msg, errors);
+            if (Iterables.getLast(errors) instanceof NoMachinesAvailableException) {
+                throw new NoMachinesAvailableException(msg, cause);
+            } else {
+                throw cause;
+            }
+        }
+        if (!errors.isEmpty()) {
+            LOG.warn("Obtained only {} of {} VMs in {}: {}", new Object[] {result.size(), count, this, errors});
+        }
+        return result;
+    }
+
+    /**
+     * Indicates that {@code count} calls to {@link #obtain(Map)} are about to be made concurrently; those made
+     * with equivalent flags within {@link #BATCH_OBTAIN_WINDOW} (and no more than {@link #BATCH_OBTAIN_QUIET_PERIOD} apart)
+     * are provisioned together, as by {@link #obtain(Map, int)}.
+     */
+    @Override
+    public void expectObtains(int count) {
+        obtainBatcher.expect(count, getConfig(BATCH_OBTAIN_WINDOW), getConfig(BATCH_OBTAIN_QUIET_PERIOD));
+    }
+
+    /**
+     * Obtains a machine for each of the given setups, in as few requests to jclouds as possible, retrying those
+     * which fail up to {@link #MACHINE_CREATE_ATTEMPTS} times. Failures are reported in the corresponding
+     * element of the result, rather than thrown.
+     */
+    protected List<ReferenceWithError<JcloudsSshMachineLocation>> obtainInBatch(List<ConfigBag> setups) {
+        List<ReferenceWithError<JcloudsSshMachineLocation>> result = Lists.newArrayList(
+                Collections.<ReferenceWithError<JcloudsSshMachineLocation>>nCopies(setups.size(), null));
+        List<Integer> remaining = Lists.newArrayList();
+        for (int i = 0; i < setups.size(); i++) {
+            remaining.add(i);
+        }
+        Integer attempts = setups.get(0).get(MACHINE_CREATE_ATTEMPTS);
+        if (attempts == null || attempts < 1) attempts = 1;
+        for (int i = 1; i <= attempts && !remaining.isEmpty(); i++) {
+            List<ConfigBag> attemptSetups = Lists.newArrayList();
+            for (int index : remaining) {
+                attemptSetups.add(setups.get(index));
+            }
+            List<ReferenceWithError<JcloudsSshMachineLocation>> attemptResult;
+            try {
+                attemptResult = obtainOnce(attemptSetups);
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                LOG.warn("Attempt #{}/{} to obtain {} machines threw error: {}", new Object[]{i, attempts, attemptSetups.size(), e});
+                attemptResult = Collections.nCopies(attemptSetups.size(), ReferenceWithError.<JcloudsSshMachineLocation>newInstanceThrowingError(null, e));
+            }
+            List<Integer> failed = Lists.newArrayList();
+            for (int j = 0; j < remaining.size(); j++) {
+                result.set(remaining.get(j), attemptResult.get(j));
+                if (attemptResult.get(j).hasError()) failed.add(remaining.get(j));
+            }
+            remaining = failed;
+        }
+        return result;
+    }
+
     protected JcloudsSshMachineLocation obtainOnce(ConfigBag setup) throws NoMachinesAvailableException {
+        return Iterables.getOnlyElement(obtainOnce(ImmutableList.of(setup))).get();
+    }
+
+    /**
+     * Obtains a machine for each of the given setups, building the template from the first of them and
+     * making a single request to jclouds to create all the nodes; the nodes are then made usable in parallel.
+     * Failures before any node is created are thrown; failures of individual nodes are reported in
+     * the corresponding element of the result.
+     */
+    protected List<ReferenceWithError<JcloudsSshMachineLocation>> obtainOnce(List<ConfigBag> setups) throws NoMachinesAvailableException {
+        checkArgument(!setups.isEmpty(), "no machines requested from %s", this);
         AccessController.Response access = getManagementContext().getAccessController().canProvisionLocation(this);
         if (!access.isAllowed()) {
             throw new IllegalStateException("Access controller forbids provisioning in "+this+": "+access.getMsg());
         }
 
-        setCreationString(setup);
+        for (ConfigBag nodeSetup : setups) {
+            setCreationString(nodeSetup);
+        }
+        final ConfigBag setup = setups.get(0);
+        final int count = setups.size();
         boolean waitForSshable = !"false".equalsIgnoreCase(setup.get(WAIT_FOR_SSHABLE));
         boolean usePortForwarding = setup.get(USE_PORT_FORWARDING);
         boolean skipJcloudsSshing = Boolean.FALSE.equals(setup.get(USE_JCLOUDS_SSH_INIT)) || usePortForwarding;
@@ -555,11 +666,15 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         final ComputeService computeService = JcloudsUtil.findComputeService(setup);
         CloudMachineNamer cloudMachineNamer = getCloudMachineNamer(setup);
         String groupId = elvis(setup.get(GROUP_ID), cloudMachineNamer.generateNewGroupId());
-        NodeMetadata node = null;
-        JcloudsSshMachineLocation sshMachineLocation = null;
         
+        final Stopwatch provisioningStopwatch;
+        final Duration templateTimestamp, provisionTimestamp;
+        List<NodeMetadata> nodes;
+        RunNodesException partialFailure = null;
+        LoginCredentials initialCredentials = null;
+        Template template;
         try {
-            LOG.info("Creating VM "+setup.getDescription()+" in "+this);
+            LOG.info("Creating "+(count == 1 ? "VM " : count+" VMs ")+setup.getDescription()+" in "+this);
 
             Semaphore machineCreationSemaphore = getMachineCreationSemaphore();
             boolean acquired = machineCreationSemaphore.tryAcquire(0, TimeUnit.SECONDS);
@@ -572,12 +687,8 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
                 LOG.debug("Acquired in {} machine-creation permit immediately", this);
             }
             
-            Stopwatch provisioningStopwatch = Stopwatch.createStarted();
-            Duration templateTimestamp, provisionTimestamp, usableTimestamp, customizedTimestamp;
+            provisioningStopwatch = Stopwatch.createStarted();
 
-            LoginCredentials initialCredentials = null;
-            Set<? extends NodeMetadata> nodes;
-            Template template;
             try {
                 // Setup the template
                 template = buildTemplate(computeService, setup);
@@ -598,18 +709,110 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
                             setup.getUnusedConfig());
                 
                 templateTimestamp = Duration.of(provisioningStopwatch);
-                template.getOptions().getUserMetadata().put("Name", cloudMachineNamer.generateNewMachineUniqueNameFromGroupId(groupId));
+                if (count == 1) {
+                    template.getOptions().getUserMetadata().put("Name", cloudMachineNamer.generateNewMachineUniqueNameFromGroupId(groupId));
+                } else {
+                    // the template (and so its user-metadata) is shared by all nodes in the batch, so give each its own name;
+                    // if the namer cannot produce distinct names, leave naming to jclouds' group naming
+                    Set<String> nodeNames = Sets.newLinkedHashSet();
+                    for (int i = 0; i < count; i++) {
+                        nodeNames.add(cloudMachineNamer.generateNewMachineUniqueNameFromGroupId(groupId));
+                    }
+                    if (nodeNames.size() == count) template.getOptions().nodeNames(nodeNames);
+                }
                 
-                nodes = computeService.createNodesInGroup(groupId, 1, template);
+                try {
+                    nodes = ImmutableList.copyOf(computeService.createNodesInGroup(groupId, count, template));
+                } catch (RunNodesException e) {
+                    if (e.getSuccessfulNodes().isEmpty()) throw e;
+                    // carry on with the nodes which were created; those which failed are released below
+                    LOG.warn("jclouds created only {} of {} nodes for {}: {}", new Object[] {e.getSuccessfulNodes().size(), count, setup.getDescription(), e.getMessage()});
+                    nodes = ImmutableList.copyOf(e.getSuccessfulNodes());
+                    partialFailure = e;
+                }
                 provisionTimestamp = Duration.of(provisioningStopwatch);
             } finally {
                 machineCreationSemaphore.release();
             }
             
-            node = Iterables.getOnlyElement(nodes, null);
-            LOG.debug("jclouds created {} for {}", node, setup.getDescription());
-            if (node == null)
+            if (nodes.isEmpty())
                 throw new IllegalStateException("No nodes returned by jclouds create-nodes in " + setup.getDescription());
+        } catch (Exception e) {
+            // sometimes AWS nodes come up busted (eg ssh not allowed); just throw it back (and maybe try for another one)
+            Set<? extends NodeMetadata> failedNodes = (e instanceof RunNodesException) ? ((RunNodesException)e).getNodeErrors().keySet() : ImmutableSet.<NodeMetadata>of();
+            boolean destroyNodes = !failedNodes.isEmpty() && Boolean.TRUE.equals(setup.get(DESTROY_ON_FAILURE));
+            
+            LOG.error("Failed to start VM for {}{}: {}", 
+                    new Object[] {setup.getDescription(), (destroyNodes ? " (destroying "+failedNodes+")" : ""), e.getMessage()});
+            LOG.debug(Throwables.getStackTraceAsString(e));
+            
+            if (destroyNodes) {
+                for (NodeMetadata failedNode : failedNodes) {
+                    releaseNodeSafely(failedNode);
+                }
+            }
+            
+            throw Exceptions.propagate(e);
+        }
+        
+        if (partialFailure != null && Boolean.TRUE.equals(setup.get(DESTROY_ON_FAILURE))) {
+            for (NodeMetadata failedNode : partialFailure.getNodeErrors().keySet()) {
+                releaseNodeSafely(failedNode);
+            }
+        }
+        
+        List<ReferenceWithError<JcloudsSshMachineLocation>> result = Lists.newArrayList();
+        if (count == 1) {
+            result.add(ReferenceWithError.newInstanceWithoutError(obtainUsableMachine(computeService, nodes.get(0), template, 
+                    initialCredentials, setup, provisioningStopwatch, templateTimestamp, provisionTimestamp)));
+        } else {
+            // waiting for ssh and customizing can take minutes, so do each node in parallel
+            List<Task<JcloudsSshMachineLocation>> tasks = Lists.newArrayList();
+            for (int i = 0; i < nodes.size(); i++) {
+                final NodeMetadata node = nodes.get(i);
+                final ConfigBag nodeSetup = setups.get(i);
+                final Template nodeTemplate = template;
+                final LoginCredentials nodeCredentials = initialCredentials;
+                tasks.add(getManagementContext().getExecutionManager().submit(
+                        MutableMap.of("displayName", "Making "+node.getId()+" usable for "+nodeSetup.getDescription()),
+                        new Callable<JcloudsSshMachineLocation>() {
+                            public JcloudsSshMachineLocation call() throws Exception {
+                                return obtainUsableMachine(computeService, node, nodeTemplate, nodeCredentials, nodeSetup, 
+                                        provisioningStopwatch, templateTimestamp, provisionTimestamp);
+                            }}));
+            }
+            for (Task<JcloudsSshMachineLocation> task : tasks) {
+                try {
+                    result.add(ReferenceWithError.newInstanceWithoutError(task.get()));
+                } catch (ExecutionException e) {
+                    result.add(ReferenceWithError.<JcloudsSshMachineLocation>newInstanceThrowingError(null, e.getCause()));
+                } catch (InterruptedException e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+            while (result.size() < count) {
+                result.add(ReferenceWithError.<JcloudsSshMachineLocation>newInstanceThrowingError(null, partialFailure));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Makes a newly created node usable: sets up port-forwarding and credentials, waits for it to be ssh'able,
+     * and customizes it; returns the registered machine. On failure, the node is released if {@link #DESTROY_ON_FAILURE}.
+     */
+    protected JcloudsSshMachineLocation obtainUsableMachine(ComputeService computeService, NodeMetadata node, Template template, 
+            LoginCredentials initialCredentials, ConfigBag setup, Stopwatch provisioningStopwatch, Duration templateTimestamp, Duration provisionTimestamp) {
+        boolean waitForSshable = !"false".equalsIgnoreCase(setup.get(WAIT_FOR_SSHABLE));
+        boolean usePortForwarding = setup.get(USE_PORT_FORWARDING);
+        boolean skipJcloudsSshing = Boolean.FALSE.equals(setup.get(USE_JCLOUDS_SSH_INIT)) || usePortForwarding;
+        JcloudsPortForwarderExtension portForwarder = setup.get(PORT_FORWARDER);
+        JcloudsSshMachineLocation sshMachineLocation = null;
+        
+        try {
+            LOG.debug("jclouds created {} for {}", node, setup.getDescription());
+            Duration usableTimestamp, customizedTimestamp;
+            
 
             // Setup port-forwarding, if required
             Optional<HostAndPort> sshHostAndPortOverride;
@@ -773,11 +976,8 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
 
             return sshMachineLocation;
         } catch (Exception e) {
-            if (e instanceof RunNodesException && ((RunNodesException)e).getNodeErrors().size() > 0) {
-                node = Iterables.get(((RunNodesException)e).getNodeErrors().keySet(), 0);
-            }
             // sometimes AWS nodes come up busted (eg ssh not allowed); just throw it back (and maybe try for another one)
-            boolean destroyNode = (node != null) && Boolean.TRUE.equals(setup.get(DESTROY_ON_FAILURE));
+            boolean destroyNode = Boolean.TRUE.equals(setup.get(DESTROY_ON_FAILURE));
             
             LOG.error("Failed to start VM for {}{}: {}", 
                     new Object[] {setup.getDescription(), (destroyNode ? " (destroying "+node+")" : ""), e.getMessage()});
@@ -1078,7 +1278,7 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         // Finally try to build the template
         Template template;
         try {
-            template = templateBuilder.build();
+            template = resolveTemplate(computeService, templateBuilder, config);
             if (template==null) throw new NullPointerException("No template found (templateBuilder.build returned null)");
             LOG.debug("jclouds found template "+template+" (image "+template.getImage()+") for provisioning in "+this+" for "+config.getDescription());
             if (template.getImage()==null) throw new NullPointerException("Template does not contain an image (templateBuilder.build returned invalid template)");
@@ -1114,6 +1314,32 @@ public class JcloudsLocation extends AbstractCloudMachineProvisioningLocation im
         return template;
     }
     
+    /**
+     * Builds the template, reusing what the same constraints resolved to within {@link #TEMPLATE_CACHE_TTL}
+     * (see {@link JcloudsTemplateCache}) unless a custom {@link #TEMPLATE_BUILDER} was supplied.
+     */
+    protected Template resolveTemplate(ComputeService computeService, TemplateBuilder templateBuilder, ConfigBag config) {
+        Duration ttl = config.get(TEMPLATE_CACHE_TTL);
+        if (!(templateBuilder instanceof PortableTemplateBuilder) || config.containsKey(TEMPLATE_BUILDER) || ttl==null || !ttl.isPositive()) {
+            return templateBuilder.build();
+        }
+        return JcloudsTemplateCache.forComputeService(computeService, JcloudsTemplateCache.getAccount(config)).resolveTemplate((PortableTemplateBuilder<?>)templateBuilder, ttl);
+    }
+
+    /** returns the template reuse counts (see {@link #TEMPLATE_CACHE_TTL}) for this location's cloud account,
+     * over all compute services provisioning has used for it; all zero if it has used none (none is created here) */
+    @Override
+    public Map<String,Object> getTemplateCacheMetrics() {
+        return JcloudsTemplateCache.getMetrics(JcloudsTemplateCache.getAccount(getAllConfigBag()));
+    }
+
+    /** discards the templates cached for this location's cloud account (see {@link #TEMPLATE_CACHE_TTL}) */
+    @Override
+    public void invalidateTemplateCache() {
+        LOG.info("Invalidating template cache for "+this);
+        JcloudsTemplateCache.invalidate(JcloudsTemplateCache.getAccount(getAllConfigBag()));
+    }
+
     protected void logAvailableTemplates(ConfigBag config) {
         LOG.info("Loading available images at "+this+" for reference...");
         ConfigBag m1 = ConfigBag.newInstanceCopying(config);
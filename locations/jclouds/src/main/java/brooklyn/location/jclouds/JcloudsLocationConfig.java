@@ -36,6 +36,7 @@ import brooklyn.location.basic.LocationConfigKeys;
 import brooklyn.location.cloud.CloudLocationConfig;
 import brooklyn.location.jclouds.networking.JcloudsPortForwarderExtension;
 import brooklyn.util.internal.ssh.SshTool;
+import brooklyn.util.time.Duration;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
@@ -219,6 +220,20 @@ public interface JcloudsLocationConfig extends CloudLocationConfig {
     public static final ConfigKey<Semaphore> MACHINE_CREATION_SEMAPHORE = ConfigKeys.newConfigKey(
             Semaphore.class, "machineCreationSemaphore", "Semaphore for controlling concurrent machine creation", null);
 
+    public static final ConfigKey<Duration> BATCH_OBTAIN_WINDOW = ConfigKeys.newConfigKey(Duration.class,
+            "batchObtainWindow", "Maximum time to wait for calls to obtain which have been announced as expected "
+            + "(e.g. by a cluster adding several members), so that those with the same flags are provisioned together; "
+            + "zero disables such batching", Duration.TEN_SECONDS);
+
+    public static final ConfigKey<Duration> BATCH_OBTAIN_QUIET_PERIOD = ConfigKeys.newConfigKey(Duration.class,
+            "batchObtainQuietPeriod", "Time after the last call to obtain within the batchObtainWindow, after which "
+            + "the calls received are provisioned without waiting for the rest of those expected (which may never come, "
+            + "e.g. if some new members of a cluster do not obtain machines)", Duration.seconds(2));
+
+    public static final ConfigKey<Duration> TEMPLATE_CACHE_TTL = ConfigKeys.newConfigKey(Duration.class,
+            "templateCacheTtl", "How long the template chosen from the cloud's images and hardware "
+            + "for given constraints is reused when provisioning further machines; zero disables such reuse", Duration.minutes(15));
+
     @SuppressWarnings("serial")
     public static final ConfigKey<Function<Iterable<? extends Image>,Image>> IMAGE_CHOOSER = ConfigKeys.newConfigKey(
         new TypeToken<Function<Iterable<? extends Image>,Image>>() {},
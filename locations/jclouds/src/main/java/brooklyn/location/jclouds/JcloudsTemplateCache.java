@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.jclouds;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import javax.annotation.Nullable;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.domain.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.location.jclouds.templates.PortableTemplateBuilder;
+import brooklyn.util.collections.MutableList;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.config.ConfigBag;
+import brooklyn.util.text.Strings;
+import brooklyn.util.time.Duration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Caches, for a {@link ComputeService}, the templates resolved against its images and hardware,
+ * so that provisioning repeatedly with the same constraints does not list and score
+ * every image the provider offers each time.
+ * <p>
+ * One instance is kept per compute service (see {@link #forComputeService(ComputeService, String)}),
+ * so is shared by all locations using it. Metrics and invalidation are by cloud account
+ * (see {@link #getAccount(ConfigBag)}), covering every compute service provisioning has used for it,
+ * as these can differ by more than the account (e.g. for aws-ec2, by the image ID or owner requested).
+ * Each caller supplies the age it will accept, and an older entry is resolved afresh;
+ * at most {@link #MAX_TEMPLATES} templates are kept, none for longer than {@link #MAX_TEMPLATE_AGE}.
+ * Templates are not cached for builders whose image condition or chooser has no meaningful
+ * {@code toString()}, as the constraints would then differ for each new instance of these.
+ */
+class JcloudsTemplateCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JcloudsTemplateCache.class);
+
+    /** weak (identity) keys, as compute services obtained without reuse are not otherwise retained */
+    private static final ConcurrentMap<ComputeService, JcloudsTemplateCache> CACHES = new MapMaker().weakKeys().makeMap();
+
+    /** when each account's caches were last invalidated; kept even if it has no caches yet */
+    private static final ConcurrentMap<String, Long> LAST_INVALIDATION_TIMES = new ConcurrentHashMap<String, Long>();
+
+    /** the most templates kept per compute service, those least recently used being discarded first (approximately) */
+    public static final int MAX_TEMPLATES = 256;
+
+    /** the longest a template is kept, whatever the age callers will accept */
+    public static final Duration MAX_TEMPLATE_AGE = Duration.ONE_DAY;
+
+    /** identifies the cloud account (provider, identity and endpoint, but not credential) the given config provisions in */
+    public static String getAccount(ConfigBag conf) {
+        String endpoint = conf.get(JcloudsLocationConfig.CLOUD_ENDPOINT);
+        return conf.get(JcloudsLocationConfig.CLOUD_PROVIDER)+":"+conf.get(JcloudsLocationConfig.ACCESS_IDENTITY)
+                +(Strings.isNonBlank(endpoint) ? "@"+endpoint : "");
+    }
+
+    /** returns the cache for the given compute service, creating it (for the given {@link #getAccount(ConfigBag) account}) if needed */
+    public static JcloudsTemplateCache forComputeService(ComputeService computeService, String account) {
+        JcloudsTemplateCache result = CACHES.get(computeService);
+        if (result==null) {
+            CACHES.putIfAbsent(computeService, new JcloudsTemplateCache(account));
+            result = CACHES.get(computeService);
+        }
+        return result;
+    }
+
+    /** discards all templates cached for the given account, recording when this was done even if none are cached */
+    public static void invalidate(String account) {
+        for (JcloudsTemplateCache cache : getCaches(account)) {
+            cache.invalidate();
+        }
+        LAST_INVALIDATION_TIMES.put(account, System.currentTimeMillis());
+    }
+
+    /** returns the template counts summed over all caches for the given account, with the number of these caches;
+     * all zero if provisioning has not used the account (no compute service is created here) */
+    public static Map<String,Object> getMetrics(String account) {
+        long templateCount = 0, templateHits = 0, templateMisses = 0, templatesNotCacheable = 0;
+        int cacheCount = 0;
+        for (JcloudsTemplateCache cache : getCaches(account)) {
+            cacheCount++;
+            templateCount += cache.templates.size();
+            templateHits += cache.templateHits.get();
+            templateMisses += cache.templateMisses.get();
+            templatesNotCacheable += cache.templatesNotCacheable.get();
+        }
+        Map<String,Object> result = MutableMap.of();
+        result.put("cacheCount", cacheCount);
+        result.put("templateCount", templateCount);
+        result.put("templateHits", templateHits);
+        result.put("templateMisses", templateMisses);
+        result.put("templatesNotCacheable", templatesNotCacheable);
+        result.put("lastInvalidationTimeUtc", LAST_INVALIDATION_TIMES.get(account));
+        return result;
+    }
+
+    private static List<JcloudsTemplateCache> getCaches(String account) {
+        List<JcloudsTemplateCache> result = MutableList.of();
+        for (JcloudsTemplateCache cache : CACHES.values()) {
+            if (cache.account.equals(account)) result.add(cache);
+        }
+        return result;
+    }
+
+    private static class Entry<T> {
+        final T value;
+        final long timestamp = System.currentTimeMillis();
+        Entry(T value) { this.value = value; }
+        boolean isFresh(Duration maxAge) {
+            return System.currentTimeMillis() - timestamp < maxAge.toMilliseconds();
+        }
+    }
+
+    /** what a template resolved to; the options are not kept, as they differ on each use */
+    private static class ResolvedTemplate {
+        final Image image;
+        final Hardware hardware;
+        final Location location;
+        ResolvedTemplate(Template template) {
+            this.image = template.getImage();
+            this.hardware = template.getHardware();
+            this.location = template.getLocation();
+        }
+    }
+
+    private final Cache<String, Entry<ResolvedTemplate>> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TEMPLATES)
+            .expireAfterWrite(MAX_TEMPLATE_AGE.toMilliseconds(), TimeUnit.MILLISECONDS)
+            .build();
+    /** so that concurrent provisioning with the same constraints resolves them only once */
+    private final Striped<Lock> templateLocks = Striped.lazyWeakLock(64);
+
+    private final String account;
+    private final AtomicLong templateHits = new AtomicLong();
+    private final AtomicLong templateMisses = new AtomicLong();
+    private final AtomicLong templatesNotCacheable = new AtomicLong();
+
+    private JcloudsTemplateCache(String account) {
+        this.account = checkNotNull(account, "account");
+    }
+
+    /**
+     * Returns a template for the given builder, which must have a compute service attached (the one for this cache).
+     * If the builder's {@link PortableTemplateBuilder#getConstraintsDescription() constraints} were resolved
+     * within {@code maxAge}, the same image, hardware and location are used, with the builder's options;
+     * otherwise the builder is {@link PortableTemplateBuilder#build() built} and the result remembered.
+     */
+    public Template resolveTemplate(PortableTemplateBuilder<?> templateBuilder, Duration maxAge) {
+        if (!hasDescribedConstraints(templateBuilder)) {
+            templatesNotCacheable.incrementAndGet();
+            if (LOG.isTraceEnabled()) LOG.trace("jclouds template cache not used for "+templateBuilder+": image condition or chooser not describable");
+            return templateBuilder.build();
+        }
+        String key = templateBuilder.getConstraintsDescription();
+        Template result = getTemplate(key, templateBuilder, maxAge);
+        if (result!=null) return result;
+
+        Lock lock = templateLocks.get(key);
+        lock.lock();
+        try {
+            // another caller may have resolved the same constraints while we waited
+            result = getTemplate(key, templateBuilder, maxAge);
+            if (result!=null) return result;
+
+            templateMisses.incrementAndGet();
+            result = templateBuilder.build();
+            if (result!=null && result.getImage()!=null) {
+                templates.put(key, new Entry<ResolvedTemplate>(new ResolvedTemplate(result)));
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** whether the builder's constraints description identifies its image condition and chooser, rather than just their instances */
+    private static boolean hasDescribedConstraints(PortableTemplateBuilder<?> templateBuilder) {
+        return hasOwnToString(templateBuilder.getImageMatchesCondition()) && hasOwnToString(templateBuilder.imageChooser());
+    }
+
+    private static boolean hasOwnToString(@Nullable Object o) {
+        if (o==null) return true;
+        // as Object.toString()
+        return !o.toString().equals(o.getClass().getName()+"@"+Integer.toHexString(o.hashCode()));
+    }
+
+    @Nullable
+    private Template getTemplate(String key, PortableTemplateBuilder<?> templateBuilder, Duration maxAge) {
+        Entry<ResolvedTemplate> entry = templates.getIfPresent(key);
+        if (entry==null || !entry.isFresh(maxAge)) return null;
+        templateHits.incrementAndGet();
+        if (LOG.isTraceEnabled()) LOG.trace("jclouds template cache hit for "+key+": image "+entry.value.image.getId());
+        return templateBuilder.newJcloudsTemplate(entry.value.image, entry.value.hardware, entry.value.location);
+    }
+
+    /** discards all templates */
+    private void invalidate() {
+        templates.invalidateAll();
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.jclouds;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.location.NoMachinesAvailableException;
+import brooklyn.location.cloud.CloudLocationConfig;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.config.ConfigBag;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.exceptions.ReferenceWithError;
+import brooklyn.util.time.Duration;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Coalesces concurrent calls to {@link JcloudsLocation#obtain(Map)}, made after 
+ * {@link JcloudsLocation#expectObtains(int)}, so that those with equivalent flags are provisioned 
+ * together by {@link JcloudsLocation#obtainInBatch(List)}.
+ * <p>
+ * The first call for each set of flags waits until all expected calls have arrived (or until the window 
+ * given to {@link #expect(int, Duration, Duration)} has elapsed, or no call has arrived for its quiet period,
+ * as some of those expected may never call), then provisions its batch in a task;
+ * each caller then waits for its own machine.
+ */
+class ObtainBatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObtainBatcher.class);
+
+    private final JcloudsLocation location;
+    
+    // all guarded by this
+    private int expected = 0;
+    private long deadlineNanos;
+    private long quietPeriodNanos;
+    private long lastArrivalNanos;
+    private final Map<Map<String,Object>, Batch> openBatches = Maps.newLinkedHashMap();
+
+    private static class Batch {
+        final List<ConfigBag> setups = Lists.newArrayList();
+        final List<SettableFuture<JcloudsSshMachineLocation>> results = Lists.newArrayList();
+    }
+    
+    ObtainBatcher(JcloudsLocation location) {
+        this.location = location;
+    }
+    
+    synchronized void expect(int count, Duration window, @Nullable Duration quietPeriod) {
+        if (count <= 0 || window == null || window.toNanoseconds() <= 0) return;
+        expected += count;
+        lastArrivalNanos = System.nanoTime();
+        deadlineNanos = lastArrivalNanos + window.toNanoseconds();
+        quietPeriodNanos = (quietPeriod != null && quietPeriod.toNanoseconds() > 0) ? quietPeriod.toNanoseconds() : window.toNanoseconds();
+    }
+    
+    synchronized int getExpected() {
+        return expected;
+    }
+    
+    /**
+     * Adds a request to a batch, if calls to obtain are expected; returns null otherwise,
+     * in which case the caller should obtain the machine itself.
+     */
+    @Nullable
+    Future<JcloudsSshMachineLocation> join(Map<?,?> flags, ConfigBag setup) {
+        SettableFuture<JcloudsSshMachineLocation> result = SettableFuture.create();
+        List<Batch> toProvision;
+        synchronized (this) {
+            if (expected <= 0) return null;
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                expected = 0;
+                return null;
+            }
+            expected--;
+            lastArrivalNanos = System.nanoTime();
+            Map<String,Object> key = batchKey(flags);
+            Batch batch = openBatches.get(key);
+            boolean first = (batch == null);
+            if (first) {
+                batch = new Batch();
+                openBatches.put(key, batch);
+            }
+            batch.setups.add(setup);
+            batch.results.add(result);
+            
+            if (expected > 0 && !first) {
+                return result;
+            }
+            try {
+                while (expected > 0) {
+                    long remaining = Math.min(deadlineNanos, lastArrivalNanos + quietPeriodNanos) - System.nanoTime();
+                    if (remaining <= 0) {
+                        LOG.debug("Gave up waiting in {} for {} more expected obtain calls; provisioning those received", location, expected);
+                        expected = 0;
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                // provision what we have, rather than leaving the other callers waiting
+                Thread.currentThread().interrupt();
+            }
+            notifyAll();
+            toProvision = ImmutableList.copyOf(openBatches.values());
+            openBatches.clear();
+        }
+        for (Batch batch : toProvision) {
+            provision(batch);
+        }
+        return result;
+    }
+
+    /** waits for a machine from {@link #join(Map, ConfigBag)}; if interrupted, the machine is released when obtained */
+    JcloudsSshMachineLocation get(Future<JcloudsSshMachineLocation> result) throws NoMachinesAvailableException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            if (!result.cancel(false)) {
+                releaseIfObtained(result);
+            }
+            throw Exceptions.propagate(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NoMachinesAvailableException) throw (NoMachinesAvailableException) e.getCause();
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    protected void provision(final Batch batch) {
+        LOG.debug("Provisioning batch of {} machines in {}", batch.setups.size(), location);
+        location.getManagementContext().getExecutionManager().submit(
+                MutableMap.of("displayName", "Obtaining "+batch.setups.size()+" machines in "+location), 
+                new Runnable() {
+                    public void run() {
+                        List<ReferenceWithError<JcloudsSshMachineLocation>> machines;
+                        try {
+                            machines = location.obtainInBatch(batch.setups);
+                        } catch (Throwable t) {
+                            for (SettableFuture<JcloudsSshMachineLocation> result : batch.results) {
+                                result.setException(t);
+                            }
+                            throw Exceptions.propagate(t);
+                        }
+                        for (int i = 0; i < machines.size(); i++) {
+                            ReferenceWithError<JcloudsSshMachineLocation> machine = machines.get(i);
+                            if (machine.hasError()) {
+                                batch.results.get(i).setException(machine.getError());
+                            } else if (!batch.results.get(i).set(machine.get())) {
+                                LOG.info("Releasing {} in {}, as caller no longer waiting for it", machine.get(), location);
+                                location.release(machine.get());
+                            }
+                        }
+                    }});
+    }
+    
+    private void releaseIfObtained(Future<JcloudsSshMachineLocation> result) {
+        try {
+            if (result.isDone() && !result.isCancelled()) {
+                location.release(result.get());
+            }
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            LOG.debug("Not releasing machine in "+location+" after interrupt: "+e);
+        }
+    }
+    
+    /** the flags which must match for requests to be provisioned together; the caller context is only used for naming and logging */
+    protected static Map<String,Object> batchKey(Map<?,?> flags) {
+        Map<String,Object> result = Maps.newLinkedHashMap(ConfigBag.newInstance(flags).getAllConfig());
+        result.remove(CloudLocationConfig.CALLER_CONTEXT.getName());
+        return result;
+    }
+}
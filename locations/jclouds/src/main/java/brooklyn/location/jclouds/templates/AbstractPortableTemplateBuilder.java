@@ -63,9 +63,12 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
     private TemplateOptions options;
     /** these are extra options that we want _added_, in order, on top of the last options set */
     private List<TemplateOptions> additionalOptions = new ArrayList<TemplateOptions>();
+    /** the calls made to any(), smallest(), fastest() and biggest(), in order, as they are not otherwise recorded */
+    private List<String> preferences = new ArrayList<String>();
     
     @Override
     public T any() {
+        preferences.add("any");
         commands.add(new Function<TemplateBuilder,TemplateBuilder>() { 
             public TemplateBuilder apply(TemplateBuilder b) { return b.any(); }});
         return (T)this;
@@ -109,6 +112,7 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
 
     @Override
     public T smallest() {
+        preferences.add("smallest");
         commands.add(new Function<TemplateBuilder,TemplateBuilder>() { 
             public TemplateBuilder apply(TemplateBuilder b) { return b.smallest(); }});
         return (T)this;
@@ -116,6 +120,7 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
 
     @Override
     public T fastest() {
+        preferences.add("fastest");
         commands.add(new Function<TemplateBuilder,TemplateBuilder>() { 
             public TemplateBuilder apply(TemplateBuilder b) { return b.fastest(); }});
         return (T)this;
@@ -123,6 +128,7 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
 
     @Override
     public T biggest() {
+        preferences.add("biggest");
         commands.add(new Function<TemplateBuilder,TemplateBuilder>() { 
             public TemplateBuilder apply(TemplateBuilder b) { return b.biggest(); }});
         return (T)this;
@@ -369,6 +375,7 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
         minRam = null;
         options = null;
         additionalOptions.clear();
+        preferences.clear();
 
         // clear all fields, and commands
         commands.clear();
@@ -487,8 +494,15 @@ public abstract class AbstractPortableTemplateBuilder<T extends AbstractPortable
     }
 
     protected String makeNonTrivialArgumentsString() {
+        return getConstraintsDescription();
+    }
+
+    /** describes the image, hardware and location constraints set on this builder, excluding any options;
+     * builders giving the same description will match the same template (for a given compute service and its images) */
+    public String getConstraintsDescription() {
         String s =
-                  (hardware != null ? "hardware=" + hardware + ", " : "")
+                  (preferences.size() > 0 ? "preferences=" + preferences + ", " : "")
+                + (hardware != null ? "hardware=" + hardware + ", " : "")
                 + (image != null ? "image=" + image + ", " : "")
                 + (template != null ? "template=" + template + ", " : "")
                 + (hypervisorRegex != null ? "hypervisorRegex="
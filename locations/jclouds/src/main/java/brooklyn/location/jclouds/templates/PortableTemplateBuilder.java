@@ -28,10 +28,14 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.TemplateBuilder;
 import org.jclouds.compute.domain.TemplateBuilderSpec;
+import org.jclouds.compute.domain.internal.TemplateImpl;
 import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.domain.Location;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
@@ -70,6 +74,17 @@ public class PortableTemplateBuilder<T extends PortableTemplateBuilder<?>> exten
         return newJcloudsTemplateBuilder(svc).build();
     }
 
+    /** Creates a template for the given image, hardware and location, with the options from this builder,
+     * without asking the attached compute service to list and match its images;
+     * for use where those have already been resolved from this builder's constraints (e.g. by a previous {@link #build()}) */
+    public synchronized Template newJcloudsTemplate(Image image, Hardware hardware, Location location) {
+        if (svc==null) throw new IllegalStateException("Cannot build a portable template until a compute service is attached");
+        // as TemplateBuilder.options(...) does, copy on to the compute service's own (provider-specific) options
+        TemplateOptions options = svc.templateOptions();
+        computeAggregatedOptions(true).copyTo(options);
+        return new TemplateImpl(image, hardware, location, options);
+    }
+
     /** Adds template options which are used for building, but not for matching/filtering. 
      * (eg tags added here will be set on any machine created by this template,
      * but will not be required when matching this template to existing machines) */
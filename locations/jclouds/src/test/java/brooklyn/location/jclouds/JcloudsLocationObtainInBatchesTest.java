@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.jclouds;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.Template;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.entity.basic.Entities;
+import brooklyn.location.LocationSpec;
+import brooklyn.location.cloud.CloudLocationConfig;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.entity.LocalManagementContextForTests;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.config.ConfigBag;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests {@link JcloudsLocation#obtain(Map, int)} and batching of expected obtain calls, 
+ * against the jclouds "stub" provider (which creates nodes in memory).
+ */
+public class JcloudsLocationObtainInBatchesTest {
+
+    @SuppressWarnings("serial")
+    public static class TemplateCountingJcloudsLocation extends JcloudsLocation {
+        final AtomicInteger buildTemplateCount = new AtomicInteger();
+        
+        @Override
+        public Template buildTemplate(ComputeService computeService, ConfigBag config) {
+            buildTemplateCount.incrementAndGet();
+            return super.buildTemplate(computeService, config);
+        }
+    }
+
+    private LocalManagementContext managementContext;
+    private TemplateCountingJcloudsLocation loc;
+    private ExecutorService executor;
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        managementContext = LocalManagementContextForTests.newInstance(BrooklynProperties.Factory.builderEmpty().build());
+        loc = managementContext.getLocationManager().createLocation(LocationSpec.create(TemplateCountingJcloudsLocation.class)
+                .configure(JcloudsLocation.CLOUD_PROVIDER, "stub")
+                .configure(JcloudsLocation.ACCESS_IDENTITY, "myidentity")
+                .configure(JcloudsLocation.ACCESS_CREDENTIAL, "mycredential")
+                .configure(JcloudsLocation.WAIT_FOR_SSHABLE, "false")
+                .configure(JcloudsLocation.BATCH_OBTAIN_WINDOW, Duration.TEN_SECONDS));
+        executor = Executors.newCachedThreadPool();
+    }
+    
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (executor != null) executor.shutdownNow();
+        if (managementContext != null) Entities.destroyAll(managementContext);
+    }
+    
+    @Test
+    public void testObtainSeveralBuildsTemplateOnce() throws Exception {
+        List<JcloudsSshMachineLocation> machines = loc.obtain(ImmutableMap.of(), 3);
+        
+        assertEquals(machines.size(), 3);
+        assertEquals(loc.buildTemplateCount.get(), 1);
+        assertEquals(nodeIds(machines).size(), 3);
+        assertEquals(groups(machines).size(), 1);
+    }
+    
+    @Test
+    public void testExpectedObtainsAreBatched() throws Exception {
+        loc.expectObtains(3);
+        List<JcloudsSshMachineLocation> machines = obtainConcurrently(3);
+        
+        assertEquals(loc.buildTemplateCount.get(), 1);
+        assertEquals(nodeIds(machines).size(), 3);
+        assertEquals(groups(machines).size(), 1);
+    }
+    
+    @Test
+    public void testUnexpectedObtainsAreNotBatched() throws Exception {
+        List<JcloudsSshMachineLocation> machines = obtainConcurrently(2);
+        
+        assertEquals(loc.buildTemplateCount.get(), 2);
+        assertEquals(nodeIds(machines).size(), 2);
+    }
+    
+    @Test
+    public void testExpectedObtainsWithDifferentFlagsAreBatchedSeparately() throws Exception {
+        loc.expectObtains(2);
+        Future<JcloudsSshMachineLocation> machine1 = obtainInBackground(ImmutableMap.of("minRam", 512));
+        Future<JcloudsSshMachineLocation> machine2 = obtainInBackground(ImmutableMap.of("minRam", 1024));
+        
+        assertEquals(nodeIds(Lists.newArrayList(machine1.get(), machine2.get())).size(), 2);
+        assertEquals(loc.buildTemplateCount.get(), 2);
+    }
+    
+    @Test
+    public void testObtainProceedsWhenExpectedCallsDoNotArrive() throws Exception {
+        loc.setConfig(JcloudsLocation.BATCH_OBTAIN_WINDOW, Duration.millis(100));
+        loc.expectObtains(2);
+        
+        List<JcloudsSshMachineLocation> machines = obtainConcurrently(1);
+        assertEquals(machines.size(), 1);
+        
+        // no longer expecting any, so subsequent calls go straight through
+        loc.obtain(ImmutableMap.of());
+        assertEquals(loc.buildTemplateCount.get(), 2);
+    }
+    
+    @Test
+    public void testObtainProceedsAfterQuietPeriodWhenExpectedCallsDoNotArrive() throws Exception {
+        loc.setConfig(JcloudsLocation.BATCH_OBTAIN_QUIET_PERIOD, Duration.millis(100));
+        loc.expectObtains(3);
+        
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<JcloudsSshMachineLocation> machines = obtainConcurrently(2);
+        
+        // provisioned together, without waiting for the whole (ten second) window
+        assertEquals(machines.size(), 2);
+        assertEquals(loc.buildTemplateCount.get(), 1);
+        assertTrue(Duration.of(stopwatch).isShorterThan(Duration.FIVE_SECONDS), "took "+stopwatch);
+        
+        // no longer expecting any, so subsequent calls go straight through
+        loc.obtain(ImmutableMap.of());
+        assertEquals(loc.buildTemplateCount.get(), 2);
+    }
+    
+    private List<JcloudsSshMachineLocation> obtainConcurrently(int count) throws Exception {
+        List<Future<JcloudsSshMachineLocation>> futures = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            futures.add(obtainInBackground(MutableMap.of(CloudLocationConfig.CALLER_CONTEXT.getName(), "caller"+i)));
+        }
+        List<JcloudsSshMachineLocation> result = Lists.newArrayList();
+        for (Future<JcloudsSshMachineLocation> future : futures) {
+            result.add(future.get());
+        }
+        return result;
+    }
+    
+    private Future<JcloudsSshMachineLocation> obtainInBackground(final Map<?,?> flags) {
+        return executor.submit(new Callable<JcloudsSshMachineLocation>() {
+            public JcloudsSshMachineLocation call() throws Exception {
+                return loc.obtain(flags);
+            }});
+    }
+    
+    private Set<String> nodeIds(List<JcloudsSshMachineLocation> machines) {
+        Set<String> result = Sets.newLinkedHashSet();
+        for (JcloudsSshMachineLocation machine : machines) {
+            result.add(machine.getNode().getId());
+        }
+        return result;
+    }
+    
+    private Set<String> groups(List<JcloudsSshMachineLocation> machines) {
+        Set<String> result = Sets.newLinkedHashSet();
+        for (JcloudsSshMachineLocation machine : machines) {
+            result.add(machine.getNode().getGroup());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.location.jclouds;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.Template;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.entity.basic.Entities;
+import brooklyn.location.LocationSpec;
+import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.test.entity.LocalManagementContextForTests;
+import brooklyn.util.config.ConfigBag;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+/**
+ * Tests the reuse of resolved templates by {@link JcloudsLocation#buildTemplate(ComputeService, ConfigBag)},
+ * against the jclouds "stub" provider.
+ */
+public class JcloudsTemplateCacheTest {
+
+    private LocalManagementContext managementContext;
+    private JcloudsLocation loc;
+    private ComputeService computeService;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        managementContext = LocalManagementContextForTests.newInstance(BrooklynProperties.Factory.builderEmpty().build());
+        loc = managementContext.getLocationManager().createLocation(LocationSpec.create(JcloudsLocation.class)
+                .configure(JcloudsLocation.CLOUD_PROVIDER, "stub")
+                .configure(JcloudsLocation.ACCESS_IDENTITY, "templatecacheidentity")
+                .configure(JcloudsLocation.ACCESS_CREDENTIAL, "mycredential"));
+        computeService = loc.getComputeService();
+        // the cache is shared by all users of the compute service
+        loc.invalidateTemplateCache();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (managementContext != null) Entities.destroyAll(managementContext);
+    }
+
+    @Test
+    public void testSameConstraintsReuseTemplate() throws Exception {
+        long misses = metric("templateMisses");
+        long hits = metric("templateHits");
+
+        Template t1 = loc.buildTemplate(computeService, setup());
+        Template t2 = loc.buildTemplate(computeService, setup());
+
+        assertEquals(metric("templateMisses"), misses+1);
+        assertEquals(metric("templateHits"), hits+1);
+        assertEquals(metric("templateCount"), 1L);
+        assertEquals(t2.getImage(), t1.getImage());
+        assertEquals(t2.getHardware(), t1.getHardware());
+        assertEquals(t2.getLocation(), t1.getLocation());
+        assertNotSame(t2.getOptions(), t1.getOptions());
+    }
+
+    @Test
+    public void testDifferentConstraintsResolvedSeparately() throws Exception {
+        long misses = metric("templateMisses");
+
+        loc.buildTemplate(computeService, setup());
+        loc.buildTemplate(computeService, setup().configure(JcloudsLocation.MIN_RAM, "2gb"));
+
+        assertEquals(metric("templateMisses"), misses+2);
+        assertEquals(metric("templateCount"), 2L);
+    }
+
+    @Test
+    public void testOptionsNotReusedFromCachedTemplate() throws Exception {
+        Template t1 = loc.buildTemplate(computeService, setup().configure(JcloudsLocation.INBOUND_PORTS, ImmutableList.of(22, 8080)));
+        Template t2 = loc.buildTemplate(computeService, setup());
+
+        assertEquals(t2.getImage(), t1.getImage());
+        assertEquals(Ints.asList(t1.getOptions().getInboundPorts()), ImmutableList.of(22, 8080));
+        assertFalse(Ints.contains(t2.getOptions().getInboundPorts(), 8080));
+    }
+
+    @Test
+    public void testZeroTtlDisablesReuse() throws Exception {
+        long misses = metric("templateMisses");
+        long hits = metric("templateHits");
+
+        loc.buildTemplate(computeService, setup().configure(JcloudsLocation.TEMPLATE_CACHE_TTL, Duration.ZERO));
+        loc.buildTemplate(computeService, setup().configure(JcloudsLocation.TEMPLATE_CACHE_TTL, Duration.ZERO));
+
+        assertEquals(metric("templateMisses"), misses);
+        assertEquals(metric("templateHits"), hits);
+        assertEquals(metric("templateCount"), 0L);
+    }
+
+    @Test
+    public void testInvalidateDiscardsTemplates() throws Exception {
+        long misses = metric("templateMisses");
+
+        loc.buildTemplate(computeService, setup());
+        loc.invalidateTemplateCache();
+        assertEquals(metric("templateCount"), 0L);
+        loc.buildTemplate(computeService, setup());
+
+        assertEquals(metric("templateMisses"), misses+2);
+    }
+
+    @Test
+    public void testChooserWithoutDescriptionNotCached() throws Exception {
+        long notCacheable = metric("templatesNotCacheable");
+        final Function<Iterable<? extends Image>,Image> chooser = new BrooklynImageChooser().chooser();
+        Function<Iterable<? extends Image>,Image> undescribedChooser = new Function<Iterable<? extends Image>,Image>() {
+            @Override
+            public Image apply(Iterable<? extends Image> input) {
+                return chooser.apply(input);
+            }
+        };
+
+        loc.buildTemplate(computeService, setup().configure(JcloudsLocation.IMAGE_CHOOSER, undescribedChooser));
+
+        assertEquals(metric("templatesNotCacheable"), notCacheable+1);
+        assertEquals(metric("templateCount"), 0L);
+    }
+
+    @Test
+    public void testMetricsDoNotCreateComputeService() throws Exception {
+        JcloudsLocation unusedLoc = managementContext.getLocationManager().createLocation(LocationSpec.create(JcloudsLocation.class)
+                .configure(JcloudsLocation.CLOUD_PROVIDER, "stub")
+                .configure(JcloudsLocation.ACCESS_IDENTITY, "templatecacheunusedidentity")
+                .configure(JcloudsLocation.ACCESS_CREDENTIAL, "mycredential"));
+
+        int computeServiceCount = JcloudsUtil.cachedComputeServices.size();
+
+        assertEquals(((Number) unusedLoc.getTemplateCacheMetrics().get("templateMisses")).longValue(), 0L);
+        assertNull(unusedLoc.getTemplateCacheMetrics().get("lastInvalidationTimeUtc"));
+        unusedLoc.invalidateTemplateCache();
+        assertNotNull(unusedLoc.getTemplateCacheMetrics().get("lastInvalidationTimeUtc"));
+        assertEquals(JcloudsUtil.cachedComputeServices.size(), computeServiceCount);
+    }
+
+    @Test
+    public void testMetricsAndInvalidationCoverEachComputeServiceForAccount() throws Exception {
+        // as for aws-ec2 with an image ID, provisioning may use a compute service other than the location's own
+        ConfigBag otherSetup = setup();
+        otherSetup.putStringKey("jclouds.templatecachetest", "other");
+        ComputeService otherComputeService = JcloudsUtil.findComputeService(otherSetup);
+        assertNotSame(otherComputeService, computeService);
+        long misses = metric("templateMisses");
+
+        loc.buildTemplate(computeService, setup());
+        loc.buildTemplate(otherComputeService, otherSetup);
+
+        assertEquals(metric("templateMisses"), misses+2);
+        assertEquals(metric("templateCount"), 2L);
+        assertEquals(metric("cacheCount"), 2L);
+
+        loc.invalidateTemplateCache();
+        assertEquals(metric("templateCount"), 0L);
+    }
+
+    private ConfigBag setup() {
+        return ConfigBag.newInstanceCopying(loc.getAllConfigBag());
+    }
+
+    private long metric(String name) {
+        return ((Number) loc.getTemplateCacheMetrics().get(name)).longValue();
+    }
+}
@@ -18,13 +18,12 @@
  */
 package brooklyn.enricher;
 
-import java.util.LinkedList;
-
 import brooklyn.catalog.Catalog;
 import brooklyn.enricher.basic.AbstractTypeTransformingEnricher;
 import brooklyn.entity.Entity;
 import brooklyn.event.AttributeSensor;
 import brooklyn.event.SensorEvent;
+import brooklyn.util.collections.TimeWindowedStatistics;
 import brooklyn.util.flags.SetFromFlag;
 import brooklyn.util.javalang.JavaClassNames;
 
@@ -36,7 +35,8 @@ import brooklyn.util.javalang.JavaClassNames;
 //@Catalog(name="Rolling Mean", description="Transforms a sensor into a rolling average based on a fixed "
 //        + "window size. This is useful for smoothing sample type metrics, such as latency or CPU time")
 public class RollingMeanEnricher<T extends Number> extends AbstractTypeTransformingEnricher<T,Double> {
-    private LinkedList<T> values = new LinkedList<T>();
+    /** the values, held in a ring buffer with a running sum; discarded only by {@link #pruneValues()} */
+    private TimeWindowedStatistics values = new TimeWindowedStatistics();
     
     @SetFromFlag
     int windowSize;
@@ -54,28 +54,25 @@ public class RollingMeanEnricher<T extends Number> extends AbstractTypeTransform
     
     /** @returns null when no data has been received or windowSize is 0 */
     public Double getAverage() {
-        pruneValues();
-        return values.size() == 0 ? null : sum(values) / values.size();
+        synchronized (values) {
+            pruneValues();
+            return values.isEmpty() ? null : values.getMean();
+        }
     }
     
     @Override
     public void onEvent(SensorEvent<T> event) {
-        values.addLast(event.getValue());
+        // null values are ignored
+        if (event.getValue() != null) {
+            values.add(event.getValue().doubleValue(), event.getTimestamp());
+        }
         pruneValues();
         entity.setAttribute((AttributeSensor<Double>)target, getAverage());
     }
     
     private void pruneValues() {
-        while(windowSize > -1 && values.size() > windowSize) {
-            values.removeFirst();
-        }
-    }
-    
-    private double sum(Iterable<? extends Number> vals) {
-        double result = 0;
-        for (Number val : vals) {
-            result += val.doubleValue();
+        if (windowSize > -1) {
+            values.trimToSize(windowSize);
         }
-        return result;
     }
 }
@@ -18,9 +18,6 @@
  */
 package brooklyn.enricher;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
 import com.google.common.base.Preconditions;
 
 import brooklyn.catalog.Catalog;
@@ -29,6 +26,7 @@ import brooklyn.entity.Entity;
 import brooklyn.event.AttributeSensor;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
+import brooklyn.util.collections.TimeWindowedStatistics;
 import brooklyn.util.flags.SetFromFlag;
 import brooklyn.util.javalang.JavaClassNames;
 import brooklyn.util.time.Duration;
@@ -69,8 +67,8 @@ public class RollingTimeWindowMeanEnricher<T extends Number> extends AbstractTyp
         }
     }
     
-    private final LinkedList<T> values = new LinkedList<T>();
-    private final LinkedList<Long> timestamps = new LinkedList<Long>();
+    /** created lazily, as timePeriod may be set from flags after construction */
+    private TimeWindowedStatistics values;
     volatile ConfidenceQualifiedNumber lastAverage = new ConfidenceQualifiedNumber(0d,0d);
     
     @SetFromFlag
@@ -101,9 +99,10 @@ public class RollingTimeWindowMeanEnricher<T extends Number> extends AbstractTyp
     }
     
     public void onEvent(SensorEvent<T> event, long eventTime) {
-        values.addLast(event.getValue());
-        timestamps.addLast(eventTime);
-        pruneValues(eventTime);
+        // null values are ignored; the previous value is treated as applying until the next non-null value
+        if (event.getValue() != null) {
+            getValues().add(event.getValue().doubleValue(), eventTime);
+        }
         entity.setAttribute((AttributeSensor<Double>)target, getAverage(eventTime).value); //TODO this can potentially go stale... maybe we need to timestamp as well?
     }
     
@@ -112,48 +111,38 @@ public class RollingTimeWindowMeanEnricher<T extends Number> extends AbstractTyp
     }
     
     public ConfidenceQualifiedNumber getAverage(long now) {
-        pruneValues(now);
-        if (timestamps.isEmpty()) {
-            return lastAverage = new ConfidenceQualifiedNumber(lastAverage.value, 0.0d);
-        }
+        TimeWindowedStatistics values = getValues();
+        synchronized (values) {
+            values.pruneValues(now);
+            if (values.isEmpty()) {
+                return lastAverage = new ConfidenceQualifiedNumber(lastAverage.value, 0.0d);
+            }
 
-        // XXX grkvlt - see email to development list
+            // XXX grkvlt - see email to development list
 
-        
-        long lastTimestamp = timestamps.get(timestamps.size()-1);
-        Double confidence = ((double)(timePeriod.toMilliseconds() - (now - lastTimestamp))) / timePeriod.toMilliseconds();
-        if (confidence <= 0.0d) {
-            double lastValue = values.get(values.size()-1).doubleValue();
-            return lastAverage = new ConfidenceQualifiedNumber(lastValue, 0.0d);
-        }
-        
-        long start = (now - timePeriod.toMilliseconds());
-        long end;
-        double weightedAverage = 0.0d;
-        
-        Iterator<T> valuesIter = values.iterator();
-        Iterator<Long> timestampsIter = timestamps.iterator();
-        while (valuesIter.hasNext()) {
-            // Ignores null and out-of-date values (and also values that are received out-of-order, but that shouldn't happen!)
-            Number val = valuesIter.next();
-            Long timestamp = timestampsIter.next();
-            if (val!=null && timestamp >= start) {
-                end = timestamp;
-                weightedAverage += ((end - start) / (confidence * timePeriod.toMilliseconds())) * val.doubleValue();
-                start = timestamp;
+            long lastTimestamp = values.getLatestTimestamp();
+            Double confidence = ((double)(timePeriod.toMilliseconds() - (now - lastTimestamp))) / timePeriod.toMilliseconds();
+            if (confidence <= 0.0d) {
+                double lastValue = values.getLatestValue();
+                return lastAverage = new ConfidenceQualifiedNumber(lastValue, 0.0d);
             }
+            
+            // each value in the window is weighted by the time since the previous value (or since the start of the window);
+            // out-of-date values are ignored, except where kept as the latest value
+            long start = (now - timePeriod.toMilliseconds());
+            double weightedAverage = values.getTimeWeightedSum(start) / (confidence * timePeriod.toMilliseconds());
+            
+            return lastAverage = new ConfidenceQualifiedNumber(weightedAverage, confidence);
         }
-        
-        return lastAverage = new ConfidenceQualifiedNumber(weightedAverage, confidence);
     }
     
     /**
-     * Discards out-of-date values, but keeps at least one value.
+     * Values in the time window; out-of-date values are discarded, but at least one value is kept.
      */
-    private void pruneValues(long now) {
-        while(timestamps.size() > 1 && timestamps.get(0) < (now - timePeriod.toMilliseconds())) {
-            timestamps.removeFirst();
-            values.removeFirst();
+    private synchronized TimeWindowedStatistics getValues() {
+        if (values == null) {
+            values = new TimeWindowedStatistics(Preconditions.checkNotNull(timePeriod, "timePeriod"), 1, 0);
         }
+        return values;
     }
 }
@@ -76,6 +76,8 @@ public class BrooklynMetricsImpl extends AbstractEntity implements BrooklynMetri
             setAttribute(TOTAL_TASKS_SUBMITTED, execManager.getTotalTasksSubmitted());
             setAttribute(NUM_INCOMPLETE_TASKS, execManager.getNumIncompleteTasks());
             setAttribute(NUM_ACTIVE_TASKS, execManager.getNumActiveTasks());
+            setAttribute(NUM_QUEUED_TASKS, execManager.getNumQueuedTasks());
+            setAttribute(NUM_POOL_THREADS, execManager.getNumPoolThreads());
         }
         if (subsManager != null) {
             setAttribute(TOTAL_EVENTS_PUBLISHED, subsManager.getTotalEventsPublished());
@@ -22,6 +22,8 @@ import static brooklyn.util.JavaGroovyEquivalents.groovyTruth;
 import static com.google.common.base.Preconditions.checkNotNull;
 import groovy.lang.Closure;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -44,11 +46,13 @@ import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
 import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.event.basic.BasicNotificationSensor;
+import brooklyn.event.basic.Sensors;
 import brooklyn.policy.PolicySpec;
 import brooklyn.policy.autoscaling.SizeHistory.WindowSummary;
 import brooklyn.policy.basic.AbstractPolicy;
 import brooklyn.policy.loadbalancing.LoadBalancingPolicy;
 import brooklyn.util.collections.MutableMap;
+import brooklyn.util.collections.TimestampedValue;
 import brooklyn.util.flags.SetFromFlag;
 import brooklyn.util.flags.TypeCoercions;
 import brooklyn.util.time.Duration;
@@ -68,6 +72,12 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
  * TThis policy does not itself determine whether the pool is hot or cold, but instead relies on these 
  * events being emitted by the monitored entity itself, or by another policy that is attached to it; see, 
  * for example, {@link LoadBalancingPolicy}.)
+ * <p>
+ * When keeping a metric within range, the policy can optionally be {@link #PREDICTIVE predictive}: it then
+ * forecasts the metric one {@link #PROVISIONING_LEAD_TIME provisioning lead time} ahead (see {@link HoltLinearForecaster}),
+ * and resizes according to the forecast where that is higher than the current value, so that new members 
+ * are ready before the bound is breached. The forecast, and its error once the forecast time is reached, are 
+ * published as the sensors {@link #METRIC_FORECAST} and {@link #METRIC_FORECAST_ERROR}.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 @Catalog(name="Auto-scaler", description="Policy that is attached to a Resizable entity and dynamically "
@@ -100,6 +110,10 @@ public class AutoScalerPolicy extends AbstractPolicy {
         private BasicNotificationSensor<?> poolOkSensor;
         private BasicNotificationSensor<? super MaxPoolSizeReachedEvent> maxSizeReachedSensor;
         private Duration maxReachedNotificationDelay;
+        private Boolean predictive;
+        private Duration provisioningLeadTime;
+        private Double forecastLevelSmoothing;
+        private Double forecastTrendSmoothing;
         
         public Builder id(String val) {
             this.id = val; return this;
@@ -193,6 +207,17 @@ public class AutoScalerPolicy extends AbstractPolicy {
         public Builder maxReachedNotificationDelay(Duration val) {
             this.maxReachedNotificationDelay = val; return this;
         }
+        public Builder predictive(boolean val) {
+            this.predictive = val; return this;
+        }
+        public Builder provisioningLeadTime(Duration val) {
+            this.provisioningLeadTime = val; return this;
+        }
+        public Builder forecastSmoothing(double level, double trend) {
+            this.forecastLevelSmoothing = level;
+            this.forecastTrendSmoothing = trend;
+            return this;
+        }
         public AutoScalerPolicy build() {
             return new AutoScalerPolicy(toFlags());
         }
@@ -220,6 +245,10 @@ public class AutoScalerPolicy extends AbstractPolicy {
                     .putIfNotNull("poolOkSensor", poolOkSensor)
                     .putIfNotNull("maxSizeReachedSensor", maxSizeReachedSensor)
                     .putIfNotNull("maxReachedNotificationDelay", maxReachedNotificationDelay)
+                    .putIfNotNull("predictive", predictive)
+                    .putIfNotNull("provisioningLeadTime", provisioningLeadTime)
+                    .putIfNotNull("forecastLevelSmoothing", forecastLevelSmoothing)
+                    .putIfNotNull("forecastTrendSmoothing", forecastTrendSmoothing)
                     .build();
         }
     }
@@ -255,6 +284,11 @@ public class AutoScalerPolicy extends AbstractPolicy {
     public static BasicNotificationSensor<MaxPoolSizeReachedEvent> DEFAULT_MAX_SIZE_REACHED_SENSOR = new BasicNotificationSensor<MaxPoolSizeReachedEvent>(
             MaxPoolSizeReachedEvent.class, "resizablepool.maxSizeReached", "Consistently wanted to resize the pool above the max allowed size");
 
+    public static final AttributeSensor<Double> METRIC_FORECAST = Sensors.newDoubleSensor(
+            "autoscaler.metric.forecast", "Forecast of the metric, one provisioning lead time ahead (if the auto-scaler is predictive)");
+    public static final AttributeSensor<Double> METRIC_FORECAST_ERROR = Sensors.newDoubleSensor(
+            "autoscaler.metric.forecastError", "The metric minus the value earlier forecast for this time (if the auto-scaler is predictive)");
+
     public static final String POOL_CURRENT_SIZE_KEY = "pool.current.size";
     public static final String POOL_HIGH_THRESHOLD_KEY = "pool.high.threshold";
     public static final String POOL_LOW_THRESHOLD_KEY = "pool.low.threshold";
@@ -367,6 +401,36 @@ public class AutoScalerPolicy extends AbstractPolicy {
                     "maxSizeReachedSensor (if any) will be emitted")
             .defaultValue(Duration.ZERO)
             .build();
+
+    @SetFromFlag("predictive")
+    public static final ConfigKey<Boolean> PREDICTIVE = BasicConfigKey.builder(Boolean.class)
+            .name("autoscaler.predictive")
+            .description("Whether to resize according to a forecast of the metric, one provisioning lead time ahead, " +
+                    "when that is higher than the current value")
+            .defaultValue(false)
+            .build();
+
+    @SetFromFlag("provisioningLeadTime")
+    public static final ConfigKey<Duration> PROVISIONING_LEAD_TIME = BasicConfigKey.builder(Duration.class)
+            .name("autoscaler.provisioningLeadTime")
+            .description("How far ahead to forecast the metric, if predictive; typically the time for new members to be provisioned and started")
+            .defaultValue(Duration.FIVE_MINUTES)
+            .reconfigurable(true)
+            .build();
+
+    @SetFromFlag("forecastLevelSmoothing")
+    public static final ConfigKey<Double> FORECAST_LEVEL_SMOOTHING = BasicConfigKey.builder(Double.class)
+            .name("autoscaler.forecast.levelSmoothing")
+            .description("Weight (between 0 and 1) of each new metric value when smoothing the forecast's level, if predictive")
+            .defaultValue(0.5)
+            .build();
+
+    @SetFromFlag("forecastTrendSmoothing")
+    public static final ConfigKey<Double> FORECAST_TREND_SMOOTHING = BasicConfigKey.builder(Double.class)
+            .name("autoscaler.forecast.trendSmoothing")
+            .description("Weight (between 0 and 1) of each new observed change when smoothing the forecast's trend, if predictive")
+            .defaultValue(0.3)
+            .build();
     
     private Entity poolEntity;
     
@@ -380,6 +444,14 @@ public class AutoScalerPolicy extends AbstractPolicy {
     
     private long maxReachedLastNotifiedTime;
     
+    /** forecasts the metric, if predictive; guards itself and pendingForecasts */
+    private HoltLinearForecaster forecaster;
+    
+    /** forecasts made, with the time they are for, to compare with the actual metric at that time */
+    private Deque<TimestampedValue<Double>> pendingForecasts;
+    
+    private static final int MAX_PENDING_FORECASTS = 1000;
+    
     private final SensorEventListener<Map> utilizationEventHandler = new SensorEventListener<Map>() {
         public void onEvent(SensorEvent<Map> event) {
             Map<String, ?> properties = (Map<String, ?>) event.getValue();
@@ -400,7 +472,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
     private final SensorEventListener<Number> metricEventHandler = new SensorEventListener<Number>() {
         public void onEvent(SensorEvent<Number> event) {
             assert event.getSensor().equals(getMetric());
-            onMetricChanged(event.getValue());
+            onMetricChanged(event.getValue(), event.getTimestamp());
         }
     };
 
@@ -429,6 +501,9 @@ public class AutoScalerPolicy extends AbstractPolicy {
         long maxResizeStabilizationDelay = Math.max(getResizeUpStabilizationDelay().toMilliseconds(), getResizeDownStabilizationDelay().toMilliseconds());
         recentDesiredResizes = new SizeHistory(maxResizeStabilizationDelay);
         
+        forecaster = new HoltLinearForecaster(getConfig(FORECAST_LEVEL_SMOOTHING), getConfig(FORECAST_TREND_SMOOTHING));
+        pendingForecasts = new ArrayDeque<TimestampedValue<Double>>();
+        
         // TODO Should re-use the execution manager's thread pool, somehow
         executor = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
     }
@@ -552,6 +627,14 @@ public class AutoScalerPolicy extends AbstractPolicy {
     private Duration getMaxReachedNotificationDelay() {
         return getConfig(MAX_REACHED_NOTIFICATION_DELAY);
     }
+    
+    private boolean isPredictive() {
+        return Boolean.TRUE.equals(getConfig(PREDICTIVE));
+    }
+    
+    private Duration getProvisioningLeadTime() {
+        return getConfig(PROVISIONING_LEAD_TIME);
+    }
 
     @Override
     protected <T> void doReconfigureConfig(ConfigKey<T> key, T val) {
@@ -567,6 +650,8 @@ public class AutoScalerPolicy extends AbstractPolicy {
             // and same for those below...
         } else if (key.equals(METRIC_UPPER_BOUND)) {
 
+        } else if (key.equals(PROVISIONING_LEAD_TIME)) {
+            // used for the next forecast
         } else if (key.equals(MIN_POOL_SIZE)) {
             int newMin = (Integer) val;
             if (newMin > getConfig(MAX_POOL_SIZE)) {
@@ -595,6 +680,13 @@ public class AutoScalerPolicy extends AbstractPolicy {
     public void resume() {
         super.resume();
         executor = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+        if (forecaster != null) {
+            // the metric's history from before suspension says nothing about its trend now
+            synchronized (forecaster) {
+                forecaster.reset();
+                pendingForecasts.clear();
+            }
+        }
     }
     
     @Override
@@ -654,7 +746,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
         }
     }
 
-    private void onMetricChanged(Number val) {
+    private void onMetricChanged(Number val, long timestamp) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording pool-metric for {}: {}", new Object[] {this, poolEntity, val});
 
         if (val==null) {
@@ -664,6 +756,15 @@ public class AutoScalerPolicy extends AbstractPolicy {
         }
         
         double currentMetricD = val.doubleValue();
+        if (isPredictive()) {
+            Double forecast = forecastMetric(currentMetricD, timestamp);
+            if (forecast != null && forecast > currentMetricD) {
+                // resize for the (higher) forecast load, so new members are ready in time; 
+                // and do not scale back if load is forecast to increase
+                if (LOG.isTraceEnabled()) LOG.trace("{} using forecast pool-metric for {}: {} (current {})", new Object[] {this, poolEntity, forecast, currentMetricD});
+                currentMetricD = forecast;
+            }
+        }
         double metricUpperBoundD = getMetricUpperBound().doubleValue();
         double metricLowerBoundD = getMetricLowerBound().doubleValue();
         int currentSize = getCurrentSizeOperator().apply(entity);
@@ -722,6 +823,33 @@ public class AutoScalerPolicy extends AbstractPolicy {
         }
     }
     
+    /**
+     * Records the metric with the forecaster, and publishes the error of any forecast made for this time.
+     * 
+     * @return the forecast one provisioning lead time ahead, or null if there is not yet enough data
+     */
+    private Double forecastMetric(double val, long timestamp) {
+        synchronized (forecaster) {
+            Double dueForecast = null;
+            while (!pendingForecasts.isEmpty() && pendingForecasts.peekFirst().getTimestamp() <= timestamp) {
+                dueForecast = pendingForecasts.removeFirst().getValue();
+            }
+            if (dueForecast != null) {
+                entity.setAttribute(METRIC_FORECAST_ERROR, val - dueForecast);
+            }
+            
+            forecaster.add(timestamp, val);
+            long forecastTime = timestamp + getProvisioningLeadTime().toMilliseconds();
+            Double result = forecaster.forecast(forecastTime);
+            if (result != null) {
+                pendingForecasts.addLast(new TimestampedValue<Double>(result, forecastTime));
+                if (pendingForecasts.size() > MAX_PENDING_FORECASTS) pendingForecasts.removeFirst();
+                entity.setAttribute(METRIC_FORECAST, result);
+            }
+            return result;
+        }
+    }
+    
     private void onPoolCold(Map<String, ?> properties) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording pool-cold for {}: {}", new Object[] {this, poolEntity, properties});
         
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.policy.autoscaling;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Short-horizon forecast of a metric, using Holt's linear (double exponential) smoothing: 
+ * a smoothed level and trend are updated with each observation, and the forecast extrapolates
+ * the trend from the level.
+ * <p>
+ * Observations may be irregularly spaced; the trend is per millisecond. Observations at the same time 
+ * as (or earlier than) the previous one update only the level.
+ * <p>
+ * This does not model seasonality (as Holt-Winters would); for forecasting a few minutes ahead 
+ * of a daily cycle, the recent trend dominates.
+ * <p>
+ * Not thread-safe.
+ */
+public class HoltLinearForecaster {
+
+    private final double levelSmoothing;
+    private final double trendSmoothing;
+    
+    private int count;
+    private int trendCount;
+    private long lastTimestamp;
+    private double level;
+    private double trend;
+    
+    /**
+     * @param levelSmoothing weight (between 0 and 1) given to each new observation when updating the level
+     * @param trendSmoothing weight (between 0 and 1) given to each new observed change when updating the trend
+     */
+    public HoltLinearForecaster(double levelSmoothing, double trendSmoothing) {
+        Preconditions.checkArgument(levelSmoothing > 0 && levelSmoothing <= 1, "levelSmoothing must be in (0,1]: %s", levelSmoothing);
+        Preconditions.checkArgument(trendSmoothing > 0 && trendSmoothing <= 1, "trendSmoothing must be in (0,1]: %s", trendSmoothing);
+        this.levelSmoothing = levelSmoothing;
+        this.trendSmoothing = trendSmoothing;
+    }
+    
+    public void add(long timestamp, double value) {
+        if (count == 0) {
+            level = value;
+            trend = 0;
+            lastTimestamp = timestamp;
+        } else if (timestamp <= lastTimestamp) {
+            level = levelSmoothing*value + (1-levelSmoothing)*level;
+        } else if (trendCount == 0) {
+            // the first change initialises the trend
+            trend = (value - level) / (timestamp - lastTimestamp);
+            level = value;
+            trendCount++;
+            lastTimestamp = timestamp;
+        } else {
+            long elapsed = timestamp - lastTimestamp;
+            double previousLevel = level;
+            level = levelSmoothing*value + (1-levelSmoothing)*(level + trend*elapsed);
+            trend = trendSmoothing*(level - previousLevel)/elapsed + (1-trendSmoothing)*trend;
+            trendCount++;
+            lastTimestamp = timestamp;
+        }
+        count++;
+    }
+    
+    /** whether there have been enough observations (at different times) to estimate a trend */
+    public boolean isReady() {
+        return trendCount > 0;
+    }
+    
+    /**
+     * @return the forecast value at the given time, or null if not {@link #isReady() ready}
+     */
+    public Double forecast(long timestamp) {
+        if (!isReady()) return null;
+        return level + trend * (timestamp - lastTimestamp);
+    }
+    
+    public void reset() {
+        count = 0;
+        trendCount = 0;
+        level = 0;
+        trend = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("level", level).add("trendPerMs", trend).add("count", count).toString();
+    }
+}
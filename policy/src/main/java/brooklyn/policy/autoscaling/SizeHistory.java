@@ -18,17 +18,13 @@
  */
 package brooklyn.policy.autoscaling;
 
-import java.util.List;
-
-import brooklyn.util.collections.MutableMap;
-import brooklyn.util.collections.TimeWindowedList;
-import brooklyn.util.collections.TimestampedValue;
+import brooklyn.util.collections.TimeWindowedStatistics;
 import brooklyn.util.time.Duration;
 
 import com.google.common.base.Objects;
 
 /**
- * Using a {@link TimeWindowedList}, tracks the recent history of values to allow a summary of 
+ * Using a {@link TimeWindowedStatistics}, tracks the recent history of values to allow a summary of 
  * those values to be obtained. 
  *   
  * @author aled
@@ -66,14 +62,14 @@ public class SizeHistory {
         }
     }
     
-    private final TimeWindowedList<Number> recentDesiredResizes;
+    private final TimeWindowedStatistics recentDesiredResizes;
     
     public SizeHistory(long windowSize) {
-        recentDesiredResizes = new TimeWindowedList<Number>(MutableMap.of("timePeriod", windowSize, "minExpiredVals", 1));
+        recentDesiredResizes = new TimeWindowedStatistics(Duration.millis(windowSize), 0, 1);
     }
 
     public void add(final int val) {
-        recentDesiredResizes.add(val);
+        recentDesiredResizes.add(val, System.currentTimeMillis());
     }
 
     public void setWindowSize(Duration newWindowSize) {
@@ -91,72 +87,53 @@ public class SizeHistory {
      * </ul>
      */
     public WindowSummary summarizeWindow(Duration windowSize) {
-        long now = System.currentTimeMillis();
-        List<TimestampedValue<Number>> windowVals = recentDesiredResizes.getValuesInWindow(now, windowSize);
-        
-        Number latestObj = latestInWindow(windowVals);
-        long latest = (latestObj == null) ? -1: latestObj.longValue();
-        long max = maxInWindow(windowVals, windowSize).longValue();
-        long min = minInWindow(windowVals, windowSize).longValue();
-        
-        // TODO Could do more sophisticated "stable" check; this is the easiest code - correct but not most efficient
-        // in terms of the caller having to schedule additional stability checks.
-        boolean stable = (min == max);
-        
-        return new WindowSummary(latest, min, max, stable, stable);
+        synchronized (recentDesiredResizes) {
+            long now = System.currentTimeMillis();
+            long epoch = now - windowSize.toMilliseconds();
+            
+            long latest = recentDesiredResizes.isEmpty() ? -1 : (long) recentDesiredResizes.getLatestValue();
+            long max = (long) maxInWindow(epoch, Integer.MAX_VALUE);
+            long min = (long) minInWindow(epoch, Integer.MIN_VALUE);
+            
+            // TODO Could do more sophisticated "stable" check; this is the easiest code - correct but not most efficient
+            // in terms of the caller having to schedule additional stability checks.
+            boolean stable = (min == max);
+            
+            return new WindowSummary(latest, min, max, stable, stable);
+        }
     }
     
     /**
-     * If the entire time-window is not covered by the given values, then returns Integer.MAX_VALUE.
+     * Returns the max of the values since the epoch, including the most recent value before it (i.e. the value at 
+     * the start of the window). If the entire time-window is not covered by the values, then returns uncoveredResult.
      */
-    private <T extends Number> T maxInWindow(List<TimestampedValue<T>> vals, Duration timeWindow) {
-        // TODO bad casting from Integer default result to T
-        long now = System.currentTimeMillis();
-        long epoch = now - timeWindow.toMilliseconds();
-        T result = null;
-        double resultAsDouble = Integer.MAX_VALUE;
-        for (TimestampedValue<T> val : vals) {
-            T valAsNum = val.getValue();
-            double valAsDouble = (valAsNum != null) ? valAsNum.doubleValue() : 0;
-            if (result == null && val.getTimestamp() > epoch) {
-                result = (T) Integer.valueOf(Integer.MAX_VALUE);
-                resultAsDouble = result.doubleValue();
-            }
-            if (result == null || (valAsNum != null && valAsDouble > resultAsDouble)) {
-                result = valAsNum;
-                resultAsDouble = valAsDouble;
-            }
+    private double maxInWindow(long epoch, double uncoveredResult) {
+        int numBefore = recentDesiredResizes.countBefore(epoch);
+        double maxSinceEpoch = recentDesiredResizes.getMax(epoch);
+        if (numBefore > 0) {
+            double initial = recentDesiredResizes.getValue(numBefore-1);
+            return Double.isNaN(maxSinceEpoch) ? initial : Math.max(initial, maxSinceEpoch);
+        } else if (recentDesiredResizes.isEmpty() || recentDesiredResizes.getTimestamp(0) > epoch) {
+            return uncoveredResult;
+        } else {
+            return maxSinceEpoch;
         }
-        return (T) (result != null ? result : Integer.MAX_VALUE);
     }
     
     /**
-     * If the entire time-window is not covered by the given values, then returns Integer.MIN_VALUE
+     * Returns the min of the values since the epoch, including the most recent value before it (i.e. the value at 
+     * the start of the window). If the entire time-window is not covered by the values, then returns uncoveredResult.
      */
-    private <T extends Number> T minInWindow(List<TimestampedValue<T>> vals, Duration timeWindow) {
-        long now = System.currentTimeMillis();
-        long epoch = now - timeWindow.toMilliseconds();
-        T result = null;
-        double resultAsDouble = Integer.MIN_VALUE;
-        for (TimestampedValue<T> val : vals) {
-            T valAsNum = val.getValue();
-            double valAsDouble = (valAsNum != null) ? valAsNum.doubleValue() : 0;
-            if (result == null && val.getTimestamp() > epoch) {
-                result = (T) Integer.valueOf(Integer.MIN_VALUE);
-                resultAsDouble = result.doubleValue();
-            }
-            if (result == null || (val.getValue() != null && valAsDouble < resultAsDouble)) {
-                result = valAsNum;
-                resultAsDouble = valAsDouble;
-            }
+    private double minInWindow(long epoch, double uncoveredResult) {
+        int numBefore = recentDesiredResizes.countBefore(epoch);
+        double minSinceEpoch = recentDesiredResizes.getMin(epoch);
+        if (numBefore > 0) {
+            double initial = recentDesiredResizes.getValue(numBefore-1);
+            return Double.isNaN(minSinceEpoch) ? initial : Math.min(initial, minSinceEpoch);
+        } else if (recentDesiredResizes.isEmpty() || recentDesiredResizes.getTimestamp(0) > epoch) {
+            return uncoveredResult;
+        } else {
+            return minSinceEpoch;
         }
-        return (T) (result != null ? result : Integer.MIN_VALUE);
-    }
-
-    /**
-     * @return null if empty, or the most recent value
-     */
-    private <T extends Number> T latestInWindow(List<TimestampedValue<T>> vals) {
-        return vals.isEmpty() ? null : vals.get(vals.size()-1).getValue();
     }
 }
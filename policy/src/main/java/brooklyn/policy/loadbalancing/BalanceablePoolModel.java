@@ -23,6 +23,8 @@ import java.util.Set;
 
 import brooklyn.location.Location;
 
+import com.google.common.annotations.Beta;
+
 /**
  * Captures the state of a balanceable cluster of containers and all their constituent items, including workrates,
  * for consumption by a {@link BalancingStrategy}.
@@ -52,6 +54,23 @@ public interface BalanceablePoolModel<ContainerType, ItemType> {
     public Map<ItemType, Double> getItemWorkrates(ContainerType container);
     public boolean isItemMoveable(ItemType item);
     public boolean isItemAllowedIn(ItemType item, Location location);
+    public ContainerType getParentContainer(ItemType item); // null if not known
+    public Double getItemWorkrate(ItemType item); // null if not known
+    
+    // Ordered views, for efficiently finding containers and items to balance; these are weakly consistent, 
+    // i.e. iterating is safe while the model is updated, but may or may not reflect those updates.
+    /** pool containers in decreasing order of workrate minus high threshold */
+    @Beta
+    public Iterable<ContainerType> getContainersHottestFirst();
+    /** pool containers in increasing order of workrate minus high threshold */
+    @Beta
+    public Iterable<ContainerType> getContainersColdestFirst();
+    /** items of the container with a known workrate, and their workrates, in increasing order of workrate starting at fromWorkrate (inclusive) */
+    @Beta
+    public Iterable<Map.Entry<ItemType, Double>> getItemWorkratesAscending(ContainerType container, double fromWorkrate);
+    /** items of the container with a known workrate, and their workrates, in decreasing order of workrate starting at fromWorkrate (inclusive) */
+    @Beta
+    public Iterable<Map.Entry<ItemType, Double>> getItemWorkratesDescending(ContainerType container, double fromWorkrate);
     
     // Mutators for keeping the model in-sync with the observed world
     public void onContainerAdded(ContainerType newContainer, double lowThreshold, double highThreshold);
@@ -271,20 +271,10 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
                     (nodeWorkrate - coldNodeWorkrate)*0.9);
             double maxSizeToMoveIfNoSmallButLarger = nodeWorkrate*3/4;
             
-            Map<ItemType, Double> questionedNodeItems = getDataProvider().getItemWorkrates(node);
-            if (questionedNodeItems == null) {
-                if (LOG.isDebugEnabled())
-                    LOG.debug(MessageFormat.format(
-                            "policy "+getDataProvider().getName()+" balancing hot node "+questionedNodeName+" " +
-                            "("+node+", workrate {0,number,#.##}), abandoned; " +
-                            "item report for " + questionedNodeName + " unavailable",
-                            nodeWorkrate));
-                break;
-            }
-            ItemType itemToMove = findBestItemToMove(questionedNodeItems, idealSizeToMove, maxSizeToMoveIdeally,
+            Map.Entry<ItemType, Double> itemToMoveAndWorkrate = findBestItemToMove(node, idealSizeToMove, maxSizeToMoveIdeally,
                     maxSizeToMoveIfNoSmallButLarger, itemsMoved, coldNodeLocation);
             
-            if (itemToMove == null) {
+            if (itemToMoveAndWorkrate == null) {
                 if (LOG.isDebugEnabled())
                     LOG.debug(MessageFormat.format(
                             "policy "+getDataProvider().getName()+" balancing hot node "+questionedNodeName+" " +
@@ -292,12 +282,13 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
                             "no suitable segment found " +
                             "(ideal transition item size {1,number,#.##}, max {2,number,#.##}, " +
                             "moving to coldest node "+coldNodeName+" ("+coldNode+", workrate {3,number,#.##}); available items: {4}",
-                            nodeWorkrate, idealSizeToMove, maxSizeToMoveIdeally, coldNodeWorkrate, questionedNodeItems) );
+                            nodeWorkrate, idealSizeToMove, maxSizeToMoveIdeally, coldNodeWorkrate, getDataProvider().getItemWorkrates(node)) );
                 break;
             }
             
+            ItemType itemToMove = itemToMoveAndWorkrate.getKey();
             itemsMoved.add(itemToMove);
-            double itemWorkrate = questionedNodeItems.get(itemToMove);
+            double itemWorkrate = itemToMoveAndWorkrate.getValue();
             
 //            if (LOG.isLoggable(Level.FINE))
 //                LOG.fine( MessageFormat.format(
@@ -343,6 +334,17 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
     }
     
     protected boolean balanceItemsOnColdNode(NodeType questionedNode, double questionedNodeTotalWorkrate, boolean gonnaGrow) {
+        double lowThreshold = model.getLowThreshold(questionedNode);
+        if (questionedNodeTotalWorkrate >= lowThreshold) {
+            // not cold; avoid looking at its items
+            if (LOG.isTraceEnabled())
+                LOG.trace( MessageFormat.format(
+                        "policy "+getDataProvider().getName()+" balancing if cold finished at node "+questionedNode+"; " +
+                        "workrate {0,number,#.##} not cold",
+                        questionedNodeTotalWorkrate) );
+            return false;
+        }
+        
         // Abort if the node has pending adjustments.
         Map<ItemType, Double> items = getDataProvider().getItemWorkrates(questionedNode);
         if (items == null) {
@@ -375,7 +377,6 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
         int iters = 0;
         Location questionedLocation = getDataProvider().getLocation(questionedNode);
         
-        double lowThreshold = model.getLowThreshold(questionedNode);
         while (questionedNodeTotalWorkrate < lowThreshold) {
             iters++;
             
@@ -465,21 +466,9 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
                     (hotNodeWorkrate - questionedNodeTotalWorkrate)*0.6);
             double maxSizeToMoveIfNoSmallButLarger = questionedNodeTotalWorkrate*3/4;
             
-            Map<ItemType, Double> hotNodeItems = getDataProvider().getItemWorkrates(hotNode);
-            if (hotNodeItems == null) {
-                if (LOG.isDebugEnabled())
-                    LOG.debug(MessageFormat.format(
-                            "policy "+getDataProvider().getName()+" balancing cold node "+questionedNodeName+" " +
-                            "("+questionedNode+", workrate {0,number,#.##}), " +
-                            "excluding hot node "+hotNodeName+" because its item report unavailable",
-                            questionedNodeTotalWorkrate));
-                nodesChecked.add(hotNode);
-                continue;
-            }
-            
-            ItemType itemToMove = findBestItemToMove(hotNodeItems, idealSizeToMove, maxSizeToMoveIdeally,
+            Map.Entry<ItemType, Double> itemToMoveAndWorkrate = findBestItemToMove(hotNode, idealSizeToMove, maxSizeToMoveIdeally,
                     maxSizeToMoveIfNoSmallButLarger, itemsMoved, questionedLocation);
-            if (itemToMove == null) {
+            if (itemToMoveAndWorkrate == null) {
                 if (LOG.isDebugEnabled())
                     LOG.debug(MessageFormat.format(
                             "policy "+getDataProvider().getName()+" balancing cold node "+questionedNodeName+" " +
@@ -487,14 +476,15 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
                             "excluding hot node "+hotNodeName+" because it has no appilcable items " +
                             "(ideal transition item size {1,number,#.##}, max {2,number,#.##}, " +
                             "moving from hot node "+hotNodeName+" ("+hotNode+", workrate {3,number,#.##}); available items: {4}",
-                            questionedNodeTotalWorkrate, idealSizeToMove, maxSizeToMoveIdeally, hotNodeWorkrate, hotNodeItems) );
+                            questionedNodeTotalWorkrate, idealSizeToMove, maxSizeToMoveIdeally, hotNodeWorkrate, getDataProvider().getItemWorkrates(hotNode)) );
                 
                 nodesChecked.add(hotNode);
                 continue;
             }
             
+            ItemType itemToMove = itemToMoveAndWorkrate.getKey();
             itemsMoved.add(itemToMove);
-            double segmentRate = hotNodeItems.get(itemToMove);
+            double segmentRate = itemToMoveAndWorkrate.getValue();
             
 //            if (LOG.isLoggable(Level.FINE))
 //                LOG.fine( MessageFormat.format(
@@ -546,6 +536,80 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
         model.onItemMoved(item, newNode);
     }
     
+    /**
+     * As {@link #findBestItemToMove(Map, double, double, double, Set, Location)}, for the items of the given container,
+     * but using the model's ordering of items by workrate, so that (unless many items must be skipped) this is 
+     * O(log n) rather than O(n) in the number of items.
+     * 
+     * @return the item and its workrate, or null if there is no suitable item
+     */
+    protected Map.Entry<ItemType, Double> findBestItemToMove(NodeType container, double targetCost, double maxCost,
+            double maxCostIfNothingSmallerButLarger, Set<ItemType> excludedItems, Location locationIfKnown) {
+        
+        // nearest at or below the target (without exceeding maxCost)
+        Map.Entry<ItemType, Double> closestBelow = null;
+        for (Map.Entry<ItemType, Double> entry : model.getItemWorkratesDescending(container, Math.min(targetCost, maxCost))) {
+            if (entry.getValue() <= 0) break;
+            if (isCandidateToMove(entry.getKey(), excludedItems, locationIfKnown)) {
+                closestBelow = entry;
+                break;
+            }
+        }
+        
+        // nearest above the target (without exceeding maxCost)
+        Map.Entry<ItemType, Double> closestAbove = null;
+        if (targetCost < maxCost) {
+            for (Map.Entry<ItemType, Double> entry : model.getItemWorkratesAscending(container, targetCost)) {
+                if (entry.getValue() > maxCost) break;
+                if (entry.getValue() <= 0) continue;
+                if (isCandidateToMove(entry.getKey(), excludedItems, locationIfKnown)) {
+                    closestAbove = entry;
+                    break;
+                }
+            }
+        }
+        
+        if (closestBelow != null && (closestAbove == null || targetCost - closestBelow.getValue() <= closestAbove.getValue() - targetCost))
+            return closestBelow;
+        if (closestAbove != null)
+            return closestAbove;
+        
+        // otherwise consider the smallest, if it is not too large
+        Map.Entry<ItemType, Double> smallestMoveable = null;
+        for (Map.Entry<ItemType, Double> entry : model.getItemWorkratesAscending(container, Double.MIN_VALUE)) {
+            if (isCandidateToMove(entry.getKey(), excludedItems, locationIfKnown)) {
+                smallestMoveable = entry;
+                break;
+            }
+        }
+        if (smallestMoveable == null || smallestMoveable.getValue() >= maxCostIfNothingSmallerButLarger) 
+            return null;
+        
+        Map.Entry<ItemType, Double> largest = null;
+        for (Map.Entry<ItemType, Double> entry : model.getItemWorkratesDescending(container, Double.MAX_VALUE)) {
+            if (entry.getValue() <= 0) break;
+            if (isCandidateToMove(entry.getKey(), excludedItems, null)) {
+                largest = entry;
+                break;
+            }
+        }
+        if (largest == null || smallestMoveable.getValue() >= largest.getValue()) 
+            return null;
+        
+        // as for the map-based search, excluded items which would otherwise be considered prevent this
+        for (ItemType item : excludedItems) {
+            Double cost = model.getItemWorkrate(item);
+            if (container.equals(model.getParentContainer(item)) && cost != null && cost >= 0 && model.isItemMoveable(item))
+                return null;
+        }
+        return smallestMoveable;
+    }
+    
+    private boolean isCandidateToMove(ItemType item, Set<ItemType> excludedItems, Location locationIfKnown) {
+        return model.isItemMoveable(item) && !excludedItems.contains(item) 
+                && (locationIfKnown == null || model.isItemAllowedIn(item, locationIfKnown));
+    }
+    
     /**
      * "Best" is defined as nearest to the targetCost, without exceeding maxCost, unless maxCostIfNothingSmallerButLarger > 0
      * which does just that (useful if the ideal and target are estimates and aren't quite right, typically it will take
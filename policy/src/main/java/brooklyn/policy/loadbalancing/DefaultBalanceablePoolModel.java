@@ -23,8 +23,10 @@ import java.io.PrintStream;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +34,11 @@ import org.slf4j.LoggerFactory;
 import brooklyn.location.Location;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 
@@ -54,6 +59,12 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
      *  - Unfortunately changing threading model (so have a "rebalancer" thread, and a thread that 
      *    processes events to update the model), get ConcurrentModificationException if don't take
      *    copy of containerToItems.get(node)...
+     *  - With thousands of items, summing the item workrates of every container to find the hottest/coldest,
+     *    and scanning all items of a container to find the best to move, dominated each rebalance.
+     *    Hence the container totals are maintained incrementally, and containers and items are also indexed 
+     *    in order of load and of workrate respectively. The indexes hold immutable entries in concurrent 
+     *    skip-lists, so the rebalancer can iterate them while events update the model; updates to the 
+     *    indexes are guarded by indexMutex.
      */
     
     // Concurrent maps cannot have null value; use this to represent when no container is supplied for an item 
@@ -68,6 +79,17 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     private final Map<ItemType, Double> itemToWorkrate = new ConcurrentHashMap<ItemType, Double>();
     private final Set<ItemType> immovableItems = Collections.newSetFromMap(new ConcurrentHashMap<ItemType, Boolean>());
     
+    private final Object indexMutex = new Object();
+    private long indexSequence = 0;
+    /** sum of the (absolute) workrates of each container's items; kept for any container with items, even if not in the pool */
+    private final Map<ContainerType, Double> containerToWorkrate = new ConcurrentHashMap<ContainerType, Double>();
+    /** pool containers, ordered by load (i.e. workrate - highThreshold) */
+    private final NavigableSet<IndexEntry<ContainerType>> containersByLoad = new ConcurrentSkipListSet<IndexEntry<ContainerType>>();
+    private final Map<ContainerType, IndexEntry<ContainerType>> containerToIndexEntry = new ConcurrentHashMap<ContainerType, IndexEntry<ContainerType>>();
+    /** items with a known workrate, ordered by workrate, for each container */
+    private final Map<ContainerType, NavigableSet<IndexEntry<ItemType>>> containerToItemsByWorkrate = new ConcurrentHashMap<ContainerType, NavigableSet<IndexEntry<ItemType>>>();
+    private final Map<ItemType, ItemIndexEntry<ContainerType, ItemType>> itemToIndexEntry = new ConcurrentHashMap<ItemType, ItemIndexEntry<ContainerType, ItemType>>();
+    
     private volatile double poolLowThreshold = 0;
     private volatile double poolHighThreshold = 0;
     private volatile double currentPoolWorkrate = 0;
@@ -76,6 +98,7 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
         this.name = name;
     }
     
+    @Override
     public ContainerType getParentContainer(ItemType item) {
         ContainerType result = itemToContainer.get(item);
         return (result != NULL_CONTAINER) ? result : null;
@@ -88,6 +111,7 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
         }
     }
     
+    @Override
     public Double getItemWorkrate(ItemType item) {
         return itemToWorkrate.get(item);
     }
@@ -118,13 +142,8 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     }
     
     @Override public double getTotalWorkrate(ContainerType container) {
-        double totalWorkrate = 0;
-        for (ItemType item : getItemsForContainer(container)) {
-            Double workrate = itemToWorkrate.get(item);
-            if (workrate != null)
-                totalWorkrate += Math.abs(workrate);
-        }
-        return totalWorkrate;
+        Double result = containerToWorkrate.get(container);
+        return (result != null) ? result : 0;
     }
     
     @Override public Map<ContainerType, Double> getContainerWorkrates() {
@@ -141,6 +160,28 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
         return result;
     }
     
+    @Override public Iterable<ContainerType> getContainersHottestFirst() {
+        return Iterables.transform(containersByLoad.descendingSet(), IndexEntry.<ContainerType>keyFunction());
+    }
+    
+    @Override public Iterable<ContainerType> getContainersColdestFirst() {
+        return Iterables.transform(containersByLoad, IndexEntry.<ContainerType>keyFunction());
+    }
+    
+    @Override public Iterable<Map.Entry<ItemType, Double>> getItemWorkratesAscending(ContainerType container, double fromWorkrate) {
+        NavigableSet<IndexEntry<ItemType>> items = containerToItemsByWorkrate.get(container);
+        if (items == null) return Collections.emptySet();
+        return Collections.<Map.Entry<ItemType, Double>>unmodifiableSet(
+                items.tailSet(new IndexEntry<ItemType>(null, fromWorkrate, Long.MIN_VALUE), true));
+    }
+    
+    @Override public Iterable<Map.Entry<ItemType, Double>> getItemWorkratesDescending(ContainerType container, double fromWorkrate) {
+        NavigableSet<IndexEntry<ItemType>> items = containerToItemsByWorkrate.get(container);
+        if (items == null) return Collections.emptySet();
+        return Collections.<Map.Entry<ItemType, Double>>unmodifiableSet(
+                items.headSet(new IndexEntry<ItemType>(null, fromWorkrate, Long.MAX_VALUE), true).descendingSet());
+    }
+    
     @Override public boolean isItemMoveable(ItemType item) {
         // If don't know about item, then assume not movable; otherwise has this item been explicitly flagged as immovable?
         return itemToContainer.containsKey(item) && !immovableItems.contains(item);
@@ -162,33 +203,43 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
                     "if onItemAdded subsequently received will get new container then", item, newNode);
             return;
         }
-        ContainerType newNodeNonNull = toNonNullContainer(newNode);
-        ContainerType oldNode = itemToContainer.put(item, newNodeNonNull);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        if (newNode != null) containerToItems.put(newNode, item);
+        synchronized (indexMutex) {
+            unindexItem(item);
+            ContainerType newNodeNonNull = toNonNullContainer(newNode);
+            ContainerType oldNode = itemToContainer.put(item, newNodeNonNull);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            if (newNode != null) containerToItems.put(newNode, item);
+            indexItem(item);
+        }
     }
     
     @Override
     public void onContainerAdded(ContainerType newContainer, double lowThreshold, double highThreshold) {
-        boolean added = containers.add(newContainer);
-        if (!added) {
-            // See LoadBalancingPolicy.onContainerAdded for possible explanation of why can get duplicate calls
-            LOG.debug("Duplicate container-added event for {}; ignoring", newContainer);
-            return;
+        synchronized (indexMutex) {
+            boolean added = containers.add(newContainer);
+            if (!added) {
+                // See LoadBalancingPolicy.onContainerAdded for possible explanation of why can get duplicate calls
+                LOG.debug("Duplicate container-added event for {}; ignoring", newContainer);
+                return;
+            }
+            containerToLowThreshold.put(newContainer, lowThreshold);
+            containerToHighThreshold.put(newContainer, highThreshold);
+            poolLowThreshold += lowThreshold;
+            poolHighThreshold += highThreshold;
+            reindexContainer(newContainer);
         }
-        containerToLowThreshold.put(newContainer, lowThreshold);
-        containerToHighThreshold.put(newContainer, highThreshold);
-        poolLowThreshold += lowThreshold;
-        poolHighThreshold += highThreshold;
     }
     
     @Override
     public void onContainerRemoved(ContainerType oldContainer) {
-        containers.remove(oldContainer);
-        Double containerLowThreshold = containerToLowThreshold.remove(oldContainer);
-        Double containerHighThresold = containerToHighThreshold.remove(oldContainer);
-        poolLowThreshold -= (containerLowThreshold != null ? containerLowThreshold : 0);
-        poolHighThreshold -= (containerHighThresold != null ? containerHighThresold : 0);
+        synchronized (indexMutex) {
+            containers.remove(oldContainer);
+            Double containerLowThreshold = containerToLowThreshold.remove(oldContainer);
+            Double containerHighThresold = containerToHighThreshold.remove(oldContainer);
+            poolLowThreshold -= (containerLowThreshold != null ? containerLowThreshold : 0);
+            poolHighThreshold -= (containerHighThresold != null ? containerHighThresold : 0);
+            reindexContainer(oldContainer);
+        }
         
         // TODO: assert no orphaned items
     }
@@ -206,28 +257,39 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
         if (immovable)
             immovableItems.add(item);
         
-        ContainerType parentContainerNonNull = toNonNullContainer(parentContainer);
-        ContainerType oldNode = itemToContainer.put(item, parentContainerNonNull);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        if (parentContainer != null) containerToItems.put(parentContainer, item);
+        synchronized (indexMutex) {
+            unindexItem(item);
+            ContainerType parentContainerNonNull = toNonNullContainer(parentContainer);
+            ContainerType oldNode = itemToContainer.put(item, parentContainerNonNull);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            if (parentContainer != null) containerToItems.put(parentContainer, item);
+            indexItem(item);
+        }
     }
     
     @Override
     public void onItemRemoved(ItemType item) {
-        ContainerType oldNode = itemToContainer.remove(item);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        Double workrate = itemToWorkrate.remove(item);
-        if (workrate != null)
-            currentPoolWorkrate -= workrate;
+        synchronized (indexMutex) {
+            unindexItem(item);
+            ContainerType oldNode = itemToContainer.remove(item);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            Double workrate = itemToWorkrate.remove(item);
+            if (workrate != null)
+                currentPoolWorkrate -= workrate;
+        }
         immovableItems.remove(item);
     }
     
     @Override
     public void onItemWorkrateUpdated(ItemType item, double newValue) {
         if (hasItem(item)) {
-            Double oldValue = itemToWorkrate.put(item, newValue);
-            double delta = ( newValue - (oldValue != null ? oldValue : 0) );
-            currentPoolWorkrate += delta;
+            synchronized (indexMutex) {
+                unindexItem(item);
+                Double oldValue = itemToWorkrate.put(item, newValue);
+                double delta = ( newValue - (oldValue != null ? oldValue : 0) );
+                currentPoolWorkrate += delta;
+                indexItem(item);
+            }
         } else {
             // Can happen when item removed - get notification of removal and workrate from group and item
             // respectively, so can overtake each other
@@ -240,6 +302,116 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     }
     
     
+    // Index maintenance; callers must hold indexMutex.
+    
+    private void indexItem(ItemType item) {
+        ContainerType container = itemToContainer.get(item);
+        Double workrate = itemToWorkrate.get(item);
+        if (container == null || container == NULL_CONTAINER || workrate == null) return;
+        
+        ItemIndexEntry<ContainerType, ItemType> entry = new ItemIndexEntry<ContainerType, ItemType>(item, container, workrate, indexSequence++);
+        NavigableSet<IndexEntry<ItemType>> items = containerToItemsByWorkrate.get(container);
+        if (items == null) {
+            items = new ConcurrentSkipListSet<IndexEntry<ItemType>>();
+            containerToItemsByWorkrate.put(container, items);
+        }
+        items.add(entry);
+        itemToIndexEntry.put(item, entry);
+        Double total = containerToWorkrate.get(container);
+        containerToWorkrate.put(container, (total != null ? total : 0) + Math.abs(workrate));
+        reindexContainer(container);
+    }
+    
+    private void unindexItem(ItemType item) {
+        ItemIndexEntry<ContainerType, ItemType> entry = itemToIndexEntry.remove(item);
+        if (entry == null) return;
+        
+        ContainerType container = entry.container;
+        NavigableSet<IndexEntry<ItemType>> items = containerToItemsByWorkrate.get(container);
+        items.remove(entry);
+        if (items.isEmpty()) {
+            // also discards any rounding errors accumulated in the total
+            containerToItemsByWorkrate.remove(container);
+            containerToWorkrate.remove(container);
+        } else {
+            containerToWorkrate.put(container, containerToWorkrate.get(container) - Math.abs(entry.value));
+        }
+        reindexContainer(container);
+    }
+    
+    private void reindexContainer(ContainerType container) {
+        IndexEntry<ContainerType> oldEntry = containerToIndexEntry.remove(container);
+        if (oldEntry != null) containersByLoad.remove(oldEntry);
+        
+        Double highThreshold = containerToHighThreshold.get(container);
+        if (containers.contains(container) && highThreshold != null) {
+            IndexEntry<ContainerType> entry = new IndexEntry<ContainerType>(container, getTotalWorkrate(container) - highThreshold, indexSequence++);
+            containersByLoad.add(entry);
+            containerToIndexEntry.put(container, entry);
+        }
+    }
+    
+    /** 
+     * Immutable entry in an index, ordered by value; ties are ordered by when the entry was added.
+     * The key is null only for entries used as search bounds.
+     */
+    private static class IndexEntry<K> implements Map.Entry<K, Double>, Comparable<IndexEntry<K>> {
+        final K key;
+        final double value;
+        final long sequence;
+        
+        IndexEntry(K key, double value, long sequence) {
+            this.key = key;
+            this.value = value;
+            this.sequence = sequence;
+        }
+        
+        static <K> Function<IndexEntry<K>, K> keyFunction() {
+            return new Function<IndexEntry<K>, K>() {
+                @Override public K apply(IndexEntry<K> input) {
+                    return input.key;
+                }
+            };
+        }
+        
+        @Override public K getKey() { return key; }
+        @Override public Double getValue() { return value; }
+        @Override public Double setValue(Double value) { throw new UnsupportedOperationException(); }
+        
+        @Override
+        public int compareTo(IndexEntry<K> other) {
+            int result = Double.compare(value, other.value);
+            return (result != 0) ? result : (sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1));
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) return false;
+            Map.Entry<?,?> other = (Map.Entry<?,?>) obj;
+            return Objects.equal(key, other.getKey()) && Objects.equal(getValue(), other.getValue());
+        }
+        
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ getValue().hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return key+"="+value;
+        }
+    }
+    
+    private static class ItemIndexEntry<C, K> extends IndexEntry<K> {
+        final C container;
+        
+        ItemIndexEntry(K key, C container, double value, long sequence) {
+            super(key, value, sequence);
+            this.container = container;
+        }
+    }
+    
+    
     // Additional methods for tests.
 
     /**
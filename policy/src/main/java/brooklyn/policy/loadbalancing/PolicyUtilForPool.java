@@ -42,10 +42,8 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
      * returns null if none of the model's nodes has spare capacity.
      */
     public ContainerType findColdestContainer(Set<ContainerType> excludedContainers, LocationConstraint locationConstraint) {
-        double maxSpareCapacity = 0;
-        ContainerType coldest = null;
-        
-        for (ContainerType c : model.getPoolContents()) {
+        // containers are ordered by decreasing spare capacity, so the first acceptable one is the coldest
+        for (ContainerType c : model.getContainersColdestFirst()) {
             if (excludedContainers.contains(c))
                 continue;
             if (locationConstraint != null && !locationConstraint.isPermitted(model.getLocation(c)))
@@ -58,12 +56,12 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
             if (highThreshold == -1 || totalWorkrate == -1) {
                 continue; // container presumably has been removed
             }
-            if (spareCapacity > maxSpareCapacity) {
-                maxSpareCapacity = spareCapacity;
-                coldest = c;
+            if (spareCapacity > 0) {
+                return c;
             }
+            break;
         }
-        return coldest;
+        return null;
     }
     
     /**
@@ -71,10 +69,8 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
      * returns null if none of the model's  nodes has an overshoot.
      */
     public ContainerType findHottestContainer(Set<ContainerType> excludedContainers) {
-        double maxOvershoot = 0;
-        ContainerType hottest = null;
-        
-        for (ContainerType c : model.getPoolContents()) {
+        // containers are ordered by decreasing overshoot, so the first acceptable one is the hottest
+        for (ContainerType c : model.getContainersHottestFirst()) {
             if (excludedContainers.contains(c))
                 continue;
             
@@ -85,12 +81,12 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
             if (highThreshold == -1 || totalWorkrate == -1) {
                 continue; // container presumably has been removed
             }
-            if (overshoot > maxOvershoot) {
-                maxOvershoot = overshoot;
-                hottest = c;
+            if (overshoot > 0) {
+                return c;
             }
+            break;
         }
-        return hottest;
+        return null;
     }
     
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ package brooklyn.policy.autoscaling;
 import static brooklyn.policy.autoscaling.AutoScalerPolicyTest.currentSizeAsserter;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.List;
@@ -40,6 +41,8 @@ import brooklyn.test.Asserts;
 import brooklyn.test.entity.TestApplication;
 import brooklyn.test.entity.TestCluster;
 import brooklyn.test.entity.TestEntity;
+import brooklyn.util.time.Duration;
+import brooklyn.util.time.Time;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -271,4 +274,48 @@ public class AutoScalerPolicyMetricTest {
         entityWithMetric.setAttribute(TestEntity.SEQUENCE, 101);
         Asserts.succeedsEventually(ImmutableMap.of("timeout", TIMEOUT_MS), currentSizeAsserter(tc, 2));
     }
+    
+    @Test
+    public void testPredictiveResizesBeforeUpperBoundExceeded() throws Exception {
+        tc.resize(1);
+        
+        AutoScalerPolicy policy = new AutoScalerPolicy.Builder().metric(MY_ATTRIBUTE).metricLowerBound(0).metricUpperBound(100)
+                .predictive(true)
+                .provisioningLeadTime(Duration.ONE_SECOND)
+                .build();
+        tc.addPolicy(policy);
+
+        // rising at about 100 per second, so forecast to exceed 100 within the lead time (but not 200)
+        tc.setAttribute(MY_ATTRIBUTE, 10);
+        Time.sleep(Duration.millis(200));
+        tc.setAttribute(MY_ATTRIBUTE, 30);
+        Asserts.succeedsEventually(ImmutableMap.of("timeout", TIMEOUT_MS), currentSizeAsserter(tc, 2));
+        assertTrue(tc.getAttribute(AutoScalerPolicy.METRIC_FORECAST) > 100, "forecast="+tc.getAttribute(AutoScalerPolicy.METRIC_FORECAST));
+        
+        // once the time forecast for has passed, the error is published
+        Time.sleep(Duration.millis(1100));
+        tc.setAttribute(MY_ATTRIBUTE, 30);
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertNotNull(tc.getAttribute(AutoScalerPolicy.METRIC_FORECAST_ERROR));
+            }});
+    }
+    
+    @Test
+    public void testPredictiveDoesNotResizeForSteadyMetric() throws Exception {
+        tc.resize(1);
+        
+        AutoScalerPolicy policy = new AutoScalerPolicy.Builder().metric(MY_ATTRIBUTE).metricLowerBound(50).metricUpperBound(100)
+                .predictive(true)
+                .provisioningLeadTime(Duration.ONE_SECOND)
+                .build();
+        tc.addPolicy(policy);
+
+        for (int i = 0; i < 3; i++) {
+            tc.setAttribute(MY_ATTRIBUTE, 90);
+            Time.sleep(Duration.millis(20));
+        }
+        Asserts.succeedsContinually(ImmutableMap.of("timeout", SHORT_WAIT_MS), currentSizeAsserter(tc, 1));
+        assertEquals(tc.getAttribute(AutoScalerPolicy.METRIC_FORECAST), 90d, 0.0001);
+    }
 }
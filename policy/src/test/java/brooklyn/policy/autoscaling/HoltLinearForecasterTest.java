@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.policy.autoscaling;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class HoltLinearForecasterTest {
+
+    private static final double PRECISION = 0.0001;
+    
+    @Test
+    public void testNotReadyUntilTrendObserved() {
+        HoltLinearForecaster forecaster = new HoltLinearForecaster(0.5, 0.3);
+        assertFalse(forecaster.isReady());
+        assertNull(forecaster.forecast(1000));
+        
+        forecaster.add(1000, 10);
+        forecaster.add(1000, 20);
+        assertFalse(forecaster.isReady());
+        
+        forecaster.add(2000, 20);
+        assertTrue(forecaster.isReady());
+    }
+    
+    @Test
+    public void testForecastsLinearTrendExactly() {
+        HoltLinearForecaster forecaster = new HoltLinearForecaster(0.5, 0.3);
+        for (int i = 0; i < 10; i++) {
+            forecaster.add(i*1000, 10 + 2*i);
+        }
+        // 2 per second; last value 28 at 9s
+        assertEquals(forecaster.forecast(9000), 28d, PRECISION);
+        assertEquals(forecaster.forecast(19000), 48d, PRECISION);
+    }
+    
+    @Test
+    public void testIrregularIntervals() {
+        HoltLinearForecaster forecaster = new HoltLinearForecaster(0.5, 0.3);
+        long[] times = {0, 100, 1000, 1500, 4000, 4100};
+        for (long t : times) {
+            forecaster.add(t, 5 + 0.01*t);
+        }
+        assertEquals(forecaster.forecast(10000), 105d, PRECISION);
+    }
+    
+    @Test
+    public void testTrendAdaptsToChange() {
+        HoltLinearForecaster forecaster = new HoltLinearForecaster(0.5, 0.3);
+        for (int i = 0; i < 10; i++) {
+            forecaster.add(i*1000, 50);
+        }
+        assertEquals(forecaster.forecast(60000), 50d, PRECISION);
+        
+        for (int i = 10; i < 20; i++) {
+            forecaster.add(i*1000, 50 + 10*(i-9));
+        }
+        // rising at 10 per second, so forecast a minute ahead should be well above the current value of 150
+        double forecast = forecaster.forecast(79000);
+        assertTrue(forecast > 500 && forecast < 800, "forecast="+forecast);
+        
+        forecaster.reset();
+        assertFalse(forecaster.isReady());
+    }
+}
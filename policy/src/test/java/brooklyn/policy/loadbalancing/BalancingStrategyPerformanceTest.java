@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.policy.loadbalancing;
+
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import brooklyn.util.time.Time;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+
+/**
+ * Measures the cost of rebalancing pools of different sizes with {@link BalancingStrategy}, 
+ * where items are moved only in the model (i.e. not by calling the item's move effector).
+ * <p>
+ * The cost per migration should grow (roughly) logarithmically, rather than linearly, with the number of items.
+ */
+public class BalancingStrategyPerformanceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BalancingStrategyPerformanceTest.class);
+
+    @Test(groups={"Integration", "Acceptance"})
+    public void testRebalanceCostPerMigrationScales() {
+        // warm up
+        run(20, 50);
+        
+        double smallNanos = run(20, 50);
+        double largeNanos = run(400, 50);
+        
+        // 20 times as many items and containers; generous bound, as caches are less effective for the larger pool
+        assertTrue(largeNanos < smallNanos * 5, "small="+smallNanos+"ns; large="+largeNanos+"ns");
+    }
+
+    /** returns the mean nanos per migration, when rebalancing a pool where half the containers start off hot */
+    protected double run(int numContainers, int itemsPerContainer) {
+        Random random = new Random(1234);
+        DefaultBalanceablePoolModel<MockContainerEntity, MockItemEntity> model = 
+                new DefaultBalanceablePoolModel<MockContainerEntity, MockItemEntity>("perf");
+        List<MockContainerEntity> containers = Lists.newArrayList();
+        for (int i = 0; i < numContainers; i++) {
+            MockContainerEntity container = new MockContainerEntityImpl();
+            containers.add(container);
+            model.onContainerAdded(container, 10d*itemsPerContainer, 20d*itemsPerContainer);
+            double meanWorkrate = (i % 2 == 0) ? 30d : 10d;
+            for (int j = 0; j < itemsPerContainer; j++) {
+                MockItemEntity item = new MockItemEntityImpl();
+                model.onItemAdded(item, container, false);
+                model.onItemWorkrateUpdated(item, meanWorkrate * 2 * random.nextDouble());
+            }
+        }
+        
+        final AtomicInteger migrations = new AtomicInteger();
+        BalancingStrategy<MockContainerEntity, MockItemEntity> strategy = new BalancingStrategy<MockContainerEntity, MockItemEntity>("perf", model) {
+            @Override protected void moveItem(MockItemEntity item, MockContainerEntity oldNode, MockContainerEntity newNode) {
+                migrations.incrementAndGet();
+                getDataProvider().onItemMoved(item, newNode);
+            }
+        };
+        
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int passes = 0;
+        do {
+            passes++;
+            int before = migrations.get();
+            strategy.rebalance();
+            if (migrations.get() == before) break;
+        } while (passes < 100);
+        long nanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+        
+        double nanosPerMigration = ((double) nanos) / Math.max(1, migrations.get());
+        LOG.info("Rebalanced "+numContainers+" containers with "+(numContainers*itemsPerContainer)+" items: "
+                + migrations.get()+" migrations in "+passes+" passes, taking "+Time.makeTimeStringRounded(nanos/1000000)+" "
+                + "("+Math.round(nanosPerMigration)+"ns per migration)");
+        return nanosPerMigration;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.policy.loadbalancing;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class BalancingStrategyTest {
+
+    private DefaultBalanceablePoolModel<MockContainerEntity, MockItemEntity> model;
+    private BalancingStrategy<MockContainerEntity, MockItemEntity> strategy;
+    
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        model = new DefaultBalanceablePoolModel<MockContainerEntity, MockItemEntity>("myname");
+        strategy = new BalancingStrategy<MockContainerEntity, MockItemEntity>("mystrategy", model);
+    }
+    
+    @Test
+    public void testFindsHottestAndColdestContainers() throws Exception {
+        MockContainerEntity container1 = new MockContainerEntityImpl();
+        MockContainerEntity container2 = new MockContainerEntityImpl();
+        MockContainerEntity container3 = new MockContainerEntityImpl();
+        model.onContainerAdded(container1, 10d, 20d);
+        model.onContainerAdded(container2, 10d, 20d);
+        model.onContainerAdded(container3, 10d, 20d);
+        addItem(container1, 30d, false);
+        addItem(container2, 25d, false);
+        addItem(container3, 5d, false);
+        
+        PolicyUtilForPool<MockContainerEntity, MockItemEntity> helper = new PolicyUtilForPool<MockContainerEntity, MockItemEntity>(model);
+        assertEquals(helper.findHottestContainer(ImmutableSet.<MockContainerEntity>of()), container1);
+        assertEquals(helper.findHottestContainer(ImmutableSet.of(container1)), container2);
+        assertEquals(helper.findHottestContainer(ImmutableSet.of(container1, container2)), null);
+        assertEquals(helper.findColdestContainer(ImmutableSet.<MockContainerEntity>of()), container3);
+        assertEquals(helper.findColdestContainer(ImmutableSet.of(container3)), null);
+    }
+    
+    @Test
+    public void testIndexedSearchForItemMatchesSearchOfAllItems() throws Exception {
+        Random random = new Random(1234);
+        MockContainerEntity container = new MockContainerEntityImpl();
+        model.onContainerAdded(container, 10d, 100d);
+        List<MockItemEntity> items = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            // some items are immovable, or subject to recent adjustment (negative workrate)
+            double workrate = (random.nextInt(10) == 0) ? -1 : random.nextDouble() * 10;
+            items.add(addItem(container, workrate, random.nextInt(10) == 0));
+        }
+        Map<MockItemEntity, Double> itemWorkrates = model.getItemWorkrates(container);
+        
+        for (int i = 0; i < 1000; i++) {
+            double target = random.nextDouble() * 12 - 1;
+            double max = random.nextDouble() * 12;
+            double maxIfNoSmallButLarger = random.nextDouble() * 12;
+            Set<MockItemEntity> excluded = Sets.newLinkedHashSet();
+            int numExcluded = random.nextInt(5);
+            for (int j = 0; j < numExcluded; j++) {
+                excluded.add(items.get(random.nextInt(items.size())));
+            }
+            
+            MockItemEntity expected = strategy.findBestItemToMove(itemWorkrates, target, max, maxIfNoSmallButLarger, excluded, null);
+            Map.Entry<MockItemEntity, Double> actual = strategy.findBestItemToMove(container, target, max, maxIfNoSmallButLarger, excluded, null);
+            String msg = "target="+target+"; max="+max+"; maxIfNoSmallButLarger="+maxIfNoSmallButLarger+"; excluded="+excluded;
+            assertEquals(actual == null ? null : actual.getKey(), expected, msg);
+            if (actual != null) assertEquals(actual.getValue(), itemWorkrates.get(expected), msg);
+        }
+    }
+    
+    private MockItemEntity addItem(MockContainerEntity container, double workrate, boolean immovable) {
+        MockItemEntity item = new MockItemEntityImpl();
+        model.onItemAdded(item, container, immovable);
+        model.onItemWorkrateUpdated(item, workrate);
+        return item;
+    }
+}
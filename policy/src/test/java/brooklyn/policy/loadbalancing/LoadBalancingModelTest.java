@@ -28,8 +28,11 @@ import org.testng.annotations.Test;
 
 import brooklyn.entity.basic.Entities;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 
 public class LoadBalancingModelTest {
 
@@ -112,4 +115,52 @@ public class LoadBalancingModelTest {
         assertEquals(model.getContainerWorkrates(), ImmutableMap.of(container1, 0d, container2, 123d));
         assertEquals(model.getCurrentPoolWorkrate(), 123d);
     }
+    
+    @Test
+    public void testContainersOrderedByLoad() throws Exception {
+        model.onContainerAdded(container1, 10d, 20d);
+        model.onContainerAdded(container2, 10d, 30d);
+        model.onItemAdded(item1, container1, false);
+        model.onItemAdded(item2, container2, false);
+        
+        // container1 has load 5-20, container2 has load 25-30
+        model.onItemWorkrateUpdated(item1, 5d);
+        model.onItemWorkrateUpdated(item2, 25d);
+        assertEquals(ImmutableList.copyOf(model.getContainersColdestFirst()), ImmutableList.of(container1, container2));
+        assertEquals(ImmutableList.copyOf(model.getContainersHottestFirst()), ImmutableList.of(container2, container1));
+        
+        // moving item2 leaves container1 with load 30-20, container2 with load 0-30
+        model.onItemMoved(item2, container1);
+        assertEquals(model.getTotalWorkrate(container1), 30d, PRECISION);
+        assertEquals(model.getTotalWorkrate(container2), 0d, PRECISION);
+        assertEquals(ImmutableList.copyOf(model.getContainersHottestFirst()), ImmutableList.of(container1, container2));
+        
+        model.onContainerRemoved(container1);
+        assertEquals(ImmutableList.copyOf(model.getContainersHottestFirst()), ImmutableList.of(container2));
+    }
+    
+    @Test
+    public void testItemsOrderedByWorkrate() throws Exception {
+        model.onContainerAdded(container1, 10d, 20d);
+        model.onItemAdded(item1, container1, false);
+        model.onItemAdded(item2, container1, false);
+        model.onItemAdded(item3, container1, false);
+        model.onItemWorkrateUpdated(item1, 3d);
+        model.onItemWorkrateUpdated(item2, 1d);
+        model.onItemWorkrateUpdated(item3, 2d);
+        
+        assertEquals(ImmutableList.copyOf(model.getItemWorkratesAscending(container1, 0d)), 
+                ImmutableList.of(Maps.immutableEntry(item2, 1d), Maps.immutableEntry(item3, 2d), Maps.immutableEntry(item1, 3d)));
+        assertEquals(ImmutableList.copyOf(model.getItemWorkratesAscending(container1, 2d)), 
+                ImmutableList.of(Maps.immutableEntry(item3, 2d), Maps.immutableEntry(item1, 3d)));
+        assertEquals(ImmutableList.copyOf(model.getItemWorkratesDescending(container1, 2.5d)), 
+                ImmutableList.of(Maps.immutableEntry(item3, 2d), Maps.immutableEntry(item2, 1d)));
+        
+        model.onItemWorkrateUpdated(item2, 4d);
+        model.onItemRemoved(item3);
+        assertEquals(ImmutableList.copyOf(model.getItemWorkratesDescending(container1, Double.MAX_VALUE)), 
+                ImmutableList.of(Maps.immutableEntry(item2, 4d), Maps.immutableEntry(item1, 3d)));
+        assertEquals(model.getTotalWorkrate(container1), 7d, PRECISION);
+        assertEquals(Iterables.size(model.getItemWorkratesAscending(container2, 0d)), 0);
+    }
 }
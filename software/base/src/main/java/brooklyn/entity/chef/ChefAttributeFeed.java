@@ -114,6 +114,7 @@ public class ChefAttributeFeed extends AbstractFeed {
     public static class Builder {
         private EntityLocal entity;
         private boolean onlyIfServiceUp = false;
+        private boolean publishPollStats = false;
         private String nodeName;
         private Set<ChefAttributePollConfig> polls = Sets.newLinkedHashSet();
         private Duration period = Duration.of(30, TimeUnit.SECONDS);
@@ -129,6 +130,11 @@ public class ChefAttributeFeed extends AbstractFeed {
             this.onlyIfServiceUp = onlyIfServiceUp; 
             return this; 
         }
+        /** publishes stats about this feed's polls on the entity; see {@link AbstractFeed#POLL_STATS} */
+        public Builder publishPollStats() { 
+            this.publishPollStats = true; 
+            return this; 
+        }
         public Builder nodeName(String nodeName) {
             this.nodeName = checkNotNull(nodeName, "nodeName");
             return this;
@@ -195,6 +201,7 @@ public class ChefAttributeFeed extends AbstractFeed {
     
     protected ChefAttributeFeed(Builder builder) {
         setConfig(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
+        setConfig(PUBLISH_POLL_STATS, builder.publishPollStats);
         setConfig(NODE_NAME, checkNotNull(builder.nodeName, "builder.nodeName"));
 
         Set<ChefAttributePollConfig<?>> polls = Sets.newLinkedHashSet();
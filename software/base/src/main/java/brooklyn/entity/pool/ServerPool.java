@@ -39,6 +39,7 @@ import brooklyn.event.basic.Sensors;
 import brooklyn.location.MachineLocation;
 import brooklyn.location.NoMachinesAvailableException;
 import brooklyn.location.dynamic.LocationOwner;
+import brooklyn.util.time.Duration;
 
 /**
  * A preallocated server pool is an entity that other applications can deploy to.
@@ -64,6 +65,12 @@ import brooklyn.location.dynamic.LocationOwner;
  *         This is a limitation of Brooklyn that will be addressed in a future release.
  *     </li>
  * </ul>
+ * <p/>
+ * The pool can be kept warm for a cluster deploying to its location (e.g. a {@link DynamicCluster} scaling out):
+ * with {@link #MIN_AVAILABLE} set, machines taken by claims are replaced in the background, so that subsequent
+ * claims are served immediately rather than waiting for a new machine to be provisioned; with
+ * {@link #MAX_IDLE_TIME} set, machines beyond that number which remain unclaimed are released.
+ * Each pool is for a single template (i.e. its provisioning properties and member spec); use one pool per template.
  */
 @Catalog(name="Server Pool", description="Creates a pre-allocated server pool, which other applications can deploy to")
 @ImplementedBy(ServerPoolImpl.class)
@@ -78,6 +85,30 @@ public interface ServerPool extends DynamicCluster, LocationOwner<ServerPoolLoca
     AttributeSensor<Integer> CLAIMED_COUNT = Sensors.newIntegerSensor(
             "pool.claimed", "The number of locations in the pool that are in use");
 
+    ConfigKey<Integer> MIN_AVAILABLE = ConfigKeys.newIntegerConfigKey(
+            "pool.minAvailable", "The number of unclaimed machines to keep ready; when claims take the pool below this, "
+                    + "it is replenished in the background. Zero disables replenishment", 0);
+
+    ConfigKey<Integer> MAX_POOL_SIZE = ConfigKeys.newIntegerConfigKey(
+            "pool.maxSize", "The most machines (claimed or not) that replenishment will grow the pool to; unlimited if null");
+
+    ConfigKey<Duration> CLAIM_TIMEOUT = ConfigKeys.newDurationConfigKey(
+            "pool.claimTimeout", "How long a claim made when no machine is available waits for one to be added "
+                    + "(e.g. by replenishment) or released, before failing", Duration.ZERO);
+
+    ConfigKey<Duration> MAX_IDLE_TIME = ConfigKeys.newDurationConfigKey(
+            "pool.maxIdleTime", "How long a machine may remain unclaimed before it is removed from the pool, "
+                    + "while more than pool.minAvailable machines are available; idle machines are kept if null");
+
+    AttributeSensor<Long> CLAIM_HITS = Sensors.newLongSensor(
+            "pool.claims.hits", "The number of claims served immediately by an available machine");
+
+    AttributeSensor<Long> CLAIM_MISSES = Sensors.newLongSensor(
+            "pool.claims.misses", "The number of claims made when no machine was available");
+
+    AttributeSensor<Double> CLAIM_HIT_RATE = Sensors.newDoubleSensor(
+            "pool.claims.hitRate", "The fraction of claims served immediately by an available machine");
+
     ConfigKey<EntitySpec<?>> MEMBER_SPEC = ConfigKeys.newConfigKeyWithDefault(DynamicCluster.MEMBER_SPEC,
             EntitySpec.create(MachineEntity.class));
 
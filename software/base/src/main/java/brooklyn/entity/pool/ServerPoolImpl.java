@@ -21,6 +21,8 @@ package brooklyn.entity.pool;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import brooklyn.config.ConfigKey;
 import brooklyn.entity.Entity;
 import brooklyn.entity.basic.Attributes;
+import brooklyn.entity.basic.BrooklynTaskTags;
 import brooklyn.entity.basic.ConfigKeys;
 import brooklyn.entity.basic.EntityInternal;
 import brooklyn.entity.basic.Lifecycle;
@@ -48,8 +51,13 @@ import brooklyn.management.LocationManager;
 import brooklyn.management.Task;
 import brooklyn.policy.PolicySpec;
 import brooklyn.util.collections.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.guava.Maybe;
+import brooklyn.util.task.BasicTask;
 import brooklyn.util.task.DynamicTasks;
+import brooklyn.util.task.ScheduledTask;
+import brooklyn.util.time.CountdownTimer;
+import brooklyn.util.time.Duration;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
@@ -85,7 +93,7 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
     // The sensors here would be better as private fields but there's not really a
     // good way to manage their state when rebinding.
 
-    /** Accesses must be synchronised by mutex */
+    /** Accesses must be synchronised by poolMutex */
     // Would use BiMap but persisting them tends to throw ConcurrentModificationExceptions.
     @SuppressWarnings("serial")
     public static final AttributeSensor<Map<Entity, MachineLocation>> ENTITY_MACHINE = Sensors.newSensor(new TypeToken<Map<Entity, MachineLocation>>() {},
@@ -95,6 +103,9 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
     public static final AttributeSensor<Map<MachineLocation, Entity>> MACHINE_ENTITY = Sensors.newSensor(new TypeToken<Map<MachineLocation, Entity>>() {},
             "pool.machineEntityMap", "A mapping of machine locations and their entities");
 
+    private static final AttributeSensor<Long> SERVER_AVAILABLE_SINCE = Sensors.newLongSensor(
+            "pool.serverAvailableSince", "The time (utc) since when an available entity in the pool has been unclaimed");
+
     public static final AttributeSensor<LocationDefinition> DYNAMIC_LOCATION_DEFINITION = Sensors.newSensor(LocationDefinition.class,
             "pool.locationDefinition", "The location definition used to create the pool's dynamic location");
 
@@ -105,11 +116,25 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
     @SuppressWarnings("unused")
     private MemberTrackingPolicy membershipTracker;
 
+    /**
+     * Guards the status of members and the maps above. Distinct from {@link #mutex}, which is held while
+     * the pool is resized (i.e. while machines are provisioned), so that claims need not wait for that.
+     * May be obtained while holding {@link #mutex}, but not the other way round.
+     */
+    private final Object poolMutex = new Object[0];
+
+    /** whether the pool has started (or rebound) and is not stopping, so should be replenished and trimmed */
+    private volatile boolean running = false;
+    private final AtomicBoolean replenishQueued = new AtomicBoolean(false);
+    private Task<?> idleCheckTask;
+
     @Override
     public void init() {
         super.init();
         setAttribute(AVAILABLE_COUNT, 0);
         setAttribute(CLAIMED_COUNT, 0);
+        setAttribute(CLAIM_HITS, 0L);
+        setAttribute(CLAIM_MISSES, 0L);
         setAttribute(ENTITY_MACHINE, Maps.<Entity, MachineLocation>newHashMap());
         setAttribute(MACHINE_ENTITY, Maps.<MachineLocation, Entity>newHashMap());
     }
@@ -122,6 +147,9 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         super.start(locations);
         createLocation();
         addMembershipTrackerPolicy();
+        running = true;
+        startIdleCheck();
+        replenishAsync();
     }
 
     @Override
@@ -129,13 +157,21 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         super.rebind();
         addMembershipTrackerPolicy();
         createLocation();
+        running = true;
+        startIdleCheck();
+        replenishAsync();
     }
 
     @Override
     public void stop() {
+        running = false;
+        if (idleCheckTask != null) {
+            idleCheckTask.cancel(true);
+            idleCheckTask = null;
+        }
         super.stop();
         deleteLocation();
-        synchronized (mutex) {
+        synchronized (poolMutex) {
             setAttribute(AVAILABLE_COUNT, 0);
             setAttribute(CLAIMED_COUNT, 0);
             getAttribute(ENTITY_MACHINE).clear();
@@ -211,14 +247,28 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         return getDynamicLocation() != null;
     }
 
+    /**
+     * Claims an available machine. If none is available, waits up to {@link #CLAIM_TIMEOUT} for one to be
+     * added or released. Either way, the pool is then replenished in the background if {@link #MIN_AVAILABLE}
+     * machines are no longer available.
+     */
     @Override
     public MachineLocation claimMachine(Map<?, ?> flags) throws NoMachinesAvailableException {
         LOG.info("Obtaining machine with flags: {}", Joiner.on(", ").withKeyValueSeparator("=").join(flags));
-        synchronized (mutex) {
+        synchronized (poolMutex) {
             Optional<Entity> claimed = getMemberWithStatus(MachinePoolMemberStatus.AVAILABLE);
+            recordClaim(claimed.isPresent());
+            if (!claimed.isPresent()) {
+                replenishAsync();
+                CountdownTimer timer = CountdownTimer.newInstanceStarted(getConfig(CLAIM_TIMEOUT));
+                while (!claimed.isPresent() && timer.waitOnForExpiryUnchecked(poolMutex)) {
+                    claimed = getMemberWithStatus(MachinePoolMemberStatus.AVAILABLE);
+                }
+            }
             if (claimed.isPresent()) {
                 setEntityStatus(claimed.get(), MachinePoolMemberStatus.CLAIMED);
                 updateCountSensors();
+                replenishAsync();
                 LOG.debug("{} has been claimed in {}", claimed, this);
                 return getEntityMachineMap().get(claimed.get());
             } else {
@@ -229,18 +279,123 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
 
     @Override
     public void releaseMachine(MachineLocation machine) {
-        synchronized (mutex) {
+        synchronized (poolMutex) {
             Entity entity = getMachineEntityMap().get(machine);
             if (entity == null) {
                 LOG.warn("{} releasing machine {} but its owning entity is not known!", this, machine);
             } else {
                 setEntityStatus(entity, MachinePoolMemberStatus.AVAILABLE);
                 updateCountSensors();
+                poolMutex.notifyAll();
                 LOG.debug("{} has been released in {}", machine, this);
             }
         }
     }
 
+    private void recordClaim(boolean hit) {
+        // null if rebinding to a pool persisted before these sensors existed
+        long hits = Optional.fromNullable(getAttribute(CLAIM_HITS)).or(0L) + (hit ? 1 : 0);
+        long misses = Optional.fromNullable(getAttribute(CLAIM_MISSES)).or(0L) + (hit ? 0 : 1);
+        setAttribute(CLAIM_HITS, hits);
+        setAttribute(CLAIM_MISSES, misses);
+        setAttribute(CLAIM_HIT_RATE, (double) hits / (hits + misses));
+    }
+
+    /**
+     * Grows the pool in the background, if it is running and fewer than {@link #MIN_AVAILABLE} machines
+     * are available or being added (up to {@link #MAX_POOL_SIZE} in total).
+     */
+    protected void replenishAsync() {
+        if (!running || getConfig(MIN_AVAILABLE) <= 0) return;
+        if (!replenishQueued.compareAndSet(false, true)) return;
+        getExecutionContext().submit(MutableMap.of("displayName", "Replenishing " + this), new Runnable() {
+            @Override
+            public void run() {
+                replenishQueued.set(false);
+                replenish();
+            }
+        });
+    }
+
+    protected void replenish() {
+        // as resize, so that members being added by a concurrent resize are counted
+        synchronized (mutex) {
+            if (!running) return;
+            int availableOrPending = 0;
+            synchronized (poolMutex) {
+                for (Entity member : getMembers()) {
+                    MachinePoolMemberStatus status = member.getAttribute(SERVER_STATUS);
+                    if (status == null || MachinePoolMemberStatus.AVAILABLE.equals(status)) {
+                        availableOrPending++;
+                    }
+                }
+            }
+            int delta = getConfig(MIN_AVAILABLE) - availableOrPending;
+            Integer maxSize = getConfig(MAX_POOL_SIZE);
+            if (maxSize != null) {
+                delta = Math.min(delta, maxSize - getCurrentSize());
+            }
+            if (delta > 0) {
+                LOG.info("Replenishing {} with {} machines ({} available or being added)", new Object[]{this, delta, availableOrPending});
+                resizeByDelta(delta);
+            }
+        }
+    }
+
+    private void startIdleCheck() {
+        Duration maxIdleTime = getConfig(MAX_IDLE_TIME);
+        if (maxIdleTime == null || idleCheckTask != null) return;
+        Callable<Task<?>> idleCheckTaskFactory = new Callable<Task<?>>() {
+            @Override
+            public Task<?> call() {
+                BasicTask<Void> task = new BasicTask<Void>(new Runnable() {
+                    @Override
+                    public void run() {
+                        removeIdleMachines();
+                    }
+                });
+                BrooklynTaskTags.setTransient(task);
+                return task;
+            }
+        };
+        idleCheckTask = getExecutionContext().submit(new ScheduledTask(
+                MutableMap.of("displayName", "scheduled[idle check for " + this + "]"), idleCheckTaskFactory)
+                .period(maxIdleTime.half()));
+    }
+
+    /**
+     * Removes machines which have been available for longer than {@link #MAX_IDLE_TIME}, leaving at least
+     * {@link #MIN_AVAILABLE} available.
+     */
+    protected void removeIdleMachines() {
+        if (!running) return;
+        // a failure would otherwise end the scheduled idle check
+        try {
+            long idleSince = System.currentTimeMillis() - getConfig(MAX_IDLE_TIME).toMilliseconds();
+            int idle = 0;
+            int available;
+            synchronized (poolMutex) {
+                available = getAttribute(AVAILABLE_COUNT);
+                for (Entity member : getMembers()) {
+                    Long since = member.getAttribute(SERVER_AVAILABLE_SINCE);
+                    if (isRemovable(member) && MachinePoolMemberStatus.AVAILABLE.equals(member.getAttribute(SERVER_STATUS))
+                            && since != null && since <= idleSince) {
+                        idle++;
+                    }
+                }
+            }
+            int delta = Math.min(idle, available - getConfig(MIN_AVAILABLE));
+            if (delta > 0) {
+                // the removal strategy removes the longest idle first
+                LOG.info("Removing {} idle machines from {}", delta, this);
+                resizeByDelta(-delta);
+            }
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            LOG.warn("Problem removing idle machines from "+this+"; will retry at next check", e);
+        }
+    }
+
     @Override
     public Entity addExistingMachine(MachineLocation machine) {
         LOG.info("Adding additional machine to {}: {}", this, machine);
@@ -272,11 +427,8 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
     }
 
     /**
-     * Overrides to restrict delta to the number of machines that can be <em>safely</em>
-     * removed (i.e. those that are {@link MachinePoolMemberStatus#UNUSABLE unusable} or
-     * {@link MachinePoolMemberStatus#AVAILABLE available}).
-     * <p/>
-     * Does not modify delta if the pool is stopping.
+     * Overrides to update the count sensors once the removed members are stopped.
+     * The number removed is restricted by {@link #pickAndRemoveMembers(int)}.
      * @param delta Requested number of members to remove
      * @return The entities that were removed
      */
@@ -287,24 +439,43 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         }
 
         synchronized (mutex) {
+            Collection<Entity> removed = super.shrink(delta);
+            updateCountSensors();
+            return removed;
+        }
+    }
+
+    /**
+     * Overrides to restrict delta to the number of machines that can be <em>safely</em>
+     * removed (i.e. those that are {@link MachinePoolMemberStatus#UNUSABLE unusable} or
+     * {@link MachinePoolMemberStatus#AVAILABLE available}).
+     * <p/>
+     * The machines are counted and picked holding {@link #poolMutex}, so that none counted
+     * can be claimed before it is picked. Does not modify delta if the pool is stopping.
+     */
+    @Override
+    protected List<Entity> pickAndRemoveMembers(int delta) {
+        if (Lifecycle.STOPPING.equals(getAttribute(Attributes.SERVICE_STATE_ACTUAL))) {
+            return super.pickAndRemoveMembers(delta);
+        }
+
+        synchronized (poolMutex) {
             int removable = 0;
             for (Entity entity : getMembers()) {
-                // Skip machine marked not for removal and machines that are claimed
-                if (!Boolean.FALSE.equals(entity.getConfig(REMOVABLE)) &&
-                        !MachinePoolMemberStatus.CLAIMED.equals(entity.getAttribute(SERVER_STATUS))) {
-                    removable -= 1;
+                // as the removal strategy: skip machines marked not for removal, and those claimed or still being added
+                MachinePoolMemberStatus status = entity.getAttribute(SERVER_STATUS);
+                if (isRemovable(entity) && (MachinePoolMemberStatus.UNUSABLE.equals(status) || MachinePoolMemberStatus.AVAILABLE.equals(status))) {
+                    removable++;
                 }
             }
 
-            if (delta < removable) {
-                LOG.warn("Too few removable machines in {} to shrink by delta {}. Altered delta to {}",
+            if (delta > removable) {
+                LOG.warn("Too few removable machines in {} to shrink by {}. Altered to {}",
                         new Object[]{this, delta, removable});
                 delta = removable;
             }
 
-            Collection<Entity> removed = super.shrink(delta);
-            updateCountSensors();
-            return removed;
+            return super.pickAndRemoveMembers(delta);
         }
     }
     
@@ -325,14 +496,14 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         // Semantics of superclass mean that mutex should already be held when apply is called
         @Override
         public Entity apply(Collection<Entity> members) {
-            synchronized (mutex) {
+            synchronized (poolMutex) {
                 Optional<Entity> choice;
                 if (Lifecycle.STOPPING.equals(getAttribute(Attributes.SERVICE_STATE_ACTUAL))) {
                     choice = Optional.of(members.iterator().next());
                 } else {
                     // Otherwise should only choose between removable + unusable or available
                     choice = getMemberWithStatusExcludingUnremovable(members, MachinePoolMemberStatus.UNUSABLE)
-                            .or(getMemberWithStatusExcludingUnremovable(members, MachinePoolMemberStatus.AVAILABLE));
+                            .or(getLongestAvailableMemberExcludingUnremovable(members));
                 }
                 if (!choice.isPresent()) {
                     LOG.warn("{} has no machines available to remove!", this);
@@ -358,11 +529,12 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
         } else if (machine.isPresentAndNonNull()) {
             MachineLocation m = machine.get();
             LOG.info("New machine in {}: {}", this, m);
-            setEntityStatus(member, MachinePoolMemberStatus.AVAILABLE);
-            synchronized (mutex) {
+            synchronized (poolMutex) {
+                setEntityStatus(member, MachinePoolMemberStatus.AVAILABLE);
                 getEntityMachineMap().put(member, m);
                 getMachineEntityMap().put(m, member);
                 updateCountSensors();
+                poolMutex.notifyAll();
             }
         } else {
             LOG.warn("Member added to {} that does not have a machine location; it will not be used by the pool: {}",
@@ -373,6 +545,8 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
 
     private void setEntityStatus(Entity entity, MachinePoolMemberStatus status) {
         ((EntityInternal) entity).setAttribute(SERVER_STATUS, status);
+        ((EntityInternal) entity).setAttribute(SERVER_AVAILABLE_SINCE,
+                MachinePoolMemberStatus.AVAILABLE.equals(status) ? System.currentTimeMillis() : null);
     }
 
     private Optional<Entity> getMemberWithStatus(MachinePoolMemberStatus status) {
@@ -394,13 +568,29 @@ public class ServerPoolImpl extends DynamicClusterImpl implements ServerPool {
                 });
     }
 
+    /** @return the removable available entity which has been unclaimed for longest */
+    private Optional<Entity> getLongestAvailableMemberExcludingUnremovable(Collection<Entity> entities) {
+        Entity result = null;
+        Long resultSince = null;
+        for (Entity entity : entities) {
+            if (isRemovable(entity) && MachinePoolMemberStatus.AVAILABLE.equals(entity.getAttribute(SERVER_STATUS))) {
+                Long since = entity.getAttribute(SERVER_AVAILABLE_SINCE);
+                if (result == null || (since != null && (resultSince == null || since < resultSince))) {
+                    result = entity;
+                    resultSince = since;
+                }
+            }
+        }
+        return Optional.fromNullable(result);
+    }
+
     /** @return true if the entity has {@link #REMOVABLE} set to null or true. */
     private boolean isRemovable(Entity entity) {
         return !Boolean.FALSE.equals(entity.getConfig(REMOVABLE));
     }
 
     private void updateCountSensors() {
-        synchronized (mutex) {
+        synchronized (poolMutex) {
             int available = 0, claimed = 0;
             for (Entity member : getMembers()) {
                 MachinePoolMemberStatus status = member.getAttribute(SERVER_STATUS);
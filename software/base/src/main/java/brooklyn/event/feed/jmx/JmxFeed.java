@@ -127,6 +127,7 @@ public class JmxFeed extends AbstractFeed {
         private List<JmxAttributePollConfig<?>> attributePolls = Lists.newArrayList();
         private List<JmxOperationPollConfig<?>> operationPolls = Lists.newArrayList();
         private List<JmxNotificationSubscriptionConfig<?>> notificationSubscriptions = Lists.newArrayList();
+        private boolean publishPollStats = false;
         private String uniqueTag;
         private volatile boolean built;
         
@@ -138,6 +139,11 @@ public class JmxFeed extends AbstractFeed {
             this.helper = val;
             return this;
         }
+        /** publishes stats about this feed's polls on the entity; see {@link AbstractFeed#POLL_STATS} */
+        public Builder publishPollStats() { 
+            this.publishPollStats = true; 
+            return this; 
+        }
         public Builder period(Duration duration) {
             return period(duration.toMilliseconds(), TimeUnit.MILLISECONDS);
         }
@@ -195,6 +201,7 @@ public class JmxFeed extends AbstractFeed {
             setConfig(JMX_URI, helper.getUrl());
         }
         setConfig(JMX_CONNECTION_TIMEOUT, builder.jmxConnectionTimeout);
+        setConfig(PUBLISH_POLL_STATS, builder.publishPollStats);
         
         SetMultimap<String, JmxAttributePollConfig<?>> attributePolls = HashMultimap.<String,JmxAttributePollConfig<?>>create();
         for (JmxAttributePollConfig<?> config : builder.attributePolls) {
@@ -68,9 +68,7 @@ public abstract class AbstractServerPoolTest {
                 .configure(BrooklynConfigKeys.SKIP_ON_BOX_BASE_DIR_RESOLUTION, shouldSkipOnBoxBaseDirResolution());
         poolApp = ApplicationBuilder.newManagedApp(appSpec, mgmt);
 
-        pool = poolApp.createAndManageChild(EntitySpec.create(ServerPool.class)
-                .configure(ServerPool.INITIAL_SIZE, getInitialPoolSize())
-                .configure(ServerPool.MEMBER_SPEC, EntitySpec.create(EmptySoftwareProcess.class)));
+        pool = poolApp.createAndManageChild(createPoolSpec());
         poolApp.start(ImmutableList.of(location));
         assertTrue(pool.getAttribute(Attributes.SERVICE_UP));
     }
@@ -91,6 +89,12 @@ public abstract class AbstractServerPoolTest {
         return DEFAULT_POOL_SIZE;
     }
 
+    protected EntitySpec<ServerPool> createPoolSpec() {
+        return EntitySpec.create(ServerPool.class)
+                .configure(ServerPool.INITIAL_SIZE, getInitialPoolSize())
+                .configure(ServerPool.MEMBER_SPEC, EntitySpec.create(EmptySoftwareProcess.class));
+    }
+
     protected ManagementContext createManagementContext() {
         return new LocalManagementContextForTests();
     }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.entity.pool;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.Attributes;
+import brooklyn.entity.basic.EmptySoftwareProcess;
+import brooklyn.entity.basic.EntityLocal;
+import brooklyn.entity.group.DynamicCluster;
+import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.test.Asserts;
+import brooklyn.test.EntityTestUtils;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.time.Duration;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests a {@link ServerPool} kept warm with {@link ServerPool#MIN_AVAILABLE}.
+ */
+public class ServerPoolWarmTest extends AbstractServerPoolTest {
+
+    @Override
+    protected int getInitialPoolSize() {
+        return 2;
+    }
+
+    @Override
+    protected EntitySpec<ServerPool> createPoolSpec() {
+        return super.createPoolSpec()
+                .configure(ServerPool.MIN_AVAILABLE, 2)
+                .configure(ServerPool.CLAIM_TIMEOUT, Duration.ONE_MINUTE);
+    }
+
+    @Test
+    public void testClaimIsServedFromPoolAndReplenished() {
+        TestApplication app = createAppWithChildren(1);
+        app.start(ImmutableList.of(pool.getDynamicLocation()));
+        assertTrue(app.getAttribute(Attributes.SERVICE_UP));
+
+        assertEquals(pool.getAttribute(ServerPool.CLAIM_HITS), (Long) 1L);
+        assertEquals(pool.getAttribute(ServerPool.CLAIM_MISSES), (Long) 0L);
+        assertEquals(pool.getAttribute(ServerPool.CLAIM_HIT_RATE), (Double) 1.0d);
+        assertAvailableCountEventuallyEquals(2);
+        assertClaimedCountEquals(1);
+        assertEquals((int) pool.getCurrentSize(), 3);
+    }
+
+    @Test
+    public void testClaimWaitsForReplenishmentWhenPoolEmpty() {
+        TestApplication app = createAppWithChildren(getInitialPoolSize() + 1);
+        app.start(ImmutableList.of(pool.getDynamicLocation()));
+        assertTrue(app.getAttribute(Attributes.SERVICE_UP));
+
+        long hits = pool.getAttribute(ServerPool.CLAIM_HITS);
+        long misses = pool.getAttribute(ServerPool.CLAIM_MISSES);
+        assertEquals(hits + misses, getInitialPoolSize() + 1);
+        assertTrue(misses >= 1, "misses=" + misses);
+        assertClaimedCountEquals(getInitialPoolSize() + 1);
+        assertAvailableCountEventuallyEquals(2);
+    }
+
+    @Test
+    public void testReplenishmentLimitedByMaxPoolSize() {
+        ((EntityLocal) pool).setConfig(ServerPool.MAX_POOL_SIZE, getInitialPoolSize());
+        TestApplication app = createAppWithChildren(1);
+        app.start(ImmutableList.of(pool.getDynamicLocation()));
+
+        Asserts.succeedsContinually(MutableMap.of("timeout", Duration.ONE_SECOND), new Runnable() {
+            @Override
+            public void run() {
+                assertEquals((int) pool.getCurrentSize(), getInitialPoolSize());
+                assertAvailableCountEquals(getInitialPoolSize() - 1);
+            }
+        });
+    }
+
+    @Test
+    public void testClusterScaleOutIsServedFromPool() {
+        TestApplication app = createAppWithChildren(0);
+        DynamicCluster cluster = app.createAndManageChild(EntitySpec.create(DynamicCluster.class)
+                .configure(DynamicCluster.INITIAL_SIZE, 1)
+                .configure(DynamicCluster.MEMBER_SPEC, EntitySpec.create(EmptySoftwareProcess.class)));
+        app.start(ImmutableList.of(pool.getDynamicLocation()));
+
+        cluster.resize(3);
+
+        assertEquals((int) cluster.getCurrentSize(), 3);
+        assertEquals(pool.getAttribute(ServerPool.CLAIM_HITS) + pool.getAttribute(ServerPool.CLAIM_MISSES), 3L);
+        assertClaimedCountEquals(3);
+        assertAvailableCountEventuallyEquals(2);
+    }
+
+    @Test
+    public void testIdleMachinesAreRemoved() {
+        ServerPool idlePool = poolApp.createAndManageChild(EntitySpec.create(ServerPool.class)
+                .configure(ServerPool.INITIAL_SIZE, 3)
+                .configure(ServerPool.MIN_AVAILABLE, 1)
+                .configure(ServerPool.MAX_IDLE_TIME, Duration.millis(100))
+                .configure(ServerPool.MEMBER_SPEC, EntitySpec.create(EmptySoftwareProcess.class)));
+        idlePool.start(ImmutableList.of(location));
+
+        EntityTestUtils.assertAttributeEqualsEventually(idlePool, ServerPool.AVAILABLE_COUNT, 1);
+        assertEquals((int) idlePool.getCurrentSize(), 1);
+    }
+}
@@ -56,6 +56,7 @@ import brooklyn.entity.basic.Entities;
 import brooklyn.entity.basic.StartableApplication;
 import brooklyn.entity.proxying.EntitySpec;
 import brooklyn.entity.rebind.persister.BrooklynPersistenceUtils;
+import brooklyn.entity.rebind.persister.MementoFormat;
 import brooklyn.entity.rebind.persister.PersistMode;
 import brooklyn.entity.rebind.transformer.CompoundTransformer;
 import brooklyn.entity.trait.Startable;
@@ -747,12 +748,17 @@ public class Main extends AbstractMain {
                 description = "local transformations file, to be applied to the copy of the data before uploading it")
         public String transformations;
         
+        @Option(name = { "--format" }, title = "format",
+                description = "format to convert the copied data to (xml or binary); by default it is copied in the format in which it was persisted")
+        public String format;
+        
         @Override
         public Void call() throws Exception {
             checkNotNull(destinationDir, "destinationDir"); // presumably because required=true this will never be null!
             
             // Configure launcher
             BrooklynLauncher launcher;
+            MementoFormat targetFormat;
             failIfArguments();
             try {
                 log.info("Retrieving and copying persisted state to "+destinationDir+(Strings.isBlank(destinationLocation) ? "" : " @ "+destinationLocation));
@@ -770,6 +776,8 @@ public class Main extends AbstractMain {
                         .persistenceLocation(persistenceLocation)
                         .highAvailabilityMode(highAvailabilityMode);
                 
+                targetFormat = computeFormat();
+                
             } catch (FatalConfigurationRuntimeException e) {
                 throw e;
             } catch (Exception e) {
@@ -777,7 +785,7 @@ public class Main extends AbstractMain {
             }
             
             try {
-                launcher.copyPersistedState(destinationDir, destinationLocation, loadTransformer(transformations));
+                launcher.copyPersistedState(destinationDir, destinationLocation, loadTransformer(transformations), targetFormat);
             } catch (FatalRuntimeException e) {
                 // rely on caller logging this propagated exception
                 throw e;
@@ -798,6 +806,15 @@ public class Main extends AbstractMain {
             return null;
         }
 
+        protected MementoFormat computeFormat() {
+            if (Strings.isBlank(format)) return null;
+            Maybe<MementoFormat> result = Enums.valueOfIgnoreCase(MementoFormat.class, format);
+            if (!result.isPresent()) {
+                throw new FatalConfigurationRuntimeException("Illegal format: "+format);
+            }
+            return result.get();
+        }
+
         protected CompoundTransformer loadTransformer(String transformationsFileUrl) {
             return BrooklynPersistenceUtils.loadTransformer(ResourceUtils.create(this), transformationsFileUrl);
         }
@@ -808,7 +825,8 @@ public class Main extends AbstractMain {
                     .add("localBrooklynProperties", localBrooklynProperties)
                     .add("persistenceLocation", persistenceLocation)
                     .add("persistenceDir", persistenceDir)
-                    .add("destinationDir", destinationDir);
+                    .add("destinationDir", destinationDir)
+                    .add("format", format);
         }
     }
 
@@ -63,6 +63,7 @@ import brooklyn.entity.rebind.RebindManager;
 import brooklyn.entity.rebind.RebindManagerImpl;
 import brooklyn.entity.rebind.persister.BrooklynMementoPersisterToObjectStore;
 import brooklyn.entity.rebind.persister.BrooklynPersistenceUtils;
+import brooklyn.entity.rebind.persister.MementoFormat;
 import brooklyn.entity.rebind.persister.PersistMode;
 import brooklyn.entity.rebind.persister.PersistenceObjectStore;
 import brooklyn.entity.rebind.transformer.CompoundTransformer;
@@ -480,6 +481,18 @@ public class BrooklynLauncher {
      * @param transformer Optional transformations to apply to retrieved state before it is copied.
      */
     public void copyPersistedState(String destinationDir, @Nullable String destinationLocationSpec, @Nullable CompoundTransformer transformer) {
+        copyPersistedState(destinationDir, destinationLocationSpec, transformer, null);
+    }
+
+    /**
+     * @param destinationDir Directory for state to be copied to
+     * @param destinationLocationSpec Optional location if target for copied state is a blob store.
+     * @param transformer Optional transformations to apply to retrieved state before it is copied.
+     * @param format Optional format to convert the copied state to (e.g. to convert an existing store to 
+     *        {@link MementoFormat#BINARY}); if null, state is copied in the format in which it was persisted
+     *        (except that transformed state is written as XML).
+     */
+    public void copyPersistedState(String destinationDir, @Nullable String destinationLocationSpec, @Nullable CompoundTransformer transformer, @Nullable MementoFormat format) {
         initManagementContext();
         try {
             highAvailabilityMode = HighAvailabilityMode.HOT_STANDBY;
@@ -490,7 +503,11 @@ public class BrooklynLauncher {
         
         try {
             BrooklynMementoRawData memento = managementContext.getRebindManager().retrieveMementoRawData();
-            if (transformer != null) memento = transformer.transform(memento);
+            if (transformer != null) {
+                // transformations apply to the XML
+                memento = transformer.transform(MementoFormat.XML.convert(memento));
+            }
+            if (format != null) memento = format.convert(memento);
             
             ManagementPlaneSyncRecord planeState = managementContext.getHighAvailabilityManager().loadManagementPlaneSyncRecord(true);
             
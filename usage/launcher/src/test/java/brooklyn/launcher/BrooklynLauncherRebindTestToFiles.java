@@ -29,8 +29,10 @@ import org.testng.annotations.Test;
 import brooklyn.config.BrooklynProperties;
 import brooklyn.config.BrooklynServerPaths;
 import brooklyn.entity.proxying.EntitySpec;
+import brooklyn.entity.rebind.persister.BinaryMementoSerializer;
 import brooklyn.entity.rebind.persister.BrooklynMementoPersisterToObjectStore;
 import brooklyn.entity.rebind.persister.FileBasedObjectStore;
+import brooklyn.entity.rebind.persister.MementoFormat;
 import brooklyn.entity.rebind.persister.PersistMode;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.ha.HighAvailabilityMode;
@@ -39,6 +41,7 @@ import brooklyn.util.javalang.JavaClassNames;
 import brooklyn.util.os.Os;
 import brooklyn.util.text.Identifiers;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.io.Files;
 
@@ -150,4 +153,34 @@ public class BrooklynLauncherRebindTestToFiles extends BrooklynLauncherRebindTes
             Os.deleteRecursively(destinationDir);
         }
     }
+
+    @Test(groups="Integration")
+    public void testCopyPersistedStateConvertingFormat() throws Exception {
+        EntitySpec<TestApplication> appSpec = EntitySpec.create(TestApplication.class);
+        populatePersistenceDir(persistenceDir, appSpec);
+
+        File destinationDir = Files.createTempDir();
+        String destination = destinationDir.getAbsolutePath();
+        try {
+            BrooklynLauncher launcher = newLauncherDefault(PersistMode.AUTO)
+                    .highAvailabilityMode(HighAvailabilityMode.MASTER)
+                    .webconsole(false);
+            launcher.copyPersistedState(destination, null, null, MementoFormat.BINARY);
+            launcher.terminate();
+            
+            File[] entities = new File(Os.mergePaths(destination), "entities").listFiles();
+            assertEquals(entities.length, 1, "entities="+Joiner.on(", ").join(entities));
+            assertTrue(BinaryMementoSerializer.isBinary(Files.toString(entities[0], Charsets.UTF_8)));
+
+            // Should rebind from the converted copy, whatever format is configured for writing
+            newLauncherDefault(PersistMode.AUTO)
+                    .webconsole(false)
+                    .persistenceDir(destinationDir)
+                    .start();
+            assertOnlyApp(lastMgmt(), TestApplication.class);
+            
+        } finally {
+            Os.deleteRecursively(destinationDir);
+        }
+    }
 }
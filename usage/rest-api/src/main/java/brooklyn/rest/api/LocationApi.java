@@ -72,6 +72,21 @@ public interface LocationApi {
           @DefaultValue("false")
           @QueryParam("full") String fullConfig) ;
 
+  @GET
+  @Path("/{locationId}/templateCache")
+  @ApiOperation(value = "Fetch metrics for the templates a location has cached for provisioning",
+      notes = "supported by locations such as jclouds; returns hit and miss counts and the number of entries")
+  public Map<String,Object> getTemplateCacheMetrics(
+          @ApiParam(value = "Location id", required = true)
+          @PathParam("locationId") String locationId) ;
+
+  @DELETE
+  @Path("/{locationId}/templateCache")
+  @ApiOperation(value = "Discard the templates a location has cached for provisioning")
+  public void invalidateTemplateCache(
+          @ApiParam(value = "Location id", required = true)
+          @PathParam("locationId") String locationId) ;
+
   @POST
   @ApiOperation(value = "Create a new location", responseClass = "String")
   public Response create(
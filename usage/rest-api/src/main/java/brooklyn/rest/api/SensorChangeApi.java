@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.api;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import brooklyn.rest.apidoc.Apidoc;
+import brooklyn.rest.domain.SensorChangesSummary;
+
+import com.wordnik.swagger.core.ApiError;
+import com.wordnik.swagger.core.ApiErrors;
+import com.wordnik.swagger.core.ApiOperation;
+import com.wordnik.swagger.core.ApiParam;
+
+@Path("/v1/sensors/changes")
+@Apidoc("Sensor Changes")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public interface SensorChangeApi {
+
+  public static final String SERVER_SENT_EVENTS = "text/event-stream";
+
+  @GET
+  @ApiOperation(value = "Fetch attribute changes since a cursor, waiting (long-poll) until there is at least one",
+      responseClass = "brooklyn.rest.domain.SensorChangesSummary",
+      notes = "Omit 'since' to receive the current cursor; pass the returned cursor as 'since' on the next request. "
+          + "If 'reset' is true, changes were missed and the client should re-read the current sensor values.")
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find application")
+  })
+  public SensorChangesSummary poll(
+      @ApiParam(value = "Cursor returned by the previous request", required = false)
+      @QueryParam("since") final Long since,
+      @ApiParam(value = "Application ID or name to restrict changes to", required = false)
+      @QueryParam("application") final String application,
+      @ApiParam(value = "Entity ID to restrict changes to", required = false)
+      @QueryParam("entity") final String entity,
+      @ApiParam(value = "Glob of sensor names to restrict changes to, e.g. 'service.*'", required = false)
+      @QueryParam("sensor") final String sensorGlob,
+      @ApiParam(value = "Maximum time to wait for a change, e.g. '30s'; capped at 5 minutes", required = false)
+      @QueryParam("timeout") @DefaultValue("30s") final String timeout,
+      @ApiParam(value = "Maximum number of changes to return", required = false)
+      @QueryParam("limit") @DefaultValue("1000") final int limit,
+      @ApiParam(value = "Return raw sensor data instead of display values", required = false)
+      @QueryParam("raw") @DefaultValue("false") final Boolean raw
+  ) ;
+
+  @GET
+  @Path("/stream")
+  @Produces(SERVER_SENT_EVENTS)
+  @ApiOperation(value = "Stream attribute changes as server-sent events",
+      notes = "Each change is sent as a 'sensor' event whose id is its cursor, so a reconnecting EventSource resumes "
+          + "from its Last-Event-ID; a 'reset' event indicates changes were missed. "
+          + "The stream ends after 'duration', for the client to reconnect.")
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find application")
+  })
+  public Response stream(
+      @ApiParam(value = "Cursor to resume from, if not supplied in the Last-Event-ID header", required = false)
+      @QueryParam("since") final Long since,
+      @HeaderParam("Last-Event-ID") final String lastEventId,
+      @ApiParam(value = "Application ID or name to restrict changes to", required = false)
+      @QueryParam("application") final String application,
+      @ApiParam(value = "Entity ID to restrict changes to", required = false)
+      @QueryParam("entity") final String entity,
+      @ApiParam(value = "Glob of sensor names to restrict changes to, e.g. 'service.*'", required = false)
+      @QueryParam("sensor") final String sensorGlob,
+      @ApiParam(value = "How long to keep the stream open, e.g. '5m'; capped at 30 minutes", required = false)
+      @QueryParam("duration") @DefaultValue("5m") final String duration,
+      @ApiParam(value = "Return raw sensor data instead of display values", required = false)
+      @QueryParam("raw") @DefaultValue("false") final Boolean raw
+  ) ;
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.api;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import brooklyn.rest.apidoc.Apidoc;
+
+import com.wordnik.swagger.core.ApiError;
+import com.wordnik.swagger.core.ApiErrors;
+import com.wordnik.swagger.core.ApiOperation;
+import com.wordnik.swagger.core.ApiParam;
+
+@Path("/v1/sensors/query")
+@Apidoc("Sensor Query")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public interface SensorQueryApi {
+
+  @GET
+  @ApiOperation(value = "Fetch the given sensors of many entities at once",
+      responseClass = "brooklyn.rest.domain.SensorQuerySummary",
+      notes = "Entities are selected by id, or by type, tag and/or application. "
+          + "The response has an ETag which changes when any attribute of a selected entity changes; "
+          + "supply it as If-None-Match to get a 304 if nothing has changed.")
+  @ApiErrors(value = {
+      @ApiError(code = 304, reason = "Not modified since the supplied ETag"),
+      @ApiError(code = 400, reason = "No entity selector or sensors supplied, or unknown type"),
+      @ApiError(code = 404, reason = "Could not find application")
+  })
+  public Response query(
+      @ApiParam(value = "Comma-separated entity IDs", required = false)
+      @QueryParam("entities") final String entityIds,
+      @ApiParam(value = "Application ID or name to select entities from", required = false)
+      @QueryParam("application") final String application,
+      @ApiParam(value = "Fully qualified entity type (interface or class) to select", required = false)
+      @QueryParam("type") final String type,
+      @ApiParam(value = "Tag (string) to select entities by", required = false)
+      @QueryParam("tag") final String tag,
+      @ApiParam(value = "Comma-separated sensor names", required = true)
+      @QueryParam("sensors") final String sensors,
+      @ApiParam(value = "Return raw sensor data instead of display values", required = false)
+      @QueryParam("raw") @DefaultValue("false") final Boolean raw,
+      @HeaderParam("If-None-Match") final String ifNoneMatch
+  ) ;
+
+}
@@ -101,7 +101,7 @@ public interface ServerApi {
     
     @GET
     @Path("/ha/metrics")
-    @ApiOperation(value = "Returns a collection of HA metrics")
+    @ApiOperation(value = "Returns a collection of HA metrics, including the duration and item count of each phase of the last rebind")
     public Map<String,Object> getHighAvailabilityMetrics();
     
     @POST
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.domain;
+
+import java.util.List;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.codehaus.jackson.map.annotate.JsonSerialize.Inclusion;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A batch of attribute changes, and the cursor to pass back to receive the changes which follow them.
+ */
+public class SensorChangesSummary {
+
+  public static class SensorChange {
+    private final long sequence;
+    private final long timestamp;
+    private final String applicationId;
+    private final String entityId;
+    private final String sensor;
+    @JsonSerialize(include=Inclusion.NON_NULL)
+    private final Object value;
+
+    public SensorChange(
+        @JsonProperty("sequence") long sequence,
+        @JsonProperty("timestamp") long timestamp,
+        @JsonProperty("applicationId") String applicationId,
+        @JsonProperty("entityId") String entityId,
+        @JsonProperty("sensor") String sensor,
+        @JsonProperty("value") Object value
+    ) {
+      this.sequence = sequence;
+      this.timestamp = timestamp;
+      this.applicationId = applicationId;
+      this.entityId = entityId;
+      this.sensor = sensor;
+      this.value = value;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public String getApplicationId() {
+      return applicationId;
+    }
+
+    public String getEntityId() {
+      return entityId;
+    }
+
+    public String getSensor() {
+      return sensor;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return (o instanceof SensorChange) && sequence == ((SensorChange)o).getSequence();
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(sequence);
+    }
+
+    @Override
+    public String toString() {
+      return "SensorChange{" +
+          "sequence=" + sequence +
+          ", entityId='" + entityId + '\'' +
+          ", sensor='" + sensor + '\'' +
+          ", value=" + value +
+          '}';
+    }
+  }
+
+  private final long cursor;
+  private final boolean reset;
+  private final List<SensorChange> changes;
+
+  public SensorChangesSummary(
+      @JsonProperty("cursor") long cursor,
+      @JsonProperty("reset") boolean reset,
+      @JsonProperty("changes") List<SensorChange> changes
+  ) {
+    this.cursor = cursor;
+    this.reset = reset;
+    this.changes = (changes == null) ? ImmutableList.<SensorChange>of() : ImmutableList.copyOf(changes);
+  }
+
+  /** the sequence number to supply as {@code since} on the next request */
+  public long getCursor() {
+    return cursor;
+  }
+
+  /**
+   * true if changes after the requested cursor have been discarded, or the cursor is not known to this server
+   * (e.g. after a restart or failover), so the client should re-read the current state before applying these changes
+   */
+  public boolean isReset() {
+    return reset;
+  }
+
+  public List<SensorChange> getChanges() {
+    return changes;
+  }
+
+  @Override
+  public String toString() {
+    return "SensorChangesSummary{" +
+        "cursor=" + cursor +
+        ", reset=" + reset +
+        ", changes=" + changes.size() +
+        '}';
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.domain;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Sensor values for many entities, in columns: for each sensor, a list of values in the same order as {@link #getEntityIds()}.
+ */
+public class SensorQuerySummary {
+
+  private final List<String> entityIds;
+  private final List<String> sensors;
+  private final Map<String, List<Object>> values;
+
+  public SensorQuerySummary(
+      @JsonProperty("entityIds") List<String> entityIds,
+      @JsonProperty("sensors") List<String> sensors,
+      @JsonProperty("values") Map<String, List<Object>> values
+  ) {
+    this.entityIds = (entityIds == null) ? ImmutableList.<String>of() : ImmutableList.copyOf(entityIds);
+    this.sensors = (sensors == null) ? ImmutableList.<String>of() : ImmutableList.copyOf(sensors);
+    // values may be null, so not an immutable collection
+    this.values = (values == null) ? ImmutableMap.<String, List<Object>>of() : Collections.unmodifiableMap(values);
+  }
+
+  public List<String> getEntityIds() {
+    return entityIds;
+  }
+
+  public List<String> getSensors() {
+    return sensors;
+  }
+
+  public Map<String, List<Object>> getValues() {
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return "SensorQuerySummary{" +
+        "entityIds=" + entityIds +
+        ", sensors=" + sensors +
+        '}';
+  }
+}
@@ -36,6 +36,8 @@ import brooklyn.rest.api.PolicyApi;
 import brooklyn.rest.api.PolicyConfigApi;
 import brooklyn.rest.api.ScriptApi;
 import brooklyn.rest.api.SensorApi;
+import brooklyn.rest.api.SensorChangeApi;
+import brooklyn.rest.api.SensorQueryApi;
 import brooklyn.rest.api.ServerApi;
 import brooklyn.rest.api.UsageApi;
 import brooklyn.rest.api.VersionApi;
@@ -96,6 +98,14 @@ public class BrooklynApi {
         return ProxyFactory.create(SensorApi.class, target);
     }
 
+    public SensorChangeApi getSensorChangeApi() {
+        return ProxyFactory.create(SensorChangeApi.class, target);
+    }
+
+    public SensorQueryApi getSensorQueryApi() {
+        return ProxyFactory.create(SensorQueryApi.class, target);
+    }
+
     public ServerApi getServerApi() {
         return ProxyFactory.create(ServerApi.class, target);
     }
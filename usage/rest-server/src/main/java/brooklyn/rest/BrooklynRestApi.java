@@ -35,6 +35,8 @@ import brooklyn.rest.resources.LocationResource;
 import brooklyn.rest.resources.PolicyConfigResource;
 import brooklyn.rest.resources.PolicyResource;
 import brooklyn.rest.resources.ScriptResource;
+import brooklyn.rest.resources.SensorChangeResource;
+import brooklyn.rest.resources.SensorQueryResource;
 import brooklyn.rest.resources.SensorResource;
 import brooklyn.rest.resources.ServerResource;
 import brooklyn.rest.resources.UsageResource;
@@ -56,6 +58,8 @@ public class BrooklynRestApi {
         resources.add(new EntityResource());
         resources.add(new EntityConfigResource());
         resources.add(new SensorResource());
+        resources.add(new SensorChangeResource());
+        resources.add(new SensorQueryResource());
         resources.add(new EffectorResource());
         resources.add(new PolicyResource());
         resources.add(new PolicyConfigResource());
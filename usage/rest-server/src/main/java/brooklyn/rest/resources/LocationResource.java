@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import brooklyn.location.Location;
 import brooklyn.location.LocationDefinition;
+import brooklyn.location.MachineManagementMixins.CachesTemplates;
 import brooklyn.location.basic.BasicLocationDefinition;
 import brooklyn.location.basic.LocationConfigKeys;
 import brooklyn.rest.api.LocationApi;
@@ -123,6 +124,29 @@ public class LocationResource extends AbstractBrooklynRestResource implements Lo
       return LocationTransformer.newInstance(mgmt(), l2, configLevel);
   }
 
+  @Override
+  public Map<String,Object> getTemplateCacheMetrics(String locationId) {
+      return getTemplateCachingLocation(locationId).getTemplateCacheMetrics();
+  }
+
+  @Override
+  public void invalidateTemplateCache(String locationId) {
+      getTemplateCachingLocation(locationId).invalidateTemplateCache();
+  }
+
+  /** finds the managed location, or resolves (without managing) the defined location, with the given id */
+  protected CachesTemplates getTemplateCachingLocation(String locationId) {
+      Location l = mgmt().getLocationManager().getLocation(locationId);
+      if (l==null) {
+          LocationDefinition ld = brooklyn().getLocationRegistry().getDefinedLocationById(locationId);
+          if (ld==null) throw WebResourceUtils.notFound("No location matching %s", locationId);
+          l = brooklyn().getLocationRegistry().resolve(ld, false, null).get();
+      }
+      if (!(l instanceof CachesTemplates)) 
+          throw WebResourceUtils.badRequest("Location %s does not cache templates", locationId);
+      return (CachesTemplates) l;
+  }
+
   @Override
   public Response create(LocationSpec locationSpec) {
       String id = Identifiers.makeRandomId(8);
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import brooklyn.config.render.RendererHints;
+import brooklyn.entity.Entity;
+import brooklyn.management.entitlement.Entitlements;
+import brooklyn.rest.api.SensorChangeApi;
+import brooklyn.rest.domain.SensorChangesSummary;
+import brooklyn.rest.domain.SensorChangesSummary.SensorChange;
+import brooklyn.rest.util.SensorChangeJournal;
+import brooklyn.rest.util.SensorChangeJournal.Change;
+import brooklyn.rest.util.SensorChangeJournal.Changes;
+import brooklyn.rest.util.WebResourceUtils;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.text.Strings;
+import brooklyn.util.text.WildcardGlobs;
+import brooklyn.util.time.CountdownTimer;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class SensorChangeResource extends AbstractBrooklynRestResource implements SensorChangeApi {
+
+    private static final Duration MAX_POLL_TIMEOUT = Duration.minutes(5);
+    private static final Duration MAX_STREAM_DURATION = Duration.minutes(30);
+    /** interval at which the event stream is written to even if there are no changes, to detect closed connections */
+    private static final Duration STREAM_HEARTBEAT = Duration.seconds(15);
+    private static final int STREAM_MAX_CHANGES_PER_WRITE = 1000;
+
+    @Override
+    public SensorChangesSummary poll(Long since, String application, String entity, String sensorGlob, String timeout, int limit, Boolean raw) {
+        Predicate<Change> filter = newFilter(application, entity, sensorGlob);
+        Duration wait = Duration.parse(timeout).upperBound(MAX_POLL_TIMEOUT);
+        try {
+            Changes changes = journal().read(since, filter, Math.max(1, limit), wait);
+            return new SensorChangesSummary(changes.getCursor(), changes.isReset(), toSummaries(changes.getChanges(), raw));
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    @Override
+    public Response stream(Long since, String lastEventId, String application, String entity, String sensorGlob, String duration, final Boolean raw) {
+        final Predicate<Change> filter = newFilter(application, entity, sensorGlob);
+        final Duration streamDuration = Duration.parse(duration).upperBound(MAX_STREAM_DURATION);
+        final Long initialCursor = Strings.isNonBlank(lastEventId) ? parseLastEventId(lastEventId) : since;
+        final SensorChangeJournal journal = journal();
+        
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream os) throws IOException, WebApplicationException {
+                Writer writer = new OutputStreamWriter(os, Charsets.UTF_8);
+                CountdownTimer timer = streamDuration.countdownTimer();
+                Long cursor = (initialCursor != null) ? initialCursor : journal.getCursor();
+                try {
+                    while (true) {
+                        Duration wait = Duration.min(timer.getDurationRemaining(), STREAM_HEARTBEAT);
+                        Changes changes = journal.read(cursor, filter, STREAM_MAX_CHANGES_PER_WRITE, wait);
+                        if (changes.isReset()) {
+                            writer.write("id: "+changes.getCursor()+"\nevent: reset\ndata: {}\n\n");
+                        }
+                        List<SensorChange> summaries = toSummaries(changes.getChanges(), raw);
+                        for (SensorChange summary : summaries) {
+                            writer.write("id: "+summary.getSequence()+"\nevent: sensor\ndata: "+mapper().writeValueAsString(summary)+"\n\n");
+                        }
+                        if (summaries.isEmpty() && !changes.isReset()) {
+                            // advances the client's last event id past filtered-out changes, and acts as a heartbeat
+                            writer.write("id: "+changes.getCursor()+"\n\n");
+                        }
+                        writer.flush();
+                        cursor = changes.getCursor();
+                        if (timer.isExpired()) break;
+                    }
+                } catch (InterruptedException e) {
+                    throw Exceptions.propagate(e);
+                }
+            }
+        };
+        return Response.ok(output, SERVER_SENT_EVENTS).header("Cache-Control", "no-cache").build();
+    }
+
+    private static Long parseLastEventId(String lastEventId) {
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw WebResourceUtils.badRequest("Invalid Last-Event-ID '%s'; expected a cursor returned by this server", lastEventId);
+        }
+    }
+
+    protected SensorChangeJournal journal() {
+        return SensorChangeJournal.forManagementContext(mgmt());
+    }
+
+    protected Predicate<Change> newFilter(String application, final String entityId, final String sensorGlob) {
+        final String applicationId = Strings.isNonBlank(application) ? brooklyn().getApplication(application).getId() : null;
+        // entitlements are checked once per entity, per request
+        final Map<String, Boolean> visibleEntities = Maps.newHashMap();
+        return new Predicate<Change>() {
+            @Override
+            public boolean apply(Change input) {
+                if (applicationId != null && !applicationId.equals(input.getApplicationId())) return false;
+                if (Strings.isNonBlank(entityId) && !entityId.equals(input.getEntityId())) return false;
+                if (Strings.isNonBlank(sensorGlob) && !WildcardGlobs.isGlobMatched(sensorGlob, input.getSensor().getName())) return false;
+                Boolean visible = visibleEntities.get(input.getEntityId());
+                if (visible == null) {
+                    Entity entity = mgmt().getEntityManager().getEntity(input.getEntityId());
+                    visible = entity != null && Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity);
+                    visibleEntities.put(input.getEntityId(), visible);
+                }
+                return visible;
+            }
+        };
+    }
+
+    protected List<SensorChange> toSummaries(List<Change> changes, Boolean raw) {
+        List<SensorChange> result = Lists.newArrayListWithCapacity(changes.size());
+        for (Change change : changes) {
+            Object value = change.getValue();
+            if (Boolean.FALSE.equals(raw)) {
+                value = RendererHints.applyDisplayValueHint(change.getSensor(), value);
+            }
+            result.add(new SensorChange(change.getSequence(), change.getTimestamp(), change.getApplicationId(), change.getEntityId(), 
+                    change.getSensor().getName(), getValueForDisplay(value, true, false)));
+        }
+        return result;
+    }
+}
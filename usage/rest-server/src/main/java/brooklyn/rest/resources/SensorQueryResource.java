@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.resources;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+import brooklyn.config.render.RendererHints;
+import brooklyn.entity.Application;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.Entities;
+import brooklyn.entity.basic.EntityInternal;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.Sensor;
+import brooklyn.event.basic.BasicAttributeSensor;
+import brooklyn.management.entitlement.Entitlements;
+import brooklyn.management.internal.EntityManagerInternal;
+import brooklyn.rest.api.SensorQueryApi;
+import brooklyn.rest.domain.SensorQuerySummary;
+import brooklyn.rest.util.WebResourceUtils;
+import brooklyn.util.collections.MutableSet;
+import brooklyn.util.text.Strings;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+public class SensorQueryResource extends AbstractBrooklynRestResource implements SensorQueryApi {
+
+    private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    @Override
+    public Response query(String entityIds, String application, String type, String tag, String sensors, Boolean raw, String ifNoneMatch) {
+        List<String> sensorNames = ImmutableList.copyOf(COMMA_SPLITTER.split(sensors == null ? "" : sensors));
+        if (sensorNames.isEmpty()) {
+            throw WebResourceUtils.badRequest("No sensors specified");
+        }
+        List<Entity> entities = selectEntities(entityIds, application, type, tag);
+        
+        // the tag is computed from the attribute versions alone, so an unchanged result is not rendered at all
+        EntityTag etag = new EntityTag(computeTag(entities, sensorNames, raw));
+        if (matches(ifNoneMatch, etag)) {
+            return Response.notModified(etag).build();
+        }
+        
+        List<String> ids = Lists.newArrayListWithCapacity(entities.size());
+        for (Entity entity : entities) {
+            ids.add(entity.getId());
+        }
+        Map<String, List<Object>> values = Maps.newLinkedHashMap();
+        for (String sensorName : sensorNames) {
+            List<Object> column = Lists.newArrayListWithCapacity(entities.size());
+            for (Entity entity : entities) {
+                AttributeSensor<?> sensor = findSensor(entity, sensorName);
+                Object value = entity.getAttribute(sensor);
+                if (Boolean.FALSE.equals(raw)) {
+                    value = RendererHints.applyDisplayValueHint(sensor, value);
+                }
+                column.add(getValueForDisplay(value, true, false));
+            }
+            values.put(sensorName, column);
+        }
+        return Response.ok(new SensorQuerySummary(ids, sensorNames, values)).tag(etag).build();
+    }
+
+    protected List<Entity> selectEntities(String entityIds, String application, String type, String tag) {
+        EntityManagerInternal entityManager = (EntityManagerInternal) mgmt().getEntityManager();
+        Application app = Strings.isNonBlank(application) ? brooklyn().getApplication(application) : null;
+        
+        Iterable<Entity> candidates;
+        if (Strings.isNonBlank(entityIds)) {
+            List<Entity> byId = Lists.newArrayList();
+            for (String id : MutableSet.copyOf(COMMA_SPLITTER.split(entityIds))) {
+                Entity entity = entityManager.getEntity(id);
+                if (entity != null) byId.add(entity);
+            }
+            candidates = byId;
+        } else if (Strings.isNonBlank(type)) {
+            candidates = entityManager.getEntitiesOfType(loadType(type));
+        } else if (Strings.isNonBlank(tag)) {
+            candidates = entityManager.getEntitiesWithTag(tag);
+        } else if (app != null) {
+            candidates = entityManager.getEntitiesInApplication(app);
+        } else {
+            throw WebResourceUtils.badRequest("No entities specified; supply entity ids, type, tag or application");
+        }
+        
+        Class<?> requiredType = (Strings.isNonBlank(entityIds) && Strings.isNonBlank(type)) ? loadType(type) : null;
+        List<Entity> result = Lists.newArrayList();
+        for (Entity entity : candidates) {
+            if (app != null && !app.getId().equals(entity.getApplicationId())) continue;
+            if (requiredType != null && !requiredType.isInstance(Entities.deproxy(entity))) continue;
+            if (Strings.isNonBlank(tag) && !entity.tags().containsTag(tag)) continue;
+            if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) continue;
+            result.add(entity);
+        }
+        return result;
+    }
+
+    protected Class<?> loadType(String type) {
+        try {
+            return mgmt().getCatalog().getRootClassLoader().loadClass(type);
+        } catch (ClassNotFoundException e) {
+            throw WebResourceUtils.badRequest("Unknown entity type '%s'", type);
+        }
+    }
+
+    /** hash of the attribute versions of the entities, with the query and this management node (as versions are not persisted) */
+    protected String computeTag(List<Entity> entities, List<String> sensorNames, Boolean raw) {
+        Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(mgmt().getManagementNodeId(), Charsets.UTF_8)
+                .putBoolean(Boolean.TRUE.equals(raw));
+        for (String sensorName : sensorNames) {
+            hasher.putString(sensorName, Charsets.UTF_8).putChar(',');
+        }
+        for (Entity entity : entities) {
+            hasher.putString(entity.getId(), Charsets.UTF_8)
+                    // distinguishes an entity instance recreated by rebind, whose version count starts again
+                    .putInt(System.identityHashCode(Entities.deproxy(entity)))
+                    .putLong(((EntityInternal)entity).getAttributesVersion());
+        }
+        return hasher.hash().toString();
+    }
+
+    private static boolean matches(String ifNoneMatch, EntityTag etag) {
+        if (Strings.isBlank(ifNoneMatch)) return false;
+        for (String candidate : COMMA_SPLITTER.split(ifNoneMatch)) {
+            if (candidate.equals("*")) return true;
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if (Strings.removeFromStart(Strings.removeFromEnd(candidate, "\""), "\"").equals(etag.getValue())) return true;
+        }
+        return false;
+    }
+
+    private static AttributeSensor<?> findSensor(Entity entity, String name) {
+        Sensor<?> s = entity.getEntityType().getSensor(name);
+        if (s instanceof AttributeSensor) return (AttributeSensor<?>) s;
+        return new BasicAttributeSensor<Object>(Object.class, name);
+    }
+}
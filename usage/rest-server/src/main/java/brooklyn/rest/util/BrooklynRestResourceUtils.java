@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -59,6 +60,7 @@ import brooklyn.location.LocationRegistry;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.Task;
 import brooklyn.management.entitlement.Entitlements;
+import brooklyn.management.internal.EntityManagerInternal;
 import brooklyn.policy.Policy;
 import brooklyn.policy.basic.AbstractPolicy;
 import brooklyn.rest.domain.ApplicationSpec;
@@ -521,20 +523,33 @@ public class BrooklynRestResourceUtils {
         return result;
     }
     
-    private static void gatherAllDescendants(Entity e, List<Entity> result) {
+    private void gatherAllDescendants(Entity e, List<Entity> result) {
         if (result.add(e)) {
-            for (Entity ee: e.getChildren())
+            // use the entity manager's parent index where available, rather than walking each entity's children
+            Iterable<Entity> children = (mgmt.getEntityManager() instanceof EntityManagerInternal)
+                    ? ((EntityManagerInternal)mgmt.getEntityManager()).getEntitiesWithParent(e.getId())
+                    : e.getChildren();
+            for (Entity ee: children)
                 gatherAllDescendants(ee, result);
         }
     }
 
     public Iterable<Entity> descendantsOfType(String application, String entity, final String typeRegex) {
         Iterable<Entity> result = descendantsOfAnyType(application, entity);
+        final Pattern typePattern = Pattern.compile(typeRegex);
+        // many descendants typically share a type, so only match each type name once
+        final Map<String, Boolean> matchesByTypeName = Maps.newHashMap();
         return Iterables.filter(result, new Predicate<Entity>() {
             @Override
             public boolean apply(Entity entity) {
                 if (entity==null) return false;
-                return (entity.getEntityType().getName().matches(typeRegex));
+                String typeName = entity.getEntityType().getName();
+                Boolean matches = matchesByTypeName.get(typeName);
+                if (matches==null) {
+                    matches = typePattern.matcher(typeName).matches();
+                    matchesByTypeName.put(typeName, matches);
+                }
+                return matches;
             }
         });
     }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.util;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.config.ConfigKey;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.ConfigKeys;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.Sensor;
+import brooklyn.event.SensorEvent;
+import brooklyn.event.SensorEventListener;
+import brooklyn.management.ManagementContext;
+import brooklyn.management.SubscriptionHandle;
+import brooklyn.management.SubscriptionManager;
+import brooklyn.util.collections.MutableMap;
+import brooklyn.util.time.CountdownTimer;
+import brooklyn.util.time.Duration;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Retains the most recent attribute changes across all entities, each with a sequence number,
+ * so that REST clients can follow changes from a cursor rather than re-reading every sensor.
+ * <p>
+ * There is one journal per management context (see {@link #forManagementContext(ManagementContext)}), 
+ * fed by a single wildcard subscription which is only made when the journal is first used.
+ * Changes are held in a fixed-size ring buffer; a client whose cursor has fallen out of the buffer is told to reset.
+ * <p>
+ * Sequence numbers start from the creation time (in microseconds) so that a cursor from an earlier journal,
+ * e.g. before a restart or failover, is never mistaken for a current one.
+ */
+public class SensorChangeJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorChangeJournal.class);
+
+    public static final ConfigKey<Integer> CAPACITY = ConfigKeys.newIntegerConfigKey("brooklyn.rest.sensorChanges.capacity",
+            "Number of recent attribute changes retained for clients following sensor changes", 10000);
+
+    private static final ConfigKey<SensorChangeJournal> JOURNAL = ConfigKeys.newConfigKey(SensorChangeJournal.class, 
+            "brooklyn.rest.sensorChanges.journal", "The sensor change journal for this management context (internal)");
+
+    private static final String SUBSCRIBER = "rest-sensor-change-journal";
+
+    private static final Object CREATION_LOCK = new Object();
+
+    /** changes are read in chunks of this size, so filtering is done without holding the lock */
+    private static final int MAX_CHANGES_PER_READ = 1000;
+
+    public static class Change {
+        private final long sequence;
+        private final long timestamp;
+        private final String applicationId;
+        private final String entityId;
+        private final AttributeSensor<?> sensor;
+        private final Object value;
+        
+        Change(long sequence, long timestamp, String applicationId, String entityId, AttributeSensor<?> sensor, Object value) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.applicationId = applicationId;
+            this.entityId = entityId;
+            this.sensor = sensor;
+            this.value = value;
+        }
+        public long getSequence() { return sequence; }
+        public long getTimestamp() { return timestamp; }
+        public String getApplicationId() { return applicationId; }
+        public String getEntityId() { return entityId; }
+        public AttributeSensor<?> getSensor() { return sensor; }
+        public Object getValue() { return value; }
+        
+        @Override
+        public String toString() {
+            return "Change["+sequence+": "+entityId+" "+sensor.getName()+"="+value+"]";
+        }
+    }
+
+    public static class Changes {
+        private final long cursor;
+        private final boolean reset;
+        private final List<Change> changes;
+        
+        Changes(long cursor, boolean reset, List<Change> changes) {
+            this.cursor = cursor;
+            this.reset = reset;
+            this.changes = changes;
+        }
+        /** the sequence number of the last change considered, to be passed as {@code since} when next reading */
+        public long getCursor() { return cursor; }
+        /** true if changes after the requested cursor are no longer available, or the cursor was not recognised */
+        public boolean isReset() { return reset; }
+        public List<Change> getChanges() { return changes; }
+    }
+
+    /** Returns the journal for the given management context, creating (and subscribing) it if necessary. */
+    public static SensorChangeJournal forManagementContext(ManagementContext mgmt) {
+        synchronized (CREATION_LOCK) {
+            SensorChangeJournal result = mgmt.getConfig().getConfig(JOURNAL);
+            if (result != null) return result;
+            
+            // properties reloaded (or first use); drop any subscription held by a previous journal
+            SubscriptionManager subscriptionManager = mgmt.getSubscriptionManager();
+            for (SubscriptionHandle handle : subscriptionManager.getSubscriptionsForSubscriber(SUBSCRIBER)) {
+                subscriptionManager.unsubscribe(handle);
+            }
+            result = new SensorChangeJournal(mgmt.getConfig().getConfig(CAPACITY));
+            result.subscribe(subscriptionManager);
+            if (mgmt.getConfig() instanceof BrooklynProperties) {
+                ((BrooklynProperties)mgmt.getConfig()).put(JOURNAL, result);
+            } else {
+                log.warn("Unable to record sensor change journal with "+mgmt+"; cursors will not survive between requests");
+            }
+            return result;
+        }
+    }
+
+    private final Change[] buffer;
+    private final long firstSequence;
+    /** sequence number for the next change; guarded by this */
+    private long nextSequence;
+
+    @VisibleForTesting
+    SensorChangeJournal(int capacity) {
+        this.buffer = new Change[Math.max(1, capacity)];
+        this.firstSequence = System.currentTimeMillis()*1000;
+        this.nextSequence = firstSequence;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void subscribe(SubscriptionManager subscriptionManager) {
+        Map<String, Object> flags = MutableMap.<String, Object>of("subscriber", SUBSCRIBER, "eventFilter", new Predicate<SensorEvent<?>>() {
+            @Override public boolean apply(SensorEvent<?> input) {
+                return input.getSensor() instanceof AttributeSensor;
+            }
+        });
+        subscriptionManager.subscribe(flags, (Entity)null, (Sensor<Object>)null, new SensorEventListener<Object>() {
+            @Override public void onEvent(SensorEvent<Object> event) {
+                Entity source = event.getSource();
+                if (source == null) return;
+                add(source.getApplicationId(), source.getId(), (AttributeSensor<?>) event.getSensor(), event.getValue(), event.getTimestamp());
+            }
+        });
+    }
+
+    @VisibleForTesting
+    synchronized void add(String applicationId, String entityId, AttributeSensor<?> sensor, Object value, long timestamp) {
+        Change change = new Change(nextSequence, timestamp, applicationId, entityId, sensor, value);
+        buffer[index(nextSequence)] = change;
+        nextSequence++;
+        notifyAll();
+    }
+
+    /** the cursor at which a client should start, to see only changes after this point */
+    public synchronized long getCursor() {
+        return nextSequence-1;
+    }
+
+    /**
+     * Returns the changes after {@code since} which match the given filter, waiting up to {@code timeout}
+     * for there to be at least one. If {@code since} is null, returns no changes and the current cursor.
+     */
+    public Changes read(Long since, Predicate<? super Change> filter, int maxChanges, Duration timeout) throws InterruptedException {
+        if (since == null) return new Changes(getCursor(), false, ImmutableList.<Change>of());
+        
+        CountdownTimer timer = timeout.countdownTimer();
+        long position = since;
+        boolean reset = false;
+        List<Change> result = Lists.newArrayList();
+        while (true) {
+            List<Change> candidates = Lists.newArrayList();
+            synchronized (this) {
+                if (position < oldestSequence()-1 || position >= nextSequence) {
+                    // changes have been discarded, or the cursor is from elsewhere
+                    reset = true;
+                    position = oldestSequence()-1;
+                }
+                while (!reset && position+1 >= nextSequence) {
+                    long remaining = timer.getDurationRemaining().toMillisecondsRoundingUp();
+                    if (remaining <= 0) break;
+                    wait(remaining);
+                    if (position < oldestSequence()-1) {
+                        reset = true;
+                        position = oldestSequence()-1;
+                    }
+                }
+                int limit = Math.min(MAX_CHANGES_PER_READ, maxChanges-result.size());
+                for (long i = position+1; i < nextSequence && candidates.size() < limit; i++) {
+                    candidates.add(buffer[index(i)]);
+                }
+            }
+            
+            for (Change change : candidates) {
+                position = change.getSequence();
+                if (filter.apply(change)) result.add(change);
+            }
+            // a reset is returned straight away, so the client can re-read current values
+            if (reset || !result.isEmpty() || timer.isExpired()) break;
+        }
+        return new Changes(position, reset, result);
+    }
+
+    private long oldestSequence() {
+        return Math.max(firstSequence, nextSequence-buffer.length);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+}
@@ -99,7 +99,26 @@ public class LocationResourceTest extends BrooklynRestResourceTest {
     assertThat(location.getSpec(), is("aws-ec2"));
   }
 
-  @Test(dependsOnMethods = {"testGetASpecificLocation"})
+  @Test(dependsOnMethods={"testGetASpecificLocation"})
+  public void testTemplateCacheMetricsAndInvalidation() {
+    Map<String, Object> metrics = client().resource(addedLocationUri.toString()+"/templateCache")
+        .get(new GenericType<Map<String, Object>>() {});
+    assertThat(metrics.get("templateCount"), is((Object)0));
+
+    ClientResponse response = client().resource(addedLocationUri.toString()+"/templateCache").delete(ClientResponse.class);
+    assertThat(response.getStatus(), is(Response.Status.NO_CONTENT.getStatusCode()));
+    metrics = client().resource(addedLocationUri.toString()+"/templateCache")
+        .get(new GenericType<Map<String, Object>>() {});
+    Assert.assertNotNull(metrics.get("lastInvalidationTimeUtc"));
+  }
+
+  @Test
+  public void testTemplateCacheOfUnknownLocationNotFound() {
+    ClientResponse response = client().resource("/v1/locations/doesnotexist/templateCache").get(ClientResponse.class);
+    assertThat(response.getStatus(), is(Response.Status.NOT_FOUND.getStatusCode()));
+  }
+
+  @Test(dependsOnMethods = {"testTemplateCacheMetricsAndInvalidation"})
   public void testDeleteLocation() {
     final int size = getLocationRegistry().getDefinedLocations().size();
 
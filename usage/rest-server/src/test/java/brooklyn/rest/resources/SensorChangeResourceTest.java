@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.resources;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import brooklyn.config.render.RendererHints;
+import brooklyn.config.render.TestRendererHints;
+import brooklyn.entity.basic.EntityInternal;
+import brooklyn.entity.basic.EntityPredicates;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.basic.Sensors;
+import brooklyn.rest.api.SensorChangeApi;
+import brooklyn.rest.domain.ApplicationSpec;
+import brooklyn.rest.domain.EntitySpec;
+import brooklyn.rest.domain.SensorChangesSummary;
+import brooklyn.rest.domain.SensorChangesSummary.SensorChange;
+import brooklyn.rest.testing.BrooklynRestResourceTest;
+import brooklyn.rest.testing.mocks.RestMockSimpleEntity;
+import brooklyn.util.text.StringFunctions;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+
+/**
+ * Test the {@link SensorChangeApi} implementation.
+ */
+@Test(singleThreaded = true)
+public class SensorChangeResourceTest extends BrooklynRestResourceTest {
+
+    final static ApplicationSpec SIMPLE_SPEC = ApplicationSpec.builder()
+            .name("simple-app")
+            .entities(ImmutableSet.of(new EntitySpec("simple-ent", RestMockSimpleEntity.class.getName())))
+            .locations(ImmutableSet.of("localhost"))
+            .build();
+
+    static final String CHANGES_ENDPOINT = "/v1/sensors/changes";
+    static final AttributeSensor<Integer> SENSOR = Sensors.newIntegerSensor("test.changes.count");
+    static final AttributeSensor<Integer> OTHER_SENSOR = Sensors.newIntegerSensor("test.changes.other");
+
+    EntityInternal entity;
+
+    @BeforeClass(alwaysRun = true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        ClientResponse deploy = clientDeploy(SIMPLE_SPEC);
+        waitForApplicationToBeRunning(deploy.getLocation());
+
+        entity = (EntityInternal) Iterables.find(getManagementContext().getEntityManager().getEntities(), EntityPredicates.displayNameEqualTo("simple-ent"));
+        RendererHints.register(SENSOR, RendererHints.displayValue(Functions.compose(StringFunctions.append(" frogs"), Functions.toStringFunction())));
+    }
+
+    @AfterClass(alwaysRun = true)
+    @Override
+    public void tearDown() throws Exception {
+        TestRendererHints.clearRegistry();
+        super.tearDown();
+    }
+
+    @Test
+    public void testPollWithoutCursorReturnsCursorOnly() throws Exception {
+        SensorChangesSummary summary = poll(null, "0");
+        assertTrue(summary.getChanges().isEmpty());
+        assertFalse(summary.isReset());
+    }
+
+    @Test
+    public void testPollReturnsChangesSinceCursor() throws Exception {
+        long cursor = poll(null, "0").getCursor();
+        entity.setAttribute(SENSOR, 1);
+        entity.setAttribute(OTHER_SENSOR, 2);
+        entity.setAttribute(SENSOR, 3);
+
+        SensorChangesSummary summary = client().resource(CHANGES_ENDPOINT)
+                .queryParam("since", ""+cursor)
+                .queryParam("entity", entity.getId())
+                .queryParam("sensor", "test.changes.count")
+                .queryParam("raw", "true")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(SensorChangesSummary.class);
+        // deliveries are asynchronous, so may need more than one poll to see both
+        while (summary.getChanges().size() < 2) {
+            SensorChangesSummary next = client().resource(CHANGES_ENDPOINT)
+                    .queryParam("since", ""+summary.getCursor())
+                    .queryParam("entity", entity.getId())
+                    .queryParam("sensor", "test.changes.count")
+                    .queryParam("raw", "true")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .get(SensorChangesSummary.class);
+            assertFalse(next.getChanges().isEmpty(), "timed out waiting for changes");
+            summary = new SensorChangesSummary(next.getCursor(), false, 
+                    ImmutableList.copyOf(Iterables.concat(summary.getChanges(), next.getChanges())));
+        }
+        assertEquals(summary.getChanges().size(), 2);
+        SensorChange first = summary.getChanges().get(0);
+        assertEquals(first.getEntityId(), entity.getId());
+        assertEquals(first.getApplicationId(), entity.getApplicationId());
+        assertEquals(first.getSensor(), SENSOR.getName());
+        assertEquals(first.getValue(), 1);
+        assertEquals(summary.getChanges().get(1).getValue(), 3);
+        assertTrue(summary.getChanges().get(1).getSequence() > first.getSequence());
+    }
+
+    @Test
+    public void testPollAppliesDisplayHints() throws Exception {
+        long cursor = poll(null, "0").getCursor();
+        entity.setAttribute(SENSOR, 12345);
+
+        SensorChangesSummary summary = client().resource(CHANGES_ENDPOINT)
+                .queryParam("since", ""+cursor)
+                .queryParam("sensor", "test.changes.count")
+                .queryParam("application", "simple-app")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(SensorChangesSummary.class);
+        assertEquals(Iterables.getOnlyElement(summary.getChanges()).getValue(), "12345 frogs");
+    }
+
+    @Test
+    public void testPollWithUnknownCursorIsReset() throws Exception {
+        SensorChangesSummary summary = poll(0L, "0");
+        assertTrue(summary.isReset());
+    }
+
+    @Test
+    public void testStreamSendsServerSentEvents() throws Exception {
+        long cursor = poll(null, "0").getCursor();
+        entity.setAttribute(SENSOR, 42);
+
+        ClientResponse response = client().resource(CHANGES_ENDPOINT + "/stream")
+                .queryParam("sensor", "test.changes.count")
+                .queryParam("duration", "500ms")
+                .queryParam("raw", "true")
+                .header("Last-Event-ID", ""+cursor)
+                .accept(SensorChangeApi.SERVER_SENT_EVENTS)
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 200);
+        String body = response.getEntity(String.class);
+        assertTrue(body.contains("event: sensor\n"), "body="+body);
+        assertTrue(body.contains("\"value\":42"), "body="+body);
+    }
+
+    @Test
+    public void testStreamWithMalformedLastEventIdIsBadRequest() throws Exception {
+        ClientResponse response = client().resource(CHANGES_ENDPOINT + "/stream")
+                .queryParam("duration", "500ms")
+                .header("Last-Event-ID", "not-a-cursor")
+                .accept(SensorChangeApi.SERVER_SENT_EVENTS)
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 400);
+    }
+
+    private SensorChangesSummary poll(Long since, String timeout) {
+        WebResource resource = client().resource(CHANGES_ENDPOINT).queryParam("timeout", timeout);
+        if (since != null) resource = resource.queryParam("since", ""+since);
+        return resource.accept(MediaType.APPLICATION_JSON).get(SensorChangesSummary.class);
+    }
+}
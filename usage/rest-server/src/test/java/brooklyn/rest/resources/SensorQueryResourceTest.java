@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.resources;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.basic.EntityInternal;
+import brooklyn.entity.basic.EntityPredicates;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.basic.Sensors;
+import brooklyn.rest.api.SensorQueryApi;
+import brooklyn.rest.domain.ApplicationSpec;
+import brooklyn.rest.domain.EntitySpec;
+import brooklyn.rest.domain.SensorQuerySummary;
+import brooklyn.rest.testing.BrooklynRestResourceTest;
+import brooklyn.rest.testing.mocks.RestMockSimpleEntity;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource.Builder;
+
+/**
+ * Test the {@link SensorQueryApi} implementation.
+ */
+@Test(singleThreaded = true)
+public class SensorQueryResourceTest extends BrooklynRestResourceTest {
+
+    final static ApplicationSpec SIMPLE_SPEC = ApplicationSpec.builder()
+            .name("simple-app")
+            .entities(ImmutableSet.of(
+                    new EntitySpec("simple-ent-1", RestMockSimpleEntity.class.getName()),
+                    new EntitySpec("simple-ent-2", RestMockSimpleEntity.class.getName())))
+            .locations(ImmutableSet.of("localhost"))
+            .build();
+
+    static final String QUERY_ENDPOINT = "/v1/sensors/query";
+    static final AttributeSensor<Integer> SENSOR = Sensors.newIntegerSensor("test.query.count");
+    static final AttributeSensor<Integer> CHANGING_SENSOR = Sensors.newIntegerSensor("test.query.changing");
+
+    EntityInternal entity1;
+    EntityInternal entity2;
+
+    @BeforeClass(alwaysRun = true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        ClientResponse deploy = clientDeploy(SIMPLE_SPEC);
+        waitForApplicationToBeRunning(deploy.getLocation());
+
+        entity1 = (EntityInternal) Iterables.find(getManagementContext().getEntityManager().getEntities(), EntityPredicates.displayNameEqualTo("simple-ent-1"));
+        entity2 = (EntityInternal) Iterables.find(getManagementContext().getEntityManager().getEntities(), EntityPredicates.displayNameEqualTo("simple-ent-2"));
+        entity1.setAttribute(SENSOR, 1);
+        entity2.setAttribute(SENSOR, 2);
+        entity2.tags().addTag("query-tag");
+    }
+
+    @Test
+    public void testQueryByIdsReturnsColumns() throws Exception {
+        ClientResponse response = client().resource(QUERY_ENDPOINT)
+                .queryParam("entities", entity2.getId()+","+entity1.getId())
+                .queryParam("sensors", SENSOR.getName()+",service.isUp")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 200);
+        assertNotNull(response.getEntityTag());
+        
+        SensorQuerySummary summary = response.getEntity(SensorQuerySummary.class);
+        assertEquals(summary.getEntityIds(), ImmutableList.of(entity2.getId(), entity1.getId()));
+        assertEquals(summary.getSensors(), ImmutableList.of(SENSOR.getName(), "service.isUp"));
+        assertEquals(summary.getValues().get(SENSOR.getName()), ImmutableList.<Object>of(2, 1));
+        assertEquals(summary.getValues().get("service.isUp"), ImmutableList.<Object>of(true, true));
+    }
+
+    @Test
+    public void testQueryByType() throws Exception {
+        SensorQuerySummary summary = client().resource(QUERY_ENDPOINT)
+                .queryParam("type", RestMockSimpleEntity.class.getName())
+                .queryParam("sensors", SENSOR.getName())
+                .accept(MediaType.APPLICATION_JSON)
+                .get(SensorQuerySummary.class);
+        assertEquals(ImmutableSet.copyOf(summary.getEntityIds()), ImmutableSet.of(entity1.getId(), entity2.getId()));
+    }
+
+    @Test
+    public void testQueryByTagAndApplication() throws Exception {
+        SensorQuerySummary summary = client().resource(QUERY_ENDPOINT)
+                .queryParam("application", "simple-app")
+                .queryParam("tag", "query-tag")
+                .queryParam("sensors", SENSOR.getName())
+                .accept(MediaType.APPLICATION_JSON)
+                .get(SensorQuerySummary.class);
+        assertEquals(summary.getEntityIds(), ImmutableList.of(entity2.getId()));
+        assertEquals(summary.getValues().get(SENSOR.getName()), ImmutableList.<Object>of(2));
+    }
+
+    @Test
+    public void testConditionalGetReturnsNotModifiedUntilAttributeChanges() throws Exception {
+        ClientResponse response = queryWithETag(null);
+        assertEquals(response.getStatus(), 200);
+        String etag = response.getEntityTag().toString();
+        
+        response = queryWithETag(etag);
+        assertEquals(response.getStatus(), 304);
+        
+        entity1.setAttribute(CHANGING_SENSOR, 3);
+        response = queryWithETag(etag);
+        assertEquals(response.getStatus(), 200);
+        assertNotEquals(response.getEntityTag().toString(), etag);
+        List<Object> values = response.getEntity(SensorQuerySummary.class).getValues().get(CHANGING_SENSOR.getName());
+        assertEquals(values, ImmutableList.<Object>of(3));
+    }
+
+    @Test
+    public void testRejectsQueryWithoutSelectorOrSensors() throws Exception {
+        ClientResponse response = client().resource(QUERY_ENDPOINT)
+                .queryParam("sensors", SENSOR.getName())
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 400);
+        
+        response = client().resource(QUERY_ENDPOINT)
+                .queryParam("entities", entity1.getId())
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 400);
+        
+        response = client().resource(QUERY_ENDPOINT)
+                .queryParam("type", "no.such.Type")
+                .queryParam("sensors", SENSOR.getName())
+                .get(ClientResponse.class);
+        assertEquals(response.getStatus(), 400);
+    }
+
+    private ClientResponse queryWithETag(String etag) {
+        Builder builder = client().resource(QUERY_ENDPOINT)
+                .queryParam("entities", entity1.getId())
+                .queryParam("sensors", CHANGING_SENSOR.getName())
+                .queryParam("raw", "true")
+                .accept(MediaType.APPLICATION_JSON);
+        if (etag != null) builder = builder.header("If-None-Match", etag);
+        return builder.get(ClientResponse.class);
+    }
+}
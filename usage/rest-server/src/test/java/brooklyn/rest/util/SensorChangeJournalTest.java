@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutorService;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.basic.Sensors;
+import brooklyn.rest.util.SensorChangeJournal.Change;
+import brooklyn.rest.util.SensorChangeJournal.Changes;
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class SensorChangeJournalTest {
+
+    private static final AttributeSensor<Integer> SENSOR1 = Sensors.newIntegerSensor("test.sensor1");
+    private static final AttributeSensor<Integer> SENSOR2 = Sensors.newIntegerSensor("test.sensor2");
+
+    private SensorChangeJournal journal;
+    private ExecutorService executor;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        journal = new SensorChangeJournal(4);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadWithoutCursorReturnsCurrentCursor() throws Exception {
+        journal.add("app", "e1", SENSOR1, 1, 0);
+        Changes changes = journal.read(null, Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertEquals(changes.getCursor(), journal.getCursor());
+        assertTrue(changes.getChanges().isEmpty());
+        assertFalse(changes.isReset());
+    }
+
+    @Test
+    public void testReadsChangesAfterCursor() throws Exception {
+        long cursor = journal.getCursor();
+        journal.add("app", "e1", SENSOR1, 1, 0);
+        journal.add("app", "e1", SENSOR1, 2, 0);
+        
+        Changes changes = journal.read(cursor, Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertEquals(values(changes), ImmutableList.of(1, 2));
+        assertFalse(changes.isReset());
+        
+        journal.add("app", "e1", SENSOR1, 3, 0);
+        changes = journal.read(changes.getCursor(), Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertEquals(values(changes), ImmutableList.of(3));
+    }
+
+    @Test
+    public void testFilteredChangesAdvanceCursor() throws Exception {
+        long cursor = journal.getCursor();
+        journal.add("app", "e1", SENSOR1, 1, 0);
+        journal.add("app", "e1", SENSOR2, 2, 0);
+        journal.add("app", "e1", SENSOR1, 3, 0);
+        
+        Changes changes = journal.read(cursor, sensorNamed(SENSOR2.getName()), 100, Duration.ZERO);
+        assertEquals(values(changes), ImmutableList.of(2));
+        assertEquals(changes.getCursor(), journal.getCursor());
+    }
+
+    @Test
+    public void testLimitsNumberOfChanges() throws Exception {
+        long cursor = journal.getCursor();
+        journal.add("app", "e1", SENSOR1, 1, 0);
+        journal.add("app", "e1", SENSOR1, 2, 0);
+        journal.add("app", "e1", SENSOR1, 3, 0);
+        
+        Changes changes = journal.read(cursor, Predicates.alwaysTrue(), 2, Duration.ZERO);
+        assertEquals(values(changes), ImmutableList.of(1, 2));
+        changes = journal.read(changes.getCursor(), Predicates.alwaysTrue(), 2, Duration.ZERO);
+        assertEquals(values(changes), ImmutableList.of(3));
+    }
+
+    @Test
+    public void testResetWhenCursorOverwritten() throws Exception {
+        long cursor = journal.getCursor();
+        for (int i = 1; i <= 6; i++) {
+            journal.add("app", "e1", SENSOR1, i, 0);
+        }
+        
+        Changes changes = journal.read(cursor, Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertTrue(changes.isReset());
+        assertEquals(values(changes), ImmutableList.of(3, 4, 5, 6));
+    }
+
+    @Test
+    public void testResetWhenCursorUnknown() throws Exception {
+        Changes changes = journal.read(journal.getCursor()+100, Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertTrue(changes.isReset());
+        
+        changes = journal.read(0L, Predicates.alwaysTrue(), 100, Duration.ZERO);
+        assertTrue(changes.isReset());
+    }
+
+    @Test
+    public void testReadWaitsForMatchingChange() throws Exception {
+        final long cursor = journal.getCursor();
+        Future<Changes> future = executor.submit(new Callable<Changes>() {
+            @Override public Changes call() throws Exception {
+                return journal.read(cursor, sensorNamed(SENSOR2.getName()), 100, Duration.THIRTY_SECONDS);
+            }});
+        
+        journal.add("app", "e1", SENSOR1, 1, 0);
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        
+        journal.add("app", "e1", SENSOR2, 2, 0);
+        Changes changes = future.get();
+        assertEquals(values(changes), ImmutableList.of(2));
+    }
+
+    @Test
+    public void testReadTimesOutWithNoChanges() throws Exception {
+        long cursor = journal.getCursor();
+        Changes changes = journal.read(cursor, Predicates.alwaysTrue(), 100, Duration.millis(50));
+        assertTrue(changes.getChanges().isEmpty());
+        assertEquals(changes.getCursor(), cursor);
+        assertFalse(changes.isReset());
+    }
+
+    private static Predicate<Change> sensorNamed(final String name) {
+        return new Predicate<Change>() {
+            @Override public boolean apply(Change input) {
+                return input.getSensor().getName().equals(name);
+            }
+        };
+    }
+
+    private static List<Object> values(Changes changes) {
+        List<Object> result = Lists.newArrayList();
+        for (Change change : changes.getChanges()) {
+            result.add(change.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,474 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.util.collections;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import brooklyn.util.time.Duration;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+/**
+ * Keeps numeric values in a time window, with the same retention rules as {@link TimeWindowedList}
+ * (values older than the time period are discarded, subject to keeping the given minimum number of values
+ * and of out-of-date values), and maintains statistics over them incrementally.
+ * <p>
+ * Values are held in primitive ring buffers, so adding a value (and discarding old ones) is amortised O(1), 
+ * and queries are O(1) or O(log n) in the number of values in the window:
+ * <ul>
+ *   <li>sum and mean, from prefix sums;
+ *   <li>min and max, from monotonic deques;
+ *   <li>time-weighted sums, where each value is treated as applying since the previous one;
+ *   <li>approximate percentiles, if enabled with {@link #trackPercentiles(double)}, 
+ *       from a histogram of logarithmically sized buckets.
+ * </ul>
+ * Apart from percentiles, these can also be queried for just the values since a given time, 
+ * i.e. for a sub-window.
+ * <p>
+ * Timestamps are expected to be non-decreasing; a value added with an earlier timestamp than the latest
+ * is treated as having the latest timestamp. NaN and infinite values are not permitted.
+ * <p>
+ * This class is thread-safe; to perform several queries atomically, synchronize on the instance.
+ */
+public class TimeWindowedStatistics {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** null means values are only discarded by {@link #trimToSize(int)} */
+    private volatile Duration timePeriod;
+    private final int minVals;
+    private final int minExpiredVals;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    /** cumulative sum of the values up to and including each entry, offset by {@link #sumBase} */
+    private double[] cumulativeSums = new double[INITIAL_CAPACITY];
+    /** cumulative sum of value*(timestamp - previous timestamp), up to and including each entry */
+    private double[] cumulativeWeightedSums = new double[INITIAL_CAPACITY];
+    private int mask = INITIAL_CAPACITY-1;
+
+    /** sequence number of the oldest entry; entries are held at index {@code sequence & mask} */
+    private long head = 0;
+    /** sequence number for the next entry */
+    private long tail = 0;
+    /** cumulative sums as at the entry before {@link #head} */
+    private double sumBase = 0, weightedSumBase = 0;
+    private int removalsSinceRebase = 0;
+
+    private final MonotonicDeque maxima = new MonotonicDeque(true);
+    private final MonotonicDeque minima = new MonotonicDeque(false);
+    private LogHistogram histogram;
+
+    /** Creates an instance which discards values only by {@link #trimToSize(int)}. */
+    public TimeWindowedStatistics() {
+        this(null, 0, 0);
+    }
+
+    public TimeWindowedStatistics(Duration timePeriod) {
+        this(timePeriod, 0, 0);
+    }
+
+    /**
+     * @param timePeriod      values older than this are discarded (when a value is added, or by {@link #pruneValues(long)});
+     *                        or null to discard only by {@link #trimToSize(int)}
+     * @param minVals         the minimum number of values to keep, even if out of date
+     * @param minExpiredVals  the number of most recent out-of-date values to keep, e.g. to know the value 
+     *                        at the start of the window
+     */
+    public TimeWindowedStatistics(Duration timePeriod, int minVals, int minExpiredVals) {
+        this.timePeriod = timePeriod;
+        this.minVals = minVals;
+        this.minExpiredVals = minExpiredVals;
+    }
+
+    /**
+     * Enables {@link #getPercentile(double)}, with results within the given relative error (e.g. 0.01 for 1%).
+     * Must be called before any values are added.
+     */
+    public synchronized TimeWindowedStatistics trackPercentiles(double relativeAccuracy) {
+        Preconditions.checkState(size() == 0, "percentiles must be enabled before values are added");
+        Preconditions.checkArgument(relativeAccuracy > 0 && relativeAccuracy < 1, "relativeAccuracy must be between 0 and 1");
+        histogram = new LogHistogram(relativeAccuracy);
+        return this;
+    }
+
+    public void setTimePeriod(Duration newTimePeriod) {
+        timePeriod = newTimePeriod;
+    }
+
+    public Duration getTimePeriod() {
+        return timePeriod;
+    }
+
+    public void add(double val) {
+        add(val, System.currentTimeMillis());
+    }
+
+    public synchronized void add(double val, long timestamp) {
+        Preconditions.checkArgument(!Double.isNaN(val) && !Double.isInfinite(val), "value must be finite: %s", val);
+        if (tail - head == values.length) grow();
+        
+        boolean empty = (tail == head);
+        if (!empty) timestamp = Math.max(timestamp, timestamps[index(tail-1)]);
+        int i = index(tail);
+        timestamps[i] = timestamp;
+        values[i] = val;
+        cumulativeSums[i] = (empty ? sumBase : cumulativeSums[index(tail-1)]) + val;
+        cumulativeWeightedSums[i] = empty ? weightedSumBase : 
+                cumulativeWeightedSums[index(tail-1)] + (timestamp - timestamps[index(tail-1)]) * val;
+        maxima.push(tail);
+        minima.push(tail);
+        if (histogram != null) histogram.add(val);
+        tail++;
+        
+        pruneValues(timestamp);
+    }
+
+    /** Discards values which are out of date at the given time, subject to the minimums given on construction. */
+    public synchronized void pruneValues(long now) {
+        Duration period = timePeriod;
+        if (period == null) return;
+        int expired;
+        if (period.equals(Duration.ZERO)) {
+            expired = size();
+        } else {
+            expired = (int) (firstAtOrAfter(now - period.toMilliseconds()) - head);
+        }
+        int numToPrune = Math.min(expired - minExpiredVals, size() - minVals);
+        for (int n = 0; n < numToPrune; n++) {
+            removeOldest();
+        }
+    }
+
+    /** Discards the oldest values, if necessary, to leave at most the given number. */
+    public synchronized void trimToSize(int maxSize) {
+        while (size() > Math.max(0, maxSize)) {
+            removeOldest();
+        }
+    }
+
+    public synchronized int size() {
+        return (int) (tail - head);
+    }
+
+    public synchronized boolean isEmpty() {
+        return tail == head;
+    }
+
+    /** @return the value at the given position, where 0 is the oldest value retained */
+    public synchronized double getValue(int position) {
+        return values[index(sequenceAt(position))];
+    }
+
+    /** @return the timestamp of the value at the given position, where 0 is the oldest value retained */
+    public synchronized long getTimestamp(int position) {
+        return timestamps[index(sequenceAt(position))];
+    }
+
+    /** @throws NoSuchElementException if empty */
+    public synchronized double getLatestValue() {
+        return getValue(size()-1);
+    }
+
+    /** @throws NoSuchElementException if empty */
+    public synchronized long getLatestTimestamp() {
+        return getTimestamp(size()-1);
+    }
+
+    /** @return the number of values retained with a timestamp before the given time, i.e. the position of the first one at or after it */
+    public synchronized int countBefore(long timestamp) {
+        return (int) (firstAtOrAfter(timestamp) - head);
+    }
+
+    /** @return the sum of all values (0 if empty) */
+    public synchronized double getSum() {
+        return getSum(Long.MIN_VALUE);
+    }
+
+    /** @return the sum of the values with timestamp at or after the given time (0 if none) */
+    public synchronized double getSum(long fromTimestamp) {
+        long first = firstAtOrAfter(fromTimestamp);
+        if (first == tail) return 0;
+        return cumulativeSums[index(tail-1)] - (first == head ? sumBase : cumulativeSums[index(first-1)]);
+    }
+
+    /** @return the mean of all values (NaN if empty) */
+    public synchronized double getMean() {
+        return getMean(Long.MIN_VALUE);
+    }
+
+    /** @return the mean of the values with timestamp at or after the given time (NaN if none) */
+    public synchronized double getMean(long fromTimestamp) {
+        long count = tail - firstAtOrAfter(fromTimestamp);
+        return (count == 0) ? Double.NaN : getSum(fromTimestamp) / count;
+    }
+
+    /** @return the maximum of all values (NaN if empty) */
+    public synchronized double getMax() {
+        return maxima.firstValueFrom(head);
+    }
+
+    /** @return the maximum of the values with timestamp at or after the given time (NaN if none) */
+    public synchronized double getMax(long fromTimestamp) {
+        return maxima.firstValueFrom(firstAtOrAfter(fromTimestamp));
+    }
+
+    /** @return the minimum of all values (NaN if empty) */
+    public synchronized double getMin() {
+        return minima.firstValueFrom(head);
+    }
+
+    /** @return the minimum of the values with timestamp at or after the given time (NaN if none) */
+    public synchronized double getMin(long fromTimestamp) {
+        return minima.firstValueFrom(firstAtOrAfter(fromTimestamp));
+    }
+
+    /**
+     * Returns the sum of each value (with timestamp at or after the given time) multiplied by the time in millis 
+     * for which it applied, taken as the time since the previous value, or since {@code fromTimestamp} for the first.
+     * Dividing by the length of the period gives a time-weighted mean.
+     */
+    public synchronized double getTimeWeightedSum(long fromTimestamp) {
+        long first = firstAtOrAfter(fromTimestamp);
+        if (first == tail) return 0;
+        int i = index(first);
+        return (timestamps[i] - fromTimestamp) * values[i] + (cumulativeWeightedSums[index(tail-1)] - cumulativeWeightedSums[i]);
+    }
+
+    /**
+     * Returns an approximation of the given percentile (0 to 100) of all values, 
+     * within the relative error given to {@link #trackPercentiles(double)}; or NaN if empty.
+     * 
+     * @throws IllegalStateException if percentiles are not being tracked
+     */
+    public synchronized double getPercentile(double percentile) {
+        Preconditions.checkState(histogram != null, "percentiles not enabled for %s", this);
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100: %s", percentile);
+        if (isEmpty()) return Double.NaN;
+        if (percentile == 0) return getMin();
+        if (percentile == 100) return getMax();
+        long rank = (long) Math.floor(percentile / 100 * (size() - 1));
+        double result = histogram.valueAtRank(rank);
+        return Math.max(getMin(), Math.min(getMax(), result));
+    }
+
+    /** @return a copy of the values, oldest first */
+    public synchronized List<TimestampedValue<Double>> getValues() {
+        List<TimestampedValue<Double>> result = Lists.newArrayListWithCapacity(size());
+        for (long s = head; s < tail; s++) {
+            result.add(new TimestampedValue<Double>(values[index(s)], timestamps[index(s)]));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "timePeriod="+timePeriod+", size="+size()+(isEmpty() ? "" : ", latest="+getLatestValue());
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    private long sequenceAt(int position) {
+        if (position < 0 || position >= size()) throw new NoSuchElementException("No value at position "+position+" (size "+size()+")");
+        return head + position;
+    }
+
+    /** @return sequence number of the first entry with timestamp at or after the given time, or {@link #tail} if none */
+    private long firstAtOrAfter(long timestamp) {
+        long lo = head, hi = tail;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (timestamps[index(mid)] < timestamp) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void removeOldest() {
+        int i = index(head);
+        sumBase = cumulativeSums[i];
+        weightedSumBase = cumulativeWeightedSums[i];
+        maxima.evict(head);
+        minima.evict(head);
+        if (histogram != null) histogram.remove(values[i]);
+        head++;
+        
+        // cumulative sums otherwise grow without bound, losing precision for the differences we take
+        if (++removalsSinceRebase >= Math.max(size(), INITIAL_CAPACITY)) rebase();
+    }
+
+    private void rebase() {
+        double sum = 0, weightedSum = 0;
+        for (long s = head; s < tail; s++) {
+            int i = index(s);
+            sum += values[i];
+            weightedSum += (s == head) ? 0 : (timestamps[i] - timestamps[index(s-1)]) * values[i];
+            cumulativeSums[i] = sum;
+            cumulativeWeightedSums[i] = weightedSum;
+        }
+        sumBase = 0;
+        weightedSumBase = 0;
+        removalsSinceRebase = 0;
+    }
+
+    private void grow() {
+        int newCapacity = values.length * 2;
+        long[] newTimestamps = new long[newCapacity];
+        double[] newValues = new double[newCapacity];
+        double[] newCumulativeSums = new double[newCapacity];
+        double[] newCumulativeWeightedSums = new double[newCapacity];
+        int newMask = newCapacity - 1;
+        for (long s = head; s < tail; s++) {
+            int from = index(s);
+            int to = (int) (s & newMask);
+            newTimestamps[to] = timestamps[from];
+            newValues[to] = values[from];
+            newCumulativeSums[to] = cumulativeSums[from];
+            newCumulativeWeightedSums[to] = cumulativeWeightedSums[from];
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+        cumulativeSums = newCumulativeSums;
+        cumulativeWeightedSums = newCumulativeWeightedSums;
+        mask = newMask;
+    }
+
+    /**
+     * Sequence numbers of the entries which are the max (or min) of all entries after them, 
+     * so the first such entry at or after any position is the max (or min) from that position on.
+     */
+    private class MonotonicDeque {
+        private final boolean forMax;
+        private long[] sequences = new long[INITIAL_CAPACITY];
+        private int dequeMask = INITIAL_CAPACITY-1;
+        /** positions (not sequence numbers) of the front and back of the deque */
+        private long front = 0, back = 0;
+
+        MonotonicDeque(boolean forMax) {
+            this.forMax = forMax;
+        }
+
+        void push(long sequence) {
+            double val = values[index(sequence)];
+            while (back > front) {
+                double last = values[index(sequences[(int) ((back-1) & dequeMask)])];
+                if (forMax ? last > val : last < val) break;
+                back--;
+            }
+            if (back - front == sequences.length) grow();
+            sequences[(int) (back & dequeMask)] = sequence;
+            back++;
+        }
+
+        void evict(long sequence) {
+            if (back > front && sequences[(int) (front & dequeMask)] == sequence) front++;
+        }
+
+        double firstValueFrom(long sequence) {
+            long lo = front, hi = back;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (sequences[(int) (mid & dequeMask)] < sequence) lo = mid + 1;
+                else hi = mid;
+            }
+            return (lo == back) ? Double.NaN : values[index(sequences[(int) (lo & dequeMask)])];
+        }
+
+        private void grow() {
+            long[] newSequences = new long[sequences.length * 2];
+            int newMask = newSequences.length - 1;
+            for (long p = front; p < back; p++) {
+                newSequences[(int) (p & newMask)] = sequences[(int) (p & dequeMask)];
+            }
+            sequences = newSequences;
+            dequeMask = newMask;
+        }
+    }
+
+    /**
+     * Counts of values in buckets whose bounds grow geometrically, so that any value in a bucket 
+     * is within the given relative error of the bucket's representative value.
+     */
+    private static class LogHistogram {
+        private final double gamma;
+        private final double logGamma;
+        /** keyed by bucket of the (absolute) value */
+        private final TreeMap<Integer, int[]> positives = new TreeMap<Integer, int[]>();
+        private final TreeMap<Integer, int[]> negatives = new TreeMap<Integer, int[]>();
+        private long zeros = 0;
+
+        LogHistogram(double relativeAccuracy) {
+            gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+            logGamma = Math.log(gamma);
+        }
+
+        void add(double val) {
+            if (val == 0) {
+                zeros++;
+            } else {
+                TreeMap<Integer, int[]> buckets = (val > 0) ? positives : negatives;
+                Integer key = bucket(Math.abs(val));
+                int[] count = buckets.get(key);
+                if (count == null) buckets.put(key, new int[] {1});
+                else count[0]++;
+            }
+        }
+
+        void remove(double val) {
+            if (val == 0) {
+                zeros--;
+            } else {
+                TreeMap<Integer, int[]> buckets = (val > 0) ? positives : negatives;
+                Integer key = bucket(Math.abs(val));
+                int[] count = buckets.get(key);
+                if (count != null && --count[0] <= 0) buckets.remove(key);
+            }
+        }
+
+        double valueAtRank(long rank) {
+            long seen = 0;
+            // most negative first
+            for (Map.Entry<Integer, int[]> entry : negatives.descendingMap().entrySet()) {
+                seen += entry.getValue()[0];
+                if (seen > rank) return -representative(entry.getKey());
+            }
+            seen += zeros;
+            if (seen > rank) return 0;
+            for (Map.Entry<Integer, int[]> entry : positives.entrySet()) {
+                seen += entry.getValue()[0];
+                if (seen > rank) return representative(entry.getKey());
+            }
+            throw new IllegalStateException("Rank "+rank+" out of range ("+seen+" values)");
+        }
+
+        private int bucket(double absVal) {
+            return (int) Math.ceil(Math.log(absVal) / logGamma);
+        }
+
+        private double representative(int bucket) {
+            return 2 * Math.pow(gamma, bucket) / (gamma + 1);
+        }
+    }
+}
@@ -18,6 +18,10 @@
  */
 package brooklyn.util.javalang;
 
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,4 +53,36 @@ public class Threads {
         }
     }
 
+    private static volatile Boolean virtualThreadsSupported;
+    
+    /** whether this JVM supports virtual threads (i.e. Java 21+, or earlier with preview features enabled) */
+    public static boolean isVirtualThreadsSupported() {
+        if (virtualThreadsSupported==null) {
+            virtualThreadsSupported = newVirtualThreadFactory("brooklyn-virtual-thread-check-") != null;
+        }
+        return virtualThreadsSupported;
+    }
+    
+    /**
+     * Creates a factory for virtual threads, named with the given prefix and a counter,
+     * or returns null if this JVM does not support virtual threads.
+     * <p>
+     * Uses reflection, so that this can be compiled and run on earlier versions of Java.
+     */
+    @Nullable
+    public static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = Class.forName("java.lang.Thread$Builder$OfVirtual").getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException e) {
+            // pre-Java 19
+            return null;
+        } catch (Exception e) {
+            // e.g. preview features not enabled
+            log.debug("Virtual threads not available: "+e);
+            return null;
+        }
+    }
+
 }
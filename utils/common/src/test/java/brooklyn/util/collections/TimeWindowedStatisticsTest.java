@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package brooklyn.util.collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import brooklyn.util.time.Duration;
+
+import com.google.common.collect.Lists;
+
+public class TimeWindowedStatisticsTest {
+
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testKeepsMinVals() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.millis(1), 2, 0);
+        
+        stats.add(1, 0L);
+        stats.add(2, 100L);
+        assertEquals(stats.getValues(), timestampedValues(1, 0L, 2, 100L));
+        
+        stats.add(3, 200L);
+        assertEquals(stats.getValues(), timestampedValues(2, 100L, 3, 200L));
+    }
+    
+    @Test
+    public void testKeepsOnlyRecentVals() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.millis(1000));
+        
+        stats.add(1, 0L);
+        stats.add(2, 100L);
+        stats.pruneValues(1000L);
+        assertEquals(stats.getValues(), timestampedValues(1, 0L, 2, 100L));
+        stats.pruneValues(1100L);
+        assertEquals(stats.getValues(), timestampedValues(2, 100L));
+        stats.pruneValues(1101L);
+        assertEquals(stats.getValues(), timestampedValues());
+        assertTrue(stats.isEmpty());
+    }
+    
+    @Test
+    public void testKeepsMinExpiredVals() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.millis(1000), 0, 1);
+        
+        stats.add(1, 0L);
+        stats.add(2, 100L);
+        stats.pruneValues(1001L);
+        assertEquals(stats.getValues(), timestampedValues(1, 0L, 2, 100L));
+        stats.pruneValues(1101L);
+        assertEquals(stats.getValues(), timestampedValues(2, 100L));
+    }
+    
+    @Test
+    public void testZeroTimePeriodExpiresAll() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.ZERO, 0, 1);
+        
+        stats.add(1, 0L);
+        stats.add(2, 0L);
+        assertEquals(stats.getValues(), timestampedValues(2, 0L));
+    }
+    
+    @Test
+    public void testSumMeanMinMax() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics();
+        assertEquals(stats.getSum(), 0d);
+        assertTrue(Double.isNaN(stats.getMean()));
+        assertTrue(Double.isNaN(stats.getMax()));
+        assertTrue(Double.isNaN(stats.getMin()));
+        
+        stats.add(3, 0L);
+        stats.add(1, 10L);
+        stats.add(4, 20L);
+        stats.add(2, 30L);
+        
+        assertEquals(stats.getSum(), 10d, DELTA);
+        assertEquals(stats.getMean(), 2.5d, DELTA);
+        assertEquals(stats.getMax(), 4d);
+        assertEquals(stats.getMin(), 1d);
+        
+        // sub-window
+        assertEquals(stats.getSum(10L), 7d, DELTA);
+        assertEquals(stats.getMean(11L), 3d, DELTA);
+        assertEquals(stats.getMax(21L), 2d);
+        assertEquals(stats.getMin(20L), 2d);
+        assertEquals(stats.getSum(31L), 0d);
+        assertTrue(Double.isNaN(stats.getMax(31L)));
+        
+        assertEquals(stats.countBefore(20L), 2);
+        assertEquals(stats.getLatestValue(), 2d);
+        assertEquals(stats.getLatestTimestamp(), 30L);
+    }
+    
+    @Test
+    public void testTrimToSize() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics();
+        for (int i = 0; i < 100; i++) {
+            stats.add(i, i);
+        }
+        stats.trimToSize(3);
+        assertEquals(stats.getValues(), timestampedValues(97, 97L, 98, 98L, 99, 99L));
+        assertEquals(stats.getSum(), 294d, DELTA);
+        assertEquals(stats.getMin(), 97d);
+        assertEquals(stats.getMax(), 99d);
+    }
+    
+    @Test
+    public void testTimeWeightedSum() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics();
+        stats.add(10, 100L);
+        stats.add(20, 150L);
+        stats.add(30, 200L);
+        
+        // 10 applies for 100-50; 20 for 150-100; 30 for 200-150
+        assertEquals(stats.getTimeWeightedSum(50L), 10*50 + 20*50 + 30*50d, DELTA);
+        // from 120: 20 applies for 150-120; 30 for 200-150
+        assertEquals(stats.getTimeWeightedSum(120L), 20*30 + 30*50d, DELTA);
+        assertEquals(stats.getTimeWeightedSum(201L), 0d);
+    }
+    
+    @Test
+    public void testOutOfOrderTimestampTreatedAsLatest() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics();
+        stats.add(1, 100L);
+        stats.add(2, 50L);
+        assertEquals(stats.getValues(), timestampedValues(1, 100L, 2, 100L));
+    }
+    
+    @Test(expectedExceptions=IllegalArgumentException.class)
+    public void testRejectsNaN() {
+        new TimeWindowedStatistics().add(Double.NaN, 0L);
+    }
+    
+    @Test
+    public void testMatchesBruteForceOnRandomData() {
+        Random random = new Random(1234);
+        TimeWindowedStatistics stats = new TimeWindowedStatistics(Duration.millis(500));
+        List<double[]> expected = Lists.newLinkedList();
+        long time = 0;
+        
+        for (int i = 0; i < 5000; i++) {
+            // bursts of values, to grow the buffers, then gaps, to shrink the window
+            time += (i % 1000 < 500) ? random.nextInt(2) : random.nextInt(50);
+            double val = random.nextInt(1000) - 500;
+            stats.add(val, time);
+            expected.add(new double[] {val, time});
+            while (expected.get(0)[1] < time - 500) {
+                expected.remove(0);
+            }
+            
+            if (i % 7 == 0) {
+                assertEquals(stats.size(), expected.size());
+                long from = time - random.nextInt(600);
+                double sum = 0, min = Double.NaN, max = Double.NaN;
+                for (double[] e : expected) {
+                    if (e[1] < from) continue;
+                    sum += e[0];
+                    min = Double.isNaN(min) ? e[0] : Math.min(min, e[0]);
+                    max = Double.isNaN(max) ? e[0] : Math.max(max, e[0]);
+                }
+                assertEquals(stats.getSum(from), sum, DELTA, "i="+i);
+                assertEquals(stats.getMin(from), min, "i="+i);
+                assertEquals(stats.getMax(from), max, "i="+i);
+            }
+        }
+    }
+    
+    @Test
+    public void testPercentilesWithinRelativeAccuracy() {
+        Random random = new Random(1234);
+        TimeWindowedStatistics stats = new TimeWindowedStatistics().trackPercentiles(0.01);
+        List<Double> sorted = Lists.newArrayList();
+        for (int i = 0; i < 10000; i++) {
+            double val = random.nextDouble() * 1000 - 100;
+            stats.add(val, i);
+            sorted.add(val);
+        }
+        // discarded values must no longer count
+        stats.trimToSize(5000);
+        sorted = Lists.newArrayList(sorted.subList(5000, 10000));
+        Collections.sort(sorted);
+        
+        for (double p : new double[] {1, 10, 50, 90, 99}) {
+            double expected = sorted.get((int) Math.floor(p / 100 * (sorted.size() - 1)));
+            double actual = stats.getPercentile(p);
+            assertEquals(actual, expected, Math.abs(expected) * 0.01 + DELTA, "p="+p);
+        }
+        assertEquals(stats.getPercentile(0), sorted.get(0));
+        assertEquals(stats.getPercentile(100), sorted.get(sorted.size()-1));
+    }
+    
+    @Test(expectedExceptions=IllegalStateException.class)
+    public void testPercentilesRequireTracking() {
+        TimeWindowedStatistics stats = new TimeWindowedStatistics();
+        stats.add(1, 0L);
+        stats.getPercentile(50);
+    }
+    
+    private static List<TimestampedValue<Double>> timestampedValues(Object... data) {
+        List<TimestampedValue<Double>> result = Lists.newArrayList();
+        for (int i = 0; i < data.length; i+=2) {
+            result.add(new TimestampedValue<Double>(((Number)data[i]).doubleValue(), (Long)data[i+1]));
+        }
+        return result;
+    }
+}